@@ -3,6 +3,7 @@ package cz.cuni.mff.d3s.been.api;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -11,6 +12,7 @@ import com.hazelcast.core.Member;
 
 import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
 import cz.cuni.mff.d3s.been.core.benchmark.BenchmarkEntry;
+import cz.cuni.mff.d3s.been.core.persistence.Entity;
 import cz.cuni.mff.d3s.been.core.protocol.command.CommandEntry;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
 import cz.cuni.mff.d3s.been.core.service.ServiceInfo;
@@ -19,6 +21,8 @@ import cz.cuni.mff.d3s.been.debugassistant.DebugListItem;
 import cz.cuni.mff.d3s.been.evaluators.EvaluatorResult;
 import cz.cuni.mff.d3s.been.logging.ServiceLogMessage;
 import cz.cuni.mff.d3s.been.logging.TaskLogMessage;
+import cz.cuni.mff.d3s.been.persistence.Query;
+import cz.cuni.mff.d3s.been.persistence.QueryBuilder;
 
 /**
  * The BeenApi interface provides access and API to the BEEN cluster. All client
@@ -453,6 +457,36 @@ public interface BeenApi {
 	 */
 	public Map<String, TaskState> getTaskStatesForBenchmark(String benchmarkId) throws BeenApiException;
 
+	/**
+	 * Aggregates the durations of the phases of the start of all finished and
+	 * failed tasks that had run on the specified Host Runtime. This method
+	 * retrieves its data from the persistence layer, only the most recent task
+	 * outcomes are taken into account.
+	 * 
+	 * @param runtimeId
+	 *          ID of the Host Runtime
+	 * @return percentiles of the startup phase durations
+	 * @throws BeenApiException
+	 *           in case of an internal exception, see {@link BeenApi} for
+	 *           discussion
+	 */
+	public TaskStartupStatistics getTaskStartupStatisticsForRuntime(String runtimeId) throws BeenApiException;
+
+	/**
+	 * Aggregates the durations of the phases of the start of all finished and
+	 * failed tasks that had run from the specified BPK. This method retrieves its
+	 * data from the persistence layer, only the most recent task outcomes are
+	 * taken into account.
+	 * 
+	 * @param bpkIdentifier
+	 *          identifier of the BPK
+	 * @return percentiles of the startup phase durations
+	 * @throws BeenApiException
+	 *           in case of an internal exception, see {@link BeenApi} for
+	 *           discussion
+	 */
+	public TaskStartupStatistics getTaskStartupStatisticsForBpk(BpkIdentifier bpkIdentifier) throws BeenApiException;
+
 	/**
 	 * Submits a new task with the specified task descriptor. This creates a new
 	 * task entry in the Hazelcast map and returns the generated ID of the newly
@@ -695,6 +729,9 @@ public interface BeenApi {
 	 * the specified ID. Note that logs can be automatically removed after some
 	 * time.
 	 * 
+	 * All messages are held in memory, use {@link #iterateLogsForTask(String)}
+	 * for tasks with many log messages.
+	 * 
 	 * @param taskId
 	 *          ID of the task
 	 * @return a collection of all available log message for the specified task
@@ -706,8 +743,69 @@ public interface BeenApi {
 	public Collection<TaskLogMessage> getLogsForTask(String taskId) throws BeenApiException;
 
 	/**
-	 * Adds a global log listener, that will subsequently receive a notification
-	 * about every newly created log message.
+	 * Returns an iterator over all task log messages from the task with the
+	 * specified ID, sorted by date. The messages are fetched from the
+	 * persistence layer lazily, one page at a time.
+	 * 
+	 * Failures to fetch a page during the iteration are reported as
+	 * {@link cz.cuni.mff.d3s.been.persistence.PageFetchException}.
+	 * 
+	 * @param taskId
+	 *          ID of the task
+	 * @return an iterator over the log messages of the specified task
+	 * @throws BeenApiException
+	 *           in case of an internal exception, see {@link BeenApi} for
+	 *           discussion
+	 */
+	public Iterator<TaskLogMessage> iterateLogsForTask(String taskId) throws BeenApiException;
+
+	/**
+	 * Returns a window of the task log messages from the task with the
+	 * specified ID, sorted by date. Only the requested window is read from the
+	 * persistence layer.
+	 * 
+	 * @param taskId
+	 *          ID of the task
+	 * @param skip
+	 *          number of (oldest) log messages to skip
+	 * @param limit
+	 *          maximum number of log messages to return
+	 * @return at most <code>limit</code> log messages of the specified task,
+	 *         sorted by date
+	 * @throws BeenApiException
+	 *           in case of an internal exception, see {@link BeenApi} for
+	 *           discussion
+	 */
+	public Collection<TaskLogMessage> getLogsForTask(String taskId, int skip, int limit) throws BeenApiException;
+
+	/**
+	 * Returns an iterator over entities matched by a fetch query. If the query
+	 * has a page size set (see {@link QueryBuilder#pageSize(int)}), the matching
+	 * entities are fetched from the persistence layer lazily, one page at a
+	 * time, so that large result sets never have to be held in memory (or in
+	 * the cluster) as a whole.
+	 * 
+	 * Failures to fetch a page during the iteration are reported as
+	 * {@link cz.cuni.mff.d3s.been.persistence.PageFetchException}.
+	 * 
+	 * @param query
+	 *          the fetch query to iterate over
+	 * @param entityClass
+	 *          class of the fetched entities
+	 * @param <T>
+	 *          type of the fetched entities
+	 * @return an iterator over the matched entities
+	 * @throws BeenApiException
+	 *           in case of an internal exception, see {@link BeenApi} for
+	 *           discussion
+	 */
+	public <T extends Entity> Iterator<T> iterate(Query query, Class<T> entityClass) throws BeenApiException;
+
+	/**
+	 * Adds a global log listener, that will subsequently receive notifications
+	 * about the latest log messages of running tasks. Host Runtimes publish the
+	 * latest message of each task at a bounded rate, and only while at least one
+	 * listener is registered, so a listener does not see every message.
 	 * 
 	 * @param listener
 	 *          the log listener to add
@@ -57,12 +57,33 @@ final class BeenApiImpl implements BeenApi {
 	/** class slf4j logger */
 	private static final Logger log = LoggerFactory.getLogger(BeenApiImpl.class);
 
+	/** Number of log messages fetched from the persistence layer at once */
+	private static final int LOG_PAGE_SIZE = 1000;
+
+	/** Maximum number of the most recent task outcomes startup statistics are computed from */
+	private static final int STARTUP_STATISTICS_OUTCOMES = 1000;
+
+	/**
+	 * Time to live of a log listener's entry in the subscribers map, in seconds.
+	 * The entries are refreshed while the listeners are registered, so the
+	 * entries of a client which disconnects without removing its listeners
+	 * expire.
+	 */
+	private static final int LOG_SUBSCRIPTION_TTL = 60;
+
 	/** BEEN cluster context instance */
 	private final ClusterContext clusterContext;
 
 	/** JSON utility instance for serialization/deserialization */
 	private final JSONUtils jsonUtils = JSONUtils.newInstance();
 
+	/** Keys of registered log listeners in the subscribers map */
+	private final Map<EntryListener<String, String>, String> logSubscriptions = Collections.synchronizedMap(
+			new IdentityHashMap<EntryListener<String, String>, String>());
+
+	/** Whether the refreshing of the log subscriptions has been scheduled */
+	private boolean logSubscriptionsRefreshed;
+
 	/**
 	 * Default constructor, which connects to the BEEN cluster as a native
 	 * Hazelcast client using the specified connection credentials. There must
@@ -96,6 +117,11 @@ final class BeenApiImpl implements BeenApi {
 
 	@Override
 	public void shutdown() {
+		try {
+			clusterContext.<String, Long> getMap(Names.LOGS_SUBSCRIBERS_MAP_NAME).keySet().removeAll(getLogSubscriptions());
+		} catch (Exception e) {
+			log.debug("Cannot remove log subscriptions, they will expire", e);
+		}
 		clusterContext.stop();
 		Instance.shutdown();
 	}
@@ -460,6 +486,11 @@ final class BeenApiImpl implements BeenApi {
 
 		try {
 			clusterContext.<String, String> getMap(Names.LOGS_TASK_MAP_NAME).addEntryListener(listener, true);
+
+			final String subscription = UUID.randomUUID().toString();
+			putLogSubscription(subscription);
+			logSubscriptions.put(listener, subscription);
+			scheduleLogSubscriptionsRefresh();
 		} catch (Exception e) {
 			throw createBeenApiException(errorMsg, e);
 		}
@@ -472,33 +503,97 @@ final class BeenApiImpl implements BeenApi {
 
 		try {
 			clusterContext.<String, String> getMap(Names.LOGS_TASK_MAP_NAME).removeEntryListener(listener);
+
+			final String subscription = logSubscriptions.remove(listener);
+			if (subscription != null) {
+				clusterContext.<String, Long> getMap(Names.LOGS_SUBSCRIBERS_MAP_NAME).remove(subscription);
+			}
 		} catch (Exception e) {
 			throw createBeenApiException(errorMsg, e);
 		}
 	}
 
+	private void putLogSubscription(final String subscription) {
+		clusterContext.<String, Long> getMap(Names.LOGS_SUBSCRIBERS_MAP_NAME).put(
+				subscription,
+				System.currentTimeMillis(),
+				LOG_SUBSCRIPTION_TTL,
+				TimeUnit.SECONDS);
+	}
+
+	private Collection<String> getLogSubscriptions() {
+		synchronized (logSubscriptions) {
+			return new ArrayList<>(logSubscriptions.values());
+		}
+	}
+
+	/**
+	 * Schedules the periodic refresh of the entries of the registered log
+	 * listeners in the subscribers map, unless already scheduled.
+	 */
+	private synchronized void scheduleLogSubscriptionsRefresh() {
+		if (logSubscriptionsRefreshed) {
+			return;
+		}
+		final int period = LOG_SUBSCRIPTION_TTL / 3;
+		clusterContext.schedule(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for (String subscription : getLogSubscriptions()) {
+						putLogSubscription(subscription);
+					}
+				} catch (Exception e) {
+					log.warn("Cannot refresh log subscriptions", e);
+				}
+			}
+		}, period, period, TimeUnit.SECONDS);
+		logSubscriptionsRefreshed = true;
+	}
+
 	@Override
 	public Collection<TaskLogMessage> getLogsForTask(final String taskId) throws BeenApiException {
 		final String errorMsg = String.format("Failed to list logs for task with id '%s'", taskId);
-		final Query query = new QueryBuilder().on(Entities.LOG_TASK.getId()).with("taskId", taskId).fetch();
+
+		return fetchAll(createTaskLogsQuery(taskId), TaskLogMessage.class, errorMsg);
+	}
+
+	@Override
+	public Iterator<TaskLogMessage> iterateLogsForTask(final String taskId) throws BeenApiException {
+		final String errorMsg = String.format("Failed to iterate over logs for task with id '%s'", taskId);
+
+		return iterate(createTaskLogsQuery(taskId), TaskLogMessage.class, errorMsg);
+	}
+
+	private Query createTaskLogsQuery(final String taskId) {
+		return new QueryBuilder().on(Entities.LOG_TASK.getId()).with("taskId", taskId).orderBy("created").pageSize(
+				LOG_PAGE_SIZE).fetch();
+	}
+
+	@Override
+	public Collection<TaskLogMessage> getLogsForTask(final String taskId, final int skip, final int limit) throws BeenApiException {
+		final String errorMsg = String.format(
+				"Failed to list logs %d to %d for task with id '%s'",
+				skip,
+				skip + limit,
+				taskId);
+		final Query query = new QueryBuilder().on(Entities.LOG_TASK.getId()).with("taskId", taskId).orderBy("created").skip(
+				skip).limit(limit).fetch();
 
 		final QueryAnswer answer = performQuery(query, errorMsg);
 
 		try {
-			List<TaskLogMessage> logs = new ArrayList<>(unpackDataAnswer(query, answer, TaskLogMessage.class));
-			Comparator<TaskLogMessage> comparator = new Comparator<TaskLogMessage>() {
-				@Override
-				public int compare(TaskLogMessage o1, TaskLogMessage o2) {
-					return new Long(o1.getCreated()).compareTo(o2.getCreated());
-				}
-			};
-			Collections.sort(logs, comparator);
-			return logs;
+			return unpackDataAnswer(query, answer, TaskLogMessage.class);
 		} catch (DAOException e) {
-			throw createBeenApiException(errorMsg, e);
+			throw createPersistenceException(errorMsg, e);
 		}
 	}
 
+	@Override
+	public <T extends Entity> Iterator<T> iterate(final Query query, final Class<T> entityClass) throws BeenApiException {
+		return iterate(query, entityClass, String.format("Failed to iterate over answer to query '%s'", query));
+	}
+
 	@Override
 	public Collection<EvaluatorResult> getEvaluatorResults() throws BeenApiException {
 		final String errorMsg = "Failed to list logs for task";
@@ -822,7 +917,7 @@ final class BeenApiImpl implements BeenApi {
 		try {
 			long operationId = clusterContext.generateId(DeleteTaskWrkDirMessage.OPERATION_ID_KEY);
 			final DeleteTaskWrkDirMessage deleteMessage = new DeleteTaskWrkDirMessage(runtimeId, taskWrkDir, operationId);
-			clusterContext.getTopics().publishInGlobalTopic(deleteMessage);
+			clusterContext.getTopics().publishToRuntime(runtimeId, deleteMessage);
 
 			final IMap<Long, CommandEntry> map = clusterContext.getMap(Names.BEEN_MAP_COMMAND_ENTRIES);
 
@@ -955,22 +1050,6 @@ final class BeenApiImpl implements BeenApi {
 		}
 	}
 
-	/**
-	 * Performs a general query (e.g. fetch, delete, ...) in the persistence layer
-	 * and returns a {@link QueryAnswer} object that represent the query result
-	 * and the returned data (if there are any).
-	 * 
-	 * @param query
-	 *          the query to execute
-	 * @return the query answer
-	 * @throws BeenApiException
-	 *           in case of an internal exception, see {@link BeenApi} for
-	 *           discussion
-	 */
-	private QueryAnswer queryPersistence(final Query query) throws BeenApiException {
-		return performQuery(query, "Failed to perform persistence query");
-	}
-
 	@Override
 	public Collection<CommandEntry> listCommandEntries(final String runtimeId) throws BeenApiException {
 		final String errorMsg = String.format("Failed to list command entries for runtime '%s'", runtimeId);
@@ -1042,15 +1121,10 @@ final class BeenApiImpl implements BeenApi {
 		final String errorMsg = String.format(
 				"Failed to list service logs for service with participant id '%s'",
 				participantId);
-		final Query query = new QueryBuilder().on(Entities.LOG_SERVICE.getId()).with("beenId", participantId).fetch();
+		final Query query = new QueryBuilder().on(Entities.LOG_SERVICE.getId()).with("beenId", participantId).orderBy("created").pageSize(
+				LOG_PAGE_SIZE).fetch();
 
-		final QueryAnswer answer = performQuery(query, errorMsg);
-
-		try {
-			return unpackDataAnswer(query, answer, ServiceLogMessage.class);
-		} catch (DAOException e) {
-			throw createPersistenceException(errorMsg, e);
-		}
+		return fetchAll(query, ServiceLogMessage.class, errorMsg);
 	}
 
 	@Override
@@ -1058,28 +1132,19 @@ final class BeenApiImpl implements BeenApi {
 			Collection<ServiceLogMessage>
 			getServiceLogsByHostRuntimeId(final String hostRuntimeId) throws BeenApiException {
 		final String errorMsg = String.format("Failed to list host runtime logs for runtime with id '%s'", hostRuntimeId);
-		final Query query = new QueryBuilder().on(Entities.LOG_SERVICE.getId()).with("hostRuntimeId", hostRuntimeId).fetch();
-
-		final QueryAnswer answer = performQuery(query, errorMsg);
+		final Query query = new QueryBuilder().on(Entities.LOG_SERVICE.getId()).with("hostRuntimeId", hostRuntimeId).orderBy("created").pageSize(
+				LOG_PAGE_SIZE).fetch();
 
-		try {
-			return unpackDataAnswer(query, answer, ServiceLogMessage.class);
-		} catch (DAOException e) {
-			throw createPersistenceException(errorMsg, e);
-		}
+		return fetchAll(query, ServiceLogMessage.class, errorMsg);
 	}
 
 	@Override
 	public Collection<ServiceLogMessage> getServiceLogsByServiceName(final String serviceName) throws BeenApiException {
 		final String errorMsg = String.format("Failed to list logs for service '%s'", serviceName);
-		final Query query = new QueryBuilder().on(Entities.LOG_SERVICE.getId()).with("serviceName", serviceName).fetch();
-		final QueryAnswer answer = performQuery(query, errorMsg);
+		final Query query = new QueryBuilder().on(Entities.LOG_SERVICE.getId()).with("serviceName", serviceName).orderBy("created").pageSize(
+				LOG_PAGE_SIZE).fetch();
 
-		try {
-			return unpackDataAnswer(query, answer, ServiceLogMessage.class);
-		} catch (DAOException e) {
-			throw createPersistenceException(errorMsg, e);
-		}
+		return fetchAll(query, ServiceLogMessage.class, errorMsg);
 	}
 
 	@Override
@@ -1095,14 +1160,9 @@ final class BeenApiImpl implements BeenApi {
 
 		final Query query = new QueryBuilder().on(Entities.LOG_SERVICE.getId()).with("created").between(
 				timeToday,
-				timeTomorrow).fetch();
-		final QueryAnswer answer = queryPersistence(query);
+				timeTomorrow).orderBy("created").pageSize(LOG_PAGE_SIZE).fetch();
 
-		try {
-			return unpackDataAnswer(query, answer, ServiceLogMessage.class);
-		} catch (DAOException e) {
-			throw createPersistenceException(errorMsg, e);
-		}
+		return fetchAll(query, ServiceLogMessage.class, errorMsg);
 	}
 
 	/**
@@ -1270,6 +1330,65 @@ final class BeenApiImpl implements BeenApi {
 		}
 	}
 
+	@Override
+	public TaskStartupStatistics getTaskStartupStatisticsForRuntime(final String runtimeId) throws BeenApiException {
+		final String errorMsg = String.format("Failed to aggregate startup times of tasks run on runtime '%s'", runtimeId);
+		final Query query = createStartupOutcomesQuery("runtimeId", runtimeId);
+		return getTaskStartupStatistics(query, errorMsg);
+	}
+
+	@Override
+	public TaskStartupStatistics getTaskStartupStatisticsForBpk(final BpkIdentifier bpkIdentifier) throws BeenApiException {
+		final String bpk = PersistentTaskState.createBpkKey(
+				bpkIdentifier.getGroupId(),
+				bpkIdentifier.getBpkId(),
+				bpkIdentifier.getVersion());
+		final String errorMsg = String.format("Failed to aggregate startup times of tasks run from BPK '%s'", bpk);
+		final Query query = createStartupOutcomesQuery("bpk", bpk);
+		return getTaskStartupStatistics(query, errorMsg);
+	}
+
+	/**
+	 * Creates a query for the most recent task outcomes with an attribute value.
+	 * Outcome collections grow with every task run, so the statistics are
+	 * computed from a bounded number of outcomes, read through the
+	 * <code>(attribute, created)</code> index.
+	 */
+	private Query createStartupOutcomesQuery(final String attribute, final String value) {
+		return new QueryBuilder().on(Entities.OUTCOME_TASK.getId()).with(attribute, value).orderBy(
+				"created",
+				SortOrder.DESCENDING).limit(STARTUP_STATISTICS_OUTCOMES).fetch();
+	}
+
+	/**
+	 * Aggregates startup times of task outcomes matching a query. A task has an
+	 * outcome for every state it reported, only the outcome with the most startup
+	 * timestamps is taken into account.
+	 */
+	private TaskStartupStatistics getTaskStartupStatistics(final Query query, final String errorMsg) throws BeenApiException {
+		final QueryAnswer answer = performQuery(query, errorMsg);
+
+		final Collection<PersistentTaskState> states;
+		try {
+			states = unpackDataAnswer(query, answer, PersistentTaskState.class);
+		} catch (DAOException e) {
+			throw createPersistenceException(errorMsg, e);
+		}
+
+		final Map<String, Map<String, Long>> startupTimes = new HashMap<>(states.size());
+		for (PersistentTaskState pState : states) {
+			final Map<String, Long> times = pState.getStartupTimes();
+			if (times == null) {
+				continue;
+			}
+			final Map<String, Long> known = startupTimes.get(pState.getTaskId());
+			if (known == null || known.size() < times.size()) {
+				startupTimes.put(pState.getTaskId(), times);
+			}
+		}
+		return TaskStartupStatistics.compute(startupTimes.values());
+	}
+
 	// --------------------
 	// PERSISTENCE CLEARING
 	// --------------------
@@ -1334,6 +1453,77 @@ final class BeenApiImpl implements BeenApi {
 		}
 	}
 
+	/**
+	 * Fetch all entities matched by a (possibly paged) fetch query, one page at
+	 * a time.
+	 * 
+	 * @param query
+	 *          fetch query to perform
+	 * @param entityClass
+	 *          class of the fetched entities
+	 * @param errorMsg
+	 *          if the operation fails, message will be added to produced
+	 *          exception
+	 * @param <T>
+	 *          the type of the entity
+	 * @return all matched entities, in query order
+	 * @throws BeenApiException
+	 *           when any of the pages cannot be fetched
+	 */
+	private <T extends Entity> List<T> fetchAll(final Query query, final Class<T> entityClass, final String errorMsg) throws BeenApiException {
+		final Iterator<T> entities = iterate(query, entityClass, errorMsg);
+
+		try {
+			final List<T> result = new ArrayList<>();
+			while (entities.hasNext()) {
+				result.add(entities.next());
+			}
+			return result;
+		} catch (PageFetchException e) {
+			throw createPersistenceException(errorMsg, e.getCause());
+		}
+	}
+
+	/**
+	 * Create a lazy iterator over entities matched by a fetch query. Individual
+	 * pages are retrieved through the cluster's persistence layer.
+	 * 
+	 * @param query
+	 *          fetch query to iterate over
+	 * @param entityClass
+	 *          class of the fetched entities
+	 * @param errorMsg
+	 *          if the operation fails, message will be added to produced
+	 *          exception
+	 * @param <T>
+	 *          the type of the entity
+	 * @return the iterator
+	 * @throws BeenApiException
+	 *           when been api is not connected to cluster or the query is not a
+	 *           fetch query
+	 */
+	private <T extends Entity> Iterator<T> iterate(final Query query, final Class<T> entityClass,
+			final String errorMsg) throws BeenApiException {
+		checkIsActive(errorMsg);
+
+		final QueryPageSource pageSource = new QueryPageSource() {
+			@Override
+			public QueryAnswer fetch(Query page) throws DAOException {
+				final QueryAnswer answer = clusterContext.getPersistence().query(page);
+				if (!answer.getStatus().isOk()) {
+					throw new DAOException(answer.getStatus().getDescription());
+				}
+				return answer;
+			}
+		};
+
+		try {
+			return new PagedQueryIterator<T>(query, pageSource, jsonUtils, entityClass);
+		} catch (DAOException e) {
+			throw createPersistenceException(errorMsg, e);
+		}
+	}
+
 	/**
 	 * Perform given query operation
 	 * 
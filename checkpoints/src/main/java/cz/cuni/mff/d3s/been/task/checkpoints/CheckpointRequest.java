@@ -4,6 +4,7 @@ import cz.cuni.mff.d3s.been.core.TaskPropertyNames;
 import cz.cuni.mff.d3s.been.socketworks.twoway.Request;
 import cz.cuni.mff.d3s.been.util.JSONUtils;
 import cz.cuni.mff.d3s.been.util.JsonException;
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
 
 /**
  * Class representing a simple checkpoint request (wait, get, etc.)
@@ -94,8 +95,8 @@ public final class CheckpointRequest extends Request {
 	 * system environment properties.
 	 */
 	public void fillInTaskAndContextId() {
-		this.taskId = System.getenv(TaskPropertyNames.TASK_ID);
-		this.taskContextId = System.getenv(TaskPropertyNames.CONTEXT_ID);
+		this.taskId = TaskEnvironment.get(TaskPropertyNames.TASK_ID);
+		this.taskContextId = TaskEnvironment.get(TaskPropertyNames.CONTEXT_ID);
 	}
 
 	/**
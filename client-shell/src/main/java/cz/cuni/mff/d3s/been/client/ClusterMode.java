@@ -1,6 +1,7 @@
 package cz.cuni.mff.d3s.been.client;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 
 import jline.console.ConsoleReader;
@@ -127,9 +128,9 @@ class ClusterMode extends AbstractMode {
 	private void handleLogs(String[] args) throws DAOException, BeenApiException {
 
 		if (args.length == 2) {
-			Collection<TaskLogMessage> logs;
-			logs = api.getLogsForTask(args[1]);
-			for (TaskLogMessage msg : logs) {
+			Iterator<TaskLogMessage> logs = api.iterateLogsForTask(args[1]);
+			while (logs.hasNext()) {
+				TaskLogMessage msg = logs.next();
 				try {
 					out.printf("\t%s\n", jsonUtils.serialize(msg));
 				} catch (JsonException e) {
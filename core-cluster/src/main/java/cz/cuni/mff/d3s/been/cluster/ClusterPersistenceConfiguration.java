@@ -28,4 +28,16 @@ public class ClusterPersistenceConfiguration implements BeenServiceConfiguration
 	 * {@code DEFAULT_QUERY_PROCESSING_TIMEOUT}seconds
 	 */
 	public static final Long DEFAULT_QUERY_PROCESSING_TIMEOUT = 5l;
+
+	/**
+	 * Property that contains the longest time (in milliseconds) a producer waits
+	 * before enqueueing an object for persistence while the object repository
+	 * asks producers to slow down.
+	 */
+	public static final String BACKPRESSURE_MAX_WAIT = "been.cluster.persistence.backpressure-max-wait";
+	/**
+	 * By default, a producer waits at most {@value} milliseconds for the
+	 * persistence queue to drain before enqueueing an object anyway
+	 */
+	public static final Long DEFAULT_BACKPRESSURE_MAX_WAIT = 2000l;
 }
@@ -50,6 +50,13 @@ public class Names {
 	 */
 	public static final String PERSISTENCE_QUERY_ANSWERS_MAP_NAME = "BEEN_PERSISTENCE_ANSWERS";
 
+	/**
+	 * Map through which object repositories ask persistence producers to slow
+	 * down. Keyed by the name of the congested queue, entries expire on their
+	 * own when not refreshed.
+	 */
+	public static final String PERSISTENCE_BACKPRESSURE_MAP_NAME = "BEEN_PERSISTENCE_BACKPRESSURE";
+
 	/**
 	 * Map with last log for a task.
 	 */
@@ -65,6 +72,12 @@ public class Names {
 	 */
 	public static final String LOGS_BENCHMARK_MAP_NAME = "been.task.logs.benchmark";
 
+	/**
+	 * Map of registered live log listeners. Host Runtimes publish the latest
+	 * task logs only while it is not empty.
+	 */
+	public static final String LOGS_SUBSCRIBERS_MAP_NAME = "been.task.logs.subscribers";
+
 	// QUEUE NAMES
 
 	/**
@@ -93,4 +106,22 @@ public class Names {
 
 	/** Name of the global Host Runtime Topic. */
 	public static final String BEEN_GLOBAL_TOPIC = "BEEN_GLOBAL_TOPIC";
+
+	/**
+	 * Prefix of the names of Host Runtime inbox topics, followed by the ID of the
+	 * Host Runtime.
+	 */
+	public static final String BEEN_RUNTIME_TOPIC_PREFIX = "BEEN_RUNTIME_TOPIC_";
+
+	/**
+	 * Prefix of the names of atomic numbers counting finished tasks of a task
+	 * context, followed by the ID of the context.
+	 */
+	public static final String CONTEXT_FINISHED_COUNTER_PREFIX = "BEEN_CONTEXT_FINISHED_";
+
+	/**
+	 * Prefix of the names of atomic numbers counting aborted tasks of a task
+	 * context, followed by the ID of the context.
+	 */
+	public static final String CONTEXT_ABORTED_COUNTER_PREFIX = "BEEN_CONTEXT_ABORTED_";
 }
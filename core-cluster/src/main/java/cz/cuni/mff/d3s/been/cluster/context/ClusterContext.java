@@ -481,6 +481,20 @@ public class ClusterContext {
 		scheduler.scheduleAtFixedRate(runnable, initialDelay, period, timeUnit);
 	}
 
+	/**
+	 * Schedules a runnable job to be run once after a delay.
+	 * 
+	 * @param runnable
+	 *          the runnable job to be scheduled
+	 * @param delay
+	 *          delay before the job will be run
+	 * @param timeUnit
+	 *          the time unit in which the delay is represented
+	 */
+	public void schedule(Runnable runnable, int delay, TimeUnit timeUnit) {
+		scheduler.schedule(runnable, delay, timeUnit);
+	}
+
 	/**
 	 * Stops the scheduler and all scheduled tasks.
 	 */
@@ -30,6 +30,9 @@ import cz.cuni.mff.d3s.been.util.PropertyReader;
  */
 public class Persistence {
 
+	/** how long (in milliseconds) a persistence queue congestion check stays valid */
+	private static final long BACKPRESSURE_CHECK_INTERVAL_MILLIS = 100;
+
 	/** timeout for persistence queries in seconds */
 	private final Long queryTimeout;
 
@@ -48,6 +51,18 @@ public class Persistence {
 	/** utility class for (de)serialization */
 	private final JSONUtils jsonUtils;
 
+	/** map of congested persistence queues */
+	private final IMap<String, Integer> backpressure;
+
+	/** longest wait (in milliseconds) for a congested persistence queue */
+	private final long backpressureMaxWait;
+
+	/** whether the persistence queue was congested at the last check */
+	private volatile boolean throttled = false;
+
+	/** time of the last persistence queue congestion check */
+	private volatile long lastBackpressureCheck = 0;
+
 	/**
 	 * Package private constructor, creates a new instance that uses the specified
 	 * BEEN cluster context.
@@ -59,10 +74,12 @@ public class Persistence {
 		final PropertyReader propertyReader = PropertyReader.on(ctx.getProperties());
 		this.queryTimeout = propertyReader.getLong(QUERY_TIMEOUT, DEFAULT_QUERY_TIMEOUT);
 		this.queryProcessingTimeout = propertyReader.getLong(QUERY_PROCESSING_TIMEOUT, DEFAULT_QUERY_PROCESSING_TIMEOUT);
+		this.backpressureMaxWait = propertyReader.getLong(BACKPRESSURE_MAX_WAIT, DEFAULT_BACKPRESSURE_MAX_WAIT);
 
 		this.asyncPersistence = ctx.getQueue(Names.PERSISTENCE_QUEUE_NAME);
 		this.queryAnswerMap = ctx.getMap(Names.PERSISTENCE_QUERY_ANSWERS_MAP_NAME);
 		this.queryQueue = ctx.getQueue(Names.PERSISTENCE_QUERY_QUEUE_NAME);
+		this.backpressure = ctx.getMap(Names.PERSISTENCE_BACKPRESSURE_MAP_NAME);
 		this.jsonUtils = JSONUtils.newInstance();
 	}
 
@@ -119,6 +136,7 @@ public class Persistence {
 	public final void asyncPersist(EntityID entityID, Entity entity) throws DAOException {
 		try {
 			final String entityJson = jsonUtils.serialize(entity);
+			awaitPersistenceCapacity();
 			asyncPersistence.put(new EntityCarrier().withId(entityID).withData(entityJson));
 		} catch (JsonException e) {
 			throw new DAOException("Cannot serialize persistent object", e);
@@ -127,6 +145,37 @@ public class Persistence {
 		}
 	}
 
+	/**
+	 * Wait while the object repository asks persistence producers to slow down.
+	 * Components that put objects into the persistence queue directly should
+	 * call this before each put. The wait is bounded, so that producers make
+	 * progress even if the repository fails to lift the congestion. The
+	 * congestion state is cached for a short while, so calling this often is
+	 * cheap.
+	 * 
+	 * @throws InterruptedException
+	 *           When interrupted while waiting
+	 */
+	public void awaitPersistenceCapacity() throws InterruptedException {
+		if (!isPersistenceThrottled()) {
+			return;
+		}
+		final long deadline = System.currentTimeMillis() + backpressureMaxWait;
+		long remaining;
+		while (isPersistenceThrottled() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+			Thread.sleep(Math.min(remaining, BACKPRESSURE_CHECK_INTERVAL_MILLIS));
+		}
+	}
+
+	private boolean isPersistenceThrottled() {
+		final long now = System.currentTimeMillis();
+		if (now - lastBackpressureCheck >= BACKPRESSURE_CHECK_INTERVAL_MILLIS) {
+			throttled = backpressure.containsKey(Names.PERSISTENCE_QUEUE_NAME);
+			lastBackpressureCheck = now;
+		}
+		return throttled;
+	}
+
 	/**
 	 * A helper class that implement a Hazelcast entry listener for notifications
 	 * about when an answers to a persistence query is available.
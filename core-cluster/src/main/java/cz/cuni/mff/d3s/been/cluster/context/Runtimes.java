@@ -5,6 +5,7 @@ import java.util.Collection;
 import com.hazelcast.core.IMap;
 
 import cz.cuni.mff.d3s.been.cluster.Names;
+import cz.cuni.mff.d3s.been.cluster.query.RuntimeIndex;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
 
 /**
@@ -17,6 +18,9 @@ public class Runtimes {
 	/** BEEN cluster connection */
 	private ClusterContext clusterCtx;
 
+	/** local index of host runtimes, null unless started */
+	private volatile RuntimeIndex index;
+
 	/**
 	 * Package private constructor, creates a new instance that uses the specified
 	 * BEEN cluster context.
@@ -79,4 +83,35 @@ public class Runtimes {
 		return clusterCtx.getMap(Names.HOSTRUNTIMES_MAP_NAME);
 	}
 
+	/**
+	 * Starts maintaining a local index of all registered host runtimes, if not
+	 * already maintained.
+	 * 
+	 * @return the index
+	 */
+	public synchronized RuntimeIndex startIndex() {
+		if (index == null) {
+			index = RuntimeIndex.create(getRuntimeMap());
+		}
+		return index;
+	}
+
+	/**
+	 * Stops maintaining the local index of host runtimes.
+	 */
+	public synchronized void stopIndex() {
+		if (index != null) {
+			index.close();
+			index = null;
+		}
+	}
+
+	/**
+	 * @return local index of all registered host runtimes, <code>null</code> if
+	 *         not maintained (see {@link #startIndex()})
+	 */
+	public RuntimeIndex getIndex() {
+		return index;
+	}
+
 }
@@ -7,6 +7,7 @@ import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.hazelcast.core.AtomicNumber;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.Instance;
 
@@ -400,9 +401,85 @@ public class TaskContexts {
 			}
 		}
 
+		destroyDoneTaskCounters(taskContextEntry.getId());
+
 		putContextEntry(taskContextEntry);
 	}
 
+	/**
+	 * Counts a task of the context which has reached a final state.
+	 * 
+	 * Must be called exactly once for each task, on its transition to
+	 * {@link TaskState#FINISHED} or {@link TaskState#ABORTED}.
+	 * 
+	 * @param taskContextId
+	 *          ID of the task context
+	 * @param state
+	 *          final state of the task
+	 */
+	public void countDoneTask(String taskContextId, TaskState state) {
+		if (state == TaskState.FINISHED) {
+			getFinishedCounter(taskContextId).incrementAndGet();
+		} else if (state == TaskState.ABORTED) {
+			getAbortedCounter(taskContextId).incrementAndGet();
+		} else {
+			throw new IllegalArgumentException(String.format("Task state %s is not final", state));
+		}
+	}
+
+	/**
+	 * Returns the number of finished tasks of the context counted by
+	 * {@link #countDoneTask(String, TaskState)}.
+	 * 
+	 * @param taskContextId
+	 *          ID of the task context
+	 * @return number of finished tasks
+	 */
+	public long getFinishedTaskCount(String taskContextId) {
+		return getFinishedCounter(taskContextId).get();
+	}
+
+	/**
+	 * Returns the number of aborted tasks of the context counted by
+	 * {@link #countDoneTask(String, TaskState)}.
+	 * 
+	 * @param taskContextId
+	 *          ID of the task context
+	 * @return number of aborted tasks
+	 */
+	public long getAbortedTaskCount(String taskContextId) {
+		return getAbortedCounter(taskContextId).get();
+	}
+
+	/**
+	 * Overwrites the counts of done tasks of the context, after they have been
+	 * recounted.
+	 * 
+	 * @param taskContextId
+	 *          ID of the task context
+	 * @param finished
+	 *          number of finished tasks
+	 * @param aborted
+	 *          number of aborted tasks
+	 */
+	public void setDoneTaskCounts(String taskContextId, long finished, long aborted) {
+		getFinishedCounter(taskContextId).set(finished);
+		getAbortedCounter(taskContextId).set(aborted);
+	}
+
+	private AtomicNumber getFinishedCounter(String taskContextId) {
+		return clusterContext.getAtomicNumber(Names.CONTEXT_FINISHED_COUNTER_PREFIX + taskContextId);
+	}
+
+	private AtomicNumber getAbortedCounter(String taskContextId) {
+		return clusterContext.getAtomicNumber(Names.CONTEXT_ABORTED_COUNTER_PREFIX + taskContextId);
+	}
+
+	private void destroyDoneTaskCounters(String taskContextId) {
+		getFinishedCounter(taskContextId).destroy();
+		getAbortedCounter(taskContextId).destroy();
+	}
+
 	/**
 	 * Removes the task context with the specified ID from Hazelcast map of tasks
 	 * contexts. The task context must be in a final state (finished). Also
@@ -422,6 +499,7 @@ public class TaskContexts {
 				clusterContext.getTasks().remove(taskId);
 			}
 
+			destroyDoneTaskCounters(taskContextId);
 			getTaskContextsMap().remove(taskContextId);
 		} else {
 			throw new IllegalStateException(String.format(
@@ -254,7 +254,7 @@ public class Tasks {
 
 		String receiverId = taskEntry.getRuntimeId();
 		KillTaskMessage killMessage = new KillTaskMessage(receiverId, "killed by user", taskId);
-		clusterCtx.getTopics().publishInGlobalTopic(killMessage);
+		clusterCtx.getTopics().publishToRuntime(receiverId, killMessage);
 	}
 
 }
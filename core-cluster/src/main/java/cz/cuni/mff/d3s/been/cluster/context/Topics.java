@@ -68,6 +68,37 @@ public class Topics {
 		publish(Names.BEEN_GLOBAL_TOPIC, message);
 	}
 
+	/**
+	 * Publishes the specified message to the inbox topic of a Host Runtime, so
+	 * that only the addressed Host Runtime receives it.
+	 * 
+	 * @param runtimeId
+	 *          ID of the addressed Host Runtime, the message is published to the
+	 *          global topic if <code>null</code>
+	 * @param message
+	 *          message to publish
+	 * @param <E>
+	 *          type of the topic items
+	 */
+	public <E> void publishToRuntime(String runtimeId, E message) {
+		if (runtimeId == null) {
+			publishInGlobalTopic(message);
+		} else {
+			publish(getRuntimeTopicName(runtimeId), message);
+		}
+	}
+
+	/**
+	 * Returns the name of the inbox topic of a Host Runtime.
+	 * 
+	 * @param runtimeId
+	 *          ID of the Host Runtime
+	 * @return name of the Host Runtime's topic
+	 */
+	public static String getRuntimeTopicName(String runtimeId) {
+		return Names.BEEN_RUNTIME_TOPIC_PREFIX + runtimeId;
+	}
+
 	/**
 	 * Adds a topic listener to the topic with the specified name.
 	 * 
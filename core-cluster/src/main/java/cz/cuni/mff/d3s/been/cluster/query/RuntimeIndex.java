@@ -0,0 +1,294 @@
+package cz.cuni.mff.d3s.been.cluster.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryListener;
+import com.hazelcast.core.IMap;
+
+import cz.cuni.mff.d3s.been.cluster.query.XPathSelector.Attribute;
+import cz.cuni.mff.d3s.been.cluster.query.XPathSelector.Term;
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+
+/**
+ * Local copy of the registered Host Runtimes, indexed by the attributes used in
+ * simple {@link XPathSelector}s.
+ *
+ * The index follows the changes of the Host Runtime map. Simple selectors are
+ * answered by a lookup in the sorted index of their most selective term, other
+ * selectors by evaluating them on the local copies, without querying the
+ * cluster.
+ */
+public final class RuntimeIndex implements EntryListener<String, RuntimeInfo> {
+
+	/** indexed Host Runtimes by their ID */
+	private final Map<String, IndexedRuntime> runtimes = new HashMap<>();
+
+	/** IDs of Host Runtimes by the values of their attributes */
+	private final Map<Attribute, NavigableMap<Object, Set<String>>> indexes = new EnumMap<>(Attribute.class);
+
+	/** IDs of Host Runtimes removed while the index is being loaded, null once loaded */
+	private Set<String> removedWhileLoading;
+
+	private IMap<String, RuntimeInfo> map;
+
+	RuntimeIndex() {
+		for (Attribute attribute : Attribute.values()) {
+			indexes.put(attribute, new TreeMap<Object, Set<String>>());
+		}
+	}
+
+	/**
+	 * Creates an index following a Host Runtime map. Call {@link #close()} to
+	 * stop following it.
+	 *
+	 * @param map
+	 *          the map of Host Runtimes
+	 * @return the index
+	 */
+	public static RuntimeIndex create(IMap<String, RuntimeInfo> map) {
+		final RuntimeIndex index = new RuntimeIndex();
+		index.map = map;
+		index.startLoading();
+		map.addEntryListener(index, true);
+		index.load(map.values());
+		return index;
+	}
+
+	/**
+	 * Stops following the Host Runtime map.
+	 */
+	public void close() {
+		if (map != null) {
+			map.removeEntryListener(this);
+		}
+	}
+
+	/**
+	 * Returns the Host Runtimes matching a selector.
+	 *
+	 * @param selector
+	 *          the selector
+	 * @return the matching Host Runtimes, shared with the index and not to be
+	 *         modified
+	 */
+	public List<RuntimeInfo> find(XPathSelector selector) {
+		final List<Term> terms = selector.getTerms();
+		final List<RuntimeInfo> candidates = new ArrayList<>();
+
+		synchronized (this) {
+			if (terms == null) {
+				for (IndexedRuntime runtime : runtimes.values()) {
+					candidates.add(runtime.info);
+				}
+			} else {
+				for (IndexedRuntime runtime : lookup(terms)) {
+					if (runtime.matches(terms)) {
+						candidates.add(runtime.info);
+					}
+				}
+				return candidates;
+			}
+		}
+
+		// evaluate JXPath outside of the lock
+		final List<RuntimeInfo> matching = new ArrayList<>();
+		for (RuntimeInfo info : candidates) {
+			if (selector.matches(info)) {
+				matching.add(info);
+			}
+		}
+		return matching;
+	}
+
+	/**
+	 * Returns the number of indexed Host Runtimes.
+	 *
+	 * @return number of Host Runtimes
+	 */
+	public synchronized int size() {
+		return runtimes.size();
+	}
+
+	@Override
+	public void entryAdded(EntryEvent<String, RuntimeInfo> event) {
+		update(event.getValue());
+	}
+
+	@Override
+	public void entryRemoved(EntryEvent<String, RuntimeInfo> event) {
+		remove(event.getKey());
+	}
+
+	@Override
+	public void entryUpdated(EntryEvent<String, RuntimeInfo> event) {
+		update(event.getValue());
+	}
+
+	@Override
+	public void entryEvicted(EntryEvent<String, RuntimeInfo> event) {
+		remove(event.getKey());
+	}
+
+	/**
+	 * Starts recording removals of Host Runtimes, so that a snapshot of the map
+	 * taken after the listener was registered can be {@link #load(Collection)
+	 * loaded}.
+	 */
+	synchronized void startLoading() {
+		removedWhileLoading = new HashSet<>();
+	}
+
+	/**
+	 * Adds the Host Runtimes of a snapshot of the map, except those already
+	 * indexed (with possibly newer information) or removed since loading
+	 * started.
+	 *
+	 * @param infos
+	 *          the snapshot
+	 */
+	synchronized void load(Collection<RuntimeInfo> infos) {
+		for (RuntimeInfo info : infos) {
+			if (!runtimes.containsKey(info.getId()) && !removedWhileLoading.contains(info.getId())) {
+				update(info);
+			}
+		}
+		removedWhileLoading = null;
+	}
+
+	synchronized void update(RuntimeInfo info) {
+		remove(info.getId());
+		if (removedWhileLoading != null) {
+			// registered again
+			removedWhileLoading.remove(info.getId());
+		}
+
+		final IndexedRuntime runtime = new IndexedRuntime(info);
+		runtimes.put(info.getId(), runtime);
+		for (Attribute attribute : Attribute.values()) {
+			final Object value = runtime.values.get(attribute);
+			if (value == null) {
+				continue;
+			}
+			final NavigableMap<Object, Set<String>> index = indexes.get(attribute);
+			Set<String> ids = index.get(value);
+			if (ids == null) {
+				ids = new HashSet<>();
+				index.put(value, ids);
+			}
+			ids.add(info.getId());
+		}
+	}
+
+	synchronized void remove(String id) {
+		if (removedWhileLoading != null) {
+			removedWhileLoading.add(id);
+		}
+		final IndexedRuntime runtime = runtimes.remove(id);
+		if (runtime == null) {
+			return;
+		}
+		for (Map.Entry<Attribute, Object> value : runtime.values.entrySet()) {
+			final NavigableMap<Object, Set<String>> index = indexes.get(value.getKey());
+			final Set<String> ids = index.get(value.getValue());
+			if (ids != null && ids.remove(id) && ids.isEmpty()) {
+				index.remove(value.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns the Host Runtimes satisfying the most selective indexed term.
+	 */
+	private Collection<IndexedRuntime> lookup(List<Term> terms) {
+		Collection<Set<String>> best = null;
+		int bestSize = Integer.MAX_VALUE;
+
+		for (Term term : terms) {
+			final Collection<Set<String>> ids = lookup(term);
+			if (ids == null) {
+				continue;
+			}
+			int size = 0;
+			for (Set<String> set : ids) {
+				size += set.size();
+			}
+			if (size < bestSize) {
+				best = ids;
+				bestSize = size;
+			}
+		}
+
+		if (best == null) {
+			return runtimes.values();
+		}
+
+		final List<IndexedRuntime> result = new ArrayList<>(bestSize);
+		for (Set<String> ids : best) {
+			for (String id : ids) {
+				result.add(runtimes.get(id));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the sets of IDs of Host Runtimes satisfying a term, null if the
+	 * term cannot be answered by the index.
+	 */
+	private Collection<Set<String>> lookup(Term term) {
+		final NavigableMap<Object, Set<String>> index = indexes.get(term.attribute);
+		switch (term.operator) {
+			case EQ:
+				final Set<String> ids = index.get(term.literal);
+				return ids == null ? Collections.<Set<String>> emptyList() : Collections.singletonList(ids);
+			case LT:
+				return index.headMap(term.literal, false).values();
+			case LE:
+				return index.headMap(term.literal, true).values();
+			case GT:
+				return index.tailMap(term.literal, false).values();
+			case GE:
+				return index.tailMap(term.literal, true).values();
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * A Host Runtime with its extracted attributes.
+	 */
+	private static final class IndexedRuntime {
+		final RuntimeInfo info;
+		final Map<Attribute, Object> values = new EnumMap<>(Attribute.class);
+
+		IndexedRuntime(RuntimeInfo info) {
+			this.info = info;
+			for (Attribute attribute : Attribute.values()) {
+				final Object value = attribute.valueOf(info);
+				if (value != null) {
+					values.put(attribute, value);
+				}
+			}
+		}
+
+		boolean matches(List<Term> terms) {
+			for (Term term : terms) {
+				if (!term.matches(values.get(term.attribute))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -1,8 +1,5 @@
 package cz.cuni.mff.d3s.been.cluster.query;
 
-import java.util.List;
-
-import org.apache.commons.jxpath.JXPathContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,9 +34,7 @@ public class RuntimeInfoPredicate implements Predicate<String, RuntimeInfo> {
 	public boolean apply(MapEntry<String, RuntimeInfo> mapEntry) {
 		RuntimeInfo info = mapEntry.getValue();
 
-		JXPathContext context = JXPathContext.newContext(info);
-		List list = context.selectNodes(".[" + xpath + "]");
-		return (list != null) && (list.size() > 0);
+		return XPathSelector.compile(xpath).matches(info);
 	}
 
 }
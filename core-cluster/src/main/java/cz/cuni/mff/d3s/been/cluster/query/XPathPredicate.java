@@ -2,9 +2,6 @@ package cz.cuni.mff.d3s.been.cluster.query;
 
 import static cz.cuni.mff.d3s.been.core.task.TaskExclusivity.NON_EXCLUSIVE;
 
-import java.util.List;
-
-import org.apache.commons.jxpath.JXPathContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +25,7 @@ public final class XPathPredicate implements Predicate<String, RuntimeInfo> {
 	private final String xpath;
 	private final TaskExclusivity taskExclusivity;
 	private final String contextId;
+	private final int dedicatedCpus;
 
 	/**
 	 * Creates new XPathPredicate
@@ -40,9 +38,26 @@ public final class XPathPredicate implements Predicate<String, RuntimeInfo> {
 	 *          requested exclusivity of the task
 	 */
 	public XPathPredicate(String contextId, String xpath, TaskExclusivity taskExclusivity) {
+		this(contextId, xpath, taskExclusivity, 0);
+	}
+
+	/**
+	 * Creates new XPathPredicate for a task requesting dedicated CPUs
+	 * 
+	 * @param contextId
+	 *          ID of the context to take into account while filtering
+	 * @param xpath
+	 *          XPath expression to filter out Host Runtimes
+	 * @param taskExclusivity
+	 *          requested exclusivity of the task
+	 * @param dedicatedCpus
+	 *          number of CPUs the task needs for itself, 0 if it shares CPUs
+	 */
+	public XPathPredicate(String contextId, String xpath, TaskExclusivity taskExclusivity, int dedicatedCpus) {
 		this.contextId = contextId;
 		this.xpath = xpath;
 		this.taskExclusivity = taskExclusivity;
+		this.dedicatedCpus = dedicatedCpus;
 	}
 
 	@Override
@@ -54,6 +69,29 @@ public final class XPathPredicate implements Predicate<String, RuntimeInfo> {
 			info.setExclusivity(NON_EXCLUSIVE.toString());
 		}
 
+		if (!isAvailable(info, contextId, taskExclusivity, dedicatedCpus)) {
+			return false;
+		}
+
+		return XPathSelector.compile(xpath).matches(info);
+	}
+
+	/**
+	 * Checks whether a Host Runtime can accept a task, regardless of the task's
+	 * XPath selector.
+	 * 
+	 * @param info
+	 *          the Host Runtime
+	 * @param contextId
+	 *          ID of the task's context
+	 * @param taskExclusivity
+	 *          requested exclusivity of the task
+	 * @param dedicatedCpus
+	 *          number of CPUs the task needs for itself, 0 if it shares CPUs
+	 * @return whether the Host Runtime is neither overloaded nor reserved for
+	 *         others
+	 */
+	public static boolean isAvailable(RuntimeInfo info, String contextId, TaskExclusivity taskExclusivity, int dedicatedCpus) {
 		// Runtime Overload conditions
 		if (RuntimeInfos.isMaxTasksReached(info)) {
 			return false;
@@ -63,10 +101,15 @@ public final class XPathPredicate implements Predicate<String, RuntimeInfo> {
 			return false;
 		}
 
+		if (dedicatedCpus > 0 && RuntimeInfos.getFreeCpuCount(info) < dedicatedCpus) {
+			return false;
+		}
+
 		TaskExclusivity runtimeExclusivity;
 
 		try {
-			runtimeExclusivity = TaskExclusivity.valueOf(info.getExclusivity());
+			// a missing value stands for the JAXB default
+			runtimeExclusivity = (info.getExclusivity() == null) ? NON_EXCLUSIVE : TaskExclusivity.valueOf(info.getExclusivity());
 		} catch (IllegalArgumentException e) {
 			// something fishy is going on, just skip this host runtime
 			runtimeExclusivity = TaskExclusivity.EXCLUSIVE;
@@ -89,8 +132,6 @@ public final class XPathPredicate implements Predicate<String, RuntimeInfo> {
 				return false;
 		}
 
-		JXPathContext context = JXPathContext.newContext(info);
-		List list = context.selectNodes(".[" + xpath + "]");
-		return (list != null) && (list.size() > 0);
+		return true;
 	}
 }
@@ -0,0 +1,314 @@
+package cz.cuni.mff.d3s.been.cluster.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.jxpath.CompiledExpression;
+import org.apache.commons.jxpath.JXPathContext;
+
+import cz.cuni.mff.d3s.been.core.ri.Hardware;
+import cz.cuni.mff.d3s.been.core.ri.OperatingSystem;
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+import cz.cuni.mff.d3s.been.core.task.TaskExclusivity;
+
+/**
+ * A compiled XPath expression selecting Host Runtimes.
+ *
+ * Selectors are compiled once per distinct expression and cached. Expressions
+ * which are a conjunction of simple comparisons of indexed attributes (see
+ * {@link Attribute}), such as
+ * <code>operatingSystem/name = 'Linux' and count(hardware/cpu) &gt;= 4</code>,
+ * are evaluated without JXPath and can be answered by a {@link RuntimeIndex}.
+ * Other expressions are evaluated by a compiled JXPath expression.
+ */
+public final class XPathSelector {
+
+	/** Maximum number of cached selectors, the cache is cleared when reached */
+	private static final int CACHE_SIZE = 1024;
+
+	/** Expression matching all Host Runtimes */
+	private static final String MATCH_ALL = "/";
+
+	private static final String OPERATOR = "!=|<=|>=|=|<|>";
+	private static final String LITERAL = "'([^']*)'|\"([^\"]*)\"|(-?\\d+(?:\\.\\d+)?)";
+
+	/** One term of a conjunction of simple comparisons */
+	private static final Pattern TERM = Pattern.compile(String.format(
+			"\\G\\s*(%s)\\s*(%s)\\s*(?:%s)\\s*(and\\s|\\z)",
+			Attribute.PATTERN,
+			OPERATOR,
+			LITERAL));
+
+	private static final ConcurrentMap<String, XPathSelector> cache = new ConcurrentHashMap<>();
+
+	private final String xpath;
+
+	/** terms of a simple selector, null if the selector needs JXPath */
+	private final List<Term> terms;
+
+	/** compiled JXPath expression, null for simple selectors */
+	private final CompiledExpression expression;
+
+	private XPathSelector(String xpath, List<Term> terms, CompiledExpression expression) {
+		this.xpath = xpath;
+		this.terms = terms;
+		this.expression = expression;
+	}
+
+	/**
+	 * Returns the compiled selector for an XPath expression.
+	 *
+	 * @param xpath
+	 *          expression selecting Host Runtimes, evaluated as a predicate on
+	 *          {@link RuntimeInfo}
+	 * @return the compiled selector
+	 * @throws org.apache.commons.jxpath.JXPathException
+	 *           when the expression is not valid
+	 */
+	public static XPathSelector compile(String xpath) {
+		XPathSelector selector = cache.get(xpath);
+		if (selector == null) {
+			if (cache.size() >= CACHE_SIZE) {
+				cache.clear();
+			}
+			selector = create(xpath);
+			cache.put(xpath, selector);
+		}
+		return selector;
+	}
+
+	private static XPathSelector create(String xpath) {
+		final List<Term> terms = parse(xpath);
+		if (terms != null) {
+			return new XPathSelector(xpath, terms, null);
+		}
+		return new XPathSelector(xpath, null, JXPathContext.compile(".[" + xpath + "]"));
+	}
+
+	/**
+	 * Parses a conjunction of simple comparisons.
+	 *
+	 * @return the terms, null if the expression has a different shape
+	 */
+	private static List<Term> parse(String xpath) {
+		if (xpath.trim().equals(MATCH_ALL)) {
+			return Collections.emptyList();
+		}
+
+		final List<Term> terms = new ArrayList<>();
+		final Matcher matcher = TERM.matcher(xpath);
+		while (matcher.find()) {
+			final Attribute attribute = Attribute.fromPath(matcher.group(1));
+			final Operator operator = Operator.fromSymbol(matcher.group(2));
+			final String string = matcher.group(3) != null ? matcher.group(3) : matcher.group(4);
+			final String number = matcher.group(5);
+
+			if (attribute.isNumeric() && number != null) {
+				terms.add(new Term(attribute, operator, Double.valueOf(number)));
+			} else if (!attribute.isNumeric() && string != null && (operator == Operator.EQ || operator == Operator.NE)) {
+				terms.add(new Term(attribute, operator, string));
+			} else {
+				return null;
+			}
+
+			if (matcher.group(6).isEmpty()) {
+				return terms;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Tells whether a Host Runtime matches the selector.
+	 *
+	 * @param info
+	 *          the Host Runtime
+	 * @return whether the Host Runtime matches
+	 */
+	public boolean matches(RuntimeInfo info) {
+		if (terms == null) {
+			return expression.iterate(JXPathContext.newContext(info)).hasNext();
+		}
+		for (Term term : terms) {
+			if (!term.matches(term.attribute.valueOf(info))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the expression the selector was compiled from.
+	 *
+	 * @return the XPath expression
+	 */
+	public String getXPath() {
+		return xpath;
+	}
+
+	/**
+	 * Returns the comparisons of a simple selector.
+	 *
+	 * @return the terms, null if the selector is evaluated by JXPath
+	 */
+	List<Term> getTerms() {
+		return terms;
+	}
+
+	/**
+	 * Attributes of Host Runtimes usable in simple selectors.
+	 */
+	enum Attribute {
+		/** name of the operating system */
+		OS_NAME("operatingSystem/name", false) {
+			@Override
+			Object valueOf(RuntimeInfo info) {
+				final OperatingSystem os = info.getOperatingSystem();
+				return os == null ? null : os.getName();
+			}
+		},
+		/** architecture of the operating system */
+		OS_ARCH("operatingSystem/arch", false) {
+			@Override
+			Object valueOf(RuntimeInfo info) {
+				final OperatingSystem os = info.getOperatingSystem();
+				return os == null ? null : os.getArch();
+			}
+		},
+		/** exclusivity of the Host Runtime */
+		EXCLUSIVITY("exclusivity", false) {
+			@Override
+			Object valueOf(RuntimeInfo info) {
+				// workaround for JAXB not setting default value on elements
+				return info.getExclusivity() == null ? TaskExclusivity.NON_EXCLUSIVE.toString() : info.getExclusivity();
+			}
+		},
+		/** size of the memory */
+		RAM("hardware/memory/ram", true) {
+			@Override
+			Object valueOf(RuntimeInfo info) {
+				final Hardware hardware = info.getHardware();
+				if (hardware == null || hardware.getMemory() == null) {
+					return null;
+				}
+				return (double) hardware.getMemory().getRam();
+			}
+		},
+		/** number of CPU cores */
+		CORES("count(hardware/cpu)", true) {
+			@Override
+			Object valueOf(RuntimeInfo info) {
+				final Hardware hardware = info.getHardware();
+				return (double) (hardware == null ? 0 : hardware.getCpu().size());
+			}
+		};
+
+		/** regular expression matching the paths of all attributes */
+		static final String PATTERN = "/?operatingSystem/name|/?operatingSystem/arch|/?exclusivity|/?hardware/memory/ram|count\\(\\s*/?hardware/cpu\\s*\\)";
+
+		private final String path;
+		private final boolean numeric;
+
+		Attribute(String path, boolean numeric) {
+			this.path = path;
+			this.numeric = numeric;
+		}
+
+		/**
+		 * Extracts the attribute from a Host Runtime.
+		 *
+		 * @param info
+		 *          the Host Runtime
+		 * @return a String, a Double for numeric attributes, or null if missing
+		 */
+		abstract Object valueOf(RuntimeInfo info);
+
+		boolean isNumeric() {
+			return numeric;
+		}
+
+		static Attribute fromPath(String path) {
+			final String normalized = path.replaceAll("\\s", "").replace("(/", "(");
+			for (Attribute attribute : values()) {
+				if (normalized.equals(attribute.path) || normalized.equals("/" + attribute.path)) {
+					return attribute;
+				}
+			}
+			throw new IllegalArgumentException(String.format("Unknown attribute path '%s'", path));
+		}
+	}
+
+	/**
+	 * Comparison operators of simple selectors.
+	 */
+	enum Operator {
+		EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+		private final String symbol;
+
+		Operator(String symbol) {
+			this.symbol = symbol;
+		}
+
+		static Operator fromSymbol(String symbol) {
+			for (Operator operator : values()) {
+				if (operator.symbol.equals(symbol)) {
+					return operator;
+				}
+			}
+			throw new IllegalArgumentException(String.format("Unknown operator '%s'", symbol));
+		}
+	}
+
+	/**
+	 * A comparison of an attribute with a literal.
+	 */
+	static final class Term {
+		final Attribute attribute;
+		final Operator operator;
+		/** a String, or a Double for numeric attributes */
+		final Object literal;
+
+		Term(Attribute attribute, Operator operator, Object literal) {
+			this.attribute = attribute;
+			this.operator = operator;
+			this.literal = literal;
+		}
+
+		/**
+		 * Compares an attribute value with the literal. Missing values match no
+		 * comparison, as with XPath node sets.
+		 *
+		 * @param value
+		 *          value of the attribute, may be null
+		 * @return whether the comparison holds
+		 */
+		@SuppressWarnings("unchecked")
+		boolean matches(Object value) {
+			if (value == null) {
+				return false;
+			}
+			final int cmp = ((Comparable<Object>) value).compareTo(literal);
+			switch (operator) {
+				case EQ:
+					return cmp == 0;
+				case NE:
+					return cmp != 0;
+				case LT:
+					return cmp < 0;
+				case LE:
+					return cmp <= 0;
+				case GT:
+					return cmp > 0;
+				case GE:
+					return cmp >= 0;
+			}
+			return false;
+		}
+	}
+}
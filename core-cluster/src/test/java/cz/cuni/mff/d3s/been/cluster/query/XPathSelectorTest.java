@@ -0,0 +1,143 @@
+package cz.cuni.mff.d3s.been.cluster.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.jxpath.JXPathContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.core.ri.Cpu;
+import cz.cuni.mff.d3s.been.core.ri.Hardware;
+import cz.cuni.mff.d3s.been.core.ri.Memory;
+import cz.cuni.mff.d3s.been.core.ri.OperatingSystem;
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+
+/**
+ * Test for {@link XPathSelector} and {@link RuntimeIndex}
+ */
+public class XPathSelectorTest extends Assert {
+
+	private static final List<RuntimeInfo> RUNTIMES = Arrays.asList(
+			runtime("a", "Linux", "amd64", 8, 16000000000L, "NON_EXCLUSIVE"),
+			runtime("b", "Linux", "i386", 2, 2000000000L, "EXCLUSIVE"),
+			runtime("c", "Mac OS X", "x86_64", 4, 8000000000L, "NON_EXCLUSIVE"),
+			runtime("d", "Windows 7", "amd64", 4, 4000000000L, "CONTEXT_EXCLUSIVE"));
+
+	private static final String[] SELECTORS = {
+			"/",
+			"operatingSystem/name = 'Linux'",
+			"operatingSystem/name != \"Linux\"",
+			"operatingSystem/arch = 'amd64' and count(hardware/cpu) >= 4",
+			"count(hardware/cpu) > 2 and hardware/memory/ram < 8000000000",
+			"hardware/memory/ram <= 8000000000 and exclusivity = 'NON_EXCLUSIVE'",
+			"/operatingSystem/name = 'Solaris'",
+			// not simple, evaluated by JXPath
+			"operatingSystem/name = 'Linux' or count(hardware/cpu) = 4",
+			"starts-with(operatingSystem/name, 'Win')" };
+
+	@Test
+	public void testSimpleSelectorsAreParsed() {
+		assertNotNull(XPathSelector.compile("/").getTerms());
+		assertEquals(2, XPathSelector.compile("operatingSystem/arch = 'amd64' and count( hardware/cpu ) >= 4").getTerms().size());
+		assertNull(XPathSelector.compile("operatingSystem/name = 'Linux' or count(hardware/cpu) = 4").getTerms());
+		assertNull(XPathSelector.compile("operatingSystem/name > 'Linux'").getTerms());
+		assertNull(XPathSelector.compile("hardware/memory/ram = 'many'").getTerms());
+		assertNull(XPathSelector.compile("operatingSystem/name = 'Linux' and taskCount = 0").getTerms());
+		assertSame(XPathSelector.compile("/"), XPathSelector.compile("/"));
+	}
+
+	@Test
+	public void testSelectorsAgreeWithJXPath() {
+		final RuntimeIndex index = new RuntimeIndex();
+		for (RuntimeInfo info : RUNTIMES) {
+			index.update(info);
+		}
+
+		for (String xpath : SELECTORS) {
+			final Set<String> expected = new HashSet<>();
+			final Set<String> matched = new HashSet<>();
+			for (RuntimeInfo info : RUNTIMES) {
+				if (JXPathContext.newContext(info).iterate(".[" + xpath + "]").hasNext()) {
+					expected.add(info.getId());
+				}
+				if (XPathSelector.compile(xpath).matches(info)) {
+					matched.add(info.getId());
+				}
+			}
+			assertEquals(xpath, expected, matched);
+			assertEquals(xpath, expected, ids(index.find(XPathSelector.compile(xpath))));
+		}
+	}
+
+	@Test
+	public void testIndexFollowsUpdates() {
+		final RuntimeIndex index = new RuntimeIndex();
+		for (RuntimeInfo info : RUNTIMES) {
+			index.update(info);
+		}
+		final XPathSelector linux = XPathSelector.compile("operatingSystem/name = 'Linux'");
+
+		index.update(runtime("c", "Linux", "x86_64", 4, 8000000000L, "NON_EXCLUSIVE"));
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), ids(index.find(linux)));
+
+		index.remove("a");
+		index.startLoading();
+		index.load(Arrays.asList(runtime("b", "Solaris", "sparc", 4, 8000000000L, "NON_EXCLUSIVE")));
+		assertEquals(new HashSet<>(Arrays.asList("b", "c")), ids(index.find(linux)));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testRemovalsWhileLoadingAreKept() {
+		final RuntimeIndex index = new RuntimeIndex();
+		index.startLoading();
+
+		// events handled before the snapshot is loaded
+		index.remove("a");
+		index.remove("b");
+		index.update(runtime("b", "Solaris", "sparc", 4, 8000000000L, "NON_EXCLUSIVE"));
+
+		index.load(RUNTIMES);
+		assertEquals(new HashSet<>(Arrays.asList("b", "c", "d")), ids(index.find(XPathSelector.compile("/"))));
+		assertEquals(new HashSet<>(Arrays.asList("b")), ids(index.find(XPathSelector.compile("operatingSystem/name = 'Solaris'"))));
+
+		// a runtime removed while loading may register again
+		index.update(RUNTIMES.get(0));
+		assertEquals(4, index.size());
+	}
+
+	private static Set<String> ids(List<RuntimeInfo> runtimes) {
+		final Set<String> ids = new HashSet<>();
+		for (RuntimeInfo info : runtimes) {
+			ids.add(info.getId());
+		}
+		return ids;
+	}
+
+	private static RuntimeInfo runtime(String id, String os, String arch, int cpus, long ram, String exclusivity) {
+		final OperatingSystem operatingSystem = new OperatingSystem();
+		operatingSystem.setName(os);
+		operatingSystem.setArch(arch);
+
+		final Memory memory = new Memory();
+		memory.setRam(ram);
+		final Hardware hardware = new Hardware();
+		hardware.setMemory(memory);
+		final List<Cpu> cpuList = new ArrayList<>();
+		for (int i = 0; i < cpus; ++i) {
+			cpuList.add(new Cpu());
+		}
+		hardware.getCpu().addAll(cpuList);
+
+		final RuntimeInfo info = new RuntimeInfo();
+		info.setId(id);
+		info.setOperatingSystem(operatingSystem);
+		info.setHardware(hardware);
+		info.setExclusivity(exclusivity);
+		return info;
+	}
+}
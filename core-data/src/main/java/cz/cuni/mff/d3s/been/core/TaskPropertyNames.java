@@ -33,4 +33,58 @@ public class TaskPropertyNames {
 	/** Name of the environment property which sets Task log level */
 	public static final String TASK_LOG_LEVEL = "task.log.level";
 
+	/**
+	 * Name of the property which selects how a task sends its log messages:
+	 * <code>sync</code> (the default) sends each message from the logging
+	 * thread, <code>async</code> buffers messages in per-thread ring buffers and
+	 * sends them from a background thread.
+	 */
+	public static final String TASK_LOG_MODE = "task.log.mode";
+
+	/**
+	 * Name of the property setting the capacity (in messages, rounded up to a
+	 * power of two) of the per-thread log buffers used by asynchronous logging.
+	 */
+	public static final String TASK_LOG_BUFFER_SIZE = "task.log.buffer.size";
+
+	/**
+	 * Name of the property selecting what asynchronous logging does when a
+	 * thread's log buffer is full: <code>BLOCK</code> waits for space,
+	 * <code>DROP</code> discards the message and <code>DROP_AND_REPORT</code>
+	 * discards it and later logs how many messages were discarded.
+	 */
+	public static final String TASK_LOG_OVERFLOW = "task.log.overflow";
+
+	/**
+	 * Name of the environment property which selects the format in which the
+	 * task sends results to its Host Runtime (see
+	 * {@link cz.cuni.mff.d3s.been.core.persistence.EntityCarrierFrames}). The
+	 * Host Runtime offers the framed format; a task descriptor property of the
+	 * same name overrides it.
+	 */
+	public static final String RESULT_FORMAT = "been.task.result.format";
+
+	/**
+	 * Name of the task property limiting the number of results a result
+	 * persister buffers before sending them to the Host Runtime. Values smaller
+	 * than 2 (the default) disable result batching.
+	 */
+	public static final String RESULT_BATCH_SIZE = "been.task.result.batch.size";
+
+	/**
+	 * Name of the task property limiting the size (in characters of serialized
+	 * JSON) of results a result persister buffers before sending them to the
+	 * Host Runtime. Zero or a negative value sets no limit.
+	 */
+	public static final String RESULT_BATCH_CHARS = "been.task.result.batch.chars";
+
+	/**
+	 * Name of the task property limiting the time (in milliseconds) a result
+	 * stays buffered in a result persister. The limit is checked when another
+	 * result is persisted, so no sending happens between calls. Zero or a
+	 * negative value sets no limit, deferring sending until the persister is
+	 * full or closed.
+	 */
+	public static final String RESULT_BATCH_DELAY = "been.task.result.batch.delay";
+
 }
@@ -0,0 +1,267 @@
+package cz.cuni.mff.d3s.been.core.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Compact framing of {@link EntityCarrier}s for the task-to-Host Runtime result
+ * path.
+ * 
+ * A frame is a short header (frame marker, payload encoding, entity kind and
+ * group) followed by the raw entity JSON, so the JSON doesn't get escaped and
+ * embedded in another JSON document. Payloads of at least
+ * {@link #COMPRESSION_THRESHOLD} characters are gzipped (and Base64-encoded, as
+ * task sockets carry text) if that makes them smaller.
+ * 
+ * A batch frame carries several entities with the same entity ID; its
+ * payload is a sequence of entity JSONs, each prefixed with its length and a
+ * colon.
+ * 
+ * Frames are told apart from JSON-serialized carriers by their first
+ * character, so receivers can accept both.
+ */
+public final class EntityCarrierFrames {
+
+	/** Value of the result format task property selecting framed carriers */
+	public static final String FORMAT_FRAMED = "framed";
+	/** Value of the result format task property selecting JSON-serialized carriers */
+	public static final String FORMAT_JSON = "json";
+
+	/** Payload length (in characters) from which compression is attempted */
+	public static final int COMPRESSION_THRESHOLD = 4096;
+
+	private static final char FRAME_MARKER = '\u0001';
+	private static final char BATCH_MARKER = '\u0002';
+	private static final char LENGTH_SEPARATOR = ':';
+	private static final char PLAIN = 'P';
+	private static final char GZIP = 'Z';
+	private static final char SEPARATOR = '\n';
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private EntityCarrierFrames() {}
+
+	/**
+	 * Check whether a message is a framed carrier
+	 * 
+	 * @param message
+	 *          Received message
+	 * 
+	 * @return <code>true</code> if the message is a frame, <code>false</code>
+	 *         otherwise (it may be a JSON-serialized carrier)
+	 */
+	public static boolean isFrame(String message) {
+		return message != null && !message.isEmpty() && (message.charAt(0) == FRAME_MARKER || message.charAt(0) == BATCH_MARKER);
+	}
+
+	/**
+	 * Check whether a carrier can be framed (its entity ID must not contain the
+	 * header separator)
+	 * 
+	 * @param carrier
+	 *          Carrier to check
+	 * 
+	 * @return <code>true</code> if {@link #encode(EntityCarrier)} accepts the
+	 *         carrier
+	 */
+	public static boolean canEncode(EntityCarrier carrier) {
+		return canEncode(carrier.getEntityId()) && carrier.getEntityJSON() != null;
+	}
+
+	/**
+	 * Check whether entities with an ID can be framed (the ID must not contain
+	 * the header separator)
+	 * 
+	 * @param id
+	 *          Entity ID to check
+	 * 
+	 * @return <code>true</code> if {@link #encodeBatch(EntityID, List)} accepts
+	 *         the ID
+	 */
+	public static boolean canEncode(EntityID id) {
+		return id != null && id.getKind() != null && id.getGroup() != null && id.getKind().indexOf(SEPARATOR) < 0
+				&& id.getGroup().indexOf(SEPARATOR) < 0;
+	}
+
+	/**
+	 * Frame a carrier
+	 * 
+	 * @param carrier
+	 *          Carrier to frame
+	 * 
+	 * @return The frame
+	 * 
+	 * @throws IllegalArgumentException
+	 *           If the carrier cannot be framed (see
+	 *           {@link #canEncode(EntityCarrier)})
+	 */
+	public static String encode(EntityCarrier carrier) {
+		if (!canEncode(carrier)) {
+			throw new IllegalArgumentException(String.format("Cannot frame carrier %s", carrier));
+		}
+		return frame(FRAME_MARKER, carrier.getEntityId(), carrier.getEntityJSON());
+	}
+
+	/**
+	 * Frame several entities with the same ID
+	 * 
+	 * @param id
+	 *          ID of the entities
+	 * @param jsons
+	 *          Serialized entities
+	 * 
+	 * @return The batch frame
+	 * 
+	 * @throws IllegalArgumentException
+	 *           If the entities cannot be framed (see
+	 *           {@link #canEncode(EntityID)})
+	 */
+	public static String encodeBatch(EntityID id, List<String> jsons) {
+		if (!canEncode(id)) {
+			throw new IllegalArgumentException(String.format("Cannot frame entities with ID %s", id));
+		}
+		int length = 0;
+		for (String json : jsons) {
+			length += json.length() + 8;
+		}
+		final StringBuilder body = new StringBuilder(length);
+		for (String json : jsons) {
+			body.append(json.length()).append(LENGTH_SEPARATOR).append(json);
+		}
+		return frame(BATCH_MARKER, id, body.toString());
+	}
+
+	private static String frame(char marker, EntityID id, String body) {
+		char encoding = PLAIN;
+		String payload = body;
+		if (body.length() >= COMPRESSION_THRESHOLD) {
+			final String compressed = DatatypeConverter.printBase64Binary(gzip(body.getBytes(UTF8)));
+			if (compressed.length() < body.length()) {
+				encoding = GZIP;
+				payload = compressed;
+			}
+		}
+
+		final StringBuilder frame = new StringBuilder(4 + id.getKind().length() + id.getGroup().length() + payload.length());
+		frame.append(marker).append(encoding);
+		frame.append(id.getKind()).append(SEPARATOR);
+		frame.append(id.getGroup()).append(SEPARATOR);
+		frame.append(payload);
+		return frame.toString();
+	}
+
+	/**
+	 * Restore a carrier from a single-entity frame
+	 * 
+	 * @param frame
+	 *          The frame
+	 * 
+	 * @return The carrier
+	 * 
+	 * @throws IOException
+	 *           If the frame is malformed or is a batch frame
+	 */
+	public static EntityCarrier decode(String frame) throws IOException {
+		if (frame == null || frame.isEmpty() || frame.charAt(0) != FRAME_MARKER) {
+			throw new IOException("Not a single entity carrier frame");
+		}
+		return decodeAll(frame).get(0);
+	}
+
+	/**
+	 * Restore carriers from a single-entity or a batch frame
+	 * 
+	 * @param frame
+	 *          The frame
+	 * 
+	 * @return The carriers, in the order they were framed
+	 * 
+	 * @throws IOException
+	 *           If the frame is malformed
+	 */
+	public static List<EntityCarrier> decodeAll(String frame) throws IOException {
+		if (!isFrame(frame) || frame.length() < 2) {
+			throw new IOException("Not an entity carrier frame");
+		}
+		final int kindEnd = frame.indexOf(SEPARATOR, 2);
+		final int groupEnd = (kindEnd < 0) ? -1 : frame.indexOf(SEPARATOR, kindEnd + 1);
+		if (groupEnd < 0) {
+			throw new IOException("Entity carrier frame has a truncated header");
+		}
+		final String kind = frame.substring(2, kindEnd);
+		final String group = frame.substring(kindEnd + 1, groupEnd);
+		final String payload = frame.substring(groupEnd + 1);
+
+		final String body;
+		switch (frame.charAt(1)) {
+			case PLAIN:
+				body = payload;
+				break;
+			case GZIP:
+				try {
+					body = new String(gunzip(DatatypeConverter.parseBase64Binary(payload)), UTF8);
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Entity carrier frame has a malformed compressed payload", e);
+				}
+				break;
+			default:
+				throw new IOException(String.format("Unknown entity carrier frame encoding '%c'", frame.charAt(1)));
+		}
+
+		if (frame.charAt(0) == FRAME_MARKER) {
+			return Collections.singletonList(carrier(kind, group, body));
+		}
+		final List<EntityCarrier> carriers = new ArrayList<EntityCarrier>();
+		int position = 0;
+		while (position < body.length()) {
+			final int lengthEnd = body.indexOf(LENGTH_SEPARATOR, position);
+			final int length;
+			try {
+				length = (lengthEnd < 0) ? -1 : Integer.parseInt(body.substring(position, lengthEnd));
+			} catch (NumberFormatException e) {
+				throw new IOException("Entity carrier batch frame has a malformed entity length", e);
+			}
+			if (length < 0 || lengthEnd + 1 + length > body.length()) {
+				throw new IOException("Entity carrier batch frame is truncated");
+			}
+			carriers.add(carrier(kind, group, body.substring(lengthEnd + 1, lengthEnd + 1 + length)));
+			position = lengthEnd + 1 + length;
+		}
+		return carriers;
+	}
+
+	private static EntityCarrier carrier(String kind, String group, String json) {
+		return new EntityCarrier().withId(new EntityID().withKind(kind).withGroup(group)).withData(json);
+	}
+
+	private static byte[] gzip(byte[] data) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 32);
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(data);
+		} catch (IOException e) {
+			// in-memory streams don't fail
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] gunzip(byte[] data) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length * 4);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+			final byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				bytes.write(buffer, 0, read);
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -71,4 +71,16 @@ public class RuntimeInfos {
 		return (info.getTaskCount() >= info.getMaxTasks());
 	}
 
+	/**
+	 * Returns the number of CPUs the Host Runtime can still dedicate to tasks.
+	 * 
+	 * @param info
+	 *          the RuntimeInfo to get the value from
+	 * @return number of free CPUs, 0 if the Host Runtime does not dedicate CPUs
+	 *         to tasks
+	 */
+	public static int getFreeCpuCount(final RuntimeInfo info) {
+		return (info.getCpuAllocation() == null) ? 0 : info.getCpuAllocation().getFreeCount();
+	}
+
 }
@@ -4,7 +4,9 @@ import static cz.cuni.mff.d3s.been.core.jaxb.Factory.TASK;
 
 import java.io.StringWriter;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.xml.bind.JAXBException;
@@ -23,6 +25,23 @@ import cz.cuni.mff.d3s.been.core.jaxb.XSD;
  */
 public class TaskEntries {
 
+	/** Key of the time the task was scheduled to a Host Runtime */
+	public static final String STARTUP_SCHEDULED = "scheduled";
+	/** Key of the time the Host Runtime received the run message */
+	public static final String STARTUP_RECEIVED = "received";
+	/** Key of the time the Host Runtime accepted the task */
+	public static final String STARTUP_ACCEPTED = "accepted";
+	/** Key of the time the task's BPK was obtained */
+	public static final String STARTUP_BPK_RESOLVED = "bpkResolved";
+	/** Key of the time the task's BPK was extracted */
+	public static final String STARTUP_EXTRACTED = "extracted";
+	/** Key of the time the task's dependencies were resolved */
+	public static final String STARTUP_DEPENDENCIES_RESOLVED = "dependenciesResolved";
+	/** Key of the time the task's process was spawned */
+	public static final String STARTUP_SPAWNED = "spawned";
+	/** Key of the time the task reported it is running */
+	public static final String STARTUP_RUNNING = "running";
+
 	private TaskEntries() {
 		// prevents initialization
 	}
@@ -134,6 +153,49 @@ public class TaskEntries {
 		return entry.getStateChangeLog().getLogEntries();
 	}
 
+	/**
+	 * Returns startup timestamps of a {@link TaskEntry}.
+	 * 
+	 * @param entry
+	 *          the entry to operate on
+	 * @return mutable startup timestamps of the entry
+	 */
+	public static StartupTimes getStartupTimes(TaskEntry entry) {
+		if (!entry.isSetStartupTimes()) {
+			entry.setStartupTimes(TASK.createStartupTimes());
+		}
+
+		return entry.getStartupTimes();
+	}
+
+	/**
+	 * Converts startup timestamps to a map keyed by the <code>STARTUP_*</code>
+	 * constants of this class. Timestamps which have not been recorded are
+	 * omitted.
+	 * 
+	 * @param startupTimes
+	 *          timestamps to convert
+	 * @return map of recorded timestamps, in the order of the startup phases
+	 */
+	public static Map<String, Long> getStartupTimesMap(StartupTimes startupTimes) {
+		final Map<String, Long> times = new LinkedHashMap<>();
+		putIfSet(times, STARTUP_SCHEDULED, startupTimes.getScheduled());
+		putIfSet(times, STARTUP_RECEIVED, startupTimes.getReceived());
+		putIfSet(times, STARTUP_ACCEPTED, startupTimes.getAccepted());
+		putIfSet(times, STARTUP_BPK_RESOLVED, startupTimes.getBpkResolved());
+		putIfSet(times, STARTUP_EXTRACTED, startupTimes.getExtracted());
+		putIfSet(times, STARTUP_DEPENDENCIES_RESOLVED, startupTimes.getDependenciesResolved());
+		putIfSet(times, STARTUP_SPAWNED, startupTimes.getSpawned());
+		putIfSet(times, STARTUP_RUNNING, startupTimes.getRunning());
+		return times;
+	}
+
+	private static void putIfSet(Map<String, Long> times, String key, Long value) {
+		if (value != null) {
+			times.put(key, value);
+		}
+	}
+
 	/**
 	 * Creates StateChangeEntry.
 	 * 
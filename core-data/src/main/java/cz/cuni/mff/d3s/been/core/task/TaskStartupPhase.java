@@ -0,0 +1,78 @@
+package cz.cuni.mff.d3s.been.core.task;
+
+import java.util.Map;
+
+/**
+ * Phases of a task's start, delimited by the timestamps recorded in
+ * {@link StartupTimes}.
+ * <p/>
+ * Timestamps are referenced by the keys used by
+ * {@link TaskEntries#getStartupTimesMap(StartupTimes)}.
+ */
+public enum TaskStartupPhase {
+
+	/** From the scheduling decision to the receipt of the run message by a Host Runtime */
+	QUEUED(TaskEntries.STARTUP_SCHEDULED, TaskEntries.STARTUP_RECEIVED),
+
+	/** From the receipt of the run message to the acceptance of the task */
+	ACCEPTING(TaskEntries.STARTUP_RECEIVED, TaskEntries.STARTUP_ACCEPTED),
+
+	/** Obtaining the task's BPK from the software cache or the Software Repository */
+	BPK_RESOLUTION(TaskEntries.STARTUP_ACCEPTED, TaskEntries.STARTUP_BPK_RESOLVED),
+
+	/** Extracting the BPK into the task's working directory */
+	EXTRACTION(TaskEntries.STARTUP_BPK_RESOLVED, TaskEntries.STARTUP_EXTRACTED),
+
+	/** Resolving the runtime's dependencies and building the command line */
+	DEPENDENCY_RESOLUTION(TaskEntries.STARTUP_EXTRACTED, TaskEntries.STARTUP_DEPENDENCIES_RESOLVED),
+
+	/** From the prepared process to its spawn */
+	SPAWN(TaskEntries.STARTUP_DEPENDENCIES_RESOLVED, TaskEntries.STARTUP_SPAWNED),
+
+	/** From the spawn of the process to the task reporting it is running */
+	PROCESS_STARTUP(TaskEntries.STARTUP_SPAWNED, TaskEntries.STARTUP_RUNNING),
+
+	/** From the scheduling decision to the task reporting it is running */
+	TOTAL(TaskEntries.STARTUP_SCHEDULED, TaskEntries.STARTUP_RUNNING);
+
+	private final String from;
+	private final String to;
+
+	private TaskStartupPhase(String from, String to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Computes the duration of this phase.
+	 *
+	 * @param startupTimes
+	 *          startup timestamps keyed as by
+	 *          {@link TaskEntries#getStartupTimesMap(StartupTimes)}
+	 * @return duration of the phase in milliseconds, <code>null</code> if either
+	 *         of the delimiting timestamps has not been recorded
+	 */
+	public Long getDuration(Map<String, Long> startupTimes) {
+		if (startupTimes == null) {
+			return null;
+		}
+		final Long start = startupTimes.get(from);
+		final Long end = startupTimes.get(to);
+		if (start == null || end == null) {
+			return null;
+		}
+		return Math.max(0, end - start);
+	}
+
+	/**
+	 * Computes the duration of this phase.
+	 *
+	 * @param startupTimes
+	 *          startup timestamps of a task
+	 * @return duration of the phase in milliseconds, <code>null</code> if either
+	 *         of the delimiting timestamps has not been recorded
+	 */
+	public Long getDuration(StartupTimes startupTimes) {
+		return (startupTimes == null) ? null : getDuration(TaskEntries.getStartupTimesMap(startupTimes));
+	}
+}
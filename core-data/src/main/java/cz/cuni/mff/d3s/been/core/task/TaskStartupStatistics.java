@@ -0,0 +1,129 @@
+package cz.cuni.mff.d3s.been.core.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated durations of the {@link TaskStartupPhase}s of a set of tasks.
+ * <p/>
+ * Percentiles are computed using the nearest-rank method.
+ */
+public class TaskStartupStatistics {
+
+	/** Aggregated durations of a single phase */
+	public static class Phase {
+		private final TaskStartupPhase phase;
+		private final int count;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long max;
+
+		Phase(TaskStartupPhase phase, List<Long> sortedDurations) {
+			this.phase = phase;
+			this.count = sortedDurations.size();
+			this.p50 = percentile(sortedDurations, 50);
+			this.p90 = percentile(sortedDurations, 90);
+			this.p99 = percentile(sortedDurations, 99);
+			this.max = count == 0 ? 0 : sortedDurations.get(count - 1);
+		}
+
+		/** @return the phase */
+		public TaskStartupPhase getPhase() {
+			return phase;
+		}
+
+		/** @return number of tasks for which the duration of the phase is known */
+		public int getCount() {
+			return count;
+		}
+
+		/** @return median duration in milliseconds */
+		public long getP50() {
+			return p50;
+		}
+
+		/** @return 90th percentile of the duration in milliseconds */
+		public long getP90() {
+			return p90;
+		}
+
+		/** @return 99th percentile of the duration in milliseconds */
+		public long getP99() {
+			return p99;
+		}
+
+		/** @return maximum duration in milliseconds */
+		public long getMax() {
+			return max;
+		}
+	}
+
+	private final int taskCount;
+	private final Map<TaskStartupPhase, Phase> phases;
+
+	private TaskStartupStatistics(int taskCount, Map<TaskStartupPhase, Phase> phases) {
+		this.taskCount = taskCount;
+		this.phases = phases;
+	}
+
+	/**
+	 * Aggregates startup timestamps of a set of tasks.
+	 *
+	 * @param startupTimes
+	 *          startup timestamps of individual tasks, keyed as by
+	 *          {@link TaskEntries#getStartupTimesMap(StartupTimes)}
+	 * @return the statistics
+	 */
+	public static TaskStartupStatistics compute(Collection<Map<String, Long>> startupTimes) {
+		final Map<TaskStartupPhase, Phase> phases = new EnumMap<>(TaskStartupPhase.class);
+		for (TaskStartupPhase phase : TaskStartupPhase.values()) {
+			final List<Long> durations = new ArrayList<>(startupTimes.size());
+			for (Map<String, Long> times : startupTimes) {
+				final Long duration = phase.getDuration(times);
+				if (duration != null) {
+					durations.add(duration);
+				}
+			}
+			Collections.sort(durations);
+			phases.put(phase, new Phase(phase, durations));
+		}
+		return new TaskStartupStatistics(startupTimes.size(), phases);
+	}
+
+	/**
+	 * @return number of aggregated tasks
+	 */
+	public int getTaskCount() {
+		return taskCount;
+	}
+
+	/**
+	 * @param phase
+	 *          the phase to look up
+	 * @return aggregated durations of the phase
+	 */
+	public Phase getPhase(TaskStartupPhase phase) {
+		return phases.get(phase);
+	}
+
+	/**
+	 * @return aggregated durations of all phases, in the order of
+	 *         {@link TaskStartupPhase}
+	 */
+	public Collection<Phase> getPhases() {
+		return Collections.unmodifiableCollection(phases.values());
+	}
+
+	private static long percentile(List<Long> sorted, int percent) {
+		if (sorted.isEmpty()) {
+			return 0;
+		}
+		final int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+		return sorted.get(Math.max(0, rank - 1));
+	}
+}
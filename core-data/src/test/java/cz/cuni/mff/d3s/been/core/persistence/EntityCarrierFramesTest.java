@@ -0,0 +1,84 @@
+package cz.cuni.mff.d3s.been.core.persistence;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link EntityCarrierFrames}
+ */
+public class EntityCarrierFramesTest {
+
+	private static final EntityID RESULT = new EntityID().withKind("result").withGroup("group");
+
+	@Test
+	public void testPlainRoundTrip() throws IOException {
+		final EntityCarrier carrier = new EntityCarrier().withId(RESULT).withData("{\"value\":\"a \\\"quoted\\\" string\"}");
+
+		final String frame = EntityCarrierFrames.encode(carrier);
+		assertTrue(EntityCarrierFrames.isFrame(frame));
+		assertTrue(frame.endsWith(carrier.getEntityJSON()));
+
+		assertSameCarrier(carrier, EntityCarrierFrames.decode(frame));
+	}
+
+	@Test
+	public void testCompressesLargePayload() throws IOException {
+		final StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 1000; ++i) {
+			json.append("{\"taskId\":\"task\",\"value\":").append(i % 10).append("},");
+		}
+		json.append("{}]");
+		final EntityCarrier carrier = new EntityCarrier().withId(RESULT).withData(json.toString());
+
+		final String frame = EntityCarrierFrames.encode(carrier);
+		assertTrue(frame.length() < json.length() / 4);
+
+		assertSameCarrier(carrier, EntityCarrierFrames.decode(frame));
+	}
+
+	@Test
+	public void testBatchRoundTrip() throws IOException {
+		final List<String> jsons = Arrays.asList("{\"value\":1}", "", "{\"value\":\"12:34\"}");
+
+		final String frame = EntityCarrierFrames.encodeBatch(RESULT, jsons);
+		assertTrue(EntityCarrierFrames.isFrame(frame));
+
+		final List<EntityCarrier> carriers = EntityCarrierFrames.decodeAll(frame);
+		assertEquals(jsons.size(), carriers.size());
+		for (int i = 0; i < jsons.size(); ++i) {
+			assertSameCarrier(new EntityCarrier().withId(RESULT).withData(jsons.get(i)), carriers.get(i));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsTruncatedBatch() throws IOException {
+		EntityCarrierFrames.decodeAll("\u0002Presult\ngroup\n10:{}");
+	}
+
+	@Test
+	public void testJsonIsNotFrame() {
+		assertFalse(EntityCarrierFrames.isFrame("{\"entityId\":{\"kind\":\"result\",\"group\":\"group\"}}"));
+		assertFalse(EntityCarrierFrames.isFrame(""));
+	}
+
+	@Test
+	public void testRejectsUnframeableCarrier() {
+		assertFalse(EntityCarrierFrames.canEncode(new EntityCarrier().withId(new EntityID().withKind("result").withGroup("a\nb")).withData("{}")));
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsTruncatedFrame() throws IOException {
+		EntityCarrierFrames.decode("\u0001Presult");
+	}
+
+	private static void assertSameCarrier(EntityCarrier expected, EntityCarrier actual) {
+		assertEquals(expected.getEntityId().getKind(), actual.getEntityId().getKind());
+		assertEquals(expected.getEntityId().getGroup(), actual.getEntityId().getGroup());
+		assertEquals(expected.getEntityJSON(), actual.getEntityJSON());
+	}
+}
@@ -0,0 +1,55 @@
+package cz.cuni.mff.d3s.been.core.task;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link TaskStartupStatistics}
+ */
+public class TaskStartupStatisticsTest {
+
+	@Test
+	public void testPercentiles() {
+		final List<Map<String, Long>> tasks = new ArrayList<>();
+		for (long i = 1; i <= 100; ++i) {
+			final StartupTimes times = new StartupTimes();
+			times.setScheduled(1000L);
+			times.setReceived(1000L + i);
+			times.setRunning(2000L + i);
+			tasks.add(TaskEntries.getStartupTimesMap(times));
+		}
+
+		final TaskStartupStatistics statistics = TaskStartupStatistics.compute(tasks);
+		assertEquals(100, statistics.getTaskCount());
+
+		final TaskStartupStatistics.Phase queued = statistics.getPhase(TaskStartupPhase.QUEUED);
+		assertEquals(100, queued.getCount());
+		assertEquals(50, queued.getP50());
+		assertEquals(90, queued.getP90());
+		assertEquals(99, queued.getP99());
+		assertEquals(100, queued.getMax());
+
+		assertEquals(1100, statistics.getPhase(TaskStartupPhase.TOTAL).getMax());
+	}
+
+	@Test
+	public void testSkipsUnrecordedPhases() {
+		final StartupTimes times = new StartupTimes();
+		times.setAccepted(10L);
+		times.setBpkResolved(15L);
+
+		final List<Map<String, Long>> tasks = new ArrayList<>();
+		tasks.add(TaskEntries.getStartupTimesMap(times));
+		final TaskStartupStatistics statistics = TaskStartupStatistics.compute(tasks);
+
+		assertEquals(1, statistics.getPhase(TaskStartupPhase.BPK_RESOLUTION).getCount());
+		assertEquals(5, statistics.getPhase(TaskStartupPhase.BPK_RESOLUTION).getP99());
+		assertEquals(0, statistics.getPhase(TaskStartupPhase.EXTRACTION).getCount());
+		assertNull(TaskStartupPhase.TOTAL.getDuration(times));
+	}
+}
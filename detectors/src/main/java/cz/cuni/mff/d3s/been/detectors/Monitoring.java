@@ -1,8 +1,10 @@
 package cz.cuni.mff.d3s.been.detectors;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +28,8 @@ public class Monitoring {
 
 	private Set<MonitoringListener> listeners = new HashSet();
 
+	private final List<MonitoringContributor> contributors = new CopyOnWriteArrayList<>();
+
 	/**
 	 * Creates new Monitoring sample generator.
 	 * 
@@ -53,6 +57,19 @@ public class Monitoring {
 		listeners.add(listener);
 	}
 
+	/**
+	 * Adds monitoring contributor.
+	 * 
+	 * Every time a sample is generated, the contributors are given the chance to
+	 * add their data to it before it is propagated to the listeners.
+	 * 
+	 * @param contributor
+	 *          the contributor to add
+	 */
+	public void addContributor(MonitoringContributor contributor) {
+		contributors.add(contributor);
+	}
+
 	private void setMonitoringInterval(int milliseconds) {
 		if (milliseconds < 10) {
 			milliseconds = 10;
@@ -80,6 +97,14 @@ public class Monitoring {
 					while (monitoringRunning) {
 						MonitorSample sample = detector.generateSample(true);
 
+						for (MonitoringContributor contributor : contributors) {
+							try {
+								contributor.contribute(sample);
+							} catch (Exception e) {
+								log.warn("Monitoring contributor {} failed", contributor, e);
+							}
+						}
+
 						for (MonitoringListener listener : listeners) {
 							listener.sampleGenerated(sample);
 						}
@@ -0,0 +1,20 @@
+package cz.cuni.mff.d3s.been.detectors;
+
+import cz.cuni.mff.d3s.been.core.ri.MonitorSample;
+
+/**
+ * 
+ * Interface for adding data to Monitoring samples before they are propagated
+ * to {@link MonitoringListener}s.
+ * 
+ */
+public interface MonitoringContributor {
+
+	/**
+	 * Called on every monitoring sample event, before the listeners are.
+	 * 
+	 * @param sample
+	 *          the generated sample, to be completed
+	 */
+	public void contribute(MonitorSample sample);
+}
@@ -143,6 +143,7 @@ public final class HostRuntime implements IClusterService {
 
 	private void startMonitoring() {
 		monitoring = new Monitoring(clusterContext.getProperties());
+		monitoring.addContributor(processManager.getResourceMonitor());
 		try {
 			monitoring.addListener(ResendMonitoringListener.create(MessageQueues.getInstance().createSender(ACTION_QUEUE_NAME)));
 			monitoring.addListener(new PersistMonitoringListener(clusterContext, this));
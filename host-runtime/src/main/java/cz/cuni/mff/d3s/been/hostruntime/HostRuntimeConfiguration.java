@@ -51,4 +51,201 @@ public final class HostRuntimeConfiguration implements BeenServiceConfiguration
 	/** Default value of {@link HostRuntimeConfiguration#MEMORY_THRESHOLD} */
 	public static final int DEFAULT_MEMORY_THRESHOLD = 90;
 
+	/**
+	 * Name of the property which controls the maximum number of spooled results
+	 * and logs forwarded to the cluster's persistence queue at once.
+	 */
+	public static final String SPOOL_BATCH_SIZE = "hostruntime.spool.batchSize";
+
+	/** Default value of {@link HostRuntimeConfiguration#SPOOL_BATCH_SIZE} */
+	public static final Integer DEFAULT_SPOOL_BATCH_SIZE = 256;
+
+	/**
+	 * Name of the property which determines whether every result and log
+	 * appended to the spool is forced to the storage device. Without it, spooled
+	 * objects survive a crash of the Host Runtime, but not of the operating
+	 * system.
+	 */
+	public static final String SPOOL_FSYNC = "hostruntime.spool.fsync";
+
+	/** Default value of {@link HostRuntimeConfiguration#SPOOL_FSYNC} */
+	public static final Boolean DEFAULT_SPOOL_FSYNC = false;
+
+	/**
+	 * Name of the property which controls the size in bytes of forwarded records
+	 * at the head of the spool file, over which the spool file is compacted.
+	 * Keeps the spool bounded while tasks log steadily and the forwarder never
+	 * fully catches up.
+	 */
+	public static final String SPOOL_COMPACT_THRESHOLD = "hostruntime.spool.compactThreshold";
+
+	/** Default value of {@link HostRuntimeConfiguration#SPOOL_COMPACT_THRESHOLD} */
+	public static final Long DEFAULT_SPOOL_COMPACT_THRESHOLD = 16L * 1024 * 1024;
+
+	/**
+	 * Name of the property which determines whether extracted software packages
+	 * are cached and task working directories are linked from the cache, rather
+	 * than extracting the package for every task.
+	 */
+	public static final String BPK_CACHE_ENABLED = "hostruntime.bpkCache.enabled";
+
+	/** Default value of {@link HostRuntimeConfiguration#BPK_CACHE_ENABLED} */
+	public static final Boolean DEFAULT_BPK_CACHE_ENABLED = true;
+
+	/**
+	 * Name of the property which limits the size (in bytes) of the extracted
+	 * software package cache. Least recently used packages are evicted from the
+	 * cache when it grows over the limit.
+	 */
+	public static final String BPK_CACHE_MAX_SIZE = "hostruntime.bpkCache.maxSize";
+
+	/** Default value of {@link HostRuntimeConfiguration#BPK_CACHE_MAX_SIZE} */
+	public static final Long DEFAULT_BPK_CACHE_MAX_SIZE = 1024L * 1024 * 1024;
+
+	/**
+	 * Name of the property which lists (comma-separated glob patterns relative
+	 * to the package root) the package files which tasks may modify. These are
+	 * copied into task working directories; other files are hard-linked from the
+	 * extracted software package cache and are read-only.
+	 */
+	public static final String BPK_CACHE_PRIVATE_FILES = "hostruntime.bpkCache.privateFiles";
+
+	/** Default value of {@link HostRuntimeConfiguration#BPK_CACHE_PRIVATE_FILES} */
+	public static final String DEFAULT_BPK_CACHE_PRIVATE_FILES = "files/**";
+
+	/**
+	 * Name of the property which sets the number of threads downloading software
+	 * from the Software Repository in parallel when resolving artifacts of a
+	 * started task. Half of the number (rounded up) of separate, low priority
+	 * threads prefetch software. With 0, software is downloaded only when a task
+	 * is started, one package at a time.
+	 */
+	public static final String PREFETCH_THREADS = "hostruntime.prefetch.threads";
+
+	/** Default value of {@link HostRuntimeConfiguration#PREFETCH_THREADS} */
+	public static final Integer DEFAULT_PREFETCH_THREADS = 4;
+
+	/**
+	 * Name of the property which enables prefetching of software of tasks
+	 * waiting for a suitable Host Runtime, whose Host Runtime selector matches
+	 * this Host Runtime. The Host Runtime then receives every update of every
+	 * task in the cluster, so enable it only in small clusters. Software of tasks
+	 * the Host Runtime is requested to run is always prefetched (unless
+	 * prefetching is disabled by {@link HostRuntimeConfiguration#PREFETCH_THREADS}).
+	 */
+	public static final String PREFETCH_WAITING = "hostruntime.prefetch.waitingTasks";
+
+	/** Default value of {@link HostRuntimeConfiguration#PREFETCH_WAITING} */
+	public static final Boolean DEFAULT_PREFETCH_WAITING = false;
+
+	/**
+	 * Name of the property which limits the number of tasks prepared (accepted,
+	 * their software fetched and extracted, command line built) concurrently.
+	 * Further tasks wait in the launch queue.
+	 */
+	public static final String LAUNCH_PREPARE_THREADS = "hostruntime.launch.prepareThreads";
+
+	/** Default value of {@link HostRuntimeConfiguration#LAUNCH_PREPARE_THREADS} */
+	public static final Integer DEFAULT_LAUNCH_PREPARE_THREADS = 4;
+
+	/**
+	 * Name of the property which sets the number of pre-started launcher JVMs
+	 * kept ready to run JVM tasks. A task that opts in with
+	 * <code>&lt;java&gt;&lt;pooled&gt;true&lt;/pooled&gt;&lt;/java&gt;</code>
+	 * in its descriptor, and neither sets custom Java options nor is debugged, is
+	 * run by an idle launcher instead of a brand-new JVM. Zero disables the pool.
+	 * <p/>
+	 * A launcher cannot change its working directory nor its environment. Only
+	 * the <code>user.dir</code> property of a pooled task points to its working
+	 * directory; relative file streams, native libraries and child processes use
+	 * the shared directory of the pool (whose files are not cleaned up with the
+	 * task), and <code>System.getenv()</code> returns the environment of the Host
+	 * Runtime.
+	 */
+	public static final String JVM_POOL_SIZE = "hostruntime.jvmpool.size";
+
+	/** Default value of {@link HostRuntimeConfiguration#JVM_POOL_SIZE} */
+	public static final Integer DEFAULT_JVM_POOL_SIZE = 0;
+
+	/**
+	 * Name of the property which sets the classpath of libraries (typically the
+	 * task API and its dependencies) preloaded by pooled launcher JVMs. Classes
+	 * found on this classpath take precedence over those packaged with a task.
+	 */
+	public static final String JVM_POOL_SHARED_CLASSPATH = "hostruntime.jvmpool.sharedClasspath";
+
+	/** Default value of {@link HostRuntimeConfiguration#JVM_POOL_SHARED_CLASSPATH} */
+	public static final String DEFAULT_JVM_POOL_SHARED_CLASSPATH = "";
+
+	/**
+	 * Name of the property which sets the interval (in milliseconds) in which
+	 * the processes of running tasks are sampled for resource usage. Zero
+	 * disables the sampling. Sampling requires a Linux-like <code>/proc</code>
+	 * file system.
+	 */
+	public static final String TASK_SAMPLING_INTERVAL = "hostruntime.tasks.sampling.interval";
+
+	/** Default value of {@link HostRuntimeConfiguration#TASK_SAMPLING_INTERVAL} */
+	public static final Integer DEFAULT_TASK_SAMPLING_INTERVAL = 1000;
+
+	/**
+	 * Name of the property which enables dedicating CPUs to tasks which request
+	 * them and pinning task processes to their CPUs. Requires Linux with the
+	 * <code>taskset</code> utility.
+	 */
+	public static final String CPU_PINNING = "hostruntime.cpus.pinning";
+
+	/** Default value of {@link HostRuntimeConfiguration#CPU_PINNING} */
+	public static final Boolean DEFAULT_CPU_PINNING = false;
+
+	/**
+	 * Name of the property which sets the CPUs (in the Linux cpu list format,
+	 * e.g. <code>0-1</code>) reserved for the Host Runtime's own threads when
+	 * {@link HostRuntimeConfiguration#CPU_PINNING} is enabled. These CPUs are
+	 * never dedicated to a task.
+	 */
+	public static final String CPU_RESERVED = "hostruntime.cpus.reserved";
+
+	/** Default value of {@link HostRuntimeConfiguration#CPU_RESERVED} */
+	public static final String DEFAULT_CPU_RESERVED = "0";
+
+	/**
+	 * Name of the property which sets the interval (in milliseconds) in which
+	 * the captured standard output and error of tasks is sent to the cluster log
+	 * in batches.
+	 */
+	public static final String TASK_OUTPUT_FLUSH_INTERVAL = "hostruntime.tasks.output.flushInterval";
+
+	/** Default value of {@link HostRuntimeConfiguration#TASK_OUTPUT_FLUSH_INTERVAL} */
+	public static final Integer DEFAULT_TASK_OUTPUT_FLUSH_INTERVAL = 250;
+
+	/**
+	 * Name of the property which sets the number of lines of standard output and
+	 * error per second a task may send to the cluster log. Zero means unlimited.
+	 * Lines over the limit are kept in the task's output files only.
+	 */
+	public static final String TASK_OUTPUT_RATE_LIMIT = "hostruntime.tasks.output.rateLimit";
+
+	/** Default value of {@link HostRuntimeConfiguration#TASK_OUTPUT_RATE_LIMIT} */
+	public static final Integer DEFAULT_TASK_OUTPUT_RATE_LIMIT = 1000;
+
+	/**
+	 * Name of the property which sets the number of bytes of standard output and
+	 * error a task may send to the cluster log in total. Zero means unlimited.
+	 * Output over the quota is kept in the task's output files only.
+	 */
+	public static final String TASK_OUTPUT_QUOTA = "hostruntime.tasks.output.quota";
+
+	/** Default value of {@link HostRuntimeConfiguration#TASK_OUTPUT_QUOTA} */
+	public static final Long DEFAULT_TASK_OUTPUT_QUOTA = 64L * 1024 * 1024;
+
+	/**
+	 * Name of the property which sets the interval (in milliseconds) in which
+	 * the latest log message of each task is published for live log listeners.
+	 */
+	public static final String LIVE_LOG_INTERVAL = "hostruntime.tasks.logs.liveInterval";
+
+	/** Default value of {@link HostRuntimeConfiguration#LIVE_LOG_INTERVAL} */
+	public static final Integer DEFAULT_LIVE_LOG_INTERVAL = 1000;
+
 }
@@ -13,6 +13,7 @@ import cz.cuni.mff.d3s.been.cluster.Names;
 import cz.cuni.mff.d3s.been.cluster.Service;
 import cz.cuni.mff.d3s.been.cluster.ServiceException;
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.cluster.context.Topics;
 import cz.cuni.mff.d3s.been.core.protocol.messages.BaseMessage;
 import cz.cuni.mff.d3s.been.mq.IMessageSender;
 import cz.cuni.mff.d3s.been.mq.MessageQueues;
@@ -21,6 +22,9 @@ import cz.cuni.mff.d3s.been.mq.MessagingException;
 /**
  * Listens for Host Runtime messages.
  * 
+ * Messages addressed to this Host Runtime arrive in its own inbox topic,
+ * messages for all Host Runtimes in the global topic.
+ * 
  * @author Martin Sixta
  */
 final class HostRuntimeMessageListener implements MessageListener<BaseMessage>, Service {
@@ -37,9 +41,12 @@ final class HostRuntimeMessageListener implements MessageListener<BaseMessage>,
 	/** ID of this Host Runtime */
 	private final String nodeId;
 
-	/** The Hazelcast topic to listen for messages on */
+	/** The Hazelcast topic to listen for messages for all Host Runtimes on */
 	final ITopic<BaseMessage> globalTopic;
 
+	/** The Hazelcast topic to listen for messages addressed to this Host Runtime on */
+	final ITopic<BaseMessage> runtimeTopic;
+
 	/**
 	 * Creates HostRuntimeMessageListener.
 	 * 
@@ -53,6 +60,7 @@ final class HostRuntimeMessageListener implements MessageListener<BaseMessage>,
 		this.nodeId = nodeId;
 
 		globalTopic = ctx.getTopic(Names.BEEN_GLOBAL_TOPIC);
+		runtimeTopic = ctx.getTopic(Topics.getRuntimeTopicName(nodeId));
 	}
 
 	@Override
@@ -65,10 +73,12 @@ final class HostRuntimeMessageListener implements MessageListener<BaseMessage>,
 			throw new ServiceException(msg, e);
 		}
 		globalTopic.addMessageListener(this);
+		runtimeTopic.addMessageListener(this);
 	}
 
 	@Override
 	public synchronized void stop() {
+		runtimeTopic.removeMessageListener(this);
 		globalTopic.removeMessageListener(this);
 		sender.close();
 	}
@@ -81,7 +91,7 @@ final class HostRuntimeMessageListener implements MessageListener<BaseMessage>,
 	 *          received message
 	 */
 	@Override
-	public synchronized void onMessage(Message<BaseMessage> message) {
+	public void onMessage(Message<BaseMessage> message) {
 		final BaseMessage messageObject = message.getMessageObject();
 
 		String receiverId = messageObject.recieverId;
@@ -89,11 +99,19 @@ final class HostRuntimeMessageListener implements MessageListener<BaseMessage>,
 		boolean isForThisHostRuntime = (receiverId == null || nodeId.equals(receiverId));
 
 		if (isForThisHostRuntime) {
-			try {
-				sender.send(messageObject);
-			} catch (MessagingException e) {
-				log.error("Cannot request message to task action queue", e);
-			}
+			send(messageObject);
+		}
+	}
+
+	/**
+	 * Forwards a message to the task action queue. The sender is not thread-safe
+	 * and both topics deliver messages.
+	 */
+	private synchronized void send(BaseMessage messageObject) {
+		try {
+			sender.send(messageObject);
+		} catch (MessagingException e) {
+			log.error("Cannot request message to task action queue", e);
 		}
 	}
 }
@@ -1,17 +1,19 @@
 package cz.cuni.mff.d3s.been.hostruntime;
 
 import static cz.cuni.mff.d3s.been.cluster.Names.ACTION_QUEUE_NAME;
+import static cz.cuni.mff.d3s.been.hostruntime.HostRuntimeConfiguration.*;
 import static cz.cuni.mff.d3s.been.core.TaskPropertyNames.*;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -23,6 +25,8 @@ import cz.cuni.mff.d3s.been.cluster.Service;
 import cz.cuni.mff.d3s.been.cluster.ServiceException;
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
 import cz.cuni.mff.d3s.been.cluster.context.Tasks;
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrierFrames;
 import cz.cuni.mff.d3s.been.core.protocol.command.CommandEntry;
 import cz.cuni.mff.d3s.been.core.protocol.command.CommandEntryState;
 import cz.cuni.mff.d3s.been.core.protocol.messages.BaseMessage;
@@ -30,10 +34,20 @@ import cz.cuni.mff.d3s.been.core.protocol.messages.DeleteTaskWrkDirMessage;
 import cz.cuni.mff.d3s.been.core.protocol.messages.KillTaskMessage;
 import cz.cuni.mff.d3s.been.core.protocol.messages.RunTaskMessage;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+import cz.cuni.mff.d3s.been.core.task.StartupTimes;
 import cz.cuni.mff.d3s.been.core.task.TaskDescriptor;
+import cz.cuni.mff.d3s.been.core.task.TaskEntries;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
 import cz.cuni.mff.d3s.been.core.task.TaskProperty;
+import cz.cuni.mff.d3s.been.hostruntime.bpkcache.ExtractedBpkCache;
+import cz.cuni.mff.d3s.been.hostruntime.cpu.CpuAllocator;
+import cz.cuni.mff.d3s.been.hostruntime.cpu.Taskset;
+import cz.cuni.mff.d3s.been.hostruntime.jvmpool.JVMPool;
+import cz.cuni.mff.d3s.been.hostruntime.procfs.ProcFs;
+import cz.cuni.mff.d3s.been.hostruntime.procfs.TaskResourceMonitor;
+import cz.cuni.mff.d3s.been.hostruntime.spool.PersistenceSpool;
 import cz.cuni.mff.d3s.been.hostruntime.task.*;
+import cz.cuni.mff.d3s.been.hostruntime.tasklogs.LiveLogPublisher;
 import cz.cuni.mff.d3s.been.hostruntime.tasklogs.TaskLogHandler;
 import cz.cuni.mff.d3s.been.mq.IMessageReceiver;
 import cz.cuni.mff.d3s.been.mq.IMessageSender;
@@ -42,6 +56,7 @@ import cz.cuni.mff.d3s.been.mq.MessagingException;
 import cz.cuni.mff.d3s.been.socketworks.MessageDispatcher;
 import cz.cuni.mff.d3s.been.socketworks.NamedSockets;
 import cz.cuni.mff.d3s.been.swrepoclient.SwRepoClientFactory;
+import cz.cuni.mff.d3s.been.util.PropertyReader;
 import cz.cuni.mff.d3s.been.util.ZipUtil;
 
 /**
@@ -63,6 +78,15 @@ final class ProcessManager implements Service {
 
 	private static final String STD_OUT_REDIRECT_FILENAME = "stdout.log";
 
+	/** Name of the directory (within the Host Runtime working directory) that holds the persistence spool */
+	private static final String SPOOL_DIR_NAME = "spool";
+
+	/** Name of the directory (within the Host Runtime working directory) that holds extracted software packages */
+	private static final String BPK_CACHE_DIR_NAME = "bpkcache";
+
+	/** Name of the directory (within the Host Runtime working directory) in which pooled launcher JVMs run */
+	private static final String JVM_POOL_DIR_NAME = "jvmpool";
+
 	/**
 	 * Host Runtime info
 	 */
@@ -78,6 +102,12 @@ final class ProcessManager implements Service {
 	 */
 	private SoftwareResolver softwareResolver;
 
+	/**
+	 * Prefetches software of tasks likely to run here, <code>null</code> if
+	 * disabled
+	 */
+	private final SoftwarePrefetcher softwarePrefetcher;
+
 	/**
 	 * Shortcut to task cluster context.
 	 */
@@ -93,8 +123,63 @@ final class ProcessManager implements Service {
 	 */
 	private ProcessManagerContext tasks;
 
+	/**
+	 * Pipeline launching tasks
+	 */
+	private final TaskLaunchPipeline launchPipeline;
+
 	private final MessageDispatcher messageDispatcher;
 
+	/**
+	 * Durable buffer of task results and logs on their way to the cluster
+	 */
+	private final PersistenceSpool persistenceSpool;
+
+	/**
+	 * Cache of extracted software packages, <code>null</code> if disabled
+	 */
+	private final ExtractedBpkCache bpkCache;
+
+	/**
+	 * Pool of pre-started JVMs for JVM tasks, <code>null</code> if disabled
+	 */
+	private final JVMPool jvmPool;
+
+	/**
+	 * Startup timestamps of tasks being started
+	 */
+	private final TaskStartupRecorder startupRecorder = new TaskStartupRecorder();
+
+	/**
+	 * Allocator of CPUs dedicated to tasks, <code>null</code> if disabled
+	 */
+	private final CpuAllocator cpuAllocator;
+
+	/**
+	 * Publishes the latest task logs for live log listeners
+	 */
+	private final LiveLogPublisher liveLogPublisher;
+
+	/**
+	 * Sends captured output of tasks to the cluster log
+	 */
+	private final TaskOutputFlusher outputFlusher;
+
+	/**
+	 * Lines per second of output a task may send to the cluster log
+	 */
+	private final int outputRateLimit;
+
+	/**
+	 * Bytes of output a task may send to the cluster log
+	 */
+	private final long outputQuota;
+
+	/**
+	 * Samples resource usage of running task processes
+	 */
+	private final TaskResourceMonitor resourceMonitor;
+
 	/**
 	 * Creates new instance.
 	 * <p/>
@@ -110,11 +195,97 @@ final class ProcessManager implements Service {
 	ProcessManager(ClusterContext clusterContext, SwRepoClientFactory swRepoClientFactory, RuntimeInfo hostInfo) {
 		this.clusterContext = clusterContext;
 		this.hostInfo = hostInfo;
-		this.softwareResolver = new SoftwareResolver(clusterContext.getServices(), swRepoClientFactory);
 		this.clusterTasks = clusterContext.getTasks();
 
-		this.tasks = new ProcessManagerContext(clusterContext, hostInfo);
 		this.messageDispatcher = MessageDispatcher.create("localhost");
+
+		final PropertyReader propertyReader = PropertyReader.on(clusterContext.getProperties());
+		this.launchPipeline = new TaskLaunchPipeline(propertyReader.getInteger(LAUNCH_PREPARE_THREADS, DEFAULT_LAUNCH_PREPARE_THREADS));
+		this.cpuAllocator = createCpuAllocator(propertyReader);
+		this.tasks = new ProcessManagerContext(
+				clusterContext,
+				hostInfo,
+				swRepoClientFactory.getSoftwareCache(),
+				launchPipeline,
+				cpuAllocator);
+		final int prefetchThreads = propertyReader.getInteger(PREFETCH_THREADS, DEFAULT_PREFETCH_THREADS);
+		this.softwareResolver = new SoftwareResolver(clusterContext.getServices(), swRepoClientFactory, prefetchThreads);
+		this.softwarePrefetcher = (prefetchThreads > 0) ? new SoftwarePrefetcher(
+				clusterContext,
+				softwareResolver,
+				hostInfo,
+				propertyReader.getBoolean(PREFETCH_WAITING, DEFAULT_PREFETCH_WAITING)) : null;
+		this.persistenceSpool = new PersistenceSpool(
+				new File(hostInfo.getWorkingDirectory(), SPOOL_DIR_NAME),
+				clusterContext.<EntityCarrier> getQueue(Names.PERSISTENCE_QUEUE_NAME),
+				clusterContext.getPersistence(),
+				propertyReader.getInteger(SPOOL_BATCH_SIZE, DEFAULT_SPOOL_BATCH_SIZE),
+				propertyReader.getBoolean(SPOOL_FSYNC, DEFAULT_SPOOL_FSYNC),
+				propertyReader.getLong(SPOOL_COMPACT_THRESHOLD, DEFAULT_SPOOL_COMPACT_THRESHOLD));
+		this.bpkCache = propertyReader.getBoolean(BPK_CACHE_ENABLED, DEFAULT_BPK_CACHE_ENABLED) ? new ExtractedBpkCache(
+				new File(hostInfo.getWorkingDirectory(), BPK_CACHE_DIR_NAME),
+				propertyReader.getLong(BPK_CACHE_MAX_SIZE, DEFAULT_BPK_CACHE_MAX_SIZE),
+				splitPatterns(propertyReader.getString(BPK_CACHE_PRIVATE_FILES, DEFAULT_BPK_CACHE_PRIVATE_FILES))) : null;
+		final int jvmPoolSize = propertyReader.getInteger(JVM_POOL_SIZE, DEFAULT_JVM_POOL_SIZE);
+		this.jvmPool = (jvmPoolSize > 0) ? new JVMPool(
+				new File(hostInfo.getWorkingDirectory(), JVM_POOL_DIR_NAME),
+				jvmPoolSize,
+				propertyReader.getString(JVM_POOL_SHARED_CLASSPATH, DEFAULT_JVM_POOL_SHARED_CLASSPATH)) : null;
+		this.liveLogPublisher = new LiveLogPublisher(
+				clusterContext,
+				propertyReader.getInteger(LIVE_LOG_INTERVAL, DEFAULT_LIVE_LOG_INTERVAL));
+		this.outputFlusher = new TaskOutputFlusher(propertyReader.getInteger(
+				TASK_OUTPUT_FLUSH_INTERVAL,
+				DEFAULT_TASK_OUTPUT_FLUSH_INTERVAL));
+		this.outputRateLimit = propertyReader.getInteger(TASK_OUTPUT_RATE_LIMIT, DEFAULT_TASK_OUTPUT_RATE_LIMIT);
+		this.outputQuota = propertyReader.getLong(TASK_OUTPUT_QUOTA, DEFAULT_TASK_OUTPUT_QUOTA);
+		this.resourceMonitor = new TaskResourceMonitor(
+				new ProcFs(ProcFs.DEFAULT_ROOT),
+				propertyReader.getInteger(TASK_SAMPLING_INTERVAL, DEFAULT_TASK_SAMPLING_INTERVAL));
+	}
+
+	private static CpuAllocator createCpuAllocator(PropertyReader propertyReader) {
+		if (!propertyReader.getBoolean(CPU_PINNING, DEFAULT_CPU_PINNING)) {
+			return null;
+		}
+		if (!Taskset.isAvailable()) {
+			log.warn("CPU pinning requested, but taskset is not available. Tasks will not get dedicated CPUs.");
+			return null;
+		}
+		try {
+			return CpuAllocator.create(propertyReader.getString(CPU_RESERVED, DEFAULT_CPU_RESERVED));
+		} catch (IllegalArgumentException e) {
+			log.error("Invalid reserved CPUs. Tasks will not get dedicated CPUs.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Confines the threads of the Host Runtime (and the processes it starts
+	 * without pinning, such as pooled JVMs) to the reserved CPUs.
+	 */
+	private void confineToReservedCpus() {
+		final String reserved = cpuAllocator.getReservedCpus();
+		final Integer pid = Taskset.getOwnPid();
+		if (reserved.isEmpty() || pid == null) {
+			return;
+		}
+		try {
+			Taskset.pin(pid, reserved);
+			log.info("Host Runtime confined to CPUs {}", reserved);
+		} catch (IOException e) {
+			log.warn("Cannot confine the Host Runtime to CPUs {}", reserved, e);
+		}
+	}
+
+	private static List<String> splitPatterns(String patterns) {
+		final List<String> result = new ArrayList<>();
+		for (String pattern : patterns.split(",")) {
+			if (!pattern.trim().isEmpty()) {
+				result.add(pattern.trim());
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -122,8 +293,24 @@ final class ProcessManager implements Service {
 	 */
 	@Override
 	public void start() throws ServiceException {
+		if (cpuAllocator != null) {
+			confineToReservedCpus();
+		}
+		persistenceSpool.start();
+		if (bpkCache != null) {
+			bpkCache.start();
+		}
+		if (jvmPool != null) {
+			jvmPool.start();
+		}
+		resourceMonitor.start();
+		outputFlusher.start();
+		liveLogPublisher.start();
 		startTaskActionThread();
 		startMessageDispatcher();
+		if (softwarePrefetcher != null) {
+			softwarePrefetcher.start();
+		}
 	}
 
 	/**
@@ -138,10 +325,12 @@ final class ProcessManager implements Service {
 	 * Starts the {@link MessageDispatcher}
 	 */
 	private void startMessageDispatcher() throws ServiceException {
-		messageDispatcher.addReceiveHandler(NamedSockets.TASK_LOG_0MQ.getName(), TaskLogHandler.create(clusterContext));
+		messageDispatcher.addReceiveHandler(
+				NamedSockets.TASK_LOG_0MQ.getName(),
+				TaskLogHandler.create(clusterContext, persistenceSpool, liveLogPublisher, startupRecorder));
 		messageDispatcher.addReceiveHandler(
 				NamedSockets.TASK_RESULT_PERSIST_0MQ.getName(),
-				ResultHandler.create(clusterContext));
+				ResultHandler.create(persistenceSpool));
 		messageDispatcher.addRespondingHandler(
 				NamedSockets.TASK_CHECKPOINT_0MQ.getName(),
 				CheckpointHandlerFactory.create(clusterContext));
@@ -156,8 +345,20 @@ final class ProcessManager implements Service {
 	 */
 	@Override
 	public void stop() {
+		if (softwarePrefetcher != null) {
+			softwarePrefetcher.stop();
+		}
+		softwareResolver.shutdown();
 		stopMessageDispatcher();
 		stopTaskActionThread();
+		launchPipeline.stop();
+		if (jvmPool != null) {
+			jvmPool.stop();
+		}
+		resourceMonitor.stop();
+		outputFlusher.stop();
+		liveLogPublisher.stop();
+		persistenceSpool.stop();
 
 		// Kill all remaining running clusterTasks
 		tasks.killRunningTasks();
@@ -190,17 +391,33 @@ final class ProcessManager implements Service {
 	/**
 	 * Handles RunTaskMessage.
 	 * <p/>
-	 * Tries to run a task.
+	 * Tries to run a task. The task is launched through the
+	 * {@link TaskLaunchPipeline}.
 	 * 
 	 * @param message
 	 *          message carrying the information
 	 */
-	void onRunTask(RunTaskMessage message) {
-		TaskEntry taskHandle = loadTask(message.taskId);
-		if (taskHandle == null) {
-			log.warn("No such task to run: {}", message.taskId);
-		} else {
-			runTask(taskHandle);
+	void onRunTask(final RunTaskMessage message) {
+		final long received = System.currentTimeMillis();
+		if (softwarePrefetcher != null) {
+			// start downloading while the task waits for a preparing thread
+			softwarePrefetcher.onRunTask(message.taskId);
+		}
+		try {
+			launchPipeline.prepare(new Runnable() {
+				@Override
+				public void run() {
+					TaskEntry taskEntry = loadTask(message.taskId);
+					if (taskEntry == null) {
+						log.warn("No such task to run: {}", message.taskId);
+					} else {
+						startupRecorder.register(taskEntry, received);
+						prepareTask(taskEntry);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.warn("Cannot run task {}, the Host Runtime is stopping", message.taskId);
 		}
 	}
 
@@ -231,25 +448,81 @@ final class ProcessManager implements Service {
 		return hostInfo.getId();
 	}
 
-	private void runTask(TaskEntry taskEntry) {
+	/**
+	 * Returns the monitor sampling resource usage of running tasks.
+	 * 
+	 * @return the task resource monitor
+	 */
+	TaskResourceMonitor getResourceMonitor() {
+		return resourceMonitor;
+	}
+
+	/**
+	 * Accepts a task and prepares its process, then hands the task over to the
+	 * spawning stage of the launch pipeline.
+	 * 
+	 * @param taskEntry
+	 *          the task to prepare
+	 */
+	private void prepareTask(final TaskEntry taskEntry) {
 
-		String id = taskEntry.getId();
-		TaskHandle taskHandle = new TaskHandle(taskEntry, clusterContext);
+		final String id = taskEntry.getId();
+		final TaskHandle taskHandle = new TaskHandle(taskEntry, clusterContext);
+		final StartupTimes startupTimes = TaskEntries.getStartupTimes(taskEntry);
 
 		try {
 			tasks.tryAcceptTask(taskHandle);
 		} catch (Exception e) {
+			startupRecorder.unregister(id);
 			taskHandle.reSubmit("Cannot accept the task on %s. Reason: %s", getNodeId(), e.getMessage());
 			log.info("Cannot run task {}", taskHandle.getTaskId());
 			return;
 		}
+		startupTimes.setAccepted(System.currentTimeMillis());
 
-		File taskDir = createTaskDir(taskEntry);
+		final File taskDir = createTaskDir(taskEntry);
 		tasks.updateTaskDirs();
 
+		final TaskProcess process;
 		try {
-			TaskProcess process = createTaskProcess(taskEntry, taskDir);
+			process = createTaskProcess(taskEntry, taskDir);
+		} catch (Exception e) {
+			abortTask(taskHandle, e);
+			tasks.removeTask(taskHandle);
+			startupRecorder.unregister(id);
+			return;
+		}
+
+		try {
+			launchPipeline.spawn(new Runnable() {
+				@Override
+				public void run() {
+					startTask(taskHandle, process, taskDir, startupTimes);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			abortTask(taskHandle, e);
+			tasks.removeTask(taskHandle);
+			startupRecorder.unregister(id);
+		}
+	}
 
+	/**
+	 * Spawns a prepared task process and waits for it to finish.
+	 * 
+	 * @param taskHandle
+	 *          handle of the task
+	 * @param process
+	 *          the prepared process
+	 * @param taskDir
+	 *          working directory of the task
+	 * @param startupTimes
+	 *          startup timestamps of the task
+	 */
+	private void startTask(TaskHandle taskHandle, TaskProcess process, File taskDir, StartupTimes startupTimes) {
+		final String id = taskHandle.getTaskId();
+
+		try {
 			tasks.addTask(id, process);
 
 			if (process.isDebugListeningMode()) {
@@ -258,7 +531,25 @@ final class ProcessManager implements Service {
 
 			taskHandle.setRunning(process);
 
-			int exitValue = process.start();
+			if (jvmPool != null && process.isPooledLaunchSupported()) {
+				process.setPooledJVM(jvmPool.acquire());
+			}
+			process.setCpus(tasks.getTaskCpus(id));
+			process.setLaunchListener(new Runnable() {
+				@Override
+				public void run() {
+					// the CPUs may have been reallocated since the CPU list was taken
+					tasks.pinTask(id);
+				}
+			});
+			resourceMonitor.register(id, process);
+			startupTimes.setSpawned(System.currentTimeMillis());
+			int exitValue;
+			try {
+				exitValue = process.start();
+			} finally {
+				taskHandle.setResourceUsage(resourceMonitor.unregister(id));
+			}
 
 			taskHandle.setFinished(exitValue);
 
@@ -273,16 +564,21 @@ final class ProcessManager implements Service {
 						id);
 				log.warn(msg, e);
 			}
-		} catch (TaskException e) {
-			String msg = String.format("Task '%s' has been aborted due to underlying exception.", id);
-			log.error(msg, e);
-			taskHandle.setAborted(msg, e.getExitValue());
 		} catch (Exception e) {
-			String msg = String.format("Task '%s' has been aborted due to underlying exception.", id);
-			log.error(msg, e);
-			taskHandle.setAborted(msg);
+			abortTask(taskHandle, e);
 		} finally {
 			tasks.removeTask(taskHandle);
+			startupRecorder.unregister(id);
+		}
+	}
+
+	private void abortTask(TaskHandle taskHandle, Exception e) {
+		String msg = String.format("Task '%s' has been aborted due to underlying exception.", taskHandle.getTaskId());
+		log.error(msg, e);
+		if (e instanceof TaskException) {
+			taskHandle.setAborted(msg, ((TaskException) e).getExitValue());
+		} else {
+			taskHandle.setAborted(msg);
 		}
 	}
 
@@ -301,15 +597,20 @@ final class ProcessManager implements Service {
 	 * @throws BpkConfigurationException
 	 * @throws TaskException
 	 */
-	private synchronized
-			TaskProcess
-			createTaskProcess(TaskEntry taskEntry, File taskDirectory) throws IOException, BpkConfigurationException, TaskException {
+	private TaskProcess createTaskProcess(TaskEntry taskEntry, File taskDirectory) throws IOException, BpkConfigurationException, TaskException {
 
 		TaskDescriptor taskDescriptor = taskEntry.getTaskDescriptor();
+		StartupTimes startupTimes = TaskEntries.getStartupTimes(taskEntry);
 
 		Bpk bpk = getBpk(taskDescriptor);
+		startupTimes.setBpkResolved(System.currentTimeMillis());
 
-		ZipUtil.unzipToDir(bpk.getInputStream(), taskDirectory);
+		if (bpkCache != null) {
+			bpkCache.materialize(bpk, taskDirectory);
+		} else {
+			ZipUtil.unzipToDir(bpk.getInputStream(), taskDirectory);
+		}
+		startupTimes.setExtracted(System.currentTimeMillis());
 
 		// obtain bpk configuration
 		Path taskWrkDir = taskDirectory.toPath();
@@ -322,18 +623,31 @@ final class ProcessManager implements Service {
 
 		// create dependency downloader
 		DependencyDownloader dependencyDownloader = DependencyDownloaderFactory.create(runtime);
-
-		// create streams to redirect stdout and stderr to
-		OutputStream stdOutFileOutputStream = new FileOutputStream(new File(taskDirectory, STD_OUT_REDIRECT_FILENAME));
-		OutputStream stdErrFileOutputStream = new FileOutputStream(new File(taskDirectory, STD_ERR_REDIRECT_FILENAME));
+		startupTimes.setDependenciesResolved(System.currentTimeMillis());
 
 		// let the compiler optimize this out
 		String taskId = taskEntry.getId();
 		String contextId = taskEntry.getTaskContextId();
 		String benchmarkId = taskEntry.getBenchmarkId();
 
-		TaskStdInOutHandler stdOutHandler = new TaskStdInOutHandler(taskId, contextId, benchmarkId, "stdout", stdOutFileOutputStream);
-		TaskStdInOutHandler stdErrHandler = new TaskStdInOutHandler(taskId, contextId, benchmarkId, "stderr", stdErrFileOutputStream);
+		// capture stdout and stderr to files and the cluster log
+		TaskOutputLimits outputLimits = new TaskOutputLimits(outputRateLimit, outputQuota);
+		TaskStdInOutHandler stdOutHandler = new TaskStdInOutHandler(
+				taskId,
+				contextId,
+				benchmarkId,
+				"stdout",
+				new File(taskDirectory, STD_OUT_REDIRECT_FILENAME),
+				outputLimits,
+				outputFlusher);
+		TaskStdInOutHandler stdErrHandler = new TaskStdInOutHandler(
+				taskId,
+				contextId,
+				benchmarkId,
+				"stderr",
+				new File(taskDirectory, STD_ERR_REDIRECT_FILENAME),
+				outputLimits,
+				outputFlusher);
 
 		// create environment properties
 		Map<String, String> environment = createEnvironmentProperties(taskEntry);
@@ -375,6 +689,7 @@ final class ProcessManager implements Service {
 		properties.put(TASK_ID, taskEntry.getId());
 		properties.put(CONTEXT_ID, taskEntry.getTaskContextId());
 		properties.put(BENCHMARK_ID, taskEntry.getBenchmarkId());
+		properties.put(RESULT_FORMAT, EntityCarrierFrames.FORMAT_FRAMED);
 
 		// add properties specified in the TaskDescriptor
 		TaskDescriptor td = taskEntry.getTaskDescriptor();
@@ -416,8 +731,6 @@ final class ProcessManager implements Service {
 
 		private final Logger log = LoggerFactory.getLogger(TaskActionThread.class);
 
-		// TODO Consider use of ExecutorService for task handling
-
 		TaskActionThread() {
 			this.queues = MessageQueues.getInstance();
 		}
@@ -440,13 +753,7 @@ final class ProcessManager implements Service {
 
 					if (msg instanceof RunTaskMessage) {
 
-						// spawn a new thread for the task, it might take a while
-						new Thread() {
-							@Override
-							public void run() {
-								onRunTask((RunTaskMessage) msg);
-							}
-						}.start();
+						onRunTask((RunTaskMessage) msg);
 
 					} else if (msg instanceof KillTaskMessage) {
 						onKillTask((KillTaskMessage) msg);
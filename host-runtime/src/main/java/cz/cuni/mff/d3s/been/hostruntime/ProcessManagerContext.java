@@ -17,7 +17,11 @@ import cz.cuni.mff.d3s.been.core.ri.MonitorSample;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfos;
 import cz.cuni.mff.d3s.been.core.task.TaskExclusivity;
+import cz.cuni.mff.d3s.been.datastore.SoftwareCache;
 import cz.cuni.mff.d3s.been.debugassistant.DebugAssistant;
+import cz.cuni.mff.d3s.been.hostruntime.cpu.CpuAllocator;
+import cz.cuni.mff.d3s.been.hostruntime.cpu.Taskset;
+import cz.cuni.mff.d3s.been.hostruntime.procfs.ProcFs;
 import cz.cuni.mff.d3s.been.hostruntime.task.TaskHandle;
 import cz.cuni.mff.d3s.been.hostruntime.task.TaskProcess;
 
@@ -39,6 +43,15 @@ final class ProcessManagerContext {
 	/** current Host Runtime info */
 	private final RuntimeInfo hostInfo;
 
+	/** software cache whose statistics are published, may be null */
+	private final SoftwareCache softwareCache;
+
+	/** pipeline launching tasks whose statistics are published, may be null */
+	private final TaskLaunchPipeline launchPipeline;
+
+	/** allocator of CPUs dedicated to tasks, null if CPU pinning is disabled */
+	private final CpuAllocator cpuAllocator;
+
 	/** Maps task IDs to its Process */
 	private final Map<String, TaskProcess> runningTasks = Collections.synchronizedMap(new HashMap<String, TaskProcess>());
 
@@ -60,9 +73,53 @@ final class ProcessManagerContext {
 	 *          Host Runtime info
 	 */
 	ProcessManagerContext(ClusterContext clusterContext, RuntimeInfo hostInfo) {
+		this(clusterContext, hostInfo, null, null);
+	}
+
+	/**
+	 * Creates new ProcessManagerContext publishing software cache and task
+	 * launch statistics
+	 * 
+	 * @param clusterContext
+	 *          connection to the cluster
+	 * @param hostInfo
+	 *          Host Runtime info
+	 * @param softwareCache
+	 *          software cache used by the Host Runtime, may be null
+	 * @param launchPipeline
+	 *          pipeline launching tasks, may be null
+	 */
+	ProcessManagerContext(ClusterContext clusterContext, RuntimeInfo hostInfo, SoftwareCache softwareCache, TaskLaunchPipeline launchPipeline) {
+		this(clusterContext, hostInfo, softwareCache, launchPipeline, null);
+	}
+
+	/**
+	 * Creates new ProcessManagerContext publishing software cache and task
+	 * launch statistics and dedicating CPUs to tasks
+	 * 
+	 * @param clusterContext
+	 *          connection to the cluster
+	 * @param hostInfo
+	 *          Host Runtime info
+	 * @param softwareCache
+	 *          software cache used by the Host Runtime, may be null
+	 * @param launchPipeline
+	 *          pipeline launching tasks, may be null
+	 * @param cpuAllocator
+	 *          allocator of CPUs dedicated to tasks, may be null
+	 */
+	ProcessManagerContext(
+			ClusterContext clusterContext,
+			RuntimeInfo hostInfo,
+			SoftwareCache softwareCache,
+			TaskLaunchPipeline launchPipeline,
+			CpuAllocator cpuAllocator) {
 
 		this.clusterContext = clusterContext;
 		this.hostInfo = hostInfo;
+		this.softwareCache = softwareCache;
+		this.launchPipeline = launchPipeline;
+		this.cpuAllocator = cpuAllocator;
 	}
 
 	/**
@@ -80,6 +137,9 @@ final class ProcessManagerContext {
 
 		tryCheckLoad();
 
+		int dedicatedCpus = taskHandle.getDedicatedCpus();
+		tryCheckCpus(dedicatedCpus);
+
 		TaskExclusivity prevExclusivity = currentExclusivity;
 		String prevExclusiveId = currentExclusiveId;
 
@@ -89,6 +149,10 @@ final class ProcessManagerContext {
 			try {
 				taskHandle.setAccepted();
 				acceptedTasks.add(taskHandle.getTaskId());
+				if (dedicatedCpus > 0) {
+					cpuAllocator.allocate(taskHandle.getTaskId(), dedicatedCpus);
+					repinSharedTasks();
+				}
 			} catch (IllegalStateException e) {
 				// reset exclusivity
 				setExclusivity(prevExclusivity, prevExclusiveId);
@@ -120,6 +184,92 @@ final class ProcessManagerContext {
 		}
 	}
 
+	/**
+	 * Checks whether the requested number of CPUs can be dedicated to a task.
+	 * 
+	 * @param dedicatedCpus
+	 *          number of requested CPUs
+	 * @throws IllegalStateException
+	 *           if the CPUs cannot be dedicated
+	 */
+	private void tryCheckCpus(int dedicatedCpus) throws IllegalStateException {
+		if (dedicatedCpus <= 0) {
+			return;
+		}
+		if (cpuAllocator == null) {
+			throw new IllegalStateException("Dedicated CPUs are not supported");
+		}
+		if (!cpuAllocator.canAllocate(dedicatedCpus)) {
+			throw new IllegalStateException("Not enough free CPUs");
+		}
+	}
+
+	/**
+	 * Returns the CPUs a task should run on.
+	 * 
+	 * @param id
+	 *          ID of the task
+	 * @return cpu list of the CPUs, null if the task may run on any CPU
+	 */
+	synchronized String getTaskCpus(String id) {
+		return (cpuAllocator == null) ? null : cpuAllocator.getTaskCpus(id);
+	}
+
+	/**
+	 * Pins a running task (including its child processes) to the CPUs it should
+	 * currently run on.
+	 * 
+	 * A task process takes its CPU list before it is launched, and shared tasks
+	 * are repinned only once their pid is known. The process manager calls this
+	 * method right after the launch of a task process, so that the task does not
+	 * keep CPUs dedicated to a task accepted in the meantime.
+	 * 
+	 * @param id
+	 *          ID of the task
+	 */
+	synchronized void pinTask(String id) {
+		if (cpuAllocator == null) {
+			return;
+		}
+		TaskProcess process = runningTasks.get(id);
+		Integer pid = (process == null) ? null : process.getPid();
+		if (pid != null) {
+			pinTree(id, pid, cpuAllocator.getTaskCpus(id), new ProcFs(ProcFs.DEFAULT_ROOT).readParents());
+		}
+	}
+
+	/**
+	 * Moves the running tasks without dedicated CPUs (including their child
+	 * processes) to the CPUs currently shared by such tasks.
+	 */
+	private void repinSharedTasks() {
+		Map<Integer, Integer> parents = null;
+		String sharedCpus = cpuAllocator.getSharedCpus();
+
+		synchronized (runningTasks) {
+			for (Map.Entry<String, TaskProcess> entry : runningTasks.entrySet()) {
+				Integer pid = entry.getValue().getPid();
+				if (pid == null || cpuAllocator.hasDedicatedCpus(entry.getKey())) {
+					continue;
+				}
+				if (parents == null) {
+					parents = new ProcFs(ProcFs.DEFAULT_ROOT).readParents();
+				}
+				pinTree(entry.getKey(), pid, sharedCpus, parents);
+			}
+		}
+	}
+
+	private void pinTree(String id, int pid, String cpus, Map<Integer, Integer> parents) {
+		for (int member : ProcFs.findTree(pid, parents)) {
+			try {
+				Taskset.pin(member, cpus);
+			} catch (IOException e) {
+				log.debug("Cannot pin process {} of task {}", member, id, e);
+			}
+		}
+	}
+
 	/**
 	 * 
 	 * Adds a running task.
@@ -149,6 +299,10 @@ final class ProcessManagerContext {
 		runningTasks.remove(taskHandle.getTaskId());
 		acceptedTasks.remove(taskHandle.getTaskId());
 
+		if (cpuAllocator != null && cpuAllocator.release(taskHandle.getTaskId())) {
+			repinSharedTasks();
+		}
+
 		if (getTasksCount() == 0) {
 			setExclusivity(NON_EXCLUSIVE, null);
 		}
@@ -242,6 +396,16 @@ final class ProcessManagerContext {
 		hostInfo.setExclusivity(currentExclusivity.toString());
 		hostInfo.setExclusiveId(currentExclusiveId);
 		hostInfo.setTaskCount(getTasksCount());
+		if (softwareCache != null) {
+			hostInfo.setSoftwareCache(softwareCache.getStatistics());
+		}
+		if (launchPipeline != null) {
+			hostInfo.getLaunchStage().clear();
+			hostInfo.getLaunchStage().addAll(launchPipeline.getStatistics());
+		}
+		if (cpuAllocator != null) {
+			hostInfo.setCpuAllocation(cpuAllocator.getAllocation());
+		}
 		clusterContext.getRuntimes().storeRuntimeInfo(hostInfo);
 	}
 
@@ -1,18 +1,18 @@
 package cz.cuni.mff.d3s.been.hostruntime;
 
-import static cz.cuni.mff.d3s.been.cluster.Names.PERSISTENCE_QUEUE_NAME;
-
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.hazelcast.core.IQueue;
-
-import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
 import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrierFrames;
+import cz.cuni.mff.d3s.been.hostruntime.spool.PersistenceSpool;
 import cz.cuni.mff.d3s.been.socketworks.SocketHandlerException;
 import cz.cuni.mff.d3s.been.socketworks.oneway.ReadOnlyHandler;
 
@@ -24,44 +24,60 @@ import cz.cuni.mff.d3s.been.socketworks.oneway.ReadOnlyHandler;
 public class ResultHandler implements ReadOnlyHandler {
 	private static final Logger log = LoggerFactory.getLogger(ResultHandler.class);
 
-	private final IQueue<EntityCarrier> resultQueue;
+	private final PersistenceSpool spool;
 	private final ObjectMapper objectMapper;
 	private final ObjectReader resultReader;
+	private final ObjectReader resultListReader;
 
-	private ResultHandler(IQueue<EntityCarrier> resultQueue) {
-		this.resultQueue = resultQueue;
+	private ResultHandler(PersistenceSpool spool) {
+		this.spool = spool;
 		this.objectMapper = new ObjectMapper();
 		this.resultReader = objectMapper.reader(EntityCarrier.class);
+		this.resultListReader = objectMapper.reader(new TypeReference<List<EntityCarrier>>() {});
 	}
 
 	/**
 	 * Create a result handler
 	 * 
-	 * @param ctx
-	 *          Hazelcast context to create this handler under. Is used to load
-	 *          distributed memory data structures, namely the queue containing
-	 *          results.
+	 * @param spool
+	 *          Spool that forwards results to the cluster's persistence queue
 	 * 
 	 * @return A ready handler
 	 */
-	public static ReadOnlyHandler create(ClusterContext ctx) {
-		final IQueue<EntityCarrier> resultQueue = ctx.getQueue(PERSISTENCE_QUEUE_NAME);
-		return new ResultHandler(resultQueue);
+	public static ReadOnlyHandler create(PersistenceSpool spool) {
+		return new ResultHandler(spool);
 	}
 
 	@Override
 	public void handle(String message) throws SocketHandlerException {
 		log.debug("Unmarshalling result: {}", message);
+		final List<EntityCarrier> rcs;
 		try {
-			final EntityCarrier rc = resultReader.readValue(message);
-			if (resultQueue.add(rc)) {
-				log.debug("Queued result {}", rc.toString());
-			} else {
-				log.error("Could not put result {} to queue, delaying.", rc.toString());
-				// TODO consider handling
-			}
+			rcs = unmarshall(message);
 		} catch (IOException e) {
 			log.error("Cannot deserialize result carrier:", e);
+			return;
+		}
+		try {
+			spool.appendAll(rcs);
+			log.debug("Spooled {} results", rcs.size());
+		} catch (IOException e) {
+			log.error("Could not spool {} results, results lost.", rcs.size(), e);
+		}
+	}
+
+	/**
+	 * Unmarshall result carriers sent by a task, which is either a frame (see
+	 * {@link EntityCarrierFrames}), a JSON-serialized carrier or a JSON array of
+	 * carriers
+	 */
+	private List<EntityCarrier> unmarshall(String message) throws IOException {
+		if (EntityCarrierFrames.isFrame(message)) {
+			return EntityCarrierFrames.decodeAll(message);
+		}
+		if (message.startsWith("[")) {
+			return resultListReader.readValue(message);
 		}
+		return Collections.singletonList(resultReader.<EntityCarrier> readValue(message));
 	}
 }
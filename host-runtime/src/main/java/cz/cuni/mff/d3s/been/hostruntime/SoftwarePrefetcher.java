@@ -0,0 +1,168 @@
+package cz.cuni.mff.d3s.been.hostruntime;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryListener;
+import com.hazelcast.core.IMap;
+
+import org.apache.commons.jxpath.JXPathException;
+
+import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.cluster.query.XPathSelector;
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+import cz.cuni.mff.d3s.been.core.task.TaskDescriptor;
+import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
+
+/**
+ * Speculatively prefetches software of tasks which are likely to run on the
+ * Host Runtime.
+ * <p/>
+ * Software of a task is prefetched as soon as the request to run it arrives in
+ * the inbox of this Host Runtime, so that downloads of tasks queued for
+ * preparation proceed in parallel.
+ * <p/>
+ * If enabled, the prefetcher also watches the task map and prefetches software
+ * of tasks waiting for a suitable Host Runtime, so that caches are warm when
+ * they're eventually scheduled. Every update of every task in the cluster is
+ * then delivered to this Host Runtime. Only waiting tasks whose Host Runtime
+ * selector matches this Host Runtime are prefetched; tasks without a selector
+ * may run anywhere, so every Host Runtime would fetch their software.
+ */
+final class SoftwarePrefetcher implements EntryListener<String, TaskEntry> {
+
+	/** logging */
+	private static final Logger log = LoggerFactory.getLogger(SoftwarePrefetcher.class);
+
+	/** connection to the cluster */
+	private final ClusterContext clusterContext;
+
+	/** resolver to prefetch the software with */
+	private final SoftwareResolver softwareResolver;
+
+	/** this Host Runtime */
+	private final RuntimeInfo runtimeInfo;
+
+	/** whether to prefetch software of waiting tasks */
+	private final boolean prefetchWaiting;
+
+	/** IDs of waiting tasks whose software was prefetched */
+	private final ConcurrentMap<String, Boolean> prefetched = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the prefetcher.
+	 * 
+	 * @param clusterContext
+	 *          connection to the cluster
+	 * @param softwareResolver
+	 *          resolver to prefetch the software with
+	 * @param runtimeInfo
+	 *          this Host Runtime
+	 * @param prefetchWaiting
+	 *          whether to prefetch software of waiting tasks
+	 */
+	SoftwarePrefetcher(ClusterContext clusterContext, SoftwareResolver softwareResolver, RuntimeInfo runtimeInfo, boolean prefetchWaiting) {
+		this.clusterContext = clusterContext;
+		this.softwareResolver = softwareResolver;
+		this.runtimeInfo = runtimeInfo;
+		this.prefetchWaiting = prefetchWaiting;
+	}
+
+	/**
+	 * Starts watching the task map for waiting tasks (if enabled), prefetching
+	 * software of tasks already waiting.
+	 */
+	void start() {
+		if (prefetchWaiting) {
+			getTasksMap().addEntryListener(this, true);
+			for (TaskEntry entry : clusterContext.getTasks().getTasks(TaskState.WAITING)) {
+				onTaskChange(entry);
+			}
+		}
+	}
+
+	/**
+	 * Stops watching the task map.
+	 */
+	void stop() {
+		if (prefetchWaiting) {
+			getTasksMap().removeEntryListener(this);
+		}
+		prefetched.clear();
+	}
+
+	/**
+	 * Prefetches software of a task this Host Runtime was requested to run.
+	 * 
+	 * @param taskId
+	 *          ID of the task
+	 */
+	void onRunTask(String taskId) {
+		final TaskEntry entry = clusterContext.getTasks().getTask(taskId);
+		if (entry != null && entry.getTaskDescriptor() != null) {
+			log.debug("Prefetching software of task {} to run", taskId);
+			softwareResolver.prefetch(BpkIdentifierCreator.createBpkIdentifier(entry.getTaskDescriptor()));
+		}
+	}
+
+	private IMap<String, TaskEntry> getTasksMap() {
+		return clusterContext.getTasks().getTasksMap();
+	}
+
+	@Override
+	public void entryAdded(EntryEvent<String, TaskEntry> event) {
+		onTaskChange(event.getValue());
+	}
+
+	@Override
+	public void entryUpdated(EntryEvent<String, TaskEntry> event) {
+		onTaskChange(event.getValue());
+	}
+
+	@Override
+	public void entryRemoved(EntryEvent<String, TaskEntry> event) {
+		prefetched.remove(event.getKey());
+	}
+
+	@Override
+	public void entryEvicted(EntryEvent<String, TaskEntry> event) {
+		prefetched.remove(event.getKey());
+	}
+
+	private void onTaskChange(TaskEntry entry) {
+		if (entry == null || entry.getTaskDescriptor() == null) {
+			return;
+		}
+
+		if (entry.getState() != TaskState.WAITING || !isSelectedHere(entry.getTaskDescriptor())) {
+			prefetched.remove(entry.getId());
+			return;
+		}
+
+		if (prefetched.putIfAbsent(entry.getId(), Boolean.TRUE) == null) {
+			log.debug("Prefetching software of waiting task {}", entry.getId());
+			softwareResolver.prefetch(BpkIdentifierCreator.createBpkIdentifier(entry.getTaskDescriptor()));
+		}
+	}
+
+	/**
+	 * Tells whether the Host Runtime selector of a task selects this Host
+	 * Runtime.
+	 */
+	private boolean isSelectedHere(TaskDescriptor descriptor) {
+		if (!descriptor.isSetHostRuntimes() || !descriptor.getHostRuntimes().isSetXpath()) {
+			return false;
+		}
+		try {
+			return XPathSelector.compile(descriptor.getHostRuntimes().getXpath()).matches(runtimeInfo);
+		} catch (JXPathException e) {
+			log.debug("Invalid Host Runtime selector '{}'", descriptor.getHostRuntimes().getXpath(), e);
+			return false;
+		}
+	}
+}
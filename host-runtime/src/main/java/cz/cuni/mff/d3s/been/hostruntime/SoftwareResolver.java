@@ -1,28 +1,59 @@
 package cz.cuni.mff.d3s.been.hostruntime;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.artifact.Artifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import cz.cuni.mff.d3s.been.bpk.ArtifactIdentifier;
-import cz.cuni.mff.d3s.been.bpk.Bpk;
-import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
+import cz.cuni.mff.d3s.been.bpk.*;
 import cz.cuni.mff.d3s.been.cluster.context.Services;
 import cz.cuni.mff.d3s.been.core.service.ServiceInfo;
+import cz.cuni.mff.d3s.been.hostruntime.task.DependencyDownloader;
+import cz.cuni.mff.d3s.been.hostruntime.task.DependencyDownloaderFactory;
 import cz.cuni.mff.d3s.been.swrepoclient.SwRepoClient;
 import cz.cuni.mff.d3s.been.swrepoclient.SwRepoClientFactory;
 import cz.cuni.mff.d3s.been.swrepository.SWRepositoryServiceInfoConstants;
 
 /**
  * Serves as a mediator to Software Repository for Host Runtime.
+ * <p/>
+ * Concurrent requests for the same BPK or artifact are coalesced into a single
+ * download. Artifacts are resolved in parallel, and software can be prefetched
+ * in the background before a task needs it (see {@link #prefetch}).
  * 
  * @author Martin Sixta
  */
 class SoftwareResolver {
+
+	private static final Logger log = LoggerFactory.getLogger(SoftwareResolver.class);
+
 	private Services services;
 	private SwRepoClientFactory clientFactory;
 
+	/** Downloads in progress, by identifier of the downloaded software */
+	private final ConcurrentMap<String, FutureTask<?>> downloads = new ConcurrentHashMap<>();
+
+	/** Executes parallel downloads, <code>null</code> when disabled */
+	private final ExecutorService executor;
+
+	/**
+	 * Executes prefetches, <code>null</code> when disabled. Prefetches have their
+	 * own low priority threads, so they never delay software requested by tasks
+	 * which are being started.
+	 */
+	private final ExecutorService prefetchExecutor;
+
 	/**
 	 * Creates new instance of the class.
 	 * 
@@ -32,8 +63,52 @@ class SoftwareResolver {
 	 *          Software Repository Client Factory
 	 */
 	public SoftwareResolver(Services services, SwRepoClientFactory clientFactory) {
+		this(services, clientFactory, 0);
+	}
+
+	/**
+	 * Creates new instance of the class.
+	 * 
+	 * @param services
+	 *          Connection to the cluster.
+	 * @param clientFactory
+	 *          Software Repository Client Factory
+	 * @param threads
+	 *          Number of threads downloading in parallel; with 0, software is
+	 *          downloaded by the requesting thread and prefetching is disabled.
+	 *          Half of the number (rounded up) of additional threads prefetch
+	 *          software.
+	 */
+	public SoftwareResolver(Services services, SwRepoClientFactory clientFactory, int threads) {
 		this.services = services;
 		this.clientFactory = clientFactory;
+		this.executor = (threads > 0) ? createExecutor(threads, "software-resolver-", Thread.NORM_PRIORITY) : null;
+		this.prefetchExecutor = (threads > 0) ? createExecutor((threads + 1) / 2, "software-prefetcher-", Thread.MIN_PRIORITY) : null;
+	}
+
+	private static ExecutorService createExecutor(int threads, final String namePrefix, final int priority) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r, namePrefix + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				thread.setPriority(priority);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Stops prefetching. Downloads in progress are abandoned.
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			prefetchExecutor.shutdownNow();
+		}
 	}
 
 	/**
@@ -48,15 +123,21 @@ class SoftwareResolver {
 	 * 
 	 * @return the bpk for the identifier
 	 */
-	public Bpk getBpk(BpkIdentifier bpkIdentifier) throws TaskException {
+	public Bpk getBpk(final BpkIdentifier bpkIdentifier) throws TaskException {
+		final String key = String.format("bpk:%s:%s:%s", bpkIdentifier.getGroupId(), bpkIdentifier.getBpkId(), bpkIdentifier.getVersion());
 
-		Bpk bpk = getClient().getBpk(bpkIdentifier);
+		return download(key, new Callable<Bpk>() {
+			@Override
+			public Bpk call() throws TaskException {
+				Bpk bpk = getClient().getBpk(bpkIdentifier);
 
-		if (bpk == null) {
-			throw new TaskException(String.format("Missing bpk '%s' in software repository. ", bpkIdentifier));
-		}
+				if (bpk == null) {
+					throw new TaskException(String.format("Missing bpk '%s' in software repository. ", bpkIdentifier));
+				}
 
-		return bpk;
+				return bpk;
+			}
+		});
 	}
 
 	/**
@@ -68,19 +149,27 @@ class SoftwareResolver {
 	 * @throws TaskException
 	 *           when artifacts cannot be obtained
 	 */
-	public Artifact getArtifact(ArtifactIdentifier artifactIdentifier) throws TaskException {
-		Artifact artifact = getClient().getArtifact(artifactIdentifier);
+	public Artifact getArtifact(final ArtifactIdentifier artifactIdentifier) throws TaskException {
+		final String key = String.format("artifact:%s:%s:%s", artifactIdentifier.getGroupId(), artifactIdentifier.getArtifactId(), artifactIdentifier.getVersion());
 
-		if (artifact == null) {
-			// TODO
-			throw new TaskException(String.format("Missing Artifact '%s' in software repository. ", artifact.toString()));
-		}
+		return download(key, new Callable<Artifact>() {
+			@Override
+			public Artifact call() throws TaskException {
+				Artifact artifact = getClient().getArtifact(artifactIdentifier);
+
+				if (artifact == null) {
+					throw new TaskException(String.format("Missing Artifact '%s' in software repository. ", artifactIdentifier));
+				}
 
-		return artifact;
+				return artifact;
+			}
+		});
 	}
 
 	/**
 	 * Returns artifacts associated with their identifiers.
+	 * <p/>
+	 * The artifacts are downloaded in parallel.
 	 * 
 	 * @param identifiers
 	 *          artifacts identifiers
@@ -89,22 +178,152 @@ class SoftwareResolver {
 	 *           when artifacts cannot be resolved
 	 */
 	public Collection<Artifact> resolveArtifacts(Collection<ArtifactIdentifier> identifiers) throws TaskException {
-		SwRepoClient client = getClient();
-
 		Collection<Artifact> artifacts = new LinkedList<>();
 
-		for (ArtifactIdentifier identifier : identifiers) {
-			Artifact artifact = client.getArtifact(identifier);
-
-			if (artifact == null) {
-				artifacts.clear();
-				throw new TaskException(String.format("Cannot resolve artifact %s", artifact));
+		if (executor == null) {
+			for (ArtifactIdentifier identifier : identifiers) {
+				artifacts.add(getArtifact(identifier));
 			}
+			return artifacts;
+		}
+
+		List<Future<Artifact>> futures = new ArrayList<>(identifiers.size());
+		for (final ArtifactIdentifier identifier : identifiers) {
+			futures.add(executor.submit(new Callable<Artifact>() {
+				@Override
+				public Artifact call() throws TaskException {
+					return getArtifact(identifier);
+				}
+			}));
+		}
+
+		for (Future<Artifact> future : futures) {
+			artifacts.add(await(future, "artifact"));
 		}
 
 		return artifacts;
 	}
 
+	/**
+	 * Starts downloading a BPK, and then the BPKs and artifacts it declares as
+	 * dependencies, in the background. Failures are only logged; the software is
+	 * requested again when the task is started.
+	 * 
+	 * @param bpkIdentifier
+	 *          BPK to prefetch
+	 */
+	public void prefetch(final BpkIdentifier bpkIdentifier) {
+		if (prefetchExecutor == null) {
+			return;
+		}
+
+		try {
+			prefetchExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						prefetchDependencies(getBpk(bpkIdentifier));
+					} catch (TaskException e) {
+						log.debug("Prefetch of {} failed", bpkIdentifier, e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.debug("Prefetch of {} rejected, resolver is shut down", bpkIdentifier);
+		}
+	}
+
+	private void prefetchDependencies(Bpk bpk) throws TaskException {
+		final BpkRuntime runtime = readRuntime(bpk);
+		if (runtime == null) {
+			return;
+		}
+		final DependencyDownloader dependencies = DependencyDownloaderFactory.create(runtime);
+
+		for (final BpkIdentifier dependency : dependencies.getBkpDependencies()) {
+			prefetchExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						getBpk(dependency);
+					} catch (TaskException e) {
+						log.debug("Prefetch of {} failed", dependency, e);
+					}
+				}
+			});
+		}
+
+		for (final ArtifactIdentifier dependency : dependencies.getArtifactDependencies()) {
+			prefetchExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						getArtifact(dependency);
+					} catch (TaskException e) {
+						log.debug("Prefetch of {} failed", dependency, e);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Reads the runtime definition from the configuration in a BPK.
+	 * 
+	 * @return the runtime, or <code>null</code> if the BPK has no configuration
+	 */
+	private static BpkRuntime readRuntime(Bpk bpk) throws TaskException {
+		try (ZipInputStream zip = new ZipInputStream(bpk.getInputStream())) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				if (BpkNames.CONFIG_FILE.equals(entry.getName())) {
+					try (InputStream config = IOUtils.toBufferedInputStream(zip)) {
+						return BpkConfigUtils.fromXml(config).getRuntime();
+					}
+				}
+			}
+			return null;
+		} catch (IOException | BpkConfigurationException e) {
+			throw new TaskException(String.format("Cannot read configuration of %s", bpk.getBpkIdentifier()), e);
+		}
+	}
+
+	/**
+	 * Runs a download unless the same software is being downloaded already, in
+	 * which case the running download is awaited instead.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T download(String key, Callable<T> download) throws TaskException {
+		final FutureTask<T> task = new FutureTask<>(download);
+		final FutureTask<?> running = downloads.putIfAbsent(key, task);
+
+		if (running != null) {
+			log.debug("Joining running download of {}", key);
+			return (T) await(running, key);
+		}
+
+		try {
+			task.run();
+		} finally {
+			downloads.remove(key, task);
+		}
+		return await(task, key);
+	}
+
+	private static <T> T await(Future<T> future, String what) throws TaskException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TaskException(String.format("Interrupted while downloading %s", what), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof TaskException) {
+				throw (TaskException) e.getCause();
+			}
+			throw new TaskException(String.format("Cannot download %s", what), e.getCause());
+		}
+	}
+
 	/**
 	 * Gets Software Repository Client.
 	 * 
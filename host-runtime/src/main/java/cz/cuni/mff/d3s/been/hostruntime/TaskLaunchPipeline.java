@@ -0,0 +1,168 @@
+package cz.cuni.mff.d3s.been.hostruntime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cz.cuni.mff.d3s.been.core.ri.LaunchStage;
+
+/**
+ * Pipeline launching tasks on the Host Runtime.
+ * <p/>
+ * The pipeline has two stages:
+ * <ul>
+ * <li><em>prepare</em> - a bounded number of threads accepting tasks, fetching
+ * and extracting their software and building their command lines
+ * concurrently</li>
+ * <li><em>spawn</em> - a thread per task spawning the task's process and
+ * supervising it until it exits</li>
+ * </ul>
+ * Each stage keeps its queue length and timings, see {@link #getStatistics()}.
+ */
+final class TaskLaunchPipeline {
+
+	/** name of the preparation stage */
+	static final String PREPARE_STAGE = "prepare";
+
+	/** name of the spawning stage */
+	static final String SPAWN_STAGE = "spawn";
+
+	/** stage preparing tasks */
+	private final Stage prepare;
+
+	/** stage spawning and supervising task processes */
+	private final Stage spawn;
+
+	/**
+	 * Creates the pipeline.
+	 * 
+	 * @param prepareThreads
+	 *          maximum number of tasks prepared concurrently
+	 */
+	TaskLaunchPipeline(int prepareThreads) {
+		final int threads = Math.max(1, prepareThreads);
+		this.prepare = new Stage(PREPARE_STAGE, new ThreadPoolExecutor(
+				threads,
+				threads,
+				30,
+				TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new StageThreadFactory("task-prepare", true)));
+		this.prepare.executor.allowCoreThreadTimeOut(true);
+		this.spawn = new Stage(SPAWN_STAGE, new ThreadPoolExecutor(
+				0,
+				Integer.MAX_VALUE,
+				30,
+				TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(),
+				new StageThreadFactory("task-process", false)));
+	}
+
+	/**
+	 * Queues preparation of a task.
+	 * 
+	 * @param work
+	 *          the preparation
+	 * @throws RejectedExecutionException
+	 *           when the pipeline is stopped
+	 */
+	void prepare(Runnable work) {
+		prepare.submit(work);
+	}
+
+	/**
+	 * Spawns a prepared task.
+	 * 
+	 * @param work
+	 *          spawns the task's process and waits for it
+	 * @throws RejectedExecutionException
+	 *           when the pipeline is stopped
+	 */
+	void spawn(Runnable work) {
+		spawn.submit(work);
+	}
+
+	/**
+	 * Stops the pipeline. Preparations in progress are interrupted, running tasks
+	 * are left to finish (they are expected to be killed).
+	 */
+	void stop() {
+		prepare.executor.shutdownNow();
+		spawn.executor.shutdown();
+	}
+
+	/**
+	 * Returns current statistics of the pipeline stages.
+	 * 
+	 * @return statistics of all stages, in pipeline order
+	 */
+	List<LaunchStage> getStatistics() {
+		return Arrays.asList(prepare.getStatistics(), spawn.getStatistics());
+	}
+
+	/**
+	 * A stage of the pipeline, keeping timings of its work.
+	 */
+	private static final class Stage {
+		private final String name;
+		private final ThreadPoolExecutor executor;
+		private final AtomicLong completed = new AtomicLong();
+		private final AtomicLong waitNanos = new AtomicLong();
+		private final AtomicLong workNanos = new AtomicLong();
+
+		Stage(String name, ThreadPoolExecutor executor) {
+			this.name = name;
+			this.executor = executor;
+		}
+
+		void submit(final Runnable work) {
+			final long queued = System.nanoTime();
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					final long started = System.nanoTime();
+					waitNanos.addAndGet(started - queued);
+					try {
+						work.run();
+					} finally {
+						workNanos.addAndGet(System.nanoTime() - started);
+						completed.incrementAndGet();
+					}
+				}
+			});
+		}
+
+		LaunchStage getStatistics() {
+			final long count = completed.get();
+			return new LaunchStage().withName(name).withQueued(executor.getQueue().size()).withActive(executor.getActiveCount()).withCompleted(
+					count).withAverageWaitTime(averageMillis(waitNanos.get(), count)).withAverageTime(averageMillis(workNanos.get(), count));
+		}
+
+		private static long averageMillis(long nanos, long count) {
+			return (count == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos / count);
+		}
+	}
+
+	/**
+	 * Creates named threads for a stage.
+	 */
+	private static final class StageThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final boolean daemon;
+		private final AtomicInteger count = new AtomicInteger();
+
+		StageThreadFactory(String prefix, boolean daemon) {
+			this.prefix = prefix;
+			this.daemon = daemon;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+			thread.setDaemon(daemon);
+			return thread;
+		}
+	}
+}
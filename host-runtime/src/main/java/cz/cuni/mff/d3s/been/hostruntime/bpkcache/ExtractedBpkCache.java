@@ -0,0 +1,391 @@
+package cz.cuni.mff.d3s.been.hostruntime.bpkcache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.bpk.Bpk;
+import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
+import cz.cuni.mff.d3s.been.cluster.Service;
+import cz.cuni.mff.d3s.been.cluster.ServiceException;
+import cz.cuni.mff.d3s.been.util.ZipUtil;
+
+/**
+ * A size-bounded cache of extracted software packages.
+ * 
+ * Each package is extracted once per content: entries are keyed by the
+ * package's {@link BpkIdentifier} and the SHA-256 checksum of its archive, so
+ * a re-uploaded package with the same identifier gets a fresh entry. Task
+ * working directories are then built from the entry by hard-linking its files,
+ * which costs neither decompression nor copying. Cached files are made
+ * read-only, so that a task cannot modify them through its links. Files
+ * matching the configured task-private patterns (relative to the package root)
+ * are copied instead, and remain writable. When hard links are not supported
+ * by the file system, all files are copied.
+ * 
+ * When the cache grows over its size limit, the least recently used entries
+ * not being linked at the moment are deleted. Task directories linked from
+ * deleted entries are not affected, since a hard link keeps the file alive.
+ * 
+ * Entries survive a restart of the Host Runtime; the cache index is rebuilt
+ * from the cache directory on {@link #start()}.
+ */
+public final class ExtractedBpkCache implements Service {
+
+	private static final Logger log = LoggerFactory.getLogger(ExtractedBpkCache.class);
+
+	/** Prefix of directories holding packages being extracted */
+	private static final String TMP_PREFIX = ".tmp-";
+	/** Number of checksum characters in an entry name */
+	private static final int CHECKSUM_LENGTH = 16;
+
+	private final File directory;
+	private final long maxSize;
+	private final List<PathMatcher> privateFiles;
+
+	/** Cache entries in access order; guarded by itself */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	/** Total size of cached files; guarded by {@link #entries} */
+	private long size = 0;
+	/** Locks serializing extraction of a single entry */
+	private final ConcurrentMap<String, Object> extractionLocks = new ConcurrentHashMap<>();
+
+	private volatile boolean linksSupported = true;
+	private volatile long hits = 0;
+	private volatile long misses = 0;
+
+	/**
+	 * Create a cache
+	 * 
+	 * @param directory
+	 *          Directory to keep extracted packages in
+	 * @param maxSize
+	 *          Size limit of the cache, in bytes
+	 * @param privateFilePatterns
+	 *          Glob patterns (relative to the package root) of files to copy
+	 *          into task directories instead of linking them
+	 */
+	public ExtractedBpkCache(File directory, long maxSize, Collection<String> privateFilePatterns) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.privateFiles = new ArrayList<>(privateFilePatterns.size());
+		for (String pattern : privateFilePatterns) {
+			privateFiles.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+		}
+	}
+
+	/**
+	 * Rebuild the cache index from the cache directory
+	 */
+	@Override
+	public void start() throws ServiceException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new ServiceException(String.format("Cannot create BPK cache directory '%s'", directory));
+		}
+
+		final File[] dirs = directory.listFiles();
+		if (dirs == null) {
+			throw new ServiceException(String.format("Cannot list BPK cache directory '%s'", directory));
+		}
+		// oldest first, so that the access order approximates the last use
+		Arrays.sort(dirs, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(a.lastModified(), b.lastModified());
+			}
+		});
+
+		synchronized (entries) {
+			entries.clear();
+			size = 0;
+			for (File dir : dirs) {
+				if (dir.getName().startsWith(TMP_PREFIX) || !dir.isDirectory()) {
+					FileUtils.deleteQuietly(dir);
+					continue;
+				}
+				final long entrySize = FileUtils.sizeOfDirectory(dir);
+				entries.put(dir.getName(), new Entry(dir, entrySize));
+				size += entrySize;
+			}
+			evict();
+		}
+		log.info("BPK cache holds {} packages ({} bytes)", entries.size(), size);
+	}
+
+	@Override
+	public void stop() {
+		// nothing to release, entries stay on disk for the next start
+	}
+
+	/**
+	 * Fill a task directory with the content of a package, extracting the
+	 * package into the cache first if it's not cached yet
+	 * 
+	 * @param bpk
+	 *          The package
+	 * @param taskDirectory
+	 *          Directory to fill
+	 * 
+	 * @throws IOException
+	 *           When the package cannot be read or extracted, or the task
+	 *           directory cannot be filled
+	 */
+	public void materialize(Bpk bpk, File taskDirectory) throws IOException {
+		final String key = createKey(bpk);
+		final Entry entry = acquire(key, bpk);
+		try {
+			populate(entry.dir.toPath(), taskDirectory.toPath());
+		} finally {
+			release(entry);
+		}
+	}
+
+	/**
+	 * @return Number of packages found in the cache
+	 */
+	public long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * @return Number of packages that had to be extracted
+	 */
+	public long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * @return Total size of cached packages, in bytes
+	 */
+	public long getSize() {
+		synchronized (entries) {
+			return size;
+		}
+	}
+
+	/**
+	 * Find or create the entry of a package and pin it, so that it's not evicted
+	 */
+	private Entry acquire(String key, Bpk bpk) throws IOException {
+		synchronized (entries) {
+			final Entry entry = entries.get(key);
+			if (entry != null) {
+				++entry.pins;
+				++hits;
+				return entry;
+			}
+		}
+
+		Object extractionLock = new Object();
+		final Object existingLock = extractionLocks.putIfAbsent(key, extractionLock);
+		if (existingLock != null) {
+			extractionLock = existingLock;
+		}
+		synchronized (extractionLock) {
+			try {
+				synchronized (entries) {
+					// someone may have extracted the package meanwhile
+					final Entry entry = entries.get(key);
+					if (entry != null) {
+						++entry.pins;
+						++hits;
+						return entry;
+					}
+				}
+
+				final Entry entry = extract(key, bpk);
+				synchronized (entries) {
+					entry.pins = 1;
+					entries.put(key, entry);
+					size += entry.size;
+					++misses;
+					evict();
+				}
+				return entry;
+			} finally {
+				extractionLocks.remove(key, extractionLock);
+			}
+		}
+	}
+
+	private void release(Entry entry) {
+		synchronized (entries) {
+			--entry.pins;
+			evict();
+		}
+	}
+
+	/**
+	 * Delete least recently used unpinned entries until the cache fits its size
+	 * limit. Must be called with {@link #entries} locked.
+	 */
+	private void evict() {
+		final Iterator<Entry> it = entries.values().iterator();
+		while (size > maxSize && it.hasNext()) {
+			final Entry entry = it.next();
+			if (entry.pins > 0) {
+				continue;
+			}
+			it.remove();
+			size -= entry.size;
+			log.debug("Evicting package {} ({} bytes) from the BPK cache", entry.dir.getName(), entry.size);
+			FileUtils.deleteQuietly(entry.dir);
+		}
+	}
+
+	/**
+	 * Extract a package into a new cache entry directory
+	 */
+	private Entry extract(String key, Bpk bpk) throws IOException {
+		final File tmpDir = new File(directory, TMP_PREFIX + key + "-" + System.nanoTime());
+		try {
+			try (InputStream is = bpk.getInputStream()) {
+				ZipUtil.unzipToDir(is, tmpDir);
+			}
+			// publish the entry only once it is complete and read-only
+			makeReadOnly(tmpDir.toPath());
+			final File dir = new File(directory, key);
+			FileUtils.deleteQuietly(dir);
+			Files.move(tmpDir.toPath(), dir.toPath());
+			log.debug("Extracted package {} into the BPK cache", key);
+			return new Entry(dir, FileUtils.sizeOfDirectory(dir));
+		} finally {
+			FileUtils.deleteQuietly(tmpDir);
+		}
+	}
+
+	/**
+	 * Revoke write permission of files that will be linked into task directories
+	 */
+	private void makeReadOnly(final Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (!isPrivate(root.relativize(file))) {
+					file.toFile().setWritable(false, false);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Link (or copy) the files of a cache entry into a task directory
+	 */
+	private void populate(final Path source, final Path target) throws IOException {
+		Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(target.resolve(source.relativize(dir)));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				final Path relative = source.relativize(file);
+				final Path link = target.resolve(relative);
+				if (isPrivate(relative) || !link(link, file)) {
+					Files.copy(file, link);
+					link.toFile().setWritable(true);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Hard-link a file
+	 * 
+	 * @return <code>false</code> if hard links are not supported and the file
+	 *         has to be copied
+	 */
+	private boolean link(Path link, Path existing) throws IOException {
+		if (!linksSupported) {
+			return false;
+		}
+		try {
+			Files.createLink(link, existing);
+			return true;
+		} catch (UnsupportedOperationException | IOException e) {
+			if (Files.exists(link)) {
+				throw new IOException(String.format("Cannot link '%s', the file already exists", link), e);
+			}
+			log.warn("Cannot create hard links in task directories, BPK cache will copy files instead", e);
+			linksSupported = false;
+			return false;
+		}
+	}
+
+	private boolean isPrivate(Path relative) {
+		for (PathMatcher matcher : privateFiles) {
+			if (matcher.matches(relative)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Create the cache key of a package: its identifier and the checksum of its
+	 * archive
+	 */
+	private static String createKey(Bpk bpk) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("SHA-256 is not available", e);
+		}
+		try (InputStream is = new DigestInputStream(bpk.getInputStream(), digest)) {
+			final byte[] buffer = new byte[64 * 1024];
+			while (is.read(buffer) >= 0) {}
+		}
+		final String checksum = DatatypeConverter.printHexBinary(digest.digest()).toLowerCase().substring(0, CHECKSUM_LENGTH);
+
+		final BpkIdentifier id = bpk.getBpkIdentifier();
+		final String name = String.format("%s_%s_%s", id.getGroupId(), id.getBpkId(), id.getVersion());
+		return name.replaceAll("[^A-Za-z0-9._-]", "_") + "_" + checksum;
+	}
+
+	/**
+	 * An extracted package
+	 */
+	private static final class Entry {
+		/** Directory holding the extracted package */
+		final File dir;
+		/** Size of the extracted files, in bytes */
+		final long size;
+		/** Number of task directories being populated from this entry */
+		int pins = 0;
+
+		Entry(File dir, long size) {
+			this.dir = dir;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Host-local cache of extracted software packages, from which task working directories are linked.
+ */
+package cz.cuni.mff.d3s.been.hostruntime.bpkcache;
@@ -0,0 +1,219 @@
+package cz.cuni.mff.d3s.been.hostruntime.cpu;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import cz.cuni.mff.d3s.been.core.ri.CpuAllocation;
+import cz.cuni.mff.d3s.been.core.ri.TaskCpus;
+
+/**
+ * Assigns disjoint sets of CPUs to tasks which request dedicated CPUs.
+ * <p/>
+ * The CPUs of the Host Runtime are split into:
+ * <ul>
+ * <li><em>reserved</em> CPUs, to which the Host Runtime's own threads are
+ * confined and which are never dedicated to a task,</li>
+ * <li>CPUs dedicated to a task, used by no other process started by the Host
+ * Runtime,</li>
+ * <li><em>free</em> CPUs, which can be dedicated to a task.</li>
+ * </ul>
+ * Tasks without dedicated CPUs share all CPUs which are not dedicated to a
+ * task.
+ */
+public final class CpuAllocator {
+
+	/** Key of the CPUs the process may run on in <code>/proc/self/status</code> */
+	private static final String CPUS_ALLOWED_LIST = "Cpus_allowed_list:";
+
+	/** All CPUs managed by the allocator */
+	private final SortedSet<Integer> cpus;
+
+	/** CPUs reserved for the Host Runtime */
+	private final SortedSet<Integer> reserved;
+
+	/** CPUs dedicated to tasks, keyed by task id */
+	private final Map<String, SortedSet<Integer>> allocated = new HashMap<>();
+
+	/**
+	 * Creates an allocator.
+	 * 
+	 * @param cpus
+	 *          all CPUs to manage
+	 * @param reserved
+	 *          CPUs reserved for the Host Runtime, only those which are among
+	 *          <code>cpus</code> are taken into account
+	 */
+	public CpuAllocator(SortedSet<Integer> cpus, SortedSet<Integer> reserved) {
+		this.cpus = new TreeSet<>(cpus);
+		this.reserved = new TreeSet<>(reserved);
+		this.reserved.retainAll(cpus);
+	}
+
+	/**
+	 * Creates an allocator of the CPUs the Host Runtime is allowed to run on.
+	 * 
+	 * @param reservedCpus
+	 *          cpu list of CPUs reserved for the Host Runtime
+	 * @return the allocator
+	 * @throws IllegalArgumentException
+	 *           when the cpu list is malformed
+	 */
+	public static CpuAllocator create(String reservedCpus) {
+		return new CpuAllocator(readAllowedCpus(), CpuList.parse(reservedCpus));
+	}
+
+	/**
+	 * Reads the CPUs the current process may run on, all CPUs reported by the
+	 * JVM if unknown.
+	 */
+	private static SortedSet<Integer> readAllowedCpus() {
+		try {
+			for (String line : Files.readAllLines(new File("/proc/self/status").toPath(), StandardCharsets.UTF_8)) {
+				if (line.startsWith(CPUS_ALLOWED_LIST)) {
+					return CpuList.parse(line.substring(CPUS_ALLOWED_LIST.length()));
+				}
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			// fall back to the JVM's view
+		}
+		final SortedSet<Integer> all = new TreeSet<>();
+		for (int cpu = 0; cpu < Runtime.getRuntime().availableProcessors(); ++cpu) {
+			all.add(cpu);
+		}
+		return all;
+	}
+
+	/**
+	 * Tells whether the given number of CPUs can be dedicated to a task.
+	 * 
+	 * @param count
+	 *          number of requested CPUs
+	 * @return whether the CPUs are available
+	 */
+	public synchronized boolean canAllocate(int count) {
+		final SortedSet<Integer> free = getFree();
+		// leave at least one CPU to tasks without dedicated CPUs if nothing is reserved
+		final int keep = reserved.isEmpty() ? 1 : 0;
+		return free.size() - keep >= count;
+	}
+
+	/**
+	 * Dedicates CPUs to a task.
+	 * 
+	 * @param taskId
+	 *          id of the task
+	 * @param count
+	 *          number of requested CPUs
+	 * @return cpu list of the dedicated CPUs
+	 * @throws IllegalStateException
+	 *           when there are not enough free CPUs
+	 */
+	public synchronized String allocate(String taskId, int count) throws IllegalStateException {
+		if (!canAllocate(count)) {
+			throw new IllegalStateException(String.format("Cannot dedicate %d CPUs to task %s", count, taskId));
+		}
+		final SortedSet<Integer> taskCpus = new TreeSet<>();
+		for (int cpu : getFree()) {
+			if (taskCpus.size() == count) {
+				break;
+			}
+			taskCpus.add(cpu);
+		}
+		allocated.put(taskId, taskCpus);
+		return CpuList.format(taskCpus);
+	}
+
+	/**
+	 * Releases CPUs dedicated to a task.
+	 * 
+	 * @param taskId
+	 *          id of the task
+	 * @return whether any CPUs had been dedicated to the task
+	 */
+	public synchronized boolean release(String taskId) {
+		return allocated.remove(taskId) != null;
+	}
+
+	/**
+	 * Tells whether CPUs are dedicated to a task.
+	 * 
+	 * @param taskId
+	 *          id of the task
+	 * @return whether the task has dedicated CPUs
+	 */
+	public synchronized boolean hasDedicatedCpus(String taskId) {
+		return allocated.containsKey(taskId);
+	}
+
+	/**
+	 * Returns the CPUs a task should run on.
+	 * 
+	 * @param taskId
+	 *          id of the task
+	 * @return cpu list of the CPUs dedicated to the task, of the shared CPUs if
+	 *         the task has no dedicated CPUs
+	 */
+	public synchronized String getTaskCpus(String taskId) {
+		final SortedSet<Integer> taskCpus = allocated.get(taskId);
+		return (taskCpus == null) ? getSharedCpus() : CpuList.format(taskCpus);
+	}
+
+	/**
+	 * Returns the CPUs shared by tasks without dedicated CPUs.
+	 * 
+	 * @return cpu list of the CPUs not dedicated to any task
+	 */
+	public synchronized String getSharedCpus() {
+		final SortedSet<Integer> shared = new TreeSet<>(cpus);
+		for (SortedSet<Integer> taskCpus : allocated.values()) {
+			shared.removeAll(taskCpus);
+		}
+		return CpuList.format(shared);
+	}
+
+	/**
+	 * Returns the CPUs reserved for the Host Runtime.
+	 * 
+	 * @return cpu list of the reserved CPUs, empty if none
+	 */
+	public String getReservedCpus() {
+		return CpuList.format(reserved);
+	}
+
+	/**
+	 * Returns the current allocation, as published in the Host Runtime info.
+	 * 
+	 * @return the current allocation
+	 */
+	public synchronized CpuAllocation getAllocation() {
+		final SortedSet<Integer> free = getFree();
+		final CpuAllocation allocation = new CpuAllocation();
+		allocation.setCpus(CpuList.format(cpus));
+		allocation.setReservedCpus(CpuList.format(reserved));
+		allocation.setFreeCpus(CpuList.format(free));
+		allocation.setFreeCount(Math.max(0, free.size() - (reserved.isEmpty() ? 1 : 0)));
+		for (Map.Entry<String, SortedSet<Integer>> entry : new TreeMap<>(allocated).entrySet()) {
+			final TaskCpus taskCpus = new TaskCpus();
+			taskCpus.setTaskId(entry.getKey());
+			taskCpus.setCpus(CpuList.format(entry.getValue()));
+			allocation.getTask().add(taskCpus);
+		}
+		return allocation;
+	}
+
+	private SortedSet<Integer> getFree() {
+		final SortedSet<Integer> free = new TreeSet<>(cpus);
+		free.removeAll(reserved);
+		for (SortedSet<Integer> taskCpus : allocated.values()) {
+			free.removeAll(taskCpus);
+		}
+		return free;
+	}
+}
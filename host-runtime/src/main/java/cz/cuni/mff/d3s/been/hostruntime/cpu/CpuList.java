@@ -0,0 +1,93 @@
+package cz.cuni.mff.d3s.been.hostruntime.cpu;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Conversions of CPU sets from and to the Linux cpu list format (e.g.
+ * <code>0-3,6</code>), as used by <code>taskset</code> and
+ * <code>/proc/&lt;pid&gt;/status</code>.
+ */
+public final class CpuList {
+
+	private CpuList() {
+		// prevents instantiation
+	}
+
+	/**
+	 * Parses a cpu list.
+	 * 
+	 * @param list
+	 *          the cpu list, may be empty
+	 * @return the CPUs in the list
+	 * @throws IllegalArgumentException
+	 *           when the list is malformed
+	 */
+	public static SortedSet<Integer> parse(String list) {
+		final SortedSet<Integer> cpus = new TreeSet<>();
+		for (String part : list.split(",")) {
+			final String range = part.trim();
+			if (range.isEmpty()) {
+				continue;
+			}
+			try {
+				final int dash = range.indexOf('-');
+				if (dash < 0) {
+					cpus.add(Integer.valueOf(range));
+				} else {
+					final int from = Integer.parseInt(range.substring(0, dash).trim());
+					final int to = Integer.parseInt(range.substring(dash + 1).trim());
+					if (from > to) {
+						throw new IllegalArgumentException(String.format("Malformed cpu range '%s'", range));
+					}
+					for (int cpu = from; cpu <= to; ++cpu) {
+						cpus.add(cpu);
+					}
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(String.format("Malformed cpu list '%s'", list), e);
+			}
+		}
+		return cpus;
+	}
+
+	/**
+	 * Formats CPUs as a cpu list, collapsing consecutive CPUs into ranges.
+	 * 
+	 * @param cpus
+	 *          the CPUs
+	 * @return the cpu list, empty for no CPUs
+	 */
+	public static String format(Collection<Integer> cpus) {
+		final StringBuilder sb = new StringBuilder();
+		final Iterator<Integer> it = new TreeSet<>(cpus).iterator();
+		if (!it.hasNext()) {
+			return "";
+		}
+		int from = it.next();
+		int to = from;
+		while (it.hasNext()) {
+			final int cpu = it.next();
+			if (cpu == to + 1) {
+				to = cpu;
+			} else {
+				appendRange(sb, from, to);
+				from = to = cpu;
+			}
+		}
+		appendRange(sb, from, to);
+		return sb.toString();
+	}
+
+	private static void appendRange(StringBuilder sb, int from, int to) {
+		if (sb.length() > 0) {
+			sb.append(',');
+		}
+		sb.append(from);
+		if (to > from) {
+			sb.append('-').append(to);
+		}
+	}
+}
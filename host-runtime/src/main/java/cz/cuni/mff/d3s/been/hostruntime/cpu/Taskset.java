@@ -0,0 +1,103 @@
+package cz.cuni.mff.d3s.been.hostruntime.cpu;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Pins processes to CPUs using the <code>taskset</code> utility of Linux.
+ */
+public final class Taskset {
+
+	/** Name of the utility */
+	private static final String TASKSET = "taskset";
+
+	private Taskset() {
+		// prevents instantiation
+	}
+
+	/**
+	 * Tells whether processes can be pinned on this machine.
+	 * 
+	 * @return whether <code>taskset</code> is available and works
+	 */
+	public static boolean isAvailable() {
+		final Integer pid = getOwnPid();
+		if (pid == null) {
+			return false;
+		}
+		final CommandLine query = new CommandLine(TASKSET);
+		query.addArgument("-p");
+		query.addArgument(pid.toString());
+		try {
+			return run(query) == 0;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Pins all threads of a running process to the given CPUs. Threads and
+	 * children the process creates later inherit the setting.
+	 * 
+	 * @param pid
+	 *          pid of the process
+	 * @param cpus
+	 *          cpu list to pin the process to
+	 * @throws IOException
+	 *           when the process cannot be pinned
+	 */
+	public static void pin(int pid, String cpus) throws IOException {
+		final CommandLine pin = new CommandLine(TASKSET);
+		pin.addArgument("-a");
+		pin.addArgument("-p");
+		pin.addArgument("-c");
+		pin.addArgument(cpus);
+		pin.addArgument(Integer.toString(pid));
+		run(pin);
+	}
+
+	/**
+	 * Wraps a command line so that the started process runs on the given CPUs
+	 * from its very start.
+	 * 
+	 * @param cmd
+	 *          the command line to wrap
+	 * @param cpus
+	 *          cpu list to pin the process to
+	 * @return the wrapped command line
+	 */
+	public static CommandLine wrap(CommandLine cmd, String cpus) {
+		final CommandLine wrapped = new CommandLine(TASKSET);
+		wrapped.addArgument("-c");
+		wrapped.addArgument(cpus);
+		wrapped.addArgument(cmd.getExecutable(), false);
+		for (String argument : cmd.getArguments()) {
+			wrapped.addArgument(argument, false);
+		}
+		return wrapped;
+	}
+
+	/**
+	 * Returns the pid of the Host Runtime process.
+	 * 
+	 * @return the pid, <code>null</code> if it cannot be determined
+	 */
+	public static Integer getOwnPid() {
+		try {
+			return Integer.valueOf(new File("/proc/self").getCanonicalFile().getName());
+		} catch (IOException | NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static int run(CommandLine command) throws IOException {
+		final DefaultExecutor executor = new DefaultExecutor();
+		executor.setStreamHandler(new PumpStreamHandler(new NullOutputStream(), new NullOutputStream()));
+		return executor.execute(command);
+	}
+}
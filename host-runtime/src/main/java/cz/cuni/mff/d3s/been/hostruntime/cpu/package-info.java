@@ -0,0 +1,4 @@
+/**
+ * Allocation of dedicated CPUs to tasks and pinning of processes to CPUs on Linux.
+ */
+package cz.cuni.mff.d3s.been.hostruntime.cpu;
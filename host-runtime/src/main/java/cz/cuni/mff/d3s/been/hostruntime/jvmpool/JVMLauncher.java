@@ -0,0 +1,251 @@
+package cz.cuni.mff.d3s.been.hostruntime.jvmpool;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Main class of a pooled launcher JVM.
+ * <p/>
+ * The launcher preloads the classes found on its classpath, reports to the
+ * {@link JVMPool} which started it and waits for a single task assignment. It
+ * then runs the task's main class in a fresh class loader (delegating to the
+ * launcher's classpath first) and, like a JVM started for the task, exits with
+ * the task.
+ * <p/>
+ * The process of the launcher keeps the working directory and environment of
+ * the pool. Only the <code>user.dir</code> property is pointed to the task's
+ * working directory, and the task's properties are handed over through
+ * <code>TaskEnvironment</code>; tasks therefore have to opt in to be pooled.
+ * <p/>
+ * The class is copied to its own directory by the pool, so it must not depend
+ * on anything but the JDK (nor have nested classes).
+ */
+public final class JVMLauncher {
+
+	/** Exit code of a launcher that has been given a command line it cannot run */
+	private static final int EX_USAGE = 64;
+
+	/** Exit code of a launcher whose main class failed, as with the <code>java</code> executable */
+	private static final int EX_FAILURE = 1;
+
+	/** Class through which task-side code reads the task's properties */
+	private static final String TASK_ENVIRONMENT_CLASS = "cz.cuni.mff.d3s.been.util.TaskEnvironment";
+
+	private static final String CLASS_SUFFIX = ".class";
+
+	private static final String CP_WILDCARD = "*";
+
+	private JVMLauncher() {
+		// prevents instantiation
+	}
+
+	/**
+	 * Starts the launcher.
+	 *
+	 * @param args
+	 *          host and port of the pool, and the token identifying this launcher
+	 * @throws Exception
+	 *           when the launcher fails
+	 */
+	public static void main(String[] args) throws Exception {
+		preloadClasspath();
+
+		final File workingDirectory;
+		final List<String> javaArgs = new ArrayList<>();
+		final Map<String, String> environment = new HashMap<>();
+		try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+			final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			writeString(out, args[2]);
+			out.flush();
+
+			final DataInputStream in = new DataInputStream(socket.getInputStream());
+			workingDirectory = new File(readString(in));
+			for (int i = in.readInt(); i > 0; --i) {
+				javaArgs.add(readString(in));
+			}
+			for (int i = in.readInt(); i > 0; --i) {
+				environment.put(readString(in), readString(in));
+			}
+		} catch (IOException e) {
+			// the pool has been stopped
+			return;
+		}
+
+		run(workingDirectory, javaArgs, environment);
+	}
+
+	/**
+	 * Sends a task to a launcher.
+	 *
+	 * @param out
+	 *          connection to the launcher
+	 * @param workingDirectory
+	 *          working directory of the task
+	 * @param javaArgs
+	 *          arguments of the <code>java</code> executable which would run the
+	 *          task
+	 * @param environment
+	 *          environment properties of the task
+	 * @throws IOException
+	 *           when the assignment cannot be sent
+	 */
+	static void writeAssignment(
+			DataOutputStream out,
+			File workingDirectory,
+			List<String> javaArgs,
+			Map<String, String> environment) throws IOException {
+		writeString(out, workingDirectory.getAbsolutePath());
+		out.writeInt(javaArgs.size());
+		for (String arg : javaArgs) {
+			writeString(out, arg);
+		}
+		out.writeInt(environment.size());
+		for (Map.Entry<String, String> entry : environment.entrySet()) {
+			writeString(out, entry.getKey());
+			writeString(out, entry.getValue());
+		}
+		out.flush();
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void run(File workingDirectory, List<String> javaArgs, Map<String, String> environment) throws Exception {
+		if (javaArgs.size() < 3 || !("-cp".equals(javaArgs.get(0)) || "-classpath".equals(javaArgs.get(0)))) {
+			System.err.println("Unsupported launcher command line: " + javaArgs);
+			System.exit(EX_USAGE);
+		}
+		final String classpath = javaArgs.get(1);
+		final String mainClassName = javaArgs.get(2);
+		final String[] mainArgs = javaArgs.subList(3, javaArgs.size()).toArray(new String[0]);
+
+		// resolves File paths only, the process working directory can't be changed
+		System.setProperty("user.dir", workingDirectory.getAbsolutePath());
+		System.setProperty("java.class.path", classpath);
+
+		final ClassLoader loader = new URLClassLoader(toUrls(workingDirectory, classpath), JVMLauncher.class.getClassLoader());
+		Thread.currentThread().setContextClassLoader(loader);
+		setTaskEnvironment(loader, environment);
+
+		final Method main;
+		try {
+			main = Class.forName(mainClassName, true, loader).getMethod("main", String[].class);
+		} catch (ClassNotFoundException | NoSuchMethodException e) {
+			System.err.println("Error: Could not find or load main class " + mainClassName);
+			System.exit(EX_FAILURE);
+			return;
+		}
+
+		try {
+			main.invoke(null, (Object) mainArgs);
+		} catch (InvocationTargetException e) {
+			System.err.print("Exception in thread \"main\" ");
+			e.getCause().printStackTrace();
+			System.exit(EX_FAILURE);
+		}
+	}
+
+	/**
+	 * Hands the task's properties over to the task-side code, if the task uses
+	 * it.
+	 */
+	private static void setTaskEnvironment(ClassLoader loader, Map<String, String> environment) throws Exception {
+		final Class<?> taskEnvironment;
+		try {
+			taskEnvironment = Class.forName(TASK_ENVIRONMENT_CLASS, true, loader);
+		} catch (ClassNotFoundException e) {
+			return;
+		}
+		taskEnvironment.getMethod("set", Map.class).invoke(null, environment);
+	}
+
+	/**
+	 * Converts a classpath to URLs, expanding wildcards as the <code>java</code>
+	 * executable does. Relative entries are resolved against the working
+	 * directory.
+	 */
+	private static URL[] toUrls(File workingDirectory, String classpath) throws IOException {
+		final List<URL> urls = new ArrayList<>();
+		for (String entry : classpath.split(File.pathSeparator)) {
+			if (entry.isEmpty()) {
+				continue;
+			}
+			File file = new File(entry);
+			if (!file.isAbsolute()) {
+				file = new File(workingDirectory, entry);
+			}
+			if (file.getName().equals(CP_WILDCARD)) {
+				final File[] jars = file.getParentFile().listFiles();
+				if (jars == null) {
+					continue;
+				}
+				Arrays.sort(jars);
+				for (File jar : jars) {
+					if (jar.isFile() && jar.getName().toLowerCase().endsWith(".jar")) {
+						urls.add(jar.toURI().toURL());
+					}
+				}
+			} else {
+				urls.add(file.toURI().toURL());
+			}
+		}
+		return urls.toArray(new URL[urls.size()]);
+	}
+
+	/**
+	 * Loads (without initializing) all classes found in the jars on the
+	 * launcher's classpath, so that a task does not wait for them.
+	 */
+	private static void preloadClasspath() {
+		final ClassLoader loader = JVMLauncher.class.getClassLoader();
+		for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+			if (!entry.toLowerCase().endsWith(".jar")) {
+				continue;
+			}
+			try (JarFile jar = new JarFile(entry)) {
+				final Enumeration<JarEntry> entries = jar.entries();
+				while (entries.hasMoreElements()) {
+					final String name = entries.nextElement().getName();
+					if (name.endsWith(CLASS_SUFFIX) && !name.startsWith("META-INF/")) {
+						preload(loader, name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+					}
+				}
+			} catch (IOException e) {
+				// a missing or broken jar is not loaded by the task either
+			}
+		}
+	}
+
+	private static void preload(ClassLoader loader, String className) {
+		try {
+			Class.forName(className, false, loader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			// classes with unsatisfied dependencies are of no use to the task
+		}
+	}
+}
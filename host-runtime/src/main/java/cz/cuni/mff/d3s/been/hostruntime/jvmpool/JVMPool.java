@@ -0,0 +1,293 @@
+package cz.cuni.mff.d3s.been.hostruntime.jvmpool;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.cluster.Service;
+import cz.cuni.mff.d3s.been.cluster.ServiceException;
+
+/**
+ * A pool of pre-started launcher JVMs, each able to run one JVM task.
+ * <p/>
+ * Launchers run {@link JVMLauncher} with the shared classpath, preload its
+ * classes and connect back to the pool over a loopback socket. A launcher taken
+ * by {@link #acquire()} is replaced by a new one in the background. When no
+ * launcher is ready, the caller starts its task in a new JVM as usual.
+ * <p/>
+ * Launchers share the working directory and environment of the pool, so only
+ * tasks whose descriptors opt in are run by them.
+ */
+public final class JVMPool implements Service {
+
+	private static final Logger log = LoggerFactory.getLogger(JVMPool.class);
+
+	/** Name of the Java executable, as used by the regular task command lines */
+	private static final String JAVA_EXECUTABLE = "java";
+
+	/** Name of the directory (within the pool directory) holding the launcher class */
+	private static final String CLASSES_DIR_NAME = "classes";
+
+	/** Milliseconds a connected launcher has to identify itself */
+	private static final int HANDSHAKE_TIMEOUT = 10000;
+
+	/** Number of launchers kept ready */
+	private final int size;
+
+	/** Working directory of the launchers */
+	private final File directory;
+
+	/** Classpath preloaded by the launchers and shared with tasks */
+	private final String sharedClasspath;
+
+	/** Launchers ready to take a task */
+	private final BlockingQueue<PooledJVM> idle = new LinkedBlockingQueue<>();
+
+	/** Launchers started but not connected yet, keyed by their token */
+	private final ConcurrentMap<String, Process> starting = new ConcurrentHashMap<>();
+
+	/** Starts launchers */
+	private final ExecutorService launcherStarter;
+
+	/** Accepts connections of the launchers */
+	private final ExecutorService acceptor;
+
+	private ServerSocket serverSocket;
+
+	private volatile boolean running;
+
+	/**
+	 * Creates a pool. Call {@link #start()} to start the launchers.
+	 *
+	 * @param directory
+	 *          working directory of the pool
+	 * @param size
+	 *          number of launchers kept ready
+	 * @param sharedClasspath
+	 *          classpath preloaded by the launchers and shared with tasks, may be
+	 *          empty
+	 */
+	public JVMPool(File directory, int size, String sharedClasspath) {
+		this.directory = directory;
+		this.size = size;
+		this.sharedClasspath = sharedClasspath;
+		this.launcherStarter = Executors.newSingleThreadExecutor(new DaemonThreadFactory("jvm-pool-starter"));
+		this.acceptor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("jvm-pool-acceptor"));
+	}
+
+	@Override
+	public void start() throws ServiceException {
+		final File classesDir = new File(directory, CLASSES_DIR_NAME);
+		try {
+			installLauncher(classesDir);
+			serverSocket = new ServerSocket(0, size, InetAddress.getLoopbackAddress());
+		} catch (IOException e) {
+			throw new ServiceException("Cannot start the JVM pool", e);
+		}
+
+		running = true;
+		acceptor.submit(new Runnable() {
+			@Override
+			public void run() {
+				acceptLaunchers();
+			}
+		});
+		replenish();
+		log.info("JVM pool of {} launchers started", size);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		} catch (IOException e) {
+			log.warn("Cannot close the JVM pool socket", e);
+		}
+		acceptor.shutdownNow();
+		launcherStarter.shutdownNow();
+
+		for (PooledJVM jvm; (jvm = idle.poll()) != null;) {
+			jvm.destroy();
+		}
+		for (Process process : starting.values()) {
+			process.destroy();
+		}
+		starting.clear();
+	}
+
+	/**
+	 * Takes a ready launcher from the pool.
+	 *
+	 * @return a launcher, <code>null</code> if none is ready
+	 */
+	public PooledJVM acquire() {
+		PooledJVM jvm;
+		while ((jvm = idle.poll()) != null && !jvm.isAlive()) {
+			log.warn("Discarding a pooled JVM which has exited");
+			jvm.destroy();
+		}
+		replenish();
+		return jvm;
+	}
+
+	/**
+	 * Tells whether a process is still running.
+	 *
+	 * @param process
+	 *          the process
+	 * @return whether the process is running
+	 */
+	static boolean isAlive(Process process) {
+		try {
+			process.exitValue();
+			return false;
+		} catch (IllegalThreadStateException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Copies the launcher class to a directory of its own, so that the launchers
+	 * do not see the classes of the Host Runtime.
+	 */
+	private void installLauncher(File classesDir) throws IOException {
+		final String classFile = JVMLauncher.class.getSimpleName() + ".class";
+		final File target = new File(classesDir, JVMLauncher.class.getPackage().getName().replace('.', File.separatorChar));
+		if (!target.isDirectory() && !target.mkdirs()) {
+			throw new IOException(String.format("Cannot create directory '%s'", target));
+		}
+		try (InputStream in = JVMLauncher.class.getResourceAsStream(classFile)) {
+			Files.copy(in, new File(target, classFile).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void replenish() {
+		if (!running) {
+			return;
+		}
+		try {
+			launcherStarter.submit(new Runnable() {
+				@Override
+				public void run() {
+					fill();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the pool is stopping
+		}
+	}
+
+	/**
+	 * Starts launchers until there are enough of them.
+	 */
+	private void fill() {
+		for (Iterator<Map.Entry<String, Process>> it = starting.entrySet().iterator(); it.hasNext();) {
+			final Process process = it.next().getValue();
+			if (!isAlive(process)) {
+				it.remove();
+				if (!running) {
+					continue;
+				}
+				log.error("A launcher JVM exited with value {} before it was ready, JVM pool disabled", process.exitValue());
+				running = false;
+				return;
+			}
+		}
+
+		while (running && idle.size() + starting.size() < size) {
+			final String token = UUID.randomUUID().toString();
+			final List<String> command = new ArrayList<>();
+			command.add(JAVA_EXECUTABLE);
+			command.add("-cp");
+			command.add(sharedClasspath.isEmpty() ? CLASSES_DIR_NAME : CLASSES_DIR_NAME + File.pathSeparator + sharedClasspath);
+			command.add(JVMLauncher.class.getName());
+			command.add(serverSocket.getInetAddress().getHostAddress());
+			command.add(Integer.toString(serverSocket.getLocalPort()));
+			command.add(token);
+			try {
+				starting.put(token, new ProcessBuilder(command).directory(directory).start());
+			} catch (IOException e) {
+				log.error("Cannot start a launcher JVM, JVM pool disabled", e);
+				running = false;
+			}
+		}
+	}
+
+	private void acceptLaunchers() {
+		while (running) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (running) {
+					log.error("JVM pool cannot accept launchers", e);
+				}
+				return;
+			}
+			try {
+				socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+				final String token = JVMLauncher.readString(new DataInputStream(socket.getInputStream()));
+				socket.setSoTimeout(0);
+				final Process process = starting.remove(token);
+				if (process == null) {
+					log.warn("Unknown launcher connected to the JVM pool");
+					socket.close();
+				} else if (running) {
+					idle.add(new PooledJVM(process, socket));
+				} else {
+					new PooledJVM(process, socket).destroy();
+				}
+			} catch (IOException e) {
+				log.warn("Launcher failed to connect to the JVM pool", e);
+				try {
+					socket.close();
+				} catch (IOException ignored) {
+					// already failed
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates named daemon threads.
+	 */
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		private final String name;
+
+		DaemonThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
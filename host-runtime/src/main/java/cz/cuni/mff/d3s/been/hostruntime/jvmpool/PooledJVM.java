@@ -0,0 +1,86 @@
+package cz.cuni.mff.d3s.been.hostruntime.jvmpool;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An idle launcher JVM taken from a {@link JVMPool}, able to run one task.
+ */
+public final class PooledJVM {
+
+	/** the launcher process */
+	private final Process process;
+
+	/** connection to the launcher */
+	private final Socket connection;
+
+	PooledJVM(Process process, Socket connection) {
+		this.process = process;
+		this.connection = connection;
+	}
+
+	/**
+	 * Hands a task over to the launcher.
+	 * <p/>
+	 * The launcher then behaves as the process of the task: its streams carry the
+	 * task's standard input and output, and it exits with the task's exit value.
+	 *
+	 * @param workingDirectory
+	 *          working directory of the task
+	 * @param javaArgs
+	 *          arguments of the <code>java</code> executable which would run the
+	 *          task; only the classpath, the main class and its arguments are
+	 *          supported
+	 * @param environment
+	 *          environment properties of the task
+	 * @return the process running the task
+	 * @throws IOException
+	 *           when the launcher cannot be reached; the launcher is destroyed
+	 */
+	public Process assign(File workingDirectory, List<String> javaArgs, Map<String, String> environment) throws IOException {
+		try {
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+			JVMLauncher.writeAssignment(out, workingDirectory, javaArgs, environment);
+			connection.close();
+		} catch (IOException e) {
+			destroy();
+			throw e;
+		}
+		return process;
+	}
+
+	/**
+	 * Destroys the launcher without running a task.
+	 */
+	public void destroy() {
+		try {
+			connection.close();
+		} catch (IOException e) {
+			// the process is going away anyway
+		}
+		process.destroy();
+	}
+
+	/**
+	 * Returns the launcher process.
+	 * 
+	 * @return the launcher process
+	 */
+	public Process getProcess() {
+		return process;
+	}
+
+	/**
+	 * Tells whether the launcher process is still running.
+	 *
+	 * @return whether the launcher is alive
+	 */
+	boolean isAlive() {
+		return JVMPool.isAlive(process);
+	}
+}
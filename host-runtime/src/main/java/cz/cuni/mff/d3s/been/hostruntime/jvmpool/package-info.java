@@ -0,0 +1,4 @@
+/**
+ * Pool of pre-started launcher JVMs which run JVM tasks without the cost of starting a new JVM.
+ */
+package cz.cuni.mff.d3s.been.hostruntime.jvmpool;
@@ -0,0 +1,146 @@
+package cz.cuni.mff.d3s.been.hostruntime.procfs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads process statistics from the <code>/proc</code> file system.
+ * <p/>
+ * Processes may exit at any time, so all methods silently skip processes whose
+ * files disappear while being read.
+ */
+public final class ProcFs {
+
+	/** Default mount point of the file system */
+	public static final File DEFAULT_ROOT = new File("/proc");
+
+	private static final String STAT = "stat";
+	private static final String STATUS = "status";
+	private static final String IO = "io";
+
+	/** Mount point of the file system */
+	private final File root;
+
+	/**
+	 * Creates a reader of the file system mounted at the given directory.
+	 * 
+	 * @param root
+	 *          mount point of the file system
+	 */
+	public ProcFs(File root) {
+		this.root = root;
+	}
+
+	/**
+	 * Tells whether the file system can be used on this machine.
+	 * 
+	 * @return whether per-process statistics are available
+	 */
+	public boolean isAvailable() {
+		return new File(new File(root, "self"), STAT).canRead();
+	}
+
+	/**
+	 * Reads the statistics of a process.
+	 * 
+	 * @param pid
+	 *          pid of the process
+	 * @return statistics of the process, <code>null</code> if the process does
+	 *         not exist (anymore)
+	 */
+	public ProcessStat read(int pid) {
+		final File dir = new File(root, Integer.toString(pid));
+		final String stat = readStat(dir);
+		if (stat == null) {
+			return null;
+		}
+		try {
+			return ProcessStat.parse(pid, stat, readLines(new File(dir, STATUS)), readLines(new File(dir, IO)));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Finds a process and all its living descendants.
+	 * 
+	 * @param pid
+	 *          pid of the root process
+	 * @param parents
+	 *          parent pids of all processes, as returned by {@link #readParents()}
+	 * @return pids of the process tree, the root first
+	 */
+	public static List<Integer> findTree(int pid, Map<Integer, Integer> parents) {
+		final Map<Integer, List<Integer>> children = new HashMap<>();
+		for (Map.Entry<Integer, Integer> entry : parents.entrySet()) {
+			List<Integer> siblings = children.get(entry.getValue());
+			if (siblings == null) {
+				siblings = new ArrayList<>();
+				children.put(entry.getValue(), siblings);
+			}
+			siblings.add(entry.getKey());
+		}
+
+		final List<Integer> tree = new ArrayList<>();
+		tree.add(pid);
+		for (int i = 0; i < tree.size(); ++i) {
+			final List<Integer> next = children.get(tree.get(i));
+			if (next != null) {
+				tree.addAll(next);
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * Reads parent pids of all processes on the machine.
+	 * 
+	 * @return map of pids to the pids of their parents
+	 */
+	public Map<Integer, Integer> readParents() {
+		final String[] names = root.list();
+		if (names == null) {
+			return Collections.emptyMap();
+		}
+		final Map<Integer, Integer> parents = new HashMap<>();
+		for (String name : names) {
+			if (name.isEmpty() || !Character.isDigit(name.charAt(0))) {
+				continue;
+			}
+			final String stat = readStat(new File(root, name));
+			if (stat == null) {
+				continue;
+			}
+			try {
+				parents.put(Integer.valueOf(name), ProcessStat.parseParentPid(stat));
+			} catch (IllegalArgumentException e) {
+				// not a process directory
+			}
+		}
+		return parents;
+	}
+
+	private static String readStat(File processDir) {
+		try {
+			return new String(Files.readAllBytes(new File(processDir, STAT).toPath()), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static List<String> readLines(File file) {
+		try {
+			return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			// e.g. /proc/<pid>/io is not readable on some kernels
+			return Collections.emptyList();
+		}
+	}
+}
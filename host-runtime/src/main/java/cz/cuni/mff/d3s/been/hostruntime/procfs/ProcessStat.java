@@ -0,0 +1,216 @@
+package cz.cuni.mff.d3s.been.hostruntime.procfs;
+
+import java.util.List;
+
+/**
+ * Resource usage of a single process as reported by <code>/proc/&lt;pid&gt;</code>.
+ * <p/>
+ * CPU time and page faults include those of the children the process has
+ * already waited for, so that the work of short-lived children is not lost
+ * once they exit.
+ */
+public final class ProcessStat {
+
+	/**
+	 * Clock ticks per second in which <code>/proc/&lt;pid&gt;/stat</code> reports
+	 * CPU times. <code>USER_HZ</code> is 100 on all common Linux platforms and
+	 * the JDK offers no way to ask for it.
+	 */
+	static final long CLOCK_TICKS_PER_SECOND = 100;
+
+	/** Page size assumed when the resident set size is taken from the stat file */
+	static final long PAGE_SIZE = 4096;
+
+	/** Index of the parent pid among the fields following the command name */
+	private static final int PPID = 1;
+	private static final int MINOR_FAULTS = 7;
+	private static final int CHILD_MINOR_FAULTS = 8;
+	private static final int MAJOR_FAULTS = 9;
+	private static final int CHILD_MAJOR_FAULTS = 10;
+	private static final int USER_TIME = 11;
+	private static final int SYSTEM_TIME = 12;
+	private static final int CHILD_USER_TIME = 13;
+	private static final int CHILD_SYSTEM_TIME = 14;
+	private static final int RSS_PAGES = 21;
+
+	private final int pid;
+	private final int parentPid;
+	private final long cpuTime;
+	private final long rss;
+	private final long minorFaults;
+	private final long majorFaults;
+	private final long voluntaryContextSwitches;
+	private final long involuntaryContextSwitches;
+	private final long readBytes;
+	private final long writeBytes;
+
+	private ProcessStat(
+			int pid,
+			int parentPid,
+			long cpuTime,
+			long rss,
+			long minorFaults,
+			long majorFaults,
+			long voluntaryContextSwitches,
+			long involuntaryContextSwitches,
+			long readBytes,
+			long writeBytes) {
+		this.pid = pid;
+		this.parentPid = parentPid;
+		this.cpuTime = cpuTime;
+		this.rss = rss;
+		this.minorFaults = minorFaults;
+		this.majorFaults = majorFaults;
+		this.voluntaryContextSwitches = voluntaryContextSwitches;
+		this.involuntaryContextSwitches = involuntaryContextSwitches;
+		this.readBytes = readBytes;
+		this.writeBytes = writeBytes;
+	}
+
+	/**
+	 * Parses the contents of the files describing a process.
+	 * 
+	 * @param pid
+	 *          pid of the process
+	 * @param stat
+	 *          contents of <code>/proc/&lt;pid&gt;/stat</code>
+	 * @param status
+	 *          lines of <code>/proc/&lt;pid&gt;/status</code>, empty if unreadable
+	 * @param io
+	 *          lines of <code>/proc/&lt;pid&gt;/io</code>, empty if unreadable
+	 * @return the parsed statistics
+	 * @throws IllegalArgumentException
+	 *           when the stat file is malformed
+	 */
+	static ProcessStat parse(int pid, String stat, List<String> status, List<String> io) {
+		final String[] fields = splitStat(stat);
+		if (fields.length <= RSS_PAGES) {
+			throw new IllegalArgumentException(String.format("Malformed stat of process %d", pid));
+		}
+
+		final long ticks = parseLong(fields[USER_TIME]) + parseLong(fields[SYSTEM_TIME]) + parseLong(fields[CHILD_USER_TIME]) + parseLong(fields[CHILD_SYSTEM_TIME]);
+
+		long rss = parseLong(fields[RSS_PAGES]) * PAGE_SIZE;
+		final Long vmRss = findValue(status, "VmRSS:");
+		if (vmRss != null) {
+			rss = vmRss * 1024;
+		}
+
+		return new ProcessStat(
+				pid,
+				(int) parseLong(fields[PPID]),
+				ticks * 1000 / CLOCK_TICKS_PER_SECOND,
+				rss,
+				parseLong(fields[MINOR_FAULTS]) + parseLong(fields[CHILD_MINOR_FAULTS]),
+				parseLong(fields[MAJOR_FAULTS]) + parseLong(fields[CHILD_MAJOR_FAULTS]),
+				valueOrZero(findValue(status, "voluntary_ctxt_switches:")),
+				valueOrZero(findValue(status, "nonvoluntary_ctxt_switches:")),
+				valueOrZero(findValue(io, "read_bytes:")),
+				valueOrZero(findValue(io, "write_bytes:")));
+	}
+
+	/**
+	 * Reads the parent pid from the contents of a stat file.
+	 * 
+	 * @param stat
+	 *          contents of <code>/proc/&lt;pid&gt;/stat</code>
+	 * @return pid of the parent process
+	 * @throws IllegalArgumentException
+	 *           when the stat file is malformed
+	 */
+	static int parseParentPid(String stat) {
+		final String[] fields = splitStat(stat);
+		if (fields.length <= PPID) {
+			throw new IllegalArgumentException("Malformed process stat");
+		}
+		return (int) parseLong(fields[PPID]);
+	}
+
+	/**
+	 * Returns the fields following the command name, which is enclosed in
+	 * parentheses and may contain anything, including spaces and parentheses.
+	 */
+	private static String[] splitStat(String stat) {
+		final int end = stat.lastIndexOf(')');
+		if (end < 0) {
+			throw new IllegalArgumentException("Malformed process stat");
+		}
+		return stat.substring(end + 1).trim().split("\\s+");
+	}
+
+	private static long parseLong(String value) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format("Malformed process stat field '%s'", value), e);
+		}
+	}
+
+	private static Long findValue(List<String> lines, String key) {
+		for (String line : lines) {
+			if (line.startsWith(key)) {
+				final String[] parts = line.substring(key.length()).trim().split("\\s+");
+				try {
+					return Long.parseLong(parts[0]);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static long valueOrZero(Long value) {
+		return (value == null) ? 0 : value;
+	}
+
+	/** @return pid of the process */
+	public int getPid() {
+		return pid;
+	}
+
+	/** @return pid of the parent process */
+	public int getParentPid() {
+		return parentPid;
+	}
+
+	/** @return CPU time (user and system) in milliseconds */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+
+	/** @return resident set size in bytes */
+	public long getRss() {
+		return rss;
+	}
+
+	/** @return number of minor page faults */
+	public long getMinorFaults() {
+		return minorFaults;
+	}
+
+	/** @return number of major page faults */
+	public long getMajorFaults() {
+		return majorFaults;
+	}
+
+	/** @return number of voluntary context switches */
+	public long getVoluntaryContextSwitches() {
+		return voluntaryContextSwitches;
+	}
+
+	/** @return number of involuntary context switches */
+	public long getInvoluntaryContextSwitches() {
+		return involuntaryContextSwitches;
+	}
+
+	/** @return bytes read from storage */
+	public long getReadBytes() {
+		return readBytes;
+	}
+
+	/** @return bytes written to storage */
+	public long getWriteBytes() {
+		return writeBytes;
+	}
+}
@@ -0,0 +1,220 @@
+package cz.cuni.mff.d3s.been.hostruntime.procfs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.cluster.Service;
+import cz.cuni.mff.d3s.been.cluster.ServiceException;
+import cz.cuni.mff.d3s.been.core.ri.MonitorSample;
+import cz.cuni.mff.d3s.been.core.ri.TaskProcessSample;
+import cz.cuni.mff.d3s.been.core.task.ResourceUsage;
+import cz.cuni.mff.d3s.been.detectors.MonitoringContributor;
+import cz.cuni.mff.d3s.been.hostruntime.task.TaskProcess;
+
+/**
+ * Periodically samples the processes of running tasks (including their
+ * children) for resource usage.
+ * <p/>
+ * The latest sample of every running task is added to the monitoring samples
+ * of the Host Runtime. When a task ends, a summary of its usage is handed over
+ * to be persisted with the task's outcome.
+ * <p/>
+ * The monitor does nothing when the <code>/proc</code> file system is not
+ * available.
+ */
+public final class TaskResourceMonitor implements Service, MonitoringContributor {
+
+	private static final Logger log = LoggerFactory.getLogger(TaskResourceMonitor.class);
+
+	private final ProcFs procFs;
+
+	/** Sampling interval in milliseconds */
+	private final long interval;
+
+	/** Whether the monitor samples anything */
+	private final boolean enabled;
+
+	/** Tasks being sampled, keyed by their ids */
+	private final ConcurrentMap<String, TrackedTask> tracked = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService sampler;
+
+	/**
+	 * Creates a monitor. Call {@link #start()} to start sampling.
+	 * 
+	 * @param procFs
+	 *          reader of the process statistics
+	 * @param interval
+	 *          sampling interval in milliseconds, zero to disable sampling
+	 */
+	public TaskResourceMonitor(ProcFs procFs, long interval) {
+		this.procFs = procFs;
+		this.interval = interval;
+		this.enabled = interval > 0 && procFs.isAvailable();
+	}
+
+	@Override
+	public void start() throws ServiceException {
+		if (!enabled) {
+			log.info("Task resource sampling is disabled or not supported on this system");
+			return;
+		}
+		sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r, "task-resource-sampler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		sampler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					sample();
+				} catch (Exception e) {
+					log.warn("Sampling of task processes failed", e);
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		if (sampler != null) {
+			sampler.shutdownNow();
+		}
+	}
+
+	/**
+	 * Starts sampling the process of a task. Call before the process is started.
+	 * 
+	 * @param taskId
+	 *          id of the task
+	 * @param process
+	 *          the task's process
+	 */
+	public void register(String taskId, TaskProcess process) {
+		if (enabled) {
+			tracked.put(taskId, new TrackedTask(taskId, process));
+		}
+	}
+
+	/**
+	 * Stops sampling the process of a task.
+	 * 
+	 * @param taskId
+	 *          id of the task
+	 * @return summary of the task's resource usage as of its last sample,
+	 *         <code>null</code> if the task has never been sampled
+	 */
+	public ResourceUsage unregister(String taskId) {
+		final TrackedTask task = tracked.remove(taskId);
+		return (task == null) ? null : task.getUsage();
+	}
+
+	@Override
+	public void contribute(MonitorSample sample) {
+		for (TrackedTask task : tracked.values()) {
+			final TaskProcessSample taskSample = task.getLastSample();
+			if (taskSample != null) {
+				sample.getTasks().add(taskSample);
+			}
+		}
+	}
+
+	/**
+	 * Takes a sample of all tracked tasks.
+	 */
+	void sample() {
+		if (tracked.isEmpty()) {
+			return;
+		}
+		final Map<Integer, Integer> parents = procFs.readParents();
+		for (TrackedTask task : tracked.values()) {
+			final Integer pid = task.process.getPid();
+			if (pid == null) {
+				continue;
+			}
+			final List<ProcessStat> stats = new ArrayList<>();
+			for (int member : ProcFs.findTree(pid, parents)) {
+				final ProcessStat stat = procFs.read(member);
+				if (stat != null) {
+					stats.add(stat);
+				}
+			}
+			if (!stats.isEmpty()) {
+				task.update(stats);
+			}
+		}
+	}
+
+	/**
+	 * Sampling state of a single task.
+	 */
+	private static final class TrackedTask {
+		private final String taskId;
+		private final TaskProcess process;
+		private volatile TaskProcessSample lastSample;
+		private long peakRss;
+
+		TrackedTask(String taskId, TaskProcess process) {
+			this.taskId = taskId;
+			this.process = process;
+		}
+
+		synchronized void update(List<ProcessStat> stats) {
+			final TaskProcessSample sample = new TaskProcessSample();
+			sample.setTaskId(taskId);
+			sample.setProcessCount(stats.size());
+			for (ProcessStat stat : stats) {
+				sample.setCpuTime(sample.getCpuTime() + stat.getCpuTime());
+				sample.setRss(sample.getRss() + stat.getRss());
+				sample.setMinorFaults(sample.getMinorFaults() + stat.getMinorFaults());
+				sample.setMajorFaults(sample.getMajorFaults() + stat.getMajorFaults());
+				sample.setVoluntaryContextSwitches(sample.getVoluntaryContextSwitches() + stat.getVoluntaryContextSwitches());
+				sample.setInvoluntaryContextSwitches(sample.getInvoluntaryContextSwitches() + stat.getInvoluntaryContextSwitches());
+				sample.setReadBytes(sample.getReadBytes() + stat.getReadBytes());
+				sample.setWriteBytes(sample.getWriteBytes() + stat.getWriteBytes());
+			}
+
+			// children which exit between samples take their counters away
+			final TaskProcessSample previous = lastSample;
+			if (previous != null) {
+				sample.setCpuTime(Math.max(sample.getCpuTime(), previous.getCpuTime()));
+				sample.setReadBytes(Math.max(sample.getReadBytes(), previous.getReadBytes()));
+				sample.setWriteBytes(Math.max(sample.getWriteBytes(), previous.getWriteBytes()));
+			}
+
+			peakRss = Math.max(peakRss, sample.getRss());
+			lastSample = sample;
+		}
+
+		TaskProcessSample getLastSample() {
+			return lastSample;
+		}
+
+		synchronized ResourceUsage getUsage() {
+			if (lastSample == null) {
+				return null;
+			}
+			final ResourceUsage usage = new ResourceUsage();
+			usage.setPeakRss(peakRss);
+			usage.setCpuTime(lastSample.getCpuTime());
+			usage.setReadBytes(lastSample.getReadBytes());
+			usage.setWriteBytes(lastSample.getWriteBytes());
+			return usage;
+		}
+	}
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Resource accounting of task processes based on the Linux <code>/proc</code> file system.
+ */
+package cz.cuni.mff.d3s.been.hostruntime.procfs;
@@ -0,0 +1,533 @@
+package cz.cuni.mff.d3s.been.hostruntime.spool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.IQueue;
+
+import cz.cuni.mff.d3s.been.cluster.Service;
+import cz.cuni.mff.d3s.been.cluster.ServiceException;
+import cz.cuni.mff.d3s.been.cluster.context.Persistence;
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+
+/**
+ * An append-only, file-backed spool of {@link EntityCarrier}s bound for the
+ * cluster's persistence queue.
+ * 
+ * Objects are {@link #append(EntityCarrier) appended} to the spool file first,
+ * so that they survive the persistence queue (or the whole cluster) being
+ * unavailable as well as a restart of the Host Runtime. A forwarder thread
+ * replays the spool into the persistence queue in batches and acknowledges the
+ * forwarded records by persisting the spool offset it reached. On start,
+ * records past the acknowledged offset are recovered and forwarded again; a
+ * record torn by a crash is detected by its checksum and discarded. A corrupt
+ * record in the middle of the spool is skipped, forwarding resumes with the
+ * next record whose checksum is valid.
+ * 
+ * Once all records are acknowledged, the spool file is truncated. As tasks may
+ * log steadily and the forwarder then never fully catches up, the spool file is
+ * also compacted (unacknowledged records are moved to its beginning) whenever
+ * the acknowledged records at its head grow over a threshold.
+ * 
+ * Delivery is at-least-once: records forwarded just before a crash may be
+ * forwarded again after the restart.
+ * 
+ * Record layout: payload length (int), CRC32 of the payload (int), payload. The
+ * payload holds the entity kind and group (each a short length and UTF-8
+ * bytes) followed by the UTF-8 bytes of the entity JSON.
+ */
+public final class PersistenceSpool implements Service {
+
+	private static final Logger log = LoggerFactory.getLogger(PersistenceSpool.class);
+
+	private static final String SPOOL_FILE_NAME = "persistence.spool";
+	private static final String ACK_FILE_NAME = "persistence.ack";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int HEADER_SIZE = 8;
+	private static final long IDLE_WAIT_MILLIS = 200;
+	private static final long RETRY_WAIT_MILLIS = 1000;
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	private final File directory;
+	private final IQueue<EntityCarrier> queue;
+	private final Persistence persistence;
+	private final int batchSize;
+	private final boolean fsync;
+	private final long compactThreshold;
+
+	private RandomAccessFile spoolFile;
+	private RandomAccessFile ackFile;
+	private FileChannel spool;
+	private FileChannel ack;
+	private FileLock lock;
+
+	/** Offset past the last complete record; guarded by <code>this</code> */
+	private volatile long writeOffset;
+	/** Offset past the last acknowledged record; guarded by <code>this</code> */
+	private volatile long ackOffset;
+
+	private Thread forwarder;
+	private volatile boolean running = false;
+
+	/**
+	 * Create a spool
+	 * 
+	 * @param directory
+	 *          Directory to keep the spool files in
+	 * @param queue
+	 *          Persistence queue to forward spooled objects to
+	 * @param persistence
+	 *          Cluster persistence utilities (used to honor the backpressure of
+	 *          the persistence queue)
+	 * @param batchSize
+	 *          Maximum number of records forwarded at once
+	 * @param fsync
+	 *          Whether each append should be forced to the storage device
+	 *          (survives an OS crash, not just a Host Runtime crash)
+	 * @param compactThreshold
+	 *          Size in bytes of acknowledged records at the head of the spool
+	 *          file, over which the file is compacted
+	 */
+	public PersistenceSpool(
+			File directory,
+			IQueue<EntityCarrier> queue,
+			Persistence persistence,
+			int batchSize,
+			boolean fsync,
+			long compactThreshold) {
+		this.directory = directory;
+		this.queue = queue;
+		this.persistence = persistence;
+		this.batchSize = Math.max(1, batchSize);
+		this.fsync = fsync;
+		this.compactThreshold = Math.max(1, compactThreshold);
+	}
+
+	@Override
+	public synchronized void start() throws ServiceException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new ServiceException(String.format("Cannot create spool directory %s", directory.getAbsolutePath()));
+		}
+		try {
+			spoolFile = new RandomAccessFile(new File(directory, SPOOL_FILE_NAME), "rw");
+			ackFile = new RandomAccessFile(new File(directory, ACK_FILE_NAME), "rw");
+			spool = spoolFile.getChannel();
+			ack = ackFile.getChannel();
+			lock = spool.tryLock();
+			if (lock == null) {
+				closeFiles();
+				throw new ServiceException(String.format("Spool in %s is used by another process", directory.getAbsolutePath()));
+			}
+			recover();
+		} catch (IOException e) {
+			closeFiles();
+			throw new ServiceException(String.format("Cannot open spool in %s", directory.getAbsolutePath()), e);
+		}
+
+		running = true;
+		forwarder = new Thread(new Forwarder(), "persistence-spool-forwarder");
+		forwarder.setDaemon(true);
+		forwarder.start();
+	}
+
+	@Override
+	public void stop() {
+		synchronized (this) {
+			if (!running) {
+				return;
+			}
+			running = false;
+			notifyAll();
+		}
+		forwarder.interrupt();
+		try {
+			forwarder.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			closeFiles();
+		}
+	}
+
+	/**
+	 * Append an object to the spool. Once this method returns, the object will
+	 * be forwarded to the persistence queue eventually, even if the Host Runtime
+	 * restarts in between.
+	 * 
+	 * @param carrier
+	 *          Object to spool
+	 * 
+	 * @throws IOException
+	 *           When the spool cannot be written to (or is not started)
+	 */
+	public void append(EntityCarrier carrier) throws IOException {
+		appendAll(Collections.singletonList(carrier));
+	}
+
+	/**
+	 * Append several objects to the spool at once (with a single sync, if
+	 * enabled). Once this method returns, the objects will be forwarded
+	 * to the persistence queue eventually, even if the Host Runtime restarts in
+	 * between.
+	 * 
+	 * @param carriers
+	 *          Objects to spool
+	 * 
+	 * @throws IOException
+	 *           When the spool cannot be written to (or is not started)
+	 */
+	public synchronized void appendAll(Collection<EntityCarrier> carriers) throws IOException {
+		if (!running) {
+			throw new IOException("Persistence spool is not running");
+		}
+		final ByteBuffer[] records = new ByteBuffer[carriers.size()];
+		int i = 0;
+		for (EntityCarrier carrier : carriers) {
+			records[i++] = encode(carrier);
+		}
+		long position = writeOffset;
+		for (ByteBuffer record : records) {
+			while (record.hasRemaining()) {
+				position += spool.write(record, position);
+			}
+		}
+		if (fsync) {
+			spool.force(false);
+		}
+		writeOffset = position;
+		notifyAll();
+	}
+
+	/**
+	 * @return Number of bytes spooled but not yet acknowledged by the forwarder
+	 */
+	public long getPendingBytes() {
+		return writeOffset - ackOffset;
+	}
+
+	/**
+	 * Restore offsets from the spool files, discarding a torn record at the end
+	 * of the spool, if any. Corrupt records followed by valid ones are left to
+	 * the forwarder to skip.
+	 */
+	private void recover() throws IOException {
+		final long size = spool.size();
+		ackOffset = readAckOffset();
+		if (ackOffset > size) {
+			log.warn("Spool acknowledgement offset {} is past the end of the spool ({} bytes), resetting it.", ackOffset, size);
+			ackOffset = 0;
+		}
+
+		long position = ackOffset;
+		int recovered = 0;
+		while (position < size) {
+			final Record record = readRecord(position, size);
+			if (record != null) {
+				position = record.next;
+				++recovered;
+				continue;
+			}
+			final long next = findRecord(position + 1, size);
+			if (next == size) {
+				log.warn("Discarding {} bytes of an incomplete record at the end of the spool.", size - position);
+				spool.truncate(position);
+				break;
+			}
+			position = next;
+		}
+		writeOffset = position;
+		if (recovered > 0) {
+			log.info("Recovered {} spooled objects not yet forwarded to the cluster.", recovered);
+		}
+	}
+
+	/**
+	 * Read the record at a position
+	 * 
+	 * @return The record, or <code>null</code> if it is incomplete or corrupt
+	 */
+	private Record readRecord(long position, long limit) throws IOException {
+		if (position + HEADER_SIZE > limit) {
+			return null;
+		}
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(header, position);
+		final int length = header.getInt(0);
+		final int checksum = header.getInt(4);
+		if (length < 0 || position + HEADER_SIZE + length > limit) {
+			return null;
+		}
+		final ByteBuffer payload = ByteBuffer.allocate(length);
+		readFully(payload, position + HEADER_SIZE);
+		if (checksum(payload.array()) != checksum) {
+			return null;
+		}
+		return new Record(decode(payload), position + HEADER_SIZE + length);
+	}
+
+	/**
+	 * Find the first valid record at or after a position
+	 * 
+	 * @return Offset of the record, or <code>limit</code> if there is none
+	 */
+	private long findRecord(long position, long limit) throws IOException {
+		for (; position + HEADER_SIZE <= limit; ++position) {
+			if (readRecord(position, limit) != null) {
+				return position;
+			}
+		}
+		return limit;
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			final int read = spool.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new IOException("Unexpected end of spool");
+			}
+		}
+		buffer.flip();
+	}
+
+	private long readAckOffset() throws IOException {
+		if (ack.size() < 8) {
+			return 0;
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(8);
+		while (buffer.hasRemaining() && ack.read(buffer, buffer.position()) >= 0) {}
+		return buffer.getLong(0);
+	}
+
+	private void writeAckOffset(long offset) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(8);
+		buffer.putLong(0, offset);
+		while (buffer.hasRemaining()) {
+			ack.write(buffer, buffer.position());
+		}
+		if (fsync) {
+			ack.force(false);
+		}
+	}
+
+	/**
+	 * Acknowledge records forwarded up to an offset. Truncates the spool if no
+	 * records remain, compacts it if the acknowledged records grew over the
+	 * threshold.
+	 */
+	private synchronized void acknowledge(long offset) throws IOException {
+		if (offset == writeOffset) {
+			spool.truncate(0);
+			writeOffset = 0;
+			offset = 0;
+		} else if (offset >= compactThreshold && writeOffset - offset <= offset) {
+			compact(offset);
+			return;
+		}
+		writeAckOffset(offset);
+		ackOffset = offset;
+	}
+
+	/**
+	 * Move the records following an offset to the beginning of the spool.
+	 * 
+	 * The moved records don't overlap their original location, so a crash
+	 * before the spool is truncated leaves the acknowledged offset valid; a crash
+	 * after it leaves the acknowledged offset past the end of the spool, which is
+	 * reset to its beginning on recovery.
+	 */
+	private void compact(long offset) throws IOException {
+		final long length = writeOffset - offset;
+		final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, Math.max(1, length)));
+		for (long copied = 0; copied < length;) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), length - copied));
+			readFully(buffer, offset + copied);
+			while (buffer.hasRemaining()) {
+				copied += spool.write(buffer, copied);
+			}
+		}
+		if (fsync) {
+			spool.force(false);
+		}
+		spool.truncate(length);
+		if (fsync) {
+			spool.force(false);
+		}
+		writeAckOffset(0);
+		ackOffset = 0;
+		writeOffset = length;
+		log.debug("Compacted the persistence spool to {} bytes.", length);
+	}
+
+	/**
+	 * Wait for new records
+	 */
+	private synchronized void awaitRecords() throws InterruptedException {
+		if (running && ackOffset == writeOffset) {
+			wait(IDLE_WAIT_MILLIS);
+		}
+	}
+
+	private void closeFiles() {
+		try {
+			if (lock != null && lock.isValid()) {
+				lock.release();
+			}
+		} catch (IOException e) {
+			log.warn("Cannot release spool lock", e);
+		}
+		closeQuietly(spoolFile);
+		closeQuietly(ackFile);
+		lock = null;
+		spool = null;
+		ack = null;
+		spoolFile = null;
+		ackFile = null;
+	}
+
+	private static void closeQuietly(RandomAccessFile file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			file.close();
+		} catch (IOException e) {
+			log.warn("Cannot close spool file", e);
+		}
+	}
+
+	static ByteBuffer encode(EntityCarrier carrier) {
+		final EntityID id = carrier.getEntityId();
+		final byte[] kind = id.getKind().getBytes(UTF8);
+		final byte[] group = id.getGroup().getBytes(UTF8);
+		final byte[] json = carrier.getEntityJSON().getBytes(UTF8);
+
+		final ByteBuffer payload = ByteBuffer.allocate(2 + kind.length + 2 + group.length + json.length);
+		payload.putShort((short) kind.length).put(kind).putShort((short) group.length).put(group).put(json);
+
+		final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.capacity());
+		record.putInt(payload.capacity()).putInt(checksum(payload.array())).put(payload.array());
+		record.flip();
+		return record;
+	}
+
+	static EntityCarrier decode(ByteBuffer payload) {
+		final byte[] kind = new byte[payload.getShort()];
+		payload.get(kind);
+		final byte[] group = new byte[payload.getShort()];
+		payload.get(group);
+		final byte[] json = new byte[payload.remaining()];
+		payload.get(json);
+		final EntityID id = new EntityID().withKind(new String(kind, UTF8)).withGroup(new String(group, UTF8));
+		return new EntityCarrier().withId(id).withData(new String(json, UTF8));
+	}
+
+	private static int checksum(byte[] bytes) {
+		final CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * A record read from the spool
+	 */
+	private static class Record {
+		/** The spooled object */
+		final EntityCarrier carrier;
+		/** Offset of the following record */
+		final long next;
+
+		Record(EntityCarrier carrier, long next) {
+			this.carrier = carrier;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Replays spooled records into the persistence queue
+	 */
+	private class Forwarder implements Runnable {
+
+		@Override
+		public void run() {
+			log.debug("Spool forwarder starting.");
+			while (running) {
+				try {
+					forwardBatch();
+				} catch (InterruptedException e) {
+					break;
+				} catch (IOException e) {
+					log.error("Cannot read the persistence spool.", e);
+					if (!sleep(RETRY_WAIT_MILLIS)) {
+						break;
+					}
+				}
+			}
+			log.debug("Spool forwarder terminating.");
+		}
+
+		private void forwardBatch() throws IOException, InterruptedException {
+			final long limit = writeOffset;
+			long position = ackOffset;
+			final List<EntityCarrier> batch = new ArrayList<EntityCarrier>();
+			while (batch.size() < batchSize && position < limit) {
+				final Record record = readRecord(position, limit);
+				if (record == null) {
+					// appended records are complete, so this is a damaged one
+					final long next = findRecord(position + 1, limit);
+					log.error("Skipping {} bytes of a corrupt persistence spool record at offset {}.", next - position, position);
+					position = next;
+					continue;
+				}
+				batch.add(record.carrier);
+				position = record.next;
+			}
+
+			if (batch.isEmpty()) {
+				if (position == ackOffset) {
+					awaitRecords();
+				} else {
+					acknowledge(position);
+				}
+				return;
+			}
+
+			try {
+				persistence.awaitPersistenceCapacity();
+				queue.addAll(batch);
+			} catch (RuntimeException e) {
+				log.warn("Cannot forward {} spooled objects to the cluster, will retry.", batch.size(), e);
+				if (!sleep(RETRY_WAIT_MILLIS)) {
+					throw new InterruptedException();
+				}
+				return;
+			}
+			acknowledge(position);
+		}
+
+		private boolean sleep(long millis) {
+			try {
+				Thread.sleep(millis);
+				return true;
+			} catch (InterruptedException e) {
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Durable host-local spool of persistent objects (task results and logs) awaiting transfer into the cluster's persistence queue.
+ */
+package cz.cuni.mff.d3s.been.hostruntime.spool;
@@ -107,8 +107,12 @@ class JVMCmdLineBuilder implements CmdLineBuilder {
 		TaskCommandLine cmdLine = new TaskCommandLine(JAVA_EXECUTABLE);
 
 		addClassPath(cmdLine);
+		int argumentCount = cmdLine.getArguments().length;
 		addJavaOptsFromTaskDescriptor(cmdLine);
 		addDebugParameters(cmdLine);
+		// launchers cannot apply JVM options, such tasks need a JVM of their own
+		cmdLine.pooledLaunchSupported = isPooled(taskDescriptor.getJava())
+				&& (cmdLine.getArguments().length == argumentCount);
 		addMainClass(cmdLine);
 		addArgsFromTaskDescriptor(cmdLine);
 
@@ -138,6 +142,14 @@ class JVMCmdLineBuilder implements CmdLineBuilder {
 
 	}
 
+	/**
+	 * Tells if the task asks to be run by a pooled launcher JVM. Launchers keep
+	 * the working directory and environment of the pool, so tasks have to opt in.
+	 */
+	private boolean isPooled(Java java) {
+		return java != null && java.isSetPooled() && java.isPooled();
+	}
+
 	/**
 	 * Generates classpath value argument. Joins all absolute paths of files in
 	 * library directory ({@link JVMCmdLineBuilder#libDir}) to single string.
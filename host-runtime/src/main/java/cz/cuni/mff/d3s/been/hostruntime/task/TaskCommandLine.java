@@ -21,6 +21,9 @@ public class TaskCommandLine extends CommandLine {
 	/** suspended flag */
 	protected boolean suspended = false;
 
+	/** whether the task can be run by a pooled launcher JVM */
+	protected boolean pooledLaunchSupported = false;
+
 	/**
 	 * Creates new TaskCommandLine for a task.
 	 * 
@@ -69,4 +72,15 @@ public class TaskCommandLine extends CommandLine {
 		return debugListeningMode;
 	}
 
+	/**
+	 * Tells if the command line can be run by a pooled launcher JVM, i.e. it is
+	 * a Java command line of a task which opted in to pooling, with no options
+	 * besides the classpath.
+	 * 
+	 * @return whether the task can be run by a pooled launcher JVM
+	 */
+	public boolean isPooledLaunchSupported() {
+		return pooledLaunchSupported;
+	}
+
 }
@@ -193,6 +193,16 @@ public class TaskHandle {
 		return getTaskDescriptor().getExclusive();
 	}
 
+	/**
+	 * Returns the number of CPUs the task requests for itself
+	 * 
+	 * @return number of dedicated CPUs, 0 if the task shares CPUs
+	 */
+	public int getDedicatedCpus() {
+		TaskDescriptor td = getTaskDescriptor();
+		return td.isSetDedicatedCpus() ? td.getDedicatedCpus() : 0;
+	}
+
 	/**
 	 * Updates the entry in the cluster.
 	 * 
@@ -240,6 +250,19 @@ public class TaskHandle {
 				entity.setBenchmarkId(entry.getBenchmarkId());
 				entity.setRuntimeId(entry.getRuntimeId());
 
+				TaskDescriptor td = entry.getTaskDescriptor();
+				entity.setBpk(PersistentTaskState.createBpkKey(td.getGroupId(), td.getBpkId(), td.getVersion()));
+				if (entry.isSetStartupTimes()) {
+					entity.setStartupTimes(TaskEntries.getStartupTimesMap(entry.getStartupTimes()));
+				}
+				if (entry.isSetResourceUsage()) {
+					ResourceUsage usage = entry.getResourceUsage();
+					entity.setPeakRss(usage.getPeakRss());
+					entity.setCpuTime(usage.getCpuTime());
+					entity.setReadBytes(usage.getReadBytes());
+					entity.setWriteBytes(usage.getWriteBytes());
+				}
+
 				List<StateChangeEntry> logEntries = entry.getStateChangeLog().getLogEntries();
 				if (logEntries.size() > 0) {
 					entity.setTimeStarted(logEntries.get(0).getTimestamp());
@@ -272,6 +295,17 @@ public class TaskHandle {
 		return (isScheduledHere && sameState && sameContext);
 	}
 
+	/**
+	 * Records the resource usage of the task's processes. The usage becomes
+	 * visible in the cluster with the next state change of the task.
+	 * 
+	 * @param usage
+	 *          summary of the resource usage, <code>null</code> if unknown
+	 */
+	public void setResourceUsage(ResourceUsage usage) {
+		entry.setResourceUsage(usage);
+	}
+
 	/**
 	 * 
 	 * Adds necessary debug information to the cluster.
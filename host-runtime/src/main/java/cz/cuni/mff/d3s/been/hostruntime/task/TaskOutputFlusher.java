@@ -0,0 +1,98 @@
+package cz.cuni.mff.d3s.been.hostruntime.task;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.cluster.Service;
+import cz.cuni.mff.d3s.been.cluster.ServiceException;
+
+/**
+ * Periodically sends the output captured by {@link TaskStdInOutHandler}s to
+ * the cluster log and writes it to the task output files.
+ */
+public final class TaskOutputFlusher implements Service {
+
+	private static final Logger log = LoggerFactory.getLogger(TaskOutputFlusher.class);
+
+	/** Flush interval in milliseconds */
+	private final long interval;
+
+	/** Handlers of running tasks */
+	private final Set<TaskStdInOutHandler> handlers = Collections.newSetFromMap(new ConcurrentHashMap<TaskStdInOutHandler, Boolean>());
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Creates a flusher. Call {@link #start()} to start flushing.
+	 * 
+	 * @param interval
+	 *          flush interval in milliseconds
+	 */
+	public TaskOutputFlusher(long interval) {
+		this.interval = interval;
+	}
+
+	@Override
+	public void start() throws ServiceException {
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r, "task-output-flusher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flushAll();
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		flushAll();
+	}
+
+	/**
+	 * Starts flushing a handler.
+	 * 
+	 * @param handler
+	 *          the handler
+	 */
+	void register(TaskStdInOutHandler handler) {
+		handlers.add(handler);
+	}
+
+	/**
+	 * Stops flushing a handler.
+	 * 
+	 * @param handler
+	 *          the handler
+	 */
+	void unregister(TaskStdInOutHandler handler) {
+		handlers.remove(handler);
+	}
+
+	private void flushAll() {
+		for (TaskStdInOutHandler handler : handlers) {
+			try {
+				handler.flush();
+			} catch (Exception e) {
+				log.warn("Cannot flush output of task {}", handler.getTaskId(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package cz.cuni.mff.d3s.been.hostruntime.task;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the output of a task which is sent to the cluster log.
+ * <p/>
+ * The limits are shared by all output streams of a task. A task may send a
+ * burst of at most one second worth of lines over the rate limit, and no more
+ * bytes than its quota in total. Output over the limits is still written to
+ * the task's output files.
+ */
+public final class TaskOutputLimits {
+
+	/** Lines per second, 0 for unlimited */
+	private final int linesPerSecond;
+
+	/** Bytes per task, 0 for unlimited */
+	private final long quota;
+
+	/** Lines which can be sent right now */
+	private double tokens;
+
+	/** Time of the last refill of tokens, in nanoseconds */
+	private long lastRefill;
+
+	/** Bytes sent so far */
+	private long sentBytes;
+
+	/** Whether a line has been refused because of the quota */
+	private boolean quotaExceeded;
+
+	/**
+	 * Creates limits of a task.
+	 * 
+	 * @param linesPerSecond
+	 *          lines per second the task may send to the cluster, 0 for
+	 *          unlimited
+	 * @param quota
+	 *          bytes the task may send to the cluster in total, 0 for unlimited
+	 */
+	public TaskOutputLimits(int linesPerSecond, long quota) {
+		this.linesPerSecond = linesPerSecond;
+		this.quota = quota;
+		this.tokens = linesPerSecond;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Asks whether a line of output may be sent to the cluster, and accounts for
+	 * it if so.
+	 * 
+	 * @param bytes
+	 *          size of the line in bytes
+	 * @return whether the line may be sent
+	 */
+	public synchronized boolean tryAcquire(int bytes) {
+		if (quota > 0 && sentBytes + bytes > quota) {
+			quotaExceeded = true;
+			return false;
+		}
+		if (linesPerSecond > 0) {
+			refill();
+			if (tokens < 1) {
+				return false;
+			}
+			tokens -= 1;
+		}
+		sentBytes += bytes;
+		return true;
+	}
+
+	/**
+	 * Tells whether the task has used up its quota.
+	 * 
+	 * @return whether output has been refused because of the quota
+	 */
+	public synchronized boolean isQuotaExceeded() {
+		return quotaExceeded;
+	}
+
+	private void refill() {
+		final long now = System.nanoTime();
+		final double elapsedSeconds = (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1);
+		tokens = Math.min(linesPerSecond, tokens + elapsedSeconds * linesPerSecond);
+		lastRefill = now;
+	}
+}
@@ -1,7 +1,10 @@
 package cz.cuni.mff.d3s.been.hostruntime.task;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
@@ -16,6 +19,8 @@ import org.slf4j.LoggerFactory;
 import cz.cuni.mff.d3s.been.bpk.ArtifactIdentifier;
 import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
 import cz.cuni.mff.d3s.been.hostruntime.TaskException;
+import cz.cuni.mff.d3s.been.hostruntime.cpu.Taskset;
+import cz.cuni.mff.d3s.been.hostruntime.jvmpool.PooledJVM;
 
 /**
  * 
@@ -56,6 +61,18 @@ public class TaskProcess implements AutoCloseable {
 	/** All identifiers of Artifacts needed by the process. */
 	private final Collection<ArtifactIdentifier> artifactDependencies;
 
+	/** pre-started JVM to run the task in, <code>null</code> to start a new process */
+	private PooledJVM pooledJVM;
+
+	/** cpu list of the CPUs to run the process on, <code>null</code> for any */
+	private String cpus;
+
+	/** the running process, <code>null</code> until the task is started */
+	private volatile Process process;
+
+	/** notified once the process has been launched, may be <code>null</code> */
+	private Runnable launchListener;
+
 	/** tells if manual shutdown has been requested */
 	private boolean killed;
 	private OutputStream stdOutOutputStream;
@@ -113,10 +130,44 @@ public class TaskProcess implements AutoCloseable {
 	 *           with error exit value
 	 */
 	public int start() throws TaskException {
+		if (pooledJVM != null) {
+			Process process = assignToPooledJVM();
+			if (process != null) {
+				this.process = process;
+				launched();
+				return start(process);
+			}
+		}
 		Executor executor = prepare();
 		return start(executor);
 	}
 
+	/**
+	 * Hands the task over to the pooled JVM.
+	 * 
+	 * @return the process running the task, <code>null</code> if the pooled JVM
+	 *         cannot take the task and a new process has to be started instead
+	 */
+	private Process assignToPooledJVM() {
+		List<String> javaArgs = Arrays.asList(cmd.getArguments());
+		try {
+			if (cpus != null) {
+				Integer pid = pidOf(pooledJVM.getProcess());
+				if (pid == null) {
+					throw new IOException("Cannot determine pid of the pooled JVM");
+				}
+				Taskset.pin(pid, cpus);
+			}
+			return pooledJVM.assign(wrkDir.toFile(), javaArgs, environment);
+		} catch (IOException e) {
+			log.warn("Pooled JVM cannot run the task, starting a new process", e);
+			pooledJVM.destroy();
+			return null;
+		} finally {
+			pooledJVM = null;
+		}
+	}
+
 	/**
 	 * Prepares executor for the underlying process. Sets the working directory,
 	 * watchdog (watches for long running time) and std/err output stream handler.
@@ -124,7 +175,15 @@ public class TaskProcess implements AutoCloseable {
 	 * @return prepared executor
 	 */
 	private Executor prepare() {
-		Executor executor = new DefaultExecutor();
+		Executor executor = new DefaultExecutor() {
+			@Override
+			protected Process launch(CommandLine command, Map env, File dir) throws IOException {
+				Process launched = super.launch(command, env, dir);
+				process = launched;
+				launched();
+				return launched;
+			}
+		};
 		executor.setWorkingDirectory(wrkDir.toFile());
 		executor.setWatchdog(watchdog);
 		executor.setStreamHandler(streamHandler);
@@ -152,7 +211,8 @@ public class TaskProcess implements AutoCloseable {
 	private int start(Executor executor) throws TaskException {
 		try {
 
-			return executor.execute(cmd, environment);
+			CommandLine commandLine = (cpus == null) ? cmd : Taskset.wrap(cmd, cpus);
+			return executor.execute(commandLine, environment);
 
 		} catch (ExecuteException e) {
 			if (killed) {
@@ -176,6 +236,84 @@ public class TaskProcess implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * Supervises execution of a process running in a pooled JVM the same way as
+	 * {@link #start(Executor)} does for a new process.
+	 * 
+	 * @param process
+	 *          the process running the task
+	 * @return exit value of the process
+	 * @throws TaskException
+	 *           when task process ended with error exit value or its supervision
+	 *           failed
+	 */
+	private int start(Process process) throws TaskException {
+		watchdog.start(process);
+		try {
+			streamHandler.setProcessInputStream(process.getOutputStream());
+			streamHandler.setProcessOutputStream(process.getInputStream());
+			streamHandler.setProcessErrorStream(process.getErrorStream());
+			streamHandler.start();
+
+			int exitValue = process.waitFor();
+
+			watchdog.stop();
+			streamHandler.stop();
+
+			if (exitValue == 0) {
+				return exitValue;
+			}
+			if (killed) {
+				throw new TaskException(String.format("Task has been killed with exit value %d", exitValue), exitValue);
+			}
+			if (watchdog.killedProcess()) {
+				throw new TaskException(String.format("Timeout (%d seconds) exceeded", timeoutInMillis / 1000), exitValue);
+			}
+			throw new TaskException(String.format("Task process ended with error exit value %d", exitValue), exitValue);
+		} catch (IOException e) {
+			process.destroy();
+			throw new TaskException("Execution of task process failed", e);
+		} catch (InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new TaskException("Execution of task process has been interrupted", e);
+		}
+	}
+
+	/**
+	 * Returns the operating system id of the running process.
+	 * 
+	 * @return pid of the process, <code>null</code> if the process has not been
+	 *         started yet or its pid cannot be determined
+	 */
+	public Integer getPid() {
+		Process running = process;
+		return (running == null) ? null : pidOf(running);
+	}
+
+	/**
+	 * Determines the pid of a process. <code>Process.pid()</code> is used where
+	 * available (Java 9+), the private field of the UNIX process implementation
+	 * otherwise.
+	 */
+	private static Integer pidOf(Process process) {
+		try {
+			Method pid = Process.class.getMethod("pid");
+			return ((Long) pid.invoke(process)).intValue();
+		} catch (NoSuchMethodException e) {
+			// older JDK
+		} catch (Exception e) {
+			return null;
+		}
+		try {
+			Field pid = process.getClass().getDeclaredField("pid");
+			pid.setAccessible(true);
+			return pid.getInt(process);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
 	/**
 	 * Destroys the running process manually.
 	 */
@@ -186,6 +324,12 @@ public class TaskProcess implements AutoCloseable {
 
 	@Override
 	public void close() throws Exception {
+		if (pooledJVM != null) {
+			// the task has not been started
+			pooledJVM.destroy();
+			pooledJVM = null;
+		}
+
 		if (!this.killed) {
 			watchdog.destroyProcess();
 		}
@@ -216,6 +360,53 @@ public class TaskProcess implements AutoCloseable {
 		return cmd.isDebugListeningMode();
 	}
 
+	/**
+	 * Whether the task can be run by a pooled launcher JVM.
+	 * 
+	 * @return whether the task can be run by a pooled launcher JVM
+	 */
+	public boolean isPooledLaunchSupported() {
+		return cmd.isPooledLaunchSupported();
+	}
+
+	/**
+	 * Sets a pre-started JVM in which the task is going to be run instead of a
+	 * new process.
+	 * 
+	 * @param pooledJVM
+	 *          the JVM, <code>null</code> to start a new process
+	 */
+	public void setPooledJVM(PooledJVM pooledJVM) {
+		this.pooledJVM = pooledJVM;
+	}
+
+	/**
+	 * Sets the CPUs on which the process is going to run.
+	 * 
+	 * @param cpus
+	 *          cpu list of the CPUs, <code>null</code> to run on any CPU
+	 */
+	public void setCpus(String cpus) {
+		this.cpus = cpus;
+	}
+
+	/**
+	 * Sets the listener notified once the process has been launched, when its
+	 * pid is known.
+	 * 
+	 * @param launchListener
+	 *          the listener, <code>null</code> for none
+	 */
+	public void setLaunchListener(Runnable launchListener) {
+		this.launchListener = launchListener;
+	}
+
+	private void launched() {
+		if (launchListener != null) {
+			launchListener.run();
+		}
+	}
+
 	/**
 	 * Returns tasks debug port
 	 * 
@@ -0,0 +1,75 @@
+package cz.cuni.mff.d3s.been.hostruntime.task;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import cz.cuni.mff.d3s.been.core.task.StartupTimes;
+import cz.cuni.mff.d3s.been.core.task.StateChangeEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskEntries;
+import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
+
+/**
+ * Keeps track of the {@link StartupTimes} of tasks being started on this Host
+ * Runtime, so that the timestamps of events which are handled outside of the
+ * launching code (e.g. the task reporting it is running) end up in the task's
+ * entry.
+ */
+public class TaskStartupRecorder {
+
+	private final ConcurrentMap<String, StartupTimes> startingTasks = new ConcurrentHashMap<>();
+
+	/**
+	 * Starts recording startup timestamps of a task. Timestamps left in the entry
+	 * by a previous attempt to start the task are discarded.
+	 *
+	 * @param entry
+	 *          entry of the task
+	 * @param received
+	 *          time at which the run message for the task has been received
+	 * @return the task's startup timestamps, attached to the entry
+	 */
+	public StartupTimes register(TaskEntry entry, long received) {
+		entry.setStartupTimes(null);
+		final StartupTimes startupTimes = TaskEntries.getStartupTimes(entry);
+		startupTimes.setScheduled(findScheduledTime(entry));
+		startupTimes.setReceived(received);
+		startingTasks.put(entry.getId(), startupTimes);
+		return startupTimes;
+	}
+
+	/**
+	 * Records that a task has reported it is running. Has no effect on tasks that
+	 * are not registered or that have already reported.
+	 *
+	 * @param taskId
+	 *          ID of the task
+	 */
+	public void markRunning(String taskId) {
+		final StartupTimes startupTimes = startingTasks.get(taskId);
+		if (startupTimes != null && startupTimes.getRunning() == null) {
+			startupTimes.setRunning(System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Stops recording startup timestamps of a task.
+	 *
+	 * @param taskId
+	 *          ID of the task
+	 */
+	public void unregister(String taskId) {
+		startingTasks.remove(taskId);
+	}
+
+	private static Long findScheduledTime(TaskEntry entry) {
+		final List<StateChangeEntry> logEntries = TaskEntries.getStateChangeEntries(entry);
+		for (int i = logEntries.size() - 1; i >= 0; --i) {
+			if (logEntries.get(i).getState() == TaskState.SCHEDULED) {
+				return logEntries.get(i).getTimestamp();
+			}
+		}
+		return null;
+	}
+}
@@ -2,49 +2,101 @@ package cz.cuni.mff.d3s.been.hostruntime.task;
 
 import static cz.cuni.mff.d3s.been.socketworks.NamedSockets.TASK_LOG_0MQ;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.apache.commons.exec.LogOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import cz.cuni.mff.d3s.been.core.TaskMessageType;
 import cz.cuni.mff.d3s.been.logging.LogMessage;
 import cz.cuni.mff.d3s.been.logging.TaskLogMessage;
 import cz.cuni.mff.d3s.been.mq.MessageQueues;
+import cz.cuni.mff.d3s.been.mq.MessagingException;
 import cz.cuni.mff.d3s.been.util.JSONUtils;
 import cz.cuni.mff.d3s.been.util.JsonException;
 
 /**
- * 
- * Processes output from a task line by line.
- * 
- * A line is converted to a {@link LogMessage} and request to a queue for
- * processing.
- * 
- * // TODO This implementation is suboptimal since it uses
- * {@link MessageQueues#send(String, java.io.Serializable)}.
- * 
- * 
+ *
+ * Captures an output stream of a task.
+ *
+ * The raw output is written to a file through a buffer. Complete lines are
+ * collected and sent to the cluster log in batches by a
+ * {@link TaskOutputFlusher}, several lines per {@link LogMessage}. Lines over
+ * the task's {@link TaskOutputLimits} are only written to the file; the cluster
+ * log gets a summary of them instead.
+ *
  * @author Martin Sixta
  */
-public class TaskStdInOutHandler extends LogOutputStream {
+public class TaskStdInOutHandler extends OutputStream {
+
+	private static final Logger log = LoggerFactory.getLogger(TaskStdInOutHandler.class);
+
 	/**
 	 * UNIX line separator
 	 */
-
 	public static final char UNIX_LINE_SEPARATOR = '\n';
+
+	/** Level of the output lines in the cluster log */
+	private static final int LEVEL = 999;
+
+	/** Size of the buffer in front of the output file */
+	private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+	/** Longest line sent as a whole; longer lines are split */
+	private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+	/** Maximum number of characters in a single log message */
+	private static final int MAX_MESSAGE_LENGTH = 64 * 1024;
+
+	/** Number of pending characters at which lines are sent without waiting for the flusher */
+	private static final int MAX_PENDING_LENGTH = 1024 * 1024;
+
+	/** Separates messages of a batch, see the task log handler */
+	private static final char BATCH_SEPARATOR = '\n';
+
+	private static final char CARRIAGE_RETURN = '\r';
+
 	private final String taskId;
 	private final String contextId;
 	private final String benchmarkId;
 	private final String name;
+	private final String fileName;
 
 	private final MessageQueues messageQueues;
 	private final JSONUtils jsonUtils;
-	private final OutputStream secondRedirectOutputStream;
+	private final Charset charset = Charset.defaultCharset();
+
+	private final FileChannel channel;
+	private final ByteBuffer fileBuffer = ByteBuffer.allocate(FILE_BUFFER_SIZE);
+
+	private final TaskOutputLimits limits;
+	private final TaskOutputFlusher flusher;
+
+	/** bytes of the current, unfinished line */
+	private final ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+
+	/** lines waiting to be sent */
+	private final List<String> pendingLines = new ArrayList<>();
+	private int pendingLength;
+
+	/** lines and bytes not sent to the cluster since the last flush */
+	private long droppedLines;
+	private long droppedBytes;
+
+	private boolean closed;
 
 	/**
 	 * Creates new TaskStdInOutHandler
-	 * 
+	 *
 	 * @param taskId
 	 *          ID of tha task
 	 * @param contextId
@@ -52,59 +104,203 @@ public class TaskStdInOutHandler extends LogOutputStream {
 	 * @param benchmarkId
 	 *          benchmark ID of the task
 	 * @param name
-	 *          task's name
-	 * @param secondRedirectOutputStream
-	 *          where to redirect output
+	 *          name of the output stream
+	 * @param file
+	 *          file to write the output to
+	 * @param limits
+	 *          limits of the task's output sent to the cluster
+	 * @param flusher
+	 *          flusher sending the output on a timer
+	 * @throws IOException
+	 *           when the file cannot be opened
 	 */
 	public TaskStdInOutHandler(
 			String taskId,
 			String contextId,
 			String benchmarkId,
 			String name,
-			OutputStream secondRedirectOutputStream) {
+			File file,
+			TaskOutputLimits limits,
+			TaskOutputFlusher flusher) throws IOException {
 		this.taskId = taskId;
 		this.contextId = contextId;
 		this.benchmarkId = benchmarkId;
 		this.name = name;
+		this.fileName = file.getName();
 		this.messageQueues = MessageQueues.getInstance();
 		this.jsonUtils = JSONUtils.newInstance();
-		this.secondRedirectOutputStream = secondRedirectOutputStream;
+		this.channel = FileChannel.open(
+				file.toPath(),
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.limits = limits;
+		this.flusher = flusher;
+		flusher.register(this);
 	}
 
 	@Override
-	protected void processLine(String line, int level) {
-		try {
-			secondRedirectOutputStream.write((line + UNIX_LINE_SEPARATOR).getBytes());
-		} catch (Throwable t) {
-			t.printStackTrace();
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public synchronized void write(byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
 		}
-		// Fabricate a log message
+		writeToFile(b, off, len);
 
-		// Send it
+		int lineStart = off;
+		final int end = off + len;
+		for (int i = off; i < end; ++i) {
+			if (b[i] == UNIX_LINE_SEPARATOR) {
+				currentLine.write(b, lineStart, i - lineStart);
+				completeLine();
+				lineStart = i + 1;
+			} else if (currentLine.size() + (i - lineStart) >= MAX_LINE_LENGTH) {
+				currentLine.write(b, lineStart, i - lineStart);
+				completeLine();
+				lineStart = i;
+			}
+		}
+		currentLine.write(b, lineStart, end - lineStart);
+	}
+
+	/**
+	 * Writes the buffered output to the file and sends the collected lines to
+	 * the cluster.
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		flushFile();
+		sendPending();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		flusher.unregister(this);
+		if (currentLine.size() > 0) {
+			completeLine();
+		}
 		try {
-			String json = createJsonLogMessage(line, level);
+			flush();
+		} finally {
+			closed = true;
+			channel.close();
+		}
+	}
 
-			messageQueues.send(TASK_LOG_0MQ.getName(), createTypedMessage(json));
+	/**
+	 * Returns ID of the task whose output is captured.
+	 *
+	 * @return ID of the task
+	 */
+	String getTaskId() {
+		return taskId;
+	}
 
-		} catch (Throwable t) {
-			t.printStackTrace();
+	private void writeToFile(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (!fileBuffer.hasRemaining()) {
+				flushFile();
+			}
+			final int chunk = Math.min(len, fileBuffer.remaining());
+			fileBuffer.put(b, off, chunk);
+			off += chunk;
+			len -= chunk;
 		}
 	}
 
-	private String createJsonLogMessage(String line, int level) throws JsonException {
-		TaskLogMessage logMsg = new TaskLogMessage().withMessage(new LogMessage(name, level, line));
-		logMsg.withTaskId(taskId).withContextId(contextId).withBenchmarkId(benchmarkId);
+	private void flushFile() throws IOException {
+		fileBuffer.flip();
+		while (fileBuffer.hasRemaining()) {
+			channel.write(fileBuffer);
+		}
+		fileBuffer.clear();
+	}
 
-		return jsonUtils.serialize(logMsg);
+	private void completeLine() {
+		final int bytes = currentLine.size();
+		String line = new String(currentLine.toByteArray(), charset);
+		currentLine.reset();
+		if (!line.isEmpty() && line.charAt(line.length() - 1) == CARRIAGE_RETURN) {
+			line = line.substring(0, line.length() - 1);
+		}
+
+		if (!limits.tryAcquire(bytes)) {
+			++droppedLines;
+			droppedBytes += bytes;
+			return;
+		}
+
+		pendingLines.add(line);
+		pendingLength += line.length() + 1;
+		if (pendingLength >= MAX_PENDING_LENGTH) {
+			sendPending();
+		}
 	}
 
-	private String createTypedMessage(String json) {
-		return String.format("%s#%s", TaskMessageType.LOG_MESSAGE.toString(), json);
+	/**
+	 * Sends the pending lines, and a summary of lines over the limits, in a
+	 * single batch.
+	 */
+	private void sendPending() {
+		if (pendingLines.isEmpty() && droppedLines == 0) {
+			return;
+		}
+
+		final StringBuilder batch = new StringBuilder();
+		final StringBuilder text = new StringBuilder();
+		try {
+			for (String line : pendingLines) {
+				if (text.length() > 0 && text.length() + line.length() >= MAX_MESSAGE_LENGTH) {
+					appendMessage(batch, text.toString());
+					text.setLength(0);
+				}
+				if (text.length() > 0) {
+					text.append(UNIX_LINE_SEPARATOR);
+				}
+				text.append(line);
+			}
+			if (!pendingLines.isEmpty()) {
+				appendMessage(batch, text.toString());
+			}
+			if (droppedLines > 0) {
+				appendMessage(batch, String.format(
+						"[%d lines (%d bytes) of %s over the %s of the task not shown, see %s in the task's working directory]",
+						droppedLines,
+						droppedBytes,
+						name,
+						limits.isQuotaExceeded() ? "output quota" : "output rate limit",
+						fileName));
+			}
+
+			messageQueues.send(TASK_LOG_0MQ.getName(), batch.toString());
+		} catch (JsonException | MessagingException e) {
+			log.error("Cannot send {} of task {} to the cluster log", name, taskId, e);
+		} finally {
+			pendingLines.clear();
+			pendingLength = 0;
+			droppedLines = 0;
+			droppedBytes = 0;
+		}
 	}
 
-	@Override
-	public void close() throws IOException {
-		super.close();
-		secondRedirectOutputStream.close();
+	private void appendMessage(StringBuilder batch, String text) throws JsonException {
+		if (batch.length() > 0) {
+			batch.append(BATCH_SEPARATOR);
+		}
+		batch.append(TaskMessageType.LOG_MESSAGE.toString()).append('#').append(createJsonLogMessage(text));
+	}
+
+	private String createJsonLogMessage(String text) throws JsonException {
+		TaskLogMessage logMsg = new TaskLogMessage().withMessage(new LogMessage(name, LEVEL, text));
+		logMsg.withTaskId(taskId).withContextId(contextId).withBenchmarkId(benchmarkId);
+
+		return jsonUtils.serialize(logMsg);
 	}
 }
@@ -0,0 +1,156 @@
+package cz.cuni.mff.d3s.been.hostruntime.tasklogs;
+
+import static cz.cuni.mff.d3s.been.cluster.Names.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.IMap;
+
+import cz.cuni.mff.d3s.been.cluster.Service;
+import cz.cuni.mff.d3s.been.cluster.ServiceException;
+import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.util.JsonException;
+import cz.cuni.mff.d3s.been.util.JsonKeyHandler;
+import cz.cuni.mff.d3s.been.util.JsonStreamer;
+
+/**
+ * Publishes the latest log messages of tasks for live log listeners (such as
+ * the live feed of the web interface).
+ * <p/>
+ * Only the latest message of each task (and context) is kept and written to
+ * the cluster log maps once per interval. Nothing is parsed nor written while
+ * no listener is registered in the {@link cz.cuni.mff.d3s.been.cluster.Names#LOGS_SUBSCRIBERS_MAP_NAME}
+ * map.
+ */
+public final class LiveLogPublisher implements Service {
+
+	private static final Logger log = LoggerFactory.getLogger(LiveLogPublisher.class);
+
+	/** How long the published messages stay in the maps, in seconds */
+	private static final int LOG_TTL = 60;
+
+	/** Publishing interval in milliseconds */
+	private final long interval;
+
+	private final IMap<String, String> taskLogs;
+	private final IMap<String, String> contextLogs;
+	private final IMap<String, Long> subscribers;
+
+	/** Latest messages waiting to be published, keyed by task ID */
+	private final ConcurrentMap<String, String> latestTaskLogs = new ConcurrentHashMap<>();
+
+	/** Latest messages waiting to be published, keyed by context ID */
+	private final ConcurrentMap<String, String> latestContextLogs = new ConcurrentHashMap<>();
+
+	private final JsonStreamer jsonStreamer;
+
+	/** Whether any live log listener is registered, as of the last check */
+	private volatile boolean subscribed;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Creates a publisher. Call {@link #start()} to start publishing.
+	 * 
+	 * @param ctx
+	 *          connection to the cluster
+	 * @param interval
+	 *          publishing interval in milliseconds
+	 */
+	public LiveLogPublisher(ClusterContext ctx, long interval) {
+		this.interval = interval;
+		this.taskLogs = ctx.getMap(LOGS_TASK_MAP_NAME);
+		this.contextLogs = ctx.getMap(LOGS_CONTEXT_MAP_NAME);
+		this.subscribers = ctx.getMap(LOGS_SUBSCRIBERS_MAP_NAME);
+
+		jsonStreamer = new JsonStreamer();
+		jsonStreamer.addHandler("taskId", new JsonKeyHandler() {
+			@Override
+			public void handle(String key, String value, String json) {
+				latestTaskLogs.put(value, json);
+			}
+		});
+		jsonStreamer.addHandler("contextId", new JsonKeyHandler() {
+			@Override
+			public void handle(String key, String value, String json) {
+				latestContextLogs.put(value, json);
+			}
+		});
+	}
+
+	@Override
+	public void start() throws ServiceException {
+		subscribed = !subscribers.isEmpty();
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r, "live-log-publisher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					publish();
+				} catch (Exception e) {
+					log.warn("Cannot publish live task logs", e);
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Offers a log message for publishing.
+	 * 
+	 * @param message
+	 *          JSON encoded {@link cz.cuni.mff.d3s.been.logging.TaskLogMessage}
+	 */
+	public void offer(String message) {
+		if (!subscribed) {
+			return;
+		}
+		try {
+			synchronized (jsonStreamer) {
+				jsonStreamer.process(message);
+			}
+		} catch (JsonException e) {
+			String msg = String.format("Cannot parse log message '%s", message);
+			log.error(msg, e);
+		}
+	}
+
+	/**
+	 * Writes the latest messages to the cluster and checks for listeners.
+	 */
+	void publish() {
+		drainTo(latestTaskLogs, taskLogs);
+		drainTo(latestContextLogs, contextLogs);
+		subscribed = !subscribers.isEmpty();
+	}
+
+	private static void drainTo(ConcurrentMap<String, String> latest, IMap<String, String> map) {
+		for (String key : latest.keySet()) {
+			final String json = latest.remove(key);
+			if (json != null) {
+				map.put(key, json, LOG_TTL, TimeUnit.SECONDS);
+			}
+		}
+	}
+}
@@ -1,16 +1,13 @@
 package cz.cuni.mff.d3s.been.hostruntime.tasklogs;
 
-import static cz.cuni.mff.d3s.been.cluster.Names.*;
-
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import cz.cuni.mff.d3s.been.logging.TaskLogMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.hazelcast.core.IMap;
-import com.hazelcast.core.IQueue;
-
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
 import cz.cuni.mff.d3s.been.logging.LogMessage;
 import cz.cuni.mff.d3s.been.core.TaskMessageType;
@@ -18,9 +15,9 @@ import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
 import cz.cuni.mff.d3s.been.util.JSONUtils;
 import cz.cuni.mff.d3s.been.util.JsonException;
-import cz.cuni.mff.d3s.been.util.JsonKeyHandler;
-import cz.cuni.mff.d3s.been.util.JsonStreamer;
 import cz.cuni.mff.d3s.been.debugassistant.DebugAssistant;
+import cz.cuni.mff.d3s.been.hostruntime.spool.PersistenceSpool;
+import cz.cuni.mff.d3s.been.hostruntime.task.TaskStartupRecorder;
 import cz.cuni.mff.d3s.been.socketworks.oneway.ReadOnlyHandler;
 
 /**
@@ -34,43 +31,25 @@ public class TaskLogHandler implements ReadOnlyHandler {
 	private static final Logger log = LoggerFactory.getLogger(TaskLogHandler.class);
 	private static final EntityID LOG_ENTITY_ID = new EntityID().withKind("log").withGroup("task");
 	private static final String PREFIX_SEPARATOR = "#";
+	/** Separates messages a task sends together (JSON-encoded messages contain no raw line breaks) */
+	private static final char BATCH_SEPARATOR = '\n';
 
 	private final ClusterContext ctx;
-	private final IQueue<EntityCarrier> logQueue;
-
-	private final IMap<String, String> taskLogs;
-	private final IMap<String, String> contextLogs;
-	private final IMap<String, String> benchmarkLogs;
+	private final PersistenceSpool spool;
+	/** Records the time tasks report they are running, <code>null</code> if not recorded */
+	private final TaskStartupRecorder startupRecorder;
+	/** Publishes the latest logs for live log listeners */
+	private final LiveLogPublisher liveLogs;
 
-	private final JsonStreamer jsonStreamer;
 	private final JSONUtils jsonUtils;
 
-	private TaskLogHandler(ClusterContext ctx) {
+	private TaskLogHandler(ClusterContext ctx, PersistenceSpool spool, LiveLogPublisher liveLogs, TaskStartupRecorder startupRecorder) {
 		this.ctx = ctx;
-		this.logQueue = ctx.getQueue(PERSISTENCE_QUEUE_NAME);
+		this.spool = spool;
+		this.liveLogs = liveLogs;
+		this.startupRecorder = startupRecorder;
 
-		taskLogs = ctx.getMap(LOGS_TASK_MAP_NAME);
-		contextLogs = ctx.getMap(LOGS_CONTEXT_MAP_NAME);
-		benchmarkLogs = ctx.getMap(LOGS_BENCHMARK_MAP_NAME);
-
-		jsonStreamer = new JsonStreamer();
 		jsonUtils = JSONUtils.newInstance();
-
-		jsonStreamer.addHandler("taskId", new JsonKeyHandler() {
-			@Override
-			public void handle(String key, String value, String json) {
-				// value is the new key
-				taskLogs.put(value, json, 60, TimeUnit.SECONDS);
-			}
-		});
-
-		jsonStreamer.addHandler("contextId", new JsonKeyHandler() {
-			@Override
-			public void handle(String key, String value, String json) {
-				// value is the new key
-				contextLogs.put(value, json, 60, TimeUnit.SECONDS);
-			}
-		});
 	}
 
 	/**
@@ -79,11 +58,38 @@ public class TaskLogHandler implements ReadOnlyHandler {
 	 * 
 	 * @param ctx
 	 *          Cluster context
+	 * @param spool
+	 *          Spool that forwards logs to the cluster's persistence queue
+	 * @param liveLogs
+	 *          Publisher of the latest logs for live log listeners
+	 * 
+	 * @return The handler
+	 */
+	public static TaskLogHandler create(ClusterContext ctx, PersistenceSpool spool, LiveLogPublisher liveLogs) {
+		return new TaskLogHandler(ctx, spool, liveLogs, null);
+	}
+
+	/**
+	 * Create a handler that listens to task log messages within the context of a
+	 * cluster node and records the time tasks report they are running.
+	 * 
+	 * @param ctx
+	 *          Cluster context
+	 * @param spool
+	 *          Spool that forwards logs to the cluster's persistence queue
+	 * @param liveLogs
+	 *          Publisher of the latest logs for live log listeners
+	 * @param startupRecorder
+	 *          Recorder of startup timestamps of tasks being started
 	 * 
 	 * @return The handler
 	 */
-	public static TaskLogHandler create(ClusterContext ctx) {
-		return new TaskLogHandler(ctx);
+	public static TaskLogHandler create(
+			ClusterContext ctx,
+			PersistenceSpool spool,
+			LiveLogPublisher liveLogs,
+			TaskStartupRecorder startupRecorder) {
+		return new TaskLogHandler(ctx, spool, liveLogs, startupRecorder);
 	}
 
 	private void handleMessage(TaskMessageType messageType, String message) {
@@ -101,6 +107,11 @@ public class TaskLogHandler implements ReadOnlyHandler {
 
 	@Override
 	public void handle(String message) {
+		if (message.indexOf(BATCH_SEPARATOR) >= 0) {
+			handleBatch(message);
+			return;
+		}
+
 		TaskMessageType messageType = getType(message);
 
 		try {
@@ -112,7 +123,57 @@ public class TaskLogHandler implements ReadOnlyHandler {
 		}
 	}
 
+	/**
+	 * Handle several messages sent together, spooling all log messages at once
+	 * 
+	 * @param batch
+	 *          Messages separated by {@link #BATCH_SEPARATOR}
+	 */
+	private void handleBatch(String batch) {
+		final List<String> logMessages = new ArrayList<>();
+		int start = 0;
+		while (start < batch.length()) {
+			int end = batch.indexOf(BATCH_SEPARATOR, start);
+			if (end < 0) {
+				end = batch.length();
+			}
+			final String message = batch.substring(start, end);
+			start = end + 1;
+			if (message.isEmpty()) {
+				continue;
+			}
+			if (getType(message) == TaskMessageType.LOG_MESSAGE) {
+				logMessages.add(stripPrefix(TaskMessageType.LOG_MESSAGE, message));
+			} else {
+				handle(message);
+			}
+		}
+		if (logMessages.isEmpty()) {
+			return;
+		}
+
+		final List<EntityCarrier> carriers = new ArrayList<>(logMessages.size());
+		for (String logMessage : logMessages) {
+			carriers.add(fabricateEntityTransport(logMessage));
+		}
+		try {
+			spool.appendAll(carriers);
+		} catch (IOException e) {
+			log.error("Cannot spool {} log messages", carriers.size(), e);
+			return;
+		}
+		for (String logMessage : logMessages) {
+			publishLog(logMessage);
+			if (log.isDebugEnabled()) {
+				printDebuggingMessage(logMessage);
+			}
+		}
+	}
+
 	private void handleTaskRunningMessage(String taskId) {
+		if (startupRecorder != null) {
+			startupRecorder.markRunning(taskId);
+		}
 		DebugAssistant debugAssistant = new DebugAssistant(ctx);
 		debugAssistant.setSuspended(taskId, false);
 	}
@@ -120,7 +181,7 @@ public class TaskLogHandler implements ReadOnlyHandler {
 	private void handleLogMessage(String message) {
 		try {
 
-			logQueue.put(fabricateEntityTransport(message));
+			spool.append(fabricateEntityTransport(message));
 
 			publishLog(message);
 
@@ -128,19 +189,13 @@ public class TaskLogHandler implements ReadOnlyHandler {
 				printDebuggingMessage(message);
 			}
 
-		} catch (InterruptedException e) {
-			log.error("Interrupted when trying to submit log message {} to cluster", message);
+		} catch (IOException e) {
+			log.error("Cannot spool log message {}", message, e);
 		}
 	}
 
 	private void publishLog(String message) {
-		try {
-			jsonStreamer.process(message);
-		} catch (JsonException e) {
-			String msg = String.format("Cannot parse log message '%s", message);
-			log.error(msg, e);
-		}
-
+		liveLogs.offer(message);
 	}
 
 	/**
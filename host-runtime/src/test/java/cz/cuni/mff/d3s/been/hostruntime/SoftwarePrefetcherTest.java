@@ -0,0 +1,122 @@
+package cz.cuni.mff.d3s.been.hostruntime;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hazelcast.core.IMap;
+
+import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
+import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.cluster.context.Tasks;
+import cz.cuni.mff.d3s.been.core.ri.OperatingSystem;
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+import cz.cuni.mff.d3s.been.core.task.HostRuntimes;
+import cz.cuni.mff.d3s.been.core.task.TaskDescriptor;
+import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
+
+/**
+ * Test for {@link SoftwarePrefetcher}
+ */
+public class SoftwarePrefetcherTest extends Assert {
+
+	private ClusterContext clusterContext;
+	private Tasks tasks;
+	private IMap<String, TaskEntry> tasksMap;
+	private SoftwareResolver softwareResolver;
+	private RuntimeInfo runtimeInfo;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		clusterContext = mock(ClusterContext.class);
+		tasks = mock(Tasks.class);
+		softwareResolver = mock(SoftwareResolver.class);
+		when(clusterContext.getTasks()).thenReturn(tasks);
+		tasksMap = mock(IMap.class);
+		when(tasks.getTasksMap()).thenReturn(tasksMap);
+
+		final OperatingSystem os = new OperatingSystem();
+		os.setName("Linux");
+		runtimeInfo = new RuntimeInfo();
+		runtimeInfo.setId("hr1");
+		runtimeInfo.setOperatingSystem(os);
+	}
+
+	@Test
+	public void testWaitingTasksSelectingThisRuntimeArePrefetched() {
+		when(tasks.getTasks(TaskState.WAITING)).thenReturn(Arrays.asList(
+				task("t1", TaskState.WAITING, null, "operatingSystem/name = 'Linux'", "a"),
+				task("t2", TaskState.WAITING, null, "operatingSystem/name = 'Windows'", "b"),
+				task("t3", TaskState.WAITING, null, null, "c"),
+				task("t4", TaskState.WAITING, null, "not a [valid selector", "d")));
+
+		new SoftwarePrefetcher(clusterContext, softwareResolver, runtimeInfo, true).start();
+
+		verify(softwareResolver).prefetch(bpk("a"));
+		verifyNoMoreInteractions(softwareResolver);
+	}
+
+	@Test
+	public void testWaitingTasksAreNotPrefetchedByDefault() {
+		when(tasks.getTasks(TaskState.WAITING)).thenReturn(Arrays.asList(task(
+				"t1",
+				TaskState.WAITING,
+				null,
+				"operatingSystem/name = 'Linux'",
+				"a")));
+
+		final SoftwarePrefetcher prefetcher = new SoftwarePrefetcher(
+				clusterContext,
+				softwareResolver,
+				runtimeInfo,
+				HostRuntimeConfiguration.DEFAULT_PREFETCH_WAITING);
+		prefetcher.start();
+
+		verify(softwareResolver, never()).prefetch(any(BpkIdentifier.class));
+		verify(tasks, never()).getTasks(TaskState.WAITING);
+		verify(tasksMap, never()).addEntryListener(prefetcher, true);
+	}
+
+	@Test
+	public void testTasksToRunArePrefetched() {
+		when(tasks.getTask("t1")).thenReturn(task("t1", TaskState.SCHEDULED, "hr1", null, "a"));
+
+		final SoftwarePrefetcher prefetcher = new SoftwarePrefetcher(clusterContext, softwareResolver, runtimeInfo, false);
+		prefetcher.start();
+		prefetcher.onRunTask("t1");
+		prefetcher.onRunTask("gone");
+
+		verify(softwareResolver).prefetch(bpk("a"));
+		verifyNoMoreInteractions(softwareResolver);
+	}
+
+	private static TaskEntry task(String id, TaskState state, String runtimeId, String xpath, String bpkId) {
+		final TaskDescriptor descriptor = new TaskDescriptor();
+		descriptor.setGroupId("group");
+		descriptor.setBpkId(bpkId);
+		descriptor.setVersion("1.0");
+		if (xpath != null) {
+			final HostRuntimes hostRuntimes = new HostRuntimes();
+			hostRuntimes.setXpath(xpath);
+			descriptor.setHostRuntimes(hostRuntimes);
+		}
+
+		final TaskEntry entry = new TaskEntry();
+		entry.setId(id);
+		entry.setState(state);
+		entry.setRuntimeId(runtimeId);
+		entry.setTaskDescriptor(descriptor);
+		return entry;
+	}
+
+	private static BpkIdentifier bpk(String bpkId) {
+		return new BpkIdentifier().withGroupId("group").withBpkId(bpkId).withVersion("1.0");
+	}
+}
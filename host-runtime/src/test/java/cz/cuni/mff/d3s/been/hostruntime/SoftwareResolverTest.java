@@ -0,0 +1,118 @@
+package cz.cuni.mff.d3s.been.hostruntime;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.artifact.Artifact;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import cz.cuni.mff.d3s.been.bpk.ArtifactIdentifier;
+import cz.cuni.mff.d3s.been.bpk.Bpk;
+import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
+import cz.cuni.mff.d3s.been.cluster.context.Services;
+import cz.cuni.mff.d3s.been.core.service.ServiceInfo;
+import cz.cuni.mff.d3s.been.swrepoclient.SwRepoClient;
+import cz.cuni.mff.d3s.been.swrepoclient.SwRepoClientFactory;
+import cz.cuni.mff.d3s.been.swrepository.SWRepositoryServiceInfoConstants;
+
+/**
+ * Test for {@link SoftwareResolver}
+ */
+public class SoftwareResolverTest extends Assert {
+
+	private static final BpkIdentifier BPK = new BpkIdentifier().withGroupId("cz.cuni.test").withBpkId("task").withVersion("1.0");
+
+	private SwRepoClient client;
+	private SoftwareResolver resolver;
+	private ExecutorService callers;
+
+	@Before
+	public void setUp() {
+		final ServiceInfo swRepositoryInfo = new ServiceInfo("swrepository", "1");
+		swRepositoryInfo.setParam(SWRepositoryServiceInfoConstants.PARAM_HOST_NAME, "localhost");
+		swRepositoryInfo.setParam(SWRepositoryServiceInfoConstants.PARAM_PORT, 8000);
+		final Services services = mock(Services.class);
+		when(services.getSWRepositoryInfo()).thenReturn(swRepositoryInfo);
+
+		client = mock(SwRepoClient.class);
+		final SwRepoClientFactory clientFactory = mock(SwRepoClientFactory.class);
+		when(clientFactory.getClient("localhost", 8000)).thenReturn(client);
+
+		resolver = new SoftwareResolver(services, clientFactory, 2);
+		callers = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		resolver.shutdown();
+		callers.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentRequestsAreCoalesced() throws Exception {
+		final Bpk bpk = mock(Bpk.class);
+		final CountDownLatch downloading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger downloads = new AtomicInteger();
+		when(client.getBpk(any(BpkIdentifier.class))).thenAnswer(new Answer<Bpk>() {
+			@Override
+			public Bpk answer(InvocationOnMock invocation) throws Throwable {
+				downloads.incrementAndGet();
+				downloading.countDown();
+				release.await();
+				return bpk;
+			}
+		});
+
+		final Future<Bpk> first = callers.submit(new GetBpk());
+		assertTrue(downloading.await(5, TimeUnit.SECONDS));
+		final Future<Bpk> second = callers.submit(new GetBpk());
+		Thread.sleep(100);
+		release.countDown();
+
+		assertSame(bpk, first.get(5, TimeUnit.SECONDS));
+		assertSame(bpk, second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, downloads.get());
+	}
+
+	@Test(expected = TaskException.class)
+	public void testMissingBpkFails() throws Exception {
+		resolver.getBpk(BPK);
+	}
+
+	@Test
+	public void testResolvesAllArtifacts() throws Exception {
+		final ArtifactIdentifier a = new ArtifactIdentifier().withGroupId("g").withArtifactId("a").withVersion("1");
+		final ArtifactIdentifier b = new ArtifactIdentifier().withGroupId("g").withArtifactId("b").withVersion("1");
+		final Artifact artifactA = mock(Artifact.class);
+		final Artifact artifactB = mock(Artifact.class);
+		when(client.getArtifact(a)).thenReturn(artifactA);
+		when(client.getArtifact(b)).thenReturn(artifactB);
+
+		final Collection<Artifact> artifacts = resolver.resolveArtifacts(Arrays.asList(a, b));
+
+		assertEquals(Arrays.asList(artifactA, artifactB), artifacts);
+	}
+
+	private class GetBpk implements Callable<Bpk> {
+		@Override
+		public Bpk call() throws Exception {
+			return resolver.getBpk(BPK);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package cz.cuni.mff.d3s.been.hostruntime;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.core.ri.LaunchStage;
+
+/**
+ * Test for {@link TaskLaunchPipeline}
+ */
+public class TaskLaunchPipelineTest extends Assert {
+
+	private final TaskLaunchPipeline pipeline = new TaskLaunchPipeline(2);
+
+	@After
+	public void tearDown() {
+		pipeline.stop();
+	}
+
+	@Test
+	public void testPreparationIsBounded() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(4);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+
+		for (int i = 0; i < 4; ++i) {
+			pipeline.prepare(new Runnable() {
+				@Override
+				public void run() {
+					final int now = running.incrementAndGet();
+					maxRunning.set(Math.max(maxRunning.get(), now));
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+
+		Thread.sleep(100);
+		final LaunchStage prepare = pipeline.getStatistics().get(0);
+		assertEquals(TaskLaunchPipeline.PREPARE_STAGE, prepare.getName());
+		assertEquals(2, prepare.getActive());
+		assertEquals(2, prepare.getQueued());
+
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(2, maxRunning.get());
+	}
+
+	@Test
+	public void testSpawnIsNotBounded() throws Exception {
+		final CountDownLatch started = new CountDownLatch(4);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		for (int i = 0; i < 4; ++i) {
+			pipeline.spawn(new Runnable() {
+				@Override
+				public void run() {
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		release.countDown();
+
+		final List<LaunchStage> statistics = pipeline.getStatistics();
+		assertEquals(TaskLaunchPipeline.SPAWN_STAGE, statistics.get(1).getName());
+		assertEquals(0, statistics.get(1).getQueued());
+	}
+}
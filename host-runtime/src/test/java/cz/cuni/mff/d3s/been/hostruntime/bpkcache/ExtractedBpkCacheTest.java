@@ -0,0 +1,145 @@
+package cz.cuni.mff.d3s.been.hostruntime.bpkcache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cz.cuni.mff.d3s.been.bpk.Bpk;
+import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
+
+/**
+ * Test for {@link ExtractedBpkCache}
+ */
+public class ExtractedBpkCacheTest extends Assert {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testLinksCachedFilesAndCopiesPrivateFiles() throws Exception {
+		final ExtractedBpkCache cache = createCache(Long.MAX_VALUE);
+		final Bpk bpk = bpk("task", "1.0", "content");
+
+		final File first = tmp.newFolder("first");
+		final File second = tmp.newFolder("second");
+		cache.materialize(bpk, first);
+		cache.materialize(bpk, second);
+
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+
+		final Path firstJar = first.toPath().resolve("lib/task.jar");
+		final Path secondJar = second.toPath().resolve("lib/task.jar");
+		assertEquals("content", new String(Files.readAllBytes(secondJar), UTF8));
+		assertTrue(Files.isSameFile(firstJar, secondJar));
+		assertFalse(isWritable(secondJar));
+
+		final Path firstData = first.toPath().resolve("files/data.txt");
+		final Path secondData = second.toPath().resolve("files/data.txt");
+		assertFalse(Files.isSameFile(firstData, secondData));
+		assertTrue(isWritable(secondData));
+	}
+
+	@Test
+	public void testChangedContentIsExtractedAgain() throws Exception {
+		final ExtractedBpkCache cache = createCache(Long.MAX_VALUE);
+
+		cache.materialize(bpk("task", "1.0", "old"), tmp.newFolder("old"));
+		final File task = tmp.newFolder("new");
+		cache.materialize(bpk("task", "1.0", "new"), task);
+
+		assertEquals(2, cache.getMissCount());
+		assertEquals("new", new String(Files.readAllBytes(task.toPath().resolve("lib/task.jar")), UTF8));
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		// room for two packages
+		final ExtractedBpkCache cache = createCache(2 * packageSize());
+		final Bpk a = bpk("a", "1.0", "content");
+		final Bpk b = bpk("b", "1.0", "content");
+		final Bpk c = bpk("c", "1.0", "content");
+
+		cache.materialize(a, tmp.newFolder());
+		cache.materialize(b, tmp.newFolder());
+		cache.materialize(a, tmp.newFolder());
+		cache.materialize(c, tmp.newFolder());
+		assertEquals(3, cache.getMissCount());
+
+		// b was evicted, a was not
+		cache.materialize(a, tmp.newFolder());
+		assertEquals(3, cache.getMissCount());
+		cache.materialize(b, tmp.newFolder());
+		assertEquals(4, cache.getMissCount());
+		assertTrue(cache.getSize() <= 2 * packageSize());
+	}
+
+	@Test
+	public void testRebuildsIndexOnStart() throws Exception {
+		final Bpk bpk = bpk("task", "1.0", "content");
+		createCache(Long.MAX_VALUE).materialize(bpk, tmp.newFolder());
+
+		final ExtractedBpkCache restarted = createCache(Long.MAX_VALUE);
+		restarted.materialize(bpk, tmp.newFolder());
+
+		assertEquals(0, restarted.getMissCount());
+		assertEquals(packageSize(), restarted.getSize());
+	}
+
+	/** Checks permissions rather than access, which is always granted to root */
+	private static boolean isWritable(Path file) throws IOException {
+		return Files.getPosixFilePermissions(file).contains(PosixFilePermission.OWNER_WRITE);
+	}
+
+	private ExtractedBpkCache createCache(long maxSize) throws Exception {
+		final ExtractedBpkCache cache = new ExtractedBpkCache(new File(tmp.getRoot(), "cache"), maxSize, Arrays.asList("files/**"));
+		cache.start();
+		return cache;
+	}
+
+	/** Size of an extracted package created by {@link #bpk(String, String, String)} */
+	private static long packageSize() {
+		return "content".length() + "data".length();
+	}
+
+	private static Bpk bpk(String bpkId, String version, String jarContent) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("lib/task.jar"));
+			zip.write(jarContent.getBytes(UTF8));
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("files/data.txt"));
+			zip.write("data".getBytes(UTF8));
+			zip.closeEntry();
+		}
+		final byte[] archive = bytes.toByteArray();
+		final BpkIdentifier id = new BpkIdentifier().withGroupId("cz.cuni.mff.d3s.been").withBpkId(bpkId).withVersion(version);
+		return new Bpk() {
+			@Override
+			public BpkIdentifier getBpkIdentifier() {
+				return id;
+			}
+
+			@Override
+			public InputStream getInputStream() {
+				return new ByteArrayInputStream(archive);
+			}
+		};
+	}
+}
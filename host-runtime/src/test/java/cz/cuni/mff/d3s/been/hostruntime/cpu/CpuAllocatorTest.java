@@ -0,0 +1,63 @@
+package cz.cuni.mff.d3s.been.hostruntime.cpu;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.core.ri.CpuAllocation;
+
+/**
+ * Test for {@link CpuAllocator} and {@link CpuList}
+ */
+public class CpuAllocatorTest extends Assert {
+
+	@Test
+	public void testParsesAndFormatsCpuLists() {
+		assertEquals(Arrays.asList(0, 1, 2, 3, 6), Arrays.asList(CpuList.parse("0-3, 6").toArray()));
+		assertEquals("0-3,6,8-9", CpuList.format(Arrays.asList(9, 0, 1, 2, 3, 6, 8)));
+		assertEquals("", CpuList.format(CpuList.parse("")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsMalformedCpuList() {
+		CpuList.parse("3-1");
+	}
+
+	@Test
+	public void testDedicatesDisjointCpus() {
+		final CpuAllocator allocator = new CpuAllocator(CpuList.parse("0-7"), CpuList.parse("0"));
+
+		assertEquals("1-2", allocator.allocate("a", 2));
+		assertEquals("3-5", allocator.allocate("b", 3));
+		assertFalse(allocator.canAllocate(3));
+		assertEquals("0,6-7", allocator.getSharedCpus());
+		assertEquals("0,6-7", allocator.getTaskCpus("c"));
+		assertEquals("3-5", allocator.getTaskCpus("b"));
+
+		final CpuAllocation allocation = allocator.getAllocation();
+		assertEquals("0", allocation.getReservedCpus());
+		assertEquals("6-7", allocation.getFreeCpus());
+		assertEquals(2, allocation.getFreeCount());
+		assertEquals(2, allocation.getTask().size());
+
+		assertTrue(allocator.release("a"));
+		assertFalse(allocator.release("a"));
+		assertEquals("1-2", allocator.allocate("c", 2));
+	}
+
+	@Test
+	public void testKeepsSharedCpuWithoutReservation() {
+		final CpuAllocator allocator = new CpuAllocator(CpuList.parse("0-3"), CpuList.parse(""));
+
+		assertFalse(allocator.canAllocate(4));
+		assertEquals("0-2", allocator.allocate("a", 3));
+		assertEquals("3", allocator.getSharedCpus());
+		assertEquals(0, allocator.getAllocation().getFreeCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRefusesTooManyCpus() {
+		new CpuAllocator(CpuList.parse("0-3"), CpuList.parse("0")).allocate("a", 4);
+	}
+}
@@ -0,0 +1,100 @@
+package cz.cuni.mff.d3s.been.hostruntime.jvmpool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
+
+/**
+ * Test for {@link JVMPool}
+ */
+public class JVMPoolTest extends Assert {
+
+	private static final String PROPERTY = "BEEN_POOL_TEST";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private JVMPool pool;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new JVMPool(tmp.newFolder("pool"), 1, "");
+		pool.start();
+	}
+
+	@After
+	public void tearDown() {
+		pool.stop();
+	}
+
+	@Test
+	public void testRunsTaskInPooledJVM() throws Exception {
+		final File workingDirectory = tmp.newFolder("task");
+		final File output = new File(workingDirectory, "output");
+		final String classpath = location(TaskMain.class) + File.pathSeparator + location(TaskEnvironment.class);
+
+		final Process process = acquire().assign(
+				workingDirectory,
+				Arrays.asList("-cp", classpath, TaskMain.class.getName(), output.getAbsolutePath()),
+				Collections.singletonMap(PROPERTY, "value"));
+
+		assertEquals(3, process.waitFor());
+		final List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+		assertEquals(Arrays.asList("value", workingDirectory.getAbsolutePath()), lines);
+
+		// the launcher is replaced
+		assertNotNull(acquire());
+	}
+
+	@Test
+	public void testRejectsJvmOptions() throws Exception {
+		final Process process = acquire().assign(
+				tmp.newFolder("task"),
+				Arrays.asList("-Xmx64m", "-cp", ".", TaskMain.class.getName()),
+				Collections.<String, String> emptyMap());
+
+		assertEquals(64, process.waitFor());
+	}
+
+	private PooledJVM acquire() throws InterruptedException {
+		for (int i = 0; i < 300; ++i) {
+			final PooledJVM jvm = pool.acquire();
+			if (jvm != null) {
+				return jvm;
+			}
+			Thread.sleep(100);
+		}
+		fail("No launcher JVM became ready");
+		return null;
+	}
+
+	private static String location(Class<?> clazz) throws Exception {
+		return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+	}
+
+	/**
+	 * Main class of the task run by the launcher
+	 */
+	public static class TaskMain {
+		public static void main(String[] args) throws IOException {
+			Files.write(
+					new File(args[0]).toPath(),
+					Arrays.asList(TaskEnvironment.get(PROPERTY), System.getProperty("user.dir")),
+					StandardCharsets.UTF_8);
+			System.exit(3);
+		}
+	}
+}
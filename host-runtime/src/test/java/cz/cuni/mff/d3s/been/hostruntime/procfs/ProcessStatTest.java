@@ -0,0 +1,76 @@
+package cz.cuni.mff.d3s.been.hostruntime.procfs;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link ProcessStat} and {@link ProcFs}
+ */
+public class ProcessStatTest extends Assert {
+
+	/** stat of a process whose command name contains spaces and parentheses */
+	private static final String STAT = "4242 (java (x) y) S 4200 4242 4200 0 -1 4202496 1000 20 3 1 "
+			+ "250 50 30 20 20 0 12 0 123456 4000000000 512 18446744073709551615 1 1 0 0 0 0 0 0 0 0 0 0 17 2 0 0 0 0 0";
+
+	@Test
+	public void testParsesStatStatusAndIo() {
+		final List<String> status = Arrays.asList(
+				"Name:\tjava",
+				"VmRSS:\t    2048 kB",
+				"voluntary_ctxt_switches:\t15",
+				"nonvoluntary_ctxt_switches:\t7");
+		final List<String> io = Arrays.asList("rchar: 100", "read_bytes: 4096", "write_bytes: 8192");
+
+		final ProcessStat stat = ProcessStat.parse(4242, STAT, status, io);
+
+		assertEquals(4200, stat.getParentPid());
+		assertEquals((250 + 50 + 30 + 20) * 10, stat.getCpuTime());
+		assertEquals(2048 * 1024, stat.getRss());
+		assertEquals(1020, stat.getMinorFaults());
+		assertEquals(4, stat.getMajorFaults());
+		assertEquals(15, stat.getVoluntaryContextSwitches());
+		assertEquals(7, stat.getInvoluntaryContextSwitches());
+		assertEquals(4096, stat.getReadBytes());
+		assertEquals(8192, stat.getWriteBytes());
+	}
+
+	@Test
+	public void testFallsBackToStatWithoutStatusAndIo() {
+		final List<String> none = Collections.emptyList();
+		final ProcessStat stat = ProcessStat.parse(4242, STAT, none, none);
+
+		assertEquals(512 * ProcessStat.PAGE_SIZE, stat.getRss());
+		assertEquals(0, stat.getReadBytes());
+		assertEquals(0, stat.getVoluntaryContextSwitches());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsMalformedStat() {
+		ProcessStat.parse(1, "1 (init) S 0", Collections.<String> emptyList(), Collections.<String> emptyList());
+	}
+
+	@Test
+	public void testFindsProcessTree() {
+		final Map<Integer, Integer> parents = new HashMap<>();
+		parents.put(1, 0);
+		parents.put(10, 1);
+		parents.put(11, 10);
+		parents.put(12, 10);
+		parents.put(13, 12);
+		parents.put(20, 1);
+
+		assertEquals(Arrays.asList(10, 11, 12, 13), sorted(ProcFs.findTree(10, parents)));
+		assertEquals(Arrays.asList(20), ProcFs.findTree(20, parents));
+	}
+
+	private static List<Integer> sorted(List<Integer> list) {
+		Collections.sort(list);
+		return list;
+	}
+}
@@ -0,0 +1,229 @@
+package cz.cuni.mff.d3s.been.hostruntime.spool;
+
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.hazelcast.core.IQueue;
+
+import cz.cuni.mff.d3s.been.cluster.ServiceException;
+import cz.cuni.mff.d3s.been.cluster.context.Persistence;
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+
+/**
+ * Test for {@link PersistenceSpool}
+ */
+public class PersistenceSpoolTest extends Assert {
+
+	private static final EntityID RESULTS = new EntityID().withKind("result").withGroup("spooled");
+	private static final long FORWARD_TIMEOUT_MILLIS = 5000;
+	private static final long COMPACT_THRESHOLD = 1024 * 1024;
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private IQueue<EntityCarrier> queue;
+	private Persistence persistence;
+	private List<EntityCarrier> forwarded;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		queue = mock(IQueue.class);
+		persistence = mock(Persistence.class);
+		forwarded = new ArrayList<EntityCarrier>();
+		when(queue.addAll(anyCollectionOf(EntityCarrier.class))).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) {
+				synchronized (forwarded) {
+					forwarded.addAll((Collection<EntityCarrier>) invocation.getArguments()[0]);
+				}
+				return true;
+			}
+		});
+	}
+
+	@Test
+	public void testForwardsAppendedObjects() throws Exception {
+		final PersistenceSpool spool = startSpool();
+		spool.append(carrier("{\"n\":1}"));
+		spool.append(carrier("{\"n\":2}"));
+
+		awaitForwarded(2);
+		assertForwarded("{\"n\":1}", "{\"n\":2}");
+		awaitPendingBytes(spool, 0);
+		spool.stop();
+	}
+
+	@Test
+	public void testRecoversUnforwardedObjectsOnRestart() throws Exception {
+		doThrow(new IllegalStateException("cluster down")).when(queue).addAll(anyCollectionOf(EntityCarrier.class));
+		final PersistenceSpool offline = startSpool();
+		offline.append(carrier("{\"n\":1}"));
+		offline.append(carrier("{\"n\":2}"));
+		offline.stop();
+
+		setUp();
+		final PersistenceSpool online = startSpool();
+		awaitForwarded(2);
+		assertForwarded("{\"n\":1}", "{\"n\":2}");
+		online.stop();
+	}
+
+	@Test
+	public void testDiscardsTornRecord() throws Exception {
+		doThrow(new IllegalStateException("cluster down")).when(queue).addAll(anyCollectionOf(EntityCarrier.class));
+		final PersistenceSpool offline = startSpool();
+		offline.append(carrier("{\"n\":1}"));
+		offline.stop();
+
+		// simulate a crash in the middle of an append
+		final FileOutputStream out = new FileOutputStream(new File(tmp.getRoot(), "persistence.spool"), true);
+		try {
+			out.write(new byte[] { 0, 0, 0, 42, 1, 2 });
+		} finally {
+			out.close();
+		}
+
+		setUp();
+		final PersistenceSpool online = startSpool();
+		awaitForwarded(1);
+		online.append(carrier("{\"n\":2}"));
+		awaitForwarded(2);
+		assertForwarded("{\"n\":1}", "{\"n\":2}");
+		online.stop();
+	}
+
+	@Test
+	public void testSkipsCorruptRecord() throws Exception {
+		doThrow(new IllegalStateException("cluster down")).when(queue).addAll(anyCollectionOf(EntityCarrier.class));
+		final PersistenceSpool offline = startSpool();
+		offline.append(carrier("{\"n\":1}"));
+		offline.append(carrier("{\"n\":2}"));
+		offline.append(carrier("{\"n\":3}"));
+		offline.stop();
+
+		// damage the payload of the second record
+		final long second = PersistenceSpool.encode(carrier("{\"n\":1}")).remaining();
+		final RandomAccessFile file = new RandomAccessFile(new File(tmp.getRoot(), "persistence.spool"), "rw");
+		try {
+			file.seek(second + 10);
+			file.write(0xff);
+		} finally {
+			file.close();
+		}
+
+		setUp();
+		final PersistenceSpool online = startSpool();
+		awaitForwarded(2);
+		awaitPendingBytes(online, 0);
+		online.append(carrier("{\"n\":4}"));
+		awaitForwarded(3);
+		assertForwarded("{\"n\":1}", "{\"n\":3}", "{\"n\":4}");
+		online.stop();
+	}
+
+	@Test
+	public void testSpoolStaysBoundedWhileForwarding() throws Exception {
+		final int count = 5000;
+		final long threshold = 4096;
+		// forward slowly enough for the forwarder never to catch up
+		when(queue.addAll(anyCollectionOf(EntityCarrier.class))).thenAnswer(new Answer<Boolean>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Boolean answer(InvocationOnMock invocation) throws InterruptedException {
+				Thread.sleep(1);
+				synchronized (forwarded) {
+					forwarded.addAll((Collection<EntityCarrier>) invocation.getArguments()[0]);
+				}
+				return true;
+			}
+		});
+		final PersistenceSpool spool = startSpool(threshold);
+		final File file = new File(tmp.getRoot(), "persistence.spool");
+
+		long maxSize = 0;
+		final String[] jsons = new String[count];
+		for (int i = 0; i < count; ++i) {
+			jsons[i] = String.format("{\"n\":%d}", i);
+			spool.append(carrier(jsons[i]));
+			maxSize = Math.max(maxSize, file.length());
+			while (spool.getPendingBytes() > threshold / 2) {
+				Thread.sleep(1);
+			}
+		}
+
+		awaitForwarded(count);
+		assertForwarded(jsons);
+		assertTrue(String.format("Spool grew to %d bytes", maxSize), maxSize < 4 * threshold);
+		spool.stop();
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsAppendWhenStopped() throws Exception {
+		final PersistenceSpool spool = startSpool();
+		spool.stop();
+		spool.append(carrier("{}"));
+	}
+
+	private PersistenceSpool startSpool() throws ServiceException {
+		return startSpool(COMPACT_THRESHOLD);
+	}
+
+	private PersistenceSpool startSpool(long compactThreshold) throws ServiceException {
+		final PersistenceSpool spool = new PersistenceSpool(tmp.getRoot(), queue, persistence, 16, false, compactThreshold);
+		spool.start();
+		return spool;
+	}
+
+	private void awaitForwarded(int count) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + FORWARD_TIMEOUT_MILLIS;
+		while (System.currentTimeMillis() < deadline) {
+			synchronized (forwarded) {
+				if (forwarded.size() >= count) {
+					return;
+				}
+			}
+			Thread.sleep(10);
+		}
+		fail(String.format("Expected %d forwarded objects, got %d", count, forwarded.size()));
+	}
+
+	private void awaitPendingBytes(PersistenceSpool spool, long bytes) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + FORWARD_TIMEOUT_MILLIS;
+		while (spool.getPendingBytes() != bytes && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(bytes, spool.getPendingBytes());
+	}
+
+	private void assertForwarded(String... jsons) {
+		synchronized (forwarded) {
+			assertEquals(jsons.length, forwarded.size());
+			for (int i = 0; i < jsons.length; ++i) {
+				assertEquals(RESULTS, forwarded.get(i).getEntityId());
+				assertEquals(jsons[i], forwarded.get(i).getEntityJSON());
+			}
+		}
+	}
+
+	private static EntityCarrier carrier(String json) {
+		return new EntityCarrier().withId(RESULTS).withData(json);
+	}
+}
@@ -141,6 +141,27 @@ public class JVMCommandLineBuilderTest extends Assert {
 		assertEquals(0, cmdLine.getDebugPort());
 	}
 
+	@Test
+	public void testPooledLaunchRequiresOptIn() throws Exception {
+		TaskDescriptor td = new TaskDescriptor();
+		td.setJava(new Java());
+		td.getJava().setMainClass("mainClass");
+		assertFalse(new JVMCmdLineBuilder(taskDir, td, runtime).build().isPooledLaunchSupported());
+
+		td.getJava().setPooled(true);
+		assertTrue(new JVMCmdLineBuilder(taskDir, td, runtime).build().isPooledLaunchSupported());
+	}
+
+	@Test
+	public void testPooledLaunchUnsupportedWithJavaOpts() throws Exception {
+		TaskDescriptor td = new TaskDescriptor();
+		td.setJava(createJavaWithOpts("opt1", "opt2"));
+		td.getJava().setMainClass("mainClass");
+		td.getJava().setPooled(true);
+
+		assertFalse(new JVMCmdLineBuilder(taskDir, td, runtime).build().isPooledLaunchSupported());
+	}
+
 	private Debug createDebug(ModeEnum mode, String host, int port) {
 		Debug debug = new Debug();
 		debug.setHost(host);
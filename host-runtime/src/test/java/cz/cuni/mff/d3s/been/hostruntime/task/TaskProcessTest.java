@@ -161,6 +161,23 @@ public class TaskProcessTest extends Assert {
 		assertEquals("STD ERR WRITE EXAMPLE\n", new String(fakeStdErrOutputStream.toByteArray()));
 	}
 
+	@Test
+	public void testLaunchListenerIsNotifiedWithKnownPid() throws Exception {
+		setUpCmdLineBuilder(sourceDoingNothing);
+		Map<String, String> environment = new HashMap<>();
+		final TaskProcess process = new TaskProcess(cmdLineBuilder, wrkDirPath, environment, fakeStdOutOutputStream, fakeStdErrOutputStream, dependencyDownloader);
+		final Integer[] launchedPid = new Integer[1];
+		process.setLaunchListener(new Runnable() {
+			@Override
+			public void run() {
+				launchedPid[0] = process.getPid();
+			}
+		});
+
+		assertEquals(0, process.start());
+		assertNotNull(launchedPid[0]);
+	}
+
 	@Test(timeout = 15000)
 	public void testProcessIsCorrectlyKilled() throws Exception {
 		setUpCmdLineBuilderWithExecTime(sourceWithTimeoutAsFirstArg, 10000);
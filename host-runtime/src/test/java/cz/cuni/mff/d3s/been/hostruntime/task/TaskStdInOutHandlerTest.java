@@ -0,0 +1,92 @@
+package cz.cuni.mff.d3s.been.hostruntime.task;
+
+import static cz.cuni.mff.d3s.been.socketworks.NamedSockets.TASK_LOG_0MQ;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cz.cuni.mff.d3s.been.core.TaskMessageType;
+import cz.cuni.mff.d3s.been.logging.TaskLogMessage;
+import cz.cuni.mff.d3s.been.mq.IMessageReceiver;
+import cz.cuni.mff.d3s.been.mq.MessageQueues;
+import cz.cuni.mff.d3s.been.util.JSONUtils;
+
+/**
+ * Test for {@link TaskStdInOutHandler}
+ */
+public class TaskStdInOutHandlerTest extends Assert {
+
+	private static final String PREFIX = TaskMessageType.LOG_MESSAGE.toString() + "#";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private IMessageReceiver<String> receiver;
+
+	private TaskOutputFlusher flusher;
+
+	@Before
+	public void setUp() throws Exception {
+		MessageQueues.getInstance().createInprocQueue(TASK_LOG_0MQ.getName());
+		receiver = MessageQueues.getInstance().getReceiver(TASK_LOG_0MQ.getName());
+		// never fires during the test
+		flusher = new TaskOutputFlusher(3600000);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		MessageQueues.getInstance().terminate(TASK_LOG_0MQ.getName());
+	}
+
+	@Test(timeout = 10000)
+	public void testBatchesLinesAndSummarizesOverLimit() throws Exception {
+		final File file = tmp.newFile("stdout.log");
+		final String output = "first\r\nsecond\nthird\nunfinished";
+
+		final TaskStdInOutHandler handler = new TaskStdInOutHandler(
+				"task",
+				"context",
+				"benchmark",
+				"stdout",
+				file,
+				new TaskOutputLimits(2, 0),
+				flusher);
+		handler.write(output.getBytes(Charset.defaultCharset()));
+		handler.close();
+
+		assertEquals(output, new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset()));
+
+		final String[] batch = receiver.receive().split("\n");
+		assertEquals(2, batch.length);
+
+		final TaskLogMessage lines = parse(batch[0]);
+		assertEquals("task", lines.getTaskId());
+		assertEquals("stdout", lines.getMessage().getName());
+		assertEquals("first\nsecond", lines.getMessage().getMessage());
+
+		final String summary = parse(batch[1]).getMessage().getMessage();
+		assertTrue(summary, summary.startsWith("[2 lines (15 bytes) of stdout over the output rate limit"));
+	}
+
+	@Test
+	public void testQuotaRefusesLinesOverIt() {
+		final TaskOutputLimits limits = new TaskOutputLimits(0, 10);
+		assertTrue(limits.tryAcquire(6));
+		assertFalse(limits.tryAcquire(6));
+		assertTrue(limits.tryAcquire(4));
+		assertTrue(limits.isQuotaExceeded());
+	}
+
+	private static TaskLogMessage parse(String message) throws Exception {
+		assertTrue(message.startsWith(PREFIX));
+		return JSONUtils.newInstance().deserialize(message.substring(PREFIX.length()), TaskLogMessage.class);
+	}
+}
@@ -0,0 +1,96 @@
+package cz.cuni.mff.d3s.been.hostruntime.tasklogs;
+
+import static cz.cuni.mff.d3s.been.cluster.Names.*;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hazelcast.core.IMap;
+
+import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+
+/**
+ * Test for {@link LiveLogPublisher}
+ */
+public class LiveLogPublisherTest extends Assert {
+
+	private IMap<String, String> taskLogs;
+	private IMap<String, String> contextLogs;
+	private IMap<String, Long> subscribers;
+
+	private LiveLogPublisher publisher;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		taskLogs = mock(IMap.class);
+		contextLogs = mock(IMap.class);
+		subscribers = mock(IMap.class);
+
+		final ClusterContext ctx = mock(ClusterContext.class);
+		when(ctx.<String, String> getMap(LOGS_TASK_MAP_NAME)).thenReturn(taskLogs);
+		when(ctx.<String, String> getMap(LOGS_CONTEXT_MAP_NAME)).thenReturn(contextLogs);
+		when(ctx.<String, Long> getMap(LOGS_SUBSCRIBERS_MAP_NAME)).thenReturn(subscribers);
+
+		publisher = new LiveLogPublisher(ctx, 1000);
+	}
+
+	@Test
+	public void testNoWritesWhileUnsubscribed() {
+		when(subscribers.isEmpty()).thenReturn(true);
+		publisher.publish();
+
+		publisher.offer(message("t1", "c1", "first"));
+		publisher.publish();
+
+		verifyNoWrites();
+	}
+
+	@Test
+	public void testLatestMessagesAreCoalesced() {
+		when(subscribers.isEmpty()).thenReturn(false);
+		publisher.publish();
+
+		publisher.offer(message("t1", "c1", "first"));
+		publisher.offer(message("t1", "c1", "second"));
+		publisher.offer(message("t2", "c1", "third"));
+		publisher.publish();
+
+		verify(taskLogs).put(eq("t1"), eq(message("t1", "c1", "second")), anyLong(), eq(TimeUnit.SECONDS));
+		verify(taskLogs).put(eq("t2"), eq(message("t2", "c1", "third")), anyLong(), eq(TimeUnit.SECONDS));
+		verify(contextLogs).put(eq("c1"), eq(message("t2", "c1", "third")), anyLong(), eq(TimeUnit.SECONDS));
+		verifyNoMoreInteractions(taskLogs, contextLogs);
+
+		// published messages are not written again
+		publisher.publish();
+		verifyNoMoreInteractions(taskLogs, contextLogs);
+	}
+
+	@Test
+	public void testNoWritesAfterLastListenerLeaves() {
+		when(subscribers.isEmpty()).thenReturn(false);
+		publisher.publish();
+		when(subscribers.isEmpty()).thenReturn(true);
+		publisher.publish();
+
+		publisher.offer(message("t1", "c1", "first"));
+		publisher.publish();
+
+		verifyNoWrites();
+	}
+
+	private void verifyNoWrites() {
+		verify(taskLogs, never()).put(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+		verify(contextLogs, never()).put(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+	}
+
+	private static String message(String taskId, String contextId, String message) {
+		return String.format("{\"taskId\":\"%s\",\"contextId\":\"%s\",\"message\":\"%s\"}", taskId, contextId, message);
+	}
+}
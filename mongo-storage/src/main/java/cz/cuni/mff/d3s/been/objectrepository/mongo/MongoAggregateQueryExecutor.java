@@ -0,0 +1,209 @@
+package cz.cuni.mff.d3s.been.objectrepository.mongo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.mongodb.AggregationOutput;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+import cz.cuni.mff.d3s.been.persistence.AggregateFunction;
+import cz.cuni.mff.d3s.been.persistence.Aggregation;
+import cz.cuni.mff.d3s.been.persistence.QueryAnswer;
+import cz.cuni.mff.d3s.been.persistence.QueryAnswerFactory;
+import cz.cuni.mff.d3s.been.persistence.QueryExecutionException;
+import cz.cuni.mff.d3s.been.storage.QueryExecutor;
+
+/**
+ * An aggregate query executor for MongoDB. Runs an aggregation pipeline and
+ * answers with one JSON row per group.
+ *
+ * Percentiles have no accumulator in MongoDB. They are computed after the
+ * pipeline ran, by counting the numeric values of each group and reading the
+ * values at the percentile's rank from a cursor sorted by the attribute. The
+ * group's values are never held in memory, but the server has to sort them, so
+ * attributes used in percentiles of large groups should be indexed.
+ */
+class MongoAggregateQueryExecutor implements QueryExecutor {
+
+	private static final String GROUP_KEY_PREFIX = "g";
+	private static final String VALUE_KEY_PREFIX = "v";
+
+	private static final String AND_OPERATOR = "$and";
+	private static final String GTE_OPERATOR = "$gte";
+
+	private final DBCollection target;
+	private final DBObject filter;
+	private final DBObject firstOperation;
+	private final DBObject[] additionalOperations;
+	private final List<String> groupBy;
+	private final Map<String, Aggregation> aggregations;
+
+	/**
+	 * Creates new MongoAggregateQueryExecutor
+	 * 
+	 * @param target
+	 *          target DB collection
+	 * @param filter
+	 *          filter of the aggregated objects
+	 * @param match
+	 *          <code>$match</code> stage of the pipeline
+	 * @param group
+	 *          <code>$group</code> stage of the pipeline
+	 * @param sort
+	 *          <code>$sort</code> stage of the pipeline
+	 * @param groupBy
+	 *          grouping attributes, in order of their generated keys
+	 * @param aggregations
+	 *          aggregations, in order of their generated keys
+	 */
+	MongoAggregateQueryExecutor(DBCollection target, DBObject filter, DBObject match, DBObject group, DBObject sort, List<String> groupBy, Map<String, Aggregation> aggregations) {
+		this.target = target;
+		this.filter = filter;
+		this.firstOperation = match;
+		this.additionalOperations = new DBObject[] { group, sort };
+		this.groupBy = groupBy;
+		this.aggregations = aggregations;
+	}
+
+	/**
+	 * Get the generated pipeline field name of a grouping attribute
+	 * 
+	 * @param index
+	 *          Index of the grouping attribute
+	 * 
+	 * @return The field name
+	 */
+	static String groupKey(int index) {
+		return GROUP_KEY_PREFIX + index;
+	}
+
+	/**
+	 * Get the generated pipeline field name of an aggregated value
+	 * 
+	 * @param index
+	 *          Index of the aggregation
+	 * 
+	 * @return The field name
+	 */
+	static String valueKey(int index) {
+		return VALUE_KEY_PREFIX + index;
+	}
+
+	@Override
+	public QueryAnswer execute() throws QueryExecutionException {
+		final AggregationOutput output = target.aggregate(firstOperation, additionalOperations);
+		final Collection<String> rows = new ArrayList<String>();
+		for (DBObject result : output.results()) {
+			rows.add(toRow(result).toString());
+		}
+		return QueryAnswerFactory.fetched(rows);
+	}
+
+	private DBObject toRow(DBObject result) {
+		final DBObject row = new BasicDBObject();
+		final DBObject groupFilter = new BasicDBObject();
+		final Object id = result.get(MongoQueryRedactor.DBID);
+		for (int i = 0; i < groupBy.size(); ++i) {
+			final Object value = (id instanceof DBObject) ? ((DBObject) id).get(groupKey(i)) : null;
+			row.put(groupBy.get(i), value);
+			groupFilter.put(groupBy.get(i), value);
+		}
+		int i = 0;
+		for (Map.Entry<String, Aggregation> aggregation : aggregations.entrySet()) {
+			final Object value = result.get(valueKey(i++));
+			if (aggregation.getValue().getFunction() == AggregateFunction.PERCENTILE) {
+				row.put(aggregation.getKey(), percentile(groupFilter, aggregation.getValue()));
+			} else {
+				row.put(aggregation.getKey(), value);
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Compute a percentile of the numeric values of an attribute in a group
+	 *
+	 * @param groupFilter
+	 *          values of the grouping attributes of the group
+	 * @param aggregation
+	 *          the percentile aggregation
+	 *
+	 * @return The percentile, <code>null</code> if the group has no numeric
+	 *         values of the attribute
+	 */
+	private Double percentile(DBObject groupFilter, Aggregation aggregation) {
+		final String attribute = aggregation.getAttribute();
+
+		// comparisons with a number only match numbers
+		final BasicDBList conditions = new BasicDBList();
+		conditions.add(filter);
+		conditions.add(groupFilter);
+		conditions.add(new BasicDBObject(attribute, new BasicDBObject(GTE_OPERATOR, Double.NEGATIVE_INFINITY)));
+		final DBObject query = new BasicDBObject(AND_OPERATOR, conditions);
+
+		final long count = target.count(query);
+		if (count == 0) {
+			return null;
+		}
+		final double rank = rank(count, aggregation.getPercentile());
+		final int low = (int) Math.floor(rank);
+		final int high = (int) Math.ceil(rank);
+
+		final List<Number> values = new ArrayList<Number>(2);
+		final DBObject sort = new BasicDBObject(attribute, 1);
+		final DBCursor cursor = target.find(query, new BasicDBObject(attribute, 1)).sort(sort).skip(low).limit(high - low + 1);
+		try {
+			while (cursor.hasNext()) {
+				final Object value = MongoContinuation.keysOf(cursor.next(), sort).get(0);
+				if (value instanceof Number) {
+					values.add((Number) value);
+				}
+			}
+		} finally {
+			cursor.close();
+		}
+		if (values.isEmpty()) {
+			// the group changed between the count and the read
+			return null;
+		}
+		return interpolate(rank, values.get(0), values.get(values.size() - 1));
+	}
+
+	/**
+	 * Compute the (zero based, fractional) rank of a percentile among sorted
+	 * values
+	 *
+	 * @param count
+	 *          Number of values
+	 * @param percentile
+	 *          Requested percentile (between 0 and 100)
+	 *
+	 * @return The rank
+	 */
+	static double rank(long count, double percentile) {
+		return percentile / 100 * (count - 1);
+	}
+
+	/**
+	 * Interpolate linearly between the values at the closest ranks
+	 *
+	 * @param rank
+	 *          The fractional rank
+	 * @param low
+	 *          Value at the rank rounded down
+	 * @param high
+	 *          Value at the rank rounded up
+	 *
+	 * @return The interpolated value
+	 */
+	static double interpolate(double rank, Number low, Number high) {
+		final double fraction = rank - Math.floor(rank);
+		return low.doubleValue() + fraction * (high.doubleValue() - low.doubleValue());
+	}
+}
@@ -0,0 +1,109 @@
+package cz.cuni.mff.d3s.been.objectrepository.mongo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import cz.cuni.mff.d3s.been.persistence.Aggregation;
+import cz.cuni.mff.d3s.been.persistence.DAOException;
+
+/**
+ * Redactor for aggregate queries for MongoDB. Translates the query into an
+ * aggregation framework pipeline (<code>$match</code>, <code>$group</code>,
+ * <code>$sort</code>).
+ * 
+ * Grouping attributes and aggregated values are given generated field names
+ * in the pipeline, as MongoDB doesn't permit dots in <code>$group</code>
+ * field names. The executor maps them back to the requested names.
+ */
+class MongoAggregateQueryRedactor extends MongoQueryRedactor {
+
+	private static final String MATCH_OPERATOR = "$match";
+	private static final String GROUP_OPERATOR = "$group";
+	private static final String SORT_OPERATOR = "$sort";
+
+	/**
+	 * Creates new MongoAggregateQueryRedactor.
+	 * 
+	 * @param entityID
+	 *          target's EntityID
+	 */
+	MongoAggregateQueryRedactor(EntityID entityID) {
+		super(entityID);
+	}
+
+	@Override
+	public MongoAggregateQueryExecutor createExecutor(DB db) throws DAOException {
+		if (getPath() == null || getPath().getKind() == null || getPath().getGroup() == null) {
+			throw new DAOException("Path to collection (Entity ID) must be fully specified for aggregate queries");
+		}
+		if (getAggregations().isEmpty()) {
+			throw new DAOException("Aggregate queries must compute at least one aggregation");
+		}
+
+		final List<String> groupKeys = new ArrayList<String>(getGroupBy().size());
+		final DBObject groupId = new BasicDBObject();
+		for (String attribute : getGroupBy()) {
+			final String key = MongoAggregateQueryExecutor.groupKey(groupKeys.size());
+			groupId.put(key, "$" + attribute);
+			groupKeys.add(attribute);
+		}
+
+		final DBObject group = new BasicDBObject(DBID, groupKeys.isEmpty() ? null : groupId);
+		int i = 0;
+		for (Map.Entry<String, Aggregation> aggregation : getAggregations().entrySet()) {
+			final DBObject accumulator = accumulator(aggregation.getValue());
+			final String key = MongoAggregateQueryExecutor.valueKey(i++);
+			if (accumulator != null) {
+				group.put(key, accumulator);
+			}
+		}
+
+		final DBObject match = new BasicDBObject(MATCH_OPERATOR, getFilter());
+		final DBObject sort = new BasicDBObject(SORT_OPERATOR, new BasicDBObject(DBID, 1));
+		return new MongoAggregateQueryExecutor(
+				db.getCollection(getPath().getKind()).getCollection(getPath().getGroup()),
+				getFilter(),
+				match,
+				new BasicDBObject(GROUP_OPERATOR, group),
+				sort,
+				groupKeys,
+				getAggregations());
+	}
+
+	/**
+	 * Create the <code>$group</code> accumulator computing an aggregation.
+	 * Percentiles have no accumulator in MongoDB, they are computed by the
+	 * executor from a sorted cursor over each group.
+	 * 
+	 * @param aggregation
+	 *          Aggregation to compute
+	 * 
+	 * @return The accumulator expression, <code>null</code> for percentiles
+	 * 
+	 * @throws DAOException
+	 *           When the aggregate function is not supported
+	 */
+	private DBObject accumulator(Aggregation aggregation) throws DAOException {
+		final String field = "$" + aggregation.getAttribute();
+		switch (aggregation.getFunction()) {
+			case COUNT:
+				return new BasicDBObject("$sum", 1);
+			case MIN:
+				return new BasicDBObject("$min", field);
+			case MAX:
+				return new BasicDBObject("$max", field);
+			case MEAN:
+				return new BasicDBObject("$avg", field);
+			case PERCENTILE:
+				return null;
+			default:
+				throw new DAOException(String.format("Unsupported aggregate function %s", aggregation.getFunction()));
+		}
+	}
+}
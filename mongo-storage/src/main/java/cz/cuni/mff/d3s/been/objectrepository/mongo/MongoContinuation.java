@@ -0,0 +1,201 @@
+package cz.cuni.mff.d3s.been.objectrepository.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import com.mongodb.util.JSONParseException;
+
+import cz.cuni.mff.d3s.been.persistence.DAOException;
+
+/**
+ * Continuation token of a paged window of ordered objects.
+ *
+ * The token holds the number of objects returned so far and the sort key
+ * (values of the ordering attributes and the <code>_id</code>) of the last
+ * returned object. The next page is selected by the sort key (keyset paging),
+ * so fetching it doesn't walk the objects of previous pages. Pages ending with
+ * an object which lacks an ordering attribute fall back to skipping the
+ * returned objects.
+ */
+final class MongoContinuation {
+
+	private static final String OFFSET = "n";
+	private static final String KEYS = "k";
+
+	/** Continuation of the first page */
+	static final MongoContinuation FIRST = new MongoContinuation(0, null);
+
+	private final int offset;
+	private final List<Object> keys;
+
+	/**
+	 * @param offset
+	 *          Number of objects returned by previous pages
+	 * @param keys
+	 *          Values of the sort attributes of the last returned object,
+	 *          <code>null</code> to continue by offset
+	 */
+	MongoContinuation(int offset, List<Object> keys) {
+		this.offset = offset;
+		this.keys = (keys == null || keys.contains(null)) ? null : keys;
+	}
+
+	/**
+	 * Parse a continuation token
+	 *
+	 * @param token
+	 *          The token, <code>null</code> for the first page
+	 *
+	 * @return The continuation
+	 *
+	 * @throws DAOException
+	 *           When the token is malformed
+	 */
+	static MongoContinuation parse(String token) throws DAOException {
+		if (token == null) {
+			return FIRST;
+		}
+		final Object parsed;
+		try {
+			parsed = JSON.parse(token);
+		} catch (JSONParseException e) {
+			throw new DAOException(String.format("Malformed continuation token '%s'", token), e);
+		}
+		if (parsed instanceof Number) {
+			// plain offset
+			return new MongoContinuation(checkOffset(token, ((Number) parsed).intValue()), null);
+		}
+		if (!(parsed instanceof DBObject) || !(((DBObject) parsed).get(OFFSET) instanceof Number)) {
+			throw new DAOException(String.format("Malformed continuation token '%s'", token));
+		}
+		final DBObject object = (DBObject) parsed;
+		final int offset = checkOffset(token, ((Number) object.get(OFFSET)).intValue());
+		final Object keys = object.get(KEYS);
+		if (keys == null) {
+			return new MongoContinuation(offset, null);
+		}
+		if (!(keys instanceof List)) {
+			throw new DAOException(String.format("Malformed continuation token '%s'", token));
+		}
+		return new MongoContinuation(offset, new ArrayList<Object>((List<?>) keys));
+	}
+
+	private static int checkOffset(String token, int offset) throws DAOException {
+		if (offset < 0) {
+			throw new DAOException(String.format("Malformed continuation token '%s'", token));
+		}
+		return offset;
+	}
+
+	/**
+	 * @return Number of objects returned by previous pages
+	 */
+	int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return Whether the next page is selected by the sort key of the last
+	 *         returned object rather than by offset
+	 */
+	boolean hasKeys() {
+		return keys != null;
+	}
+
+	/**
+	 * Create a filter selecting objects that follow the last returned object in
+	 * the sort order
+	 *
+	 * @param sort
+	 *          Sort specification the keys were taken by (ending with
+	 *          <code>_id</code>)
+	 *
+	 * @return The filter
+	 */
+	DBObject createFilter(DBObject sort) {
+		final List<String> attributes = new ArrayList<String>(sort.keySet());
+		if (attributes.size() != keys.size()) {
+			throw new IllegalArgumentException("Continuation does not match the ordering of the query");
+		}
+
+		// (k1 > v1) or (k1 = v1 and k2 > v2) or ...
+		final BasicDBList alternatives = new BasicDBList();
+		for (int i = 0; i < attributes.size(); ++i) {
+			final String attribute = attributes.get(i);
+			final boolean descending = ((Number) sort.get(attribute)).intValue() < 0;
+			alternatives.add(createAlternative(attributes, i, new BasicDBObject(descending ? "$lt" : "$gt", keys.get(i))));
+			if (descending) {
+				// objects lacking the attribute (or with null) sort last, but no comparison matches them
+				alternatives.add(createAlternative(attributes, i, null));
+			}
+		}
+		return new BasicDBObject("$or", alternatives);
+	}
+
+	/**
+	 * Create a filter matching the keys of the attributes preceding the
+	 * attribute at an index, and a condition on that attribute
+	 */
+	private DBObject createAlternative(List<String> attributes, int index, Object condition) {
+		final DBObject alternative = new BasicDBObject();
+		for (int j = 0; j < index; ++j) {
+			alternative.put(attributes.get(j), keys.get(j));
+		}
+		alternative.put(attributes.get(index), condition);
+		return alternative;
+	}
+
+	/**
+	 * Serialize the continuation into a token
+	 *
+	 * @return The token
+	 */
+	String toToken() {
+		final DBObject object = new BasicDBObject(OFFSET, offset);
+		if (keys != null) {
+			final BasicDBList list = new BasicDBList();
+			list.addAll(keys);
+			object.put(KEYS, list);
+		}
+		return JSON.serialize(object);
+	}
+
+	/**
+	 * Extract the values of the sort attributes of an object
+	 *
+	 * @param object
+	 *          The object
+	 * @param sort
+	 *          The sort specification
+	 *
+	 * @return The values, <code>null</code> for attributes the object lacks
+	 */
+	static List<Object> keysOf(DBObject object, DBObject sort) {
+		final List<Object> keys = new ArrayList<Object>(sort.keySet().size());
+		for (String attribute : sort.keySet()) {
+			keys.add(valueOf(object, attribute));
+		}
+		return Collections.unmodifiableList(keys);
+	}
+
+	private static Object valueOf(DBObject object, String path) {
+		Object value = object;
+		for (String name : path.split("\\.")) {
+			if (value instanceof DBObject) {
+				value = ((DBObject) value).get(name);
+			} else if (value instanceof Map) {
+				value = ((Map<?, ?>) value).get(name);
+			} else {
+				return null;
+			}
+		}
+		// embedded documents and arrays are compared by MongoDB in ways the filter can't express
+		return (value instanceof DBObject || value instanceof Map) ? null : value;
+	}
+}
@@ -3,7 +3,10 @@ package cz.cuni.mff.d3s.been.objectrepository.mongo;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
@@ -19,9 +22,16 @@ import cz.cuni.mff.d3s.been.storage.QueryExecutor;
  * @author darklight
  */
 class MongoFetchQueryExecutor implements QueryExecutor {
+	private static final DBObject ORDER_BY_DBID = new BasicDBObject(MongoQueryRedactor.DBID, 1);
+
 	private final DBCollection target;
 	private final DBObject filter;
 	private final DBObject mapping;
+	private final DBObject ordering;
+	private final Integer skip;
+	private final Integer limit;
+	private final Integer pageSize;
+	private final MongoContinuation continuation;
 
 	/**
 	 * Creates new MongoFetchQueryExecutor
@@ -34,19 +44,197 @@ class MongoFetchQueryExecutor implements QueryExecutor {
 	 *          mappings for the query
 	 */
 	MongoFetchQueryExecutor(DBCollection target, DBObject filter, DBObject mapping) {
+		this(target, filter, mapping, new BasicDBObject(), null, null);
+	}
+
+	/**
+	 * Creates new MongoFetchQueryExecutor that answers with a window of the
+	 * matching objects
+	 * 
+	 * @param target
+	 *          target DB collection
+	 * @param filter
+	 *          filter of the query
+	 * @param mapping
+	 *          mappings for the query
+	 * @param ordering
+	 *          sort specification (empty for natural order)
+	 * @param skip
+	 *          number of objects to skip (<code>null</code> for none)
+	 * @param limit
+	 *          maximum number of objects to return (<code>null</code> for all)
+	 */
+	MongoFetchQueryExecutor(DBCollection target, DBObject filter, DBObject mapping, DBObject ordering, Integer skip, Integer limit) {
+		this(target, filter, mapping, ordering, skip, limit, null, null);
+	}
+
+	/**
+	 * Creates new MongoFetchQueryExecutor that answers with a single page of
+	 * results. Objects are walked in <code>_id</code> order, so that the
+	 * <code>_id</code> of the last object in the page can serve as a stateless
+	 * continuation token.
+	 * 
+	 * @param target
+	 *          target DB collection
+	 * @param filter
+	 *          filter of the query (including the continuation restriction)
+	 * @param mapping
+	 *          mappings for the query (must not exclude <code>_id</code>)
+	 * @param pageSize
+	 *          maximum number of objects in the answer
+	 */
+	MongoFetchQueryExecutor(DBCollection target, DBObject filter, DBObject mapping, Integer pageSize) {
+		this(target, filter, mapping, new BasicDBObject(), null, null, pageSize, null);
+	}
+
+	/**
+	 * Creates new MongoFetchQueryExecutor that answers with a single page of a
+	 * window of the matching objects. Pages are walked by the sort key of the
+	 * last returned object (see {@link MongoContinuation}), so that a page is
+	 * found by the index of the ordering rather than by skipping all objects of
+	 * the previous pages.
+	 * 
+	 * @param target
+	 *          target DB collection
+	 * @param filter
+	 *          filter of the query
+	 * @param mapping
+	 *          mappings for the query (must not exclude <code>_id</code>)
+	 * @param ordering
+	 *          sort specification (empty for natural order)
+	 * @param skip
+	 *          number of objects to skip (<code>null</code> for none)
+	 * @param limit
+	 *          maximum number of objects to return over all pages
+	 *          (<code>null</code> for all)
+	 * @param pageSize
+	 *          maximum number of objects in the answer
+	 * @param continuation
+	 *          where the previous page ended (<code>null</code> to walk pages in
+	 *          <code>_id</code> order instead)
+	 */
+	MongoFetchQueryExecutor(DBCollection target, DBObject filter, DBObject mapping, DBObject ordering, Integer skip, Integer limit, Integer pageSize, MongoContinuation continuation) {
 		this.target = target;
 		this.filter = filter;
 		this.mapping = mapping;
+		this.ordering = ordering;
+		this.skip = skip;
+		this.limit = limit;
+		this.pageSize = pageSize;
+		this.continuation = continuation;
 	}
 
 	@Override
 	public QueryAnswer execute() throws QueryExecutionException {
+		if (pageSize != null) {
+			return (continuation == null) ? executePaged() : executeWindowPaged();
+		}
 		final DBCursor cursor = target.find(filter, mapping);
-		final Collection<String> results = new ArrayList<String>(cursor.size());
-		final Iterator<DBObject> cursorIt = cursor.iterator();
-		while (cursorIt.hasNext()) {
-			results.add(cursorIt.next().toString());
+		if (!ordering.keySet().isEmpty()) {
+			cursor.sort(ordering);
+		}
+		if (skip != null) {
+			cursor.skip(skip);
+		}
+		if (limit != null) {
+			cursor.limit(limit);
+		}
+		final Collection<String> results = new ArrayList<String>();
+		try {
+			final Iterator<DBObject> cursorIt = cursor.iterator();
+			while (cursorIt.hasNext()) {
+				results.add(cursorIt.next().toString());
+			}
+		} finally {
+			cursor.close();
 		}
 		return QueryAnswerFactory.fetched(results);
 	}
+
+	private QueryAnswer executePaged() {
+		// fetch one extra object to find out whether another page follows
+		final DBCursor cursor = target.find(filter, mapping).sort(ORDER_BY_DBID).limit(pageSize + 1);
+		final Collection<String> results = new ArrayList<String>(pageSize);
+		Object lastId = null;
+		boolean hasMore = false;
+		try {
+			while (cursor.hasNext()) {
+				final DBObject object = cursor.next();
+				if (results.size() == pageSize) {
+					hasMore = true;
+					break;
+				}
+				lastId = object.removeField(MongoQueryRedactor.DBID);
+				results.add(object.toString());
+			}
+		} finally {
+			cursor.close();
+		}
+		return QueryAnswerFactory.fetchedPage(results, (hasMore && lastId != null) ? lastId.toString() : null);
+	}
+
+	private QueryAnswer executeWindowPaged() {
+		final int offset = continuation.getOffset();
+		final int remaining = (limit == null) ? Integer.MAX_VALUE : limit - offset;
+		if (remaining <= 0) {
+			return QueryAnswerFactory.fetchedPage(new ArrayList<String>(), null);
+		}
+
+		// break ties by _id, so that pages of equally ordered objects don't overlap
+		final DBObject sort = new BasicDBObject(ordering.toMap());
+		if (!sort.containsField(MongoQueryRedactor.DBID)) {
+			sort.put(MongoQueryRedactor.DBID, 1);
+		}
+
+		// the sort key of the last object is needed for the continuation
+		final DBObject pageMapping = new BasicDBObject(mapping.toMap());
+		final List<String> addedAttributes = new ArrayList<String>();
+		if (!pageMapping.keySet().isEmpty()) {
+			for (String attribute : sort.keySet()) {
+				if (!pageMapping.containsField(attribute)) {
+					pageMapping.put(attribute, 1);
+					addedAttributes.add(attribute);
+				}
+			}
+		}
+
+		final DBObject pageFilter;
+		final int pageSkip;
+		if (continuation.hasKeys()) {
+			final BasicDBList conjunction = new BasicDBList();
+			conjunction.add(filter);
+			conjunction.add(continuation.createFilter(sort));
+			pageFilter = new BasicDBObject("$and", conjunction);
+			pageSkip = 0;
+		} else {
+			pageFilter = filter;
+			pageSkip = ((skip == null) ? 0 : skip) + offset;
+		}
+
+		// fetch one extra object to find out whether another page follows
+		final int fetchCount = (remaining > pageSize) ? pageSize + 1 : remaining;
+		final DBCursor cursor = target.find(pageFilter, pageMapping).sort(sort).skip(pageSkip).limit(fetchCount);
+		final Collection<String> results = new ArrayList<String>(pageSize);
+		List<Object> lastKeys = null;
+		boolean hasMore = false;
+		try {
+			while (cursor.hasNext()) {
+				final DBObject object = cursor.next();
+				if (results.size() == pageSize) {
+					hasMore = true;
+					break;
+				}
+				lastKeys = MongoContinuation.keysOf(object, sort);
+				object.removeField(MongoQueryRedactor.DBID);
+				for (String attribute : addedAttributes) {
+					object.removeField(attribute);
+				}
+				results.add(object.toString());
+			}
+		} finally {
+			cursor.close();
+		}
+		final String token = hasMore ? new MongoContinuation(offset + results.size(), lastKeys).toToken() : null;
+		return QueryAnswerFactory.fetchedPage(results, token);
+	}
 }
@@ -1,6 +1,7 @@
 package cz.cuni.mff.d3s.been.objectrepository.mongo;
 
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
 
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
 import cz.cuni.mff.d3s.been.persistence.DAOException;
@@ -27,6 +28,14 @@ class MongoFetchQueryRedactor extends MongoQueryRedactor {
 		if (getPath() == null || getPath().getKind() == null || getPath().getGroup() == null) {
 			throw new DAOException("Path to collection (Entity ID) must be fully specified for fetch queries");
 		}
-		return new MongoFetchQueryExecutor(db.getCollection(getPath().getKind()).getCollection(getPath().getGroup()), getFilter(), getMapping());
+		final DBCollection collection = db.getCollection(getPath().getKind()).getCollection(getPath().getGroup());
+		if (getPageSize() == null) {
+			return new MongoFetchQueryExecutor(collection, getFilter(), getMapping(), getOrdering(), getSkip(), getLimit());
+		}
+		if (isWindowed()) {
+			return new MongoFetchQueryExecutor(collection, getFilter(), getMapping(), getOrdering(), getSkip(), getLimit(), getPageSize(), getWindowContinuation());
+		}
+		applyContinuation();
+		return new MongoFetchQueryExecutor(collection, getFilter(), getMapping(), getPageSize());
 	}
 }
@@ -0,0 +1,297 @@
+package cz.cuni.mff.d3s.been.objectrepository.mongo;
+
+import static cz.cuni.mff.d3s.been.objectrepository.mongo.MongoStorageServiceInfoConstants.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import cz.cuni.mff.d3s.been.persistence.Query;
+
+/**
+ * Keeps MongoDB collections indexed for the queries BEEN performs.
+ * 
+ * Standard indexes (on the attributes BEEN components select entities by) are
+ * ensured for every collection, either at startup or when the collection is
+ * first written to. Further indexes are learned at runtime: once an attribute
+ * without an index is selected or sorted by often enough, it gets indexed.
+ * 
+ * The manager also counts queries that could (and could not) use an index and
+ * keeps track of slow queries, so that both can be published in service info.
+ * Index use is judged by the leading attributes of known indexes, which is an
+ * approximation of what the MongoDB query planner does.
+ */
+final class MongoIndexManager {
+
+	private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+	private static final String MONGO_SYSTEM_PREFIX = "system.";
+	private static final DBObject BACKGROUND = new BasicDBObject("background", true);
+
+	/** Standard indexes, by collection kind (<code>kind</code>) or full collection name (<code>kind.group</code>) */
+	private static final Map<String, List<String[]>> STANDARD_INDEXES = new HashMap<String, List<String[]>>();
+
+	static {
+		final String[] taskId = { "taskId" };
+		final String[] contextId = { "contextId" };
+		final String[] benchmarkId = { "benchmarkId" };
+		final String[] created = { "created" };
+
+		STANDARD_INDEXES.put("result", Arrays.asList(taskId, contextId, benchmarkId, created));
+		STANDARD_INDEXES.put("configuration", Arrays.asList(taskId, contextId, benchmarkId));
+		STANDARD_INDEXES.put("outcome", Arrays.asList(taskId, contextId, benchmarkId, created));
+
+		// logs are the most written collections, so they only get the indexes their queries need
+		STANDARD_INDEXES.put("log.task", Arrays.asList(new String[] { "taskId", "created" }, contextId));
+		STANDARD_INDEXES.put("log.service", Arrays.asList(
+				new String[] { "beenId", "created" },
+				new String[] { "hostRuntimeId", "created" },
+				new String[] { "serviceName", "created" },
+				created));
+		STANDARD_INDEXES.put("log.monitoring", Arrays.<String[]> asList(created));
+		STANDARD_INDEXES.put("result.evaluation", Arrays.<String[]> asList(new String[] { "id" }));
+		STANDARD_INDEXES.put("outcome.task", Arrays.asList(
+				new String[] { "taskState", "created" },
+				new String[] { "runtimeId", "created" },
+				new String[] { "bpk", "created" }));
+		STANDARD_INDEXES.put("outcome.context", Arrays.<String[]> asList(new String[] { "contextState", "created" }));
+	}
+
+	private final int learnThreshold;
+	private final int maxLearnedIndexes;
+	private final long slowQueryThreshold;
+
+	/** Leading attributes of known indexes, by collection name; present once standard indexes are ensured */
+	private final ConcurrentMap<String, Set<String>> indexedAttributes = new ConcurrentHashMap<String, Set<String>>();
+	/** Number of queries selecting or sorting by an unindexed attribute, by collection and attribute */
+	private final ConcurrentMap<String, AtomicInteger> attributeUses = new ConcurrentHashMap<String, AtomicInteger>();
+	/** Number of learned indexes, by collection name */
+	private final ConcurrentMap<String, AtomicInteger> learnedIndexes = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private final AtomicLong indexCount = new AtomicLong();
+	private final AtomicLong learnedCount = new AtomicLong();
+	private final AtomicLong indexHits = new AtomicLong();
+	private final AtomicLong indexMisses = new AtomicLong();
+	private final AtomicLong slowQueryCount = new AtomicLong();
+	private final AtomicLong slowQueryMax = new AtomicLong();
+	private volatile String lastSlowQuery = "";
+
+	/**
+	 * Create an index manager
+	 * 
+	 * @param learnThreshold
+	 *          Number of queries by an unindexed attribute that trigger its
+	 *          indexing
+	 * @param maxLearnedIndexes
+	 *          Maximum number of learned indexes per collection (0 disables
+	 *          learning)
+	 * @param slowQueryThreshold
+	 *          Duration (in milliseconds) past which queries are reported as
+	 *          slow
+	 */
+	MongoIndexManager(int learnThreshold, int maxLearnedIndexes, long slowQueryThreshold) {
+		this.learnThreshold = learnThreshold;
+		this.maxLearnedIndexes = maxLearnedIndexes;
+		this.slowQueryThreshold = slowQueryThreshold;
+	}
+
+	/**
+	 * Ensure standard indexes for all existing collections of a database
+	 * 
+	 * @param db
+	 *          Database to index
+	 */
+	void ensureStandardIndexes(DB db) {
+		for (String collectionName : db.getCollectionNames()) {
+			if (!collectionName.startsWith(MONGO_SYSTEM_PREFIX)) {
+				ensureStandardIndexes(db.getCollection(collectionName));
+			}
+		}
+	}
+
+	/**
+	 * Ensure standard indexes for a collection. Only the first call for each
+	 * collection contacts the database.
+	 * 
+	 * @param collection
+	 *          Collection to index
+	 */
+	void ensureStandardIndexes(DBCollection collection) {
+		final String name = collection.getName();
+		if (indexedAttributes.containsKey(name)) {
+			return;
+		}
+		final Set<String> indexed = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		if (indexedAttributes.putIfAbsent(name, indexed) != null) {
+			return;
+		}
+
+		try {
+			for (DBObject index : collection.getIndexInfo()) {
+				final DBObject key = (DBObject) index.get("key");
+				if (key != null && !key.keySet().isEmpty()) {
+					indexed.add(key.keySet().iterator().next());
+				}
+			}
+		} catch (MongoException e) {
+			log.warn("Failed to list indexes of collection '{}'", name, e);
+		}
+
+		final int dot = name.indexOf('.');
+		final String kind = (dot < 0) ? name : name.substring(0, dot);
+		ensureAll(collection, STANDARD_INDEXES.get(kind));
+		ensureAll(collection, STANDARD_INDEXES.get(name));
+	}
+
+	/**
+	 * Account for an executed query: judge its index use, learn indexes for
+	 * attributes it selects or sorts by, and report it if it was slow.
+	 * 
+	 * @param db
+	 *          Database the query ran against
+	 * @param query
+	 *          The query
+	 * @param millis
+	 *          Duration of the query execution (in milliseconds)
+	 */
+	void queryExecuted(DB db, Query query, long millis) {
+		final EntityID path = query.getEntityID();
+		if (path == null || path.getKind() == null || path.getGroup() == null) {
+			// queries spanning multiple collections are not accounted for
+			return;
+		}
+		final DBCollection collection = db.getCollection(path.getKind()).getCollection(path.getGroup());
+
+		if (millis >= slowQueryThreshold) {
+			reportSlowQuery(collection, query, millis);
+		}
+
+		final Set<String> indexed = indexedAttributes.get(collection.getName());
+		if (indexed == null) {
+			// collection not written to since startup (possibly non-existent), don't create it by indexing
+			return;
+		}
+
+		final Set<String> attributes = new LinkedHashSet<String>(query.getSelectorNames());
+		if (query.getOrdering() != null) {
+			attributes.addAll(query.getOrdering().keySet());
+		}
+		if (query.getGroupBy() != null) {
+			attributes.addAll(query.getGroupBy());
+		}
+		if (attributes.isEmpty()) {
+			return;
+		}
+
+		boolean hit = false;
+		for (String attribute : attributes) {
+			if (indexed.contains(attribute)) {
+				hit = true;
+			} else {
+				learn(collection, attribute);
+			}
+		}
+		(hit ? indexHits : indexMisses).incrementAndGet();
+	}
+
+	/**
+	 * Get index and slow query statistics
+	 * 
+	 * @return Statistics, keyed by {@link MongoStorageServiceInfoConstants}
+	 */
+	Map<String, Object> getStatistics() {
+		final Map<String, Object> statistics = new HashMap<String, Object>();
+		statistics.put(PARAM_INDEX_COUNT, indexCount.get());
+		statistics.put(PARAM_INDEX_LEARNED, learnedCount.get());
+		statistics.put(PARAM_INDEX_HITS, indexHits.get());
+		statistics.put(PARAM_INDEX_MISSES, indexMisses.get());
+		statistics.put(PARAM_SLOW_QUERY_COUNT, slowQueryCount.get());
+		statistics.put(PARAM_SLOW_QUERY_MAX, slowQueryMax.get());
+		statistics.put(PARAM_SLOW_QUERY_LAST, lastSlowQuery);
+		return statistics;
+	}
+
+	private void learn(DBCollection collection, String attribute) {
+		if (maxLearnedIndexes <= 0 || attribute.startsWith("$") || MongoQueryRedactor.DBID.equals(attribute)) {
+			return;
+		}
+		final String useKey = collection.getName() + "#" + attribute;
+		attributeUses.putIfAbsent(useKey, new AtomicInteger());
+		if (attributeUses.get(useKey).incrementAndGet() != learnThreshold) {
+			return;
+		}
+
+		learnedIndexes.putIfAbsent(collection.getName(), new AtomicInteger());
+		final AtomicInteger learned = learnedIndexes.get(collection.getName());
+		if (learned.incrementAndGet() > maxLearnedIndexes) {
+			learned.decrementAndGet();
+			log.warn("Not indexing '{}' in collection '{}': learned index limit reached", attribute, collection.getName());
+			return;
+		}
+
+		log.info("Attribute '{}' of collection '{}' is frequently queried, indexing it", attribute, collection.getName());
+		if (ensure(collection, new String[] { attribute })) {
+			learnedCount.incrementAndGet();
+		} else {
+			learned.decrementAndGet();
+		}
+	}
+
+	private void reportSlowQuery(DBCollection collection, Query query, long millis) {
+		slowQueryCount.incrementAndGet();
+		long max = slowQueryMax.get();
+		while (millis > max && !slowQueryMax.compareAndSet(max, millis)) {
+			max = slowQueryMax.get();
+		}
+		lastSlowQuery = String.format(
+				"%s on '%s' by %s took %d ms",
+				query.getType(),
+				collection.getName(),
+				query.getSelectorNames(),
+				millis);
+		log.warn("Slow query: {}", lastSlowQuery);
+	}
+
+	private void ensureAll(DBCollection collection, List<String[]> indexes) {
+		if (indexes == null) {
+			return;
+		}
+		for (String[] attributes : indexes) {
+			ensure(collection, attributes);
+		}
+	}
+
+	private boolean ensure(DBCollection collection, String[] attributes) {
+		final DBObject keys = new BasicDBObject();
+		for (String attribute : attributes) {
+			keys.put(attribute, 1);
+		}
+		try {
+			collection.ensureIndex(keys, BACKGROUND);
+		} catch (MongoException e) {
+			log.warn("Failed to ensure index {} on collection '{}'", keys, collection.getName(), e);
+			return false;
+		}
+		indexedAttributes.get(collection.getName()).add(attributes[0]);
+		indexCount.incrementAndGet();
+		return true;
+	}
+}
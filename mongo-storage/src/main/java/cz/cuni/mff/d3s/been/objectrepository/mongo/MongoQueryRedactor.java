@@ -1,15 +1,22 @@
 package cz.cuni.mff.d3s.been.objectrepository.mongo;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
 import com.mongodb.DBObject;
+import org.bson.types.ObjectId;
 
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import cz.cuni.mff.d3s.been.persistence.Aggregation;
 import cz.cuni.mff.d3s.been.persistence.DAOException;
 import cz.cuni.mff.d3s.been.persistence.QueryRedactor;
+import cz.cuni.mff.d3s.been.persistence.SortOrder;
 import cz.cuni.mff.d3s.been.storage.QueryExecutor;
 
 /**
@@ -22,6 +29,10 @@ abstract class MongoQueryRedactor implements QueryRedactor {
 	private static final String NEQ_OPERATOR = "$ne";
 	private static final String ABOVE_OPERATOR = "$gte";
 	private static final String BELOW_OPERATOR = "$lt";
+	private static final String AFTER_OPERATOR = "$gt";
+
+	/** Name of the primary key attribute generated by MongoDB */
+	static final String DBID = "_id";
 
 	/**
 	 * A projection that ensures the <code>_id</code> attribute generated by
@@ -30,12 +41,19 @@ abstract class MongoQueryRedactor implements QueryRedactor {
 	private static final DBObject NO_DBID_MAPPING;
 
 	static {
-		NO_DBID_MAPPING = new BasicDBObject("_id", 0);
+		NO_DBID_MAPPING = new BasicDBObject(DBID, 0);
 	}
 
 	private final DBObject filter;
 	private final DBObject mapping;
+	private final DBObject ordering;
 	private final EntityID entityID;
+	private final List<String> groupBy;
+	private final Map<String, Aggregation> aggregations;
+	private Integer skip;
+	private Integer limit;
+	private Integer pageSize;
+	private String continuation;
 
 	/**
 	 * Creates new MongoQueryRedactor
@@ -47,6 +65,9 @@ abstract class MongoQueryRedactor implements QueryRedactor {
 		this.entityID = entityID;
 		this.filter = new BasicDBObject();
 		this.mapping = new BasicDBObject();
+		this.ordering = new BasicDBObject();
+		this.groupBy = new ArrayList<String>();
+		this.aggregations = new LinkedHashMap<String, Aggregation>();
 	}
 
 	@Override
@@ -103,10 +124,110 @@ abstract class MongoQueryRedactor implements QueryRedactor {
 	 * @return The attribute mapping
 	 */
 	protected DBObject getMapping() {
-		mapping.putAll(NO_DBID_MAPPING);
+		if (pageSize == null) {
+			mapping.putAll(NO_DBID_MAPPING);
+		} else if (!mapping.keySet().isEmpty()) {
+			// paged queries need the _id of the last object to issue a continuation
+			mapping.put(DBID, 1);
+		}
 		return mapping;
 	}
 
+	/**
+	 * Return the requested page size to subclasses
+	 * 
+	 * @return The page size, <code>null</code> if the query is not paged
+	 */
+	protected Integer getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Return the sort specification to subclasses
+	 * 
+	 * @return The sort specification (empty if the query is not ordered)
+	 */
+	protected DBObject getOrdering() {
+		return ordering;
+	}
+
+	/**
+	 * Return the number of objects to skip to subclasses
+	 * 
+	 * @return The number of objects to skip, <code>null</code> if none
+	 */
+	protected Integer getSkip() {
+		return skip;
+	}
+
+	/**
+	 * Return the maximum number of objects to return to subclasses
+	 * 
+	 * @return The limit, <code>null</code> if unlimited
+	 */
+	protected Integer getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Return the grouping attributes to subclasses
+	 * 
+	 * @return The grouping attributes (empty if not grouped)
+	 */
+	protected List<String> getGroupBy() {
+		return groupBy;
+	}
+
+	/**
+	 * Return the requested aggregations to subclasses
+	 * 
+	 * @return The aggregations, keyed by output name
+	 */
+	protected Map<String, Aggregation> getAggregations() {
+		return aggregations;
+	}
+
+	/**
+	 * Tell whether the query selects a window of the matching objects (it is
+	 * ordered, skips or limits matching objects)
+	 * 
+	 * @return <code>true</code> if the query selects a window
+	 */
+	protected boolean isWindowed() {
+		return !ordering.keySet().isEmpty() || skip != null || limit != null;
+	}
+
+	/**
+	 * Restrict the filter to objects whose <code>_id</code> follows the
+	 * continuation token, if any. Only applicable to queries that are not
+	 * windowed, whose pages are walked in <code>_id</code> order.
+	 * 
+	 * @throws DAOException
+	 *           When the continuation token is malformed
+	 */
+	protected void applyContinuation() throws DAOException {
+		if (continuation == null) {
+			return;
+		}
+		if (!ObjectId.isValid(continuation)) {
+			throw new DAOException(String.format("Malformed continuation token '%s'", continuation));
+		}
+		filter.put(DBID, new BasicDBObject(AFTER_OPERATOR, new ObjectId(continuation)));
+	}
+
+	/**
+	 * Read the continuation token of a windowed query, whose pages are walked by
+	 * the sort key of the last returned object.
+	 * 
+	 * @return Where the previous page ended
+	 * 
+	 * @throws DAOException
+	 *           When the continuation token is malformed
+	 */
+	protected MongoContinuation getWindowContinuation() throws DAOException {
+		return MongoContinuation.parse(continuation);
+	}
+
 	/**
 	 * Return the path to the objects targeted by the query.
 	 * 
@@ -136,4 +257,35 @@ abstract class MongoQueryRedactor implements QueryRedactor {
 			mapping.put(attribute, 1);
 		}
 	}
+
+	@Override
+	public void orderBy(String attributeName, SortOrder order) {
+		ordering.put(attributeName, order == SortOrder.DESCENDING ? -1 : 1);
+	}
+
+	@Override
+	public void skip(int skip) {
+		this.skip = skip;
+	}
+
+	@Override
+	public void limit(int limit) {
+		this.limit = limit;
+	}
+
+	@Override
+	public void groupBy(String attributeName) {
+		groupBy.add(attributeName);
+	}
+
+	@Override
+	public void aggregate(String name, Aggregation aggregation) {
+		aggregations.put(name, aggregation);
+	}
+
+	@Override
+	public void page(int pageSize, String continuation) {
+		this.pageSize = pageSize;
+		this.continuation = continuation;
+	}
 }
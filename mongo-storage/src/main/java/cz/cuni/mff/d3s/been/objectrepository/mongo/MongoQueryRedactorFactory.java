@@ -20,4 +20,9 @@ final class MongoQueryRedactorFactory implements QueryRedactorFactory {
 	public QueryRedactor delete(EntityID entityID) {
 		return new MongoDeleteQueryRedactor(entityID);
 	}
+
+	@Override
+	public QueryRedactor aggregate(EntityID entityID) {
+		return new MongoAggregateQueryRedactor(entityID);
+	}
 }
@@ -1,7 +1,11 @@
 package cz.cuni.mff.d3s.been.objectrepository.mongo;
 
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +18,8 @@ import cz.cuni.mff.d3s.been.core.persistence.EntityID;
 import cz.cuni.mff.d3s.been.persistence.*;
 import cz.cuni.mff.d3s.been.storage.*;
 
+import static cz.cuni.mff.d3s.been.objectrepository.mongo.MongoStorageConfiguration.*;
+
 /**
  * A MongoDB adapter for BEEN result persistence layer.
  * 
@@ -34,6 +40,10 @@ public final class MongoStorage implements Storage {
 
 	private DB db;
 	private QueryExecutorFactory queryExecutorFactory;
+	private MongoIndexManager indexManager = new MongoIndexManager(
+			DEFAULT_MONGO_INDEX_LEARN_THRESHOLD,
+			DEFAULT_MONGO_INDEX_LEARNED_MAX,
+			DEFAULT_MONGO_SLOW_QUERY_THRESHOLD);
 
 	private MongoStorage(MongoClient client, String dbname) {
 		this.client = client;
@@ -146,6 +156,22 @@ public final class MongoStorage implements Storage {
 			throw new StorageException("Error getting DB stats. Mongo database is probably not running.");
 		}
 		queryExecutorFactory = new MongoQueryExecutorFactory(db);
+		try {
+			indexManager.ensureStandardIndexes(db);
+		} catch (MongoException e) {
+			log.warn("Failed to ensure standard indexes, they will be ensured as collections are written to", e);
+		}
+	}
+
+	/**
+	 * Replace the index manager of this storage. Only effective before the
+	 * storage is started.
+	 * 
+	 * @param indexManager
+	 *          Index manager to use
+	 */
+	void setIndexManager(MongoIndexManager indexManager) {
+		this.indexManager = indexManager;
 	}
 
 	@Override
@@ -171,6 +197,32 @@ public final class MongoStorage implements Storage {
 		}
 	}
 
+	@Override
+	public void storeAll(EntityID entityId, Collection<String> entityJSONs) throws DAOException {
+		if (entityJSONs.isEmpty()) {
+			return;
+		}
+		final List<DBObject> dbos = new ArrayList<DBObject>(entityJSONs.size());
+		for (String entityJSON : entityJSONs) {
+			dbos.add((DBObject) JSON.parse(entityJSON));
+		}
+		try {
+			final WriteResult wr = mapEntity(entityId).insert(dbos);
+			if (wr.getError() != null) {
+				throw new DAOException(String.format(
+						"Bulk write of %d objects on Entity ID %s resulted in the following error: %s.",
+						dbos.size(),
+						entityId.toString(),
+						wr.getError()));
+			}
+		} catch (MongoException e) {
+			throw new DAOException(String.format(
+					"Failed to store %d persistent objects (%s)",
+					dbos.size(),
+					entityId.toString()), e);
+		}
+	}
+
 	@Override
 	public SuccessAction<EntityCarrier> createPersistAction() {
 		return StoragePersistAction.createForStore(this);
@@ -186,6 +238,9 @@ public final class MongoStorage implements Storage {
 			case DELETE:
 				queryRedactor = queryRedactorFactory.delete(query.getEntityID());
 				break;
+			case AGGREGATE:
+				queryRedactor = queryRedactorFactory.aggregate(query.getEntityID());
+				break;
 			default:
 				return QueryAnswerFactory.badQuery();
 		}
@@ -205,6 +260,7 @@ public final class MongoStorage implements Storage {
 			return QueryAnswerFactory.badQuery();
 		}
 
+		final long startTime = System.nanoTime();
 		try {
 			return queryExecutor.execute();
 		} catch (QueryExecutionException e) {
@@ -220,6 +276,13 @@ public final class MongoStorage implements Storage {
 		} catch (Throwable t) {
 			log.error("Unknown error processing query '{}'", query, t);
 			return QueryAnswerFactory.unknownError();
+		} finally {
+			final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			try {
+				indexManager.queryExecuted(db, query, duration);
+			} catch (MongoException e) {
+				log.warn("Failed to account for index use of query '{}'", query, e);
+			}
 		}
 	}
 
@@ -245,8 +308,15 @@ public final class MongoStorage implements Storage {
 		return true;
 	}
 
+	@Override
+	public Map<String, Object> getStatistics() {
+		return indexManager.getStatistics();
+	}
+
 	private final DBCollection mapEntity(EntityID eid) throws DAOException {
-		return db.getCollection(eid.getKind()).getCollection(eid.getGroup());
+		final DBCollection collection = db.getCollection(eid.getKind()).getCollection(eid.getGroup());
+		indexManager.ensureStandardIndexes(collection);
+		return collection;
 	}
 
 }
@@ -46,14 +46,22 @@ public class MongoStorageBuilder implements StorageBuilder {
 		final String hostname = propertyReader.getString(MONGO_HOSTNAME, DEFAULT_MONGO_HOSTNAME);
 		final String dbname = propertyReader.getString(MONGO_DBNAME, DEFAULT_MONGO_DBNAME);
 
+		final MongoIndexManager indexManager = new MongoIndexManager(
+				propertyReader.getInteger(MONGO_INDEX_LEARN_THRESHOLD, DEFAULT_MONGO_INDEX_LEARN_THRESHOLD),
+				propertyReader.getInteger(MONGO_INDEX_LEARNED_MAX, DEFAULT_MONGO_INDEX_LEARNED_MAX),
+				propertyReader.getLong(MONGO_SLOW_QUERY_THRESHOLD, DEFAULT_MONGO_SLOW_QUERY_THRESHOLD));
+
 		try {
+			final MongoStorage storage;
 			if (user != null && password != null) {
 				// if authentication is configured, use it
-				return MongoStorage.create(hostname, dbname, user, password, new MongoClientOptions.Builder().build());
+				storage = MongoStorage.create(hostname, dbname, user, password, new MongoClientOptions.Builder().build());
 			} else {
 				// otherwise don't use authentication
-				return MongoStorage.create(hostname, dbname, new MongoClientOptions.Builder().build());
+				storage = MongoStorage.create(hostname, dbname, new MongoClientOptions.Builder().build());
 			}
+			storage.setIndexManager(indexManager);
+			return storage;
 		} catch (UnknownHostException e) {
 			return null;
 		}
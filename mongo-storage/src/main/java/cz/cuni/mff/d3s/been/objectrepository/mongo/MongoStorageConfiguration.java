@@ -34,4 +34,31 @@ public class MongoStorageConfiguration implements BeenServiceConfiguration {
 	public static final String MONGO_DBNAME = "mongodb.dbname";
 	/** Default MongoDB database instance name is 'BEEN' */
 	public static final String DEFAULT_MONGO_DBNAME = "BEEN";
+
+	/**
+	 * Property name for the number of queries that need to select or sort by an
+	 * unindexed attribute before an index on the attribute is created.
+	 */
+	public static final String MONGO_INDEX_LEARN_THRESHOLD = "mongodb.index.learn-threshold";
+	/** Default number of queries before an index is learned is {@value} */
+	public static final Integer DEFAULT_MONGO_INDEX_LEARN_THRESHOLD = 10;
+
+	/**
+	 * Property name for the maximum number of learned indexes per collection.
+	 * Zero disables index learning.
+	 */
+	public static final String MONGO_INDEX_LEARNED_MAX = "mongodb.index.learned-max";
+	/**
+	 * Default maximum number of learned indexes per collection is {@value}
+	 * (MongoDB permits 64 indexes per collection, standard ones included)
+	 */
+	public static final Integer DEFAULT_MONGO_INDEX_LEARNED_MAX = 16;
+
+	/**
+	 * Property name for the duration (in milliseconds) past which a query is
+	 * reported as slow.
+	 */
+	public static final String MONGO_SLOW_QUERY_THRESHOLD = "mongodb.slow-query-threshold";
+	/** Default slow query threshold is {@value} milliseconds */
+	public static final Long DEFAULT_MONGO_SLOW_QUERY_THRESHOLD = 1000L;
 }
@@ -0,0 +1,43 @@
+package cz.cuni.mff.d3s.been.objectrepository.mongo;
+
+/**
+ * Names of the statistics MongoDB storage publishes in the service info of the
+ * object repository it backs
+ */
+public class MongoStorageServiceInfoConstants {
+
+	/**
+	 * Number of indexes ensured by the index manager (standard and learned)
+	 */
+	public static final String PARAM_INDEX_COUNT = "mongodb.index.count";
+
+	/**
+	 * Number of indexes created because of frequently queried attributes
+	 */
+	public static final String PARAM_INDEX_LEARNED = "mongodb.index.learned";
+
+	/**
+	 * Number of queries that filter or sort by an indexed attribute
+	 */
+	public static final String PARAM_INDEX_HITS = "mongodb.index.hits";
+
+	/**
+	 * Number of queries with selectors, none of which is indexed (collection scans)
+	 */
+	public static final String PARAM_INDEX_MISSES = "mongodb.index.misses";
+
+	/**
+	 * Number of queries that took longer than the slow query threshold
+	 */
+	public static final String PARAM_SLOW_QUERY_COUNT = "mongodb.slow-query.count";
+
+	/**
+	 * Duration of the slowest query so far (in milliseconds)
+	 */
+	public static final String PARAM_SLOW_QUERY_MAX = "mongodb.slow-query.max-ms";
+
+	/**
+	 * Description of the latest slow query
+	 */
+	public static final String PARAM_SLOW_QUERY_LAST = "mongodb.slow-query.last";
+}
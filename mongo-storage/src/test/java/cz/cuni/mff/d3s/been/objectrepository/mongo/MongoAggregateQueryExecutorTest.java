@@ -0,0 +1,28 @@
+package cz.cuni.mff.d3s.been.objectrepository.mongo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for percentile computation in {@link MongoAggregateQueryExecutor}
+ */
+public final class MongoAggregateQueryExecutorTest extends Assert {
+
+	@Test
+	public void testPercentileRank() {
+		assertEquals(1.5, MongoAggregateQueryExecutor.rank(4, 50), 1e-9);
+		assertEquals(0.75, MongoAggregateQueryExecutor.rank(4, 25), 1e-9);
+		assertEquals(0.0, MongoAggregateQueryExecutor.rank(4, 0), 1e-9);
+		assertEquals(3.0, MongoAggregateQueryExecutor.rank(4, 100), 1e-9);
+		assertEquals(0.0, MongoAggregateQueryExecutor.rank(1, 90), 1e-9);
+	}
+
+	@Test
+	public void testPercentileInterpolation() {
+		// values 1, 2, 3, 4
+		assertEquals(2.5, MongoAggregateQueryExecutor.interpolate(1.5, 2, 3), 1e-9);
+		assertEquals(1.75, MongoAggregateQueryExecutor.interpolate(0.75, 1, 2), 1e-9);
+		assertEquals(1.0, MongoAggregateQueryExecutor.interpolate(0.0, 1, 1), 1e-9);
+		assertEquals(4.0, MongoAggregateQueryExecutor.interpolate(3.0, 4L, 4.0), 1e-9);
+	}
+}
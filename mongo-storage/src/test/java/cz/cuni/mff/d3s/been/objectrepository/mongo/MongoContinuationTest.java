@@ -0,0 +1,89 @@
+package cz.cuni.mff.d3s.been.objectrepository.mongo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import cz.cuni.mff.d3s.been.persistence.DAOException;
+
+/**
+ * Test for keyset continuation tokens of windowed fetch queries
+ */
+public final class MongoContinuationTest extends Assert {
+
+	private static final DBObject SORT = new BasicDBObject("created", 1).append("_id", 1);
+
+	@Test
+	public void testTokenRoundTrip() throws DAOException {
+		final ObjectId id = new ObjectId();
+		final DBObject object = new BasicDBObject("created", 1400000000000L).append("_id", id).append("message", "m");
+		final List<Object> keys = MongoContinuation.keysOf(object, SORT);
+
+		final MongoContinuation parsed = MongoContinuation.parse(new MongoContinuation(1000, keys).toToken());
+		assertEquals(1000, parsed.getOffset());
+		assertTrue(parsed.hasKeys());
+
+		final DBObject filter = parsed.createFilter(SORT);
+		final List<?> alternatives = (List<?>) filter.get("$or");
+		assertEquals(2, alternatives.size());
+		assertEquals(new BasicDBObject("created", new BasicDBObject("$gt", 1400000000000L)), alternatives.get(0));
+		assertEquals(
+				new BasicDBObject("created", 1400000000000L).append("_id", new BasicDBObject("$gt", id)),
+				alternatives.get(1));
+	}
+
+	@Test
+	public void testDescendingOrder() throws DAOException {
+		final DBObject sort = new BasicDBObject("created", -1).append("_id", 1);
+		final DBObject filter = new MongoContinuation(10, Arrays.<Object> asList(5, new ObjectId())).createFilter(sort);
+		assertEquals(new BasicDBObject("created", new BasicDBObject("$lt", 5)), ((List<?>) filter.get("$or")).get(0));
+	}
+
+	@Test
+	public void testDescendingOrderKeepsObjectsWithoutAttribute() {
+		final ObjectId id = new ObjectId();
+		final DBObject sort = new BasicDBObject("taskId", 1).append("created", -1).append("_id", 1);
+		final DBObject filter = new MongoContinuation(10, Arrays.<Object> asList("t", 5, id)).createFilter(sort);
+
+		final List<?> alternatives = (List<?>) filter.get("$or");
+		assertEquals(4, alternatives.size());
+		assertEquals(new BasicDBObject("taskId", new BasicDBObject("$gt", "t")), alternatives.get(0));
+		assertEquals(new BasicDBObject("taskId", "t").append("created", new BasicDBObject("$lt", 5)), alternatives.get(1));
+		// MongoDB sorts objects without the attribute last in descending order
+		assertEquals(new BasicDBObject("taskId", "t").append("created", null), alternatives.get(2));
+		assertEquals(
+				new BasicDBObject("taskId", "t").append("created", 5).append("_id", new BasicDBObject("$gt", id)),
+				alternatives.get(3));
+	}
+
+	@Test
+	public void testMissingKeysContinueByOffset() throws DAOException {
+		final DBObject object = new BasicDBObject("_id", new ObjectId());
+		final MongoContinuation continuation = new MongoContinuation(20, MongoContinuation.keysOf(object, SORT));
+		assertFalse(continuation.hasKeys());
+		assertEquals(20, MongoContinuation.parse(continuation.toToken()).getOffset());
+		assertFalse(MongoContinuation.parse(continuation.toToken()).hasKeys());
+	}
+
+	@Test
+	public void testParse() throws DAOException {
+		assertSame(MongoContinuation.FIRST, MongoContinuation.parse(null));
+		assertEquals(42, MongoContinuation.parse("42").getOffset());
+	}
+
+	@Test(expected = DAOException.class)
+	public void testMalformedToken() throws DAOException {
+		MongoContinuation.parse("{ \"k\" : [1] }");
+	}
+
+	@Test(expected = DAOException.class)
+	public void testNegativeOffset() throws DAOException {
+		MongoContinuation.parse("-1");
+	}
+}
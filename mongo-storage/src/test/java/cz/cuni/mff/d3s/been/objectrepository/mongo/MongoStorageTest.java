@@ -163,7 +163,105 @@ public final class MongoStorageTest extends Assert {
 	}
 
 	@Test
-	public void testDeleteSomeResults() throws JsonException, DAOException {
+	public void testStoreAll() throws JsonException, DAOException {
+		storage.storeAll(dummyId, Arrays.asList(
+				jsonUtils.serialize(new DummyEntity(1)),
+				jsonUtils.serialize(new DummyEntity(2)),
+				jsonUtils.serialize(new DummyEntity(3))));
+		assertEquals(3, storage.query(new QueryBuilder().on(dummyId).with("something", "strange").fetch()).getData().size());
+	}
+
+	@Test
+	public void testPagedFetch() throws JsonException, DAOException {
+		for (int i = 0; i < 5; ++i) {
+			storage.store(dummyId, jsonUtils.serialize(new DummyEntity(i)));
+		}
+		final Query query = new QueryBuilder().on(dummyId).with("something", "strange").pageSize(2).fetch();
+		final Iterator<DummyEntity> it = new PagedQueryIterator<DummyEntity>(query, new QueryPageSource() {
+			@Override
+			public QueryAnswer fetch(Query page) throws DAOException {
+				final QueryAnswer answer = storage.query(page);
+				assertTrue(answer.getData().size() <= 2);
+				return answer;
+			}
+		}, jsonUtils, DummyEntity.class);
+
+		final Set<Integer> numbers = new HashSet<Integer>();
+		while (it.hasNext()) {
+			numbers.add(it.next().getSomeNumber());
+		}
+		assertEquals(new HashSet<Integer>(Arrays.asList(0, 1, 2, 3, 4)), numbers);
+	}
+
+	@Test
+	public void testOrderedWindow() throws JsonException, DAOException {
+		for (int i : new int[] { 3, 1, 4, 0, 2 }) {
+			storage.store(dummyId, jsonUtils.serialize(new DummyEntity(i)));
+		}
+		final QueryAnswer answer = storage.query(new QueryBuilder().on(dummyId).orderBy("someNumber", SortOrder.DESCENDING).skip(1).limit(2).fetch());
+		assertEquals(QueryStatus.OK, answer.getStatus());
+		final List<DummyEntity> window = new ArrayList<DummyEntity>(jsonUtils.deserialize(answer.getData(), DummyEntity.class));
+		assertEquals(2, window.size());
+		assertEquals(Integer.valueOf(3), window.get(0).getSomeNumber());
+		assertEquals(Integer.valueOf(2), window.get(1).getSomeNumber());
+	}
+
+	@Test
+	public void testPagedOrderedWindow() throws JsonException, DAOException {
+		for (int i : new int[] { 3, 1, 4, 0, 2 }) {
+			storage.store(dummyId, jsonUtils.serialize(new DummyEntity(i)));
+		}
+		final Query query = new QueryBuilder().on(dummyId).orderBy("someNumber").skip(1).limit(3).pageSize(2).fetch();
+		final Iterator<DummyEntity> it = new PagedQueryIterator<DummyEntity>(query, new QueryPageSource() {
+			@Override
+			public QueryAnswer fetch(Query page) throws DAOException {
+				return storage.query(page);
+			}
+		}, jsonUtils, DummyEntity.class);
+
+		final List<Integer> numbers = new ArrayList<Integer>();
+		while (it.hasNext()) {
+			numbers.add(it.next().getSomeNumber());
+		}
+		assertEquals(Arrays.asList(1, 2, 3), numbers);
+	}
+
+	@Test
+	public void testAggregate() throws JsonException, DAOException {
+		for (int i = 1; i <= 5; ++i) {
+			storage.store(dummyId, jsonUtils.serialize(new DummyEntity(i)));
+		}
+		final QueryAnswer answer = storage.query(new QueryBuilder().on(dummyId).groupBy("something").count("n").min("someNumber", "min").max(
+				"someNumber",
+				"max").mean("someNumber", "mean").percentile("someNumber", 50, "median").aggregate());
+		assertEquals(QueryStatus.OK, answer.getStatus());
+		assertEquals(1, answer.getData().size());
+
+		final Map<?, ?> row = jsonUtils.deserialize(answer.getData().iterator().next(), Map.class);
+		assertEquals("strange", row.get("something"));
+		assertEquals(5, ((Number) row.get("n")).intValue());
+		assertEquals(1, ((Number) row.get("min")).intValue());
+		assertEquals(5, ((Number) row.get("max")).intValue());
+		assertEquals(3.0, ((Number) row.get("mean")).doubleValue(), 0.0);
+		assertEquals(3.0, ((Number) row.get("median")).doubleValue(), 0.0);
+	}
+
+	@Test
+	public void testLearnsFrequentlyQueriedIndex() throws JsonException, DAOException {
+		storage.store(dummyId, jsonUtils.serialize(new DummyEntity(1)));
+		for (int i = 0; i < MongoStorageConfiguration.DEFAULT_MONGO_INDEX_LEARN_THRESHOLD; ++i) {
+			assertEquals(QueryStatus.OK, storage.query(new QueryBuilder().on(dummyId).with("someNumber", 1).fetch()).getStatus());
+		}
+		final Map<String, Object> statistics = storage.getStatistics();
+		assertEquals(1L, statistics.get(MongoStorageServiceInfoConstants.PARAM_INDEX_LEARNED));
+		assertEquals(Long.valueOf(MongoStorageConfiguration.DEFAULT_MONGO_INDEX_LEARN_THRESHOLD), statistics.get(MongoStorageServiceInfoConstants.PARAM_INDEX_MISSES));
+
+		storage.query(new QueryBuilder().on(dummyId).with("someNumber", 1).fetch());
+		assertEquals(1L, storage.getStatistics().get(MongoStorageServiceInfoConstants.PARAM_INDEX_HITS));
+	}
+
+	@Test
+	public void testDeleteSomeResults()throws JsonException, DAOException {
 		storage.store(dummyId, jsonUtils.serialize(new DummyEntity()));
 		storage.store(dummyId, jsonUtils.serialize(new DummyEntity()));
 		assertEquals(2, storage.query(new QueryBuilder().on(dummyId).with("something", "strange").fetch()).getData().size());
@@ -0,0 +1,81 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import cz.cuni.mff.d3s.been.storage.Storage;
+
+/**
+ * A consumer that persists drained entities in batches, grouping them by their {@link EntityID} so that each group gets written in a single bulk insert.
+ */
+abstract class BatchConsumer implements Runnable {
+
+	private static final Logger log = LoggerFactory.getLogger(BatchConsumer.class);
+
+	protected final Storage storage;
+	protected final FailAction<EntityCarrier> failAction;
+	protected final FailRate failRateMonitor;
+	protected final BatchStatistics statistics;
+	protected final int batchSize;
+
+	BatchConsumer(Storage storage, FailAction<EntityCarrier> failAction, FailRate failRateMonitor, BatchStatistics statistics, int batchSize) {
+		this.storage = storage;
+		this.failAction = failAction;
+		this.failRateMonitor = failRateMonitor;
+		this.statistics = statistics;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Persist a batch of retrieved entities
+	 *
+	 * @param batch Retrieved entities
+	 *
+	 * @return <code>true</code> if all entities were persisted, <code>false</code> if any of the bulk writes failed
+	 */
+	protected boolean act(List<EntityCarrier> batch) {
+		final long start = System.nanoTime();
+		boolean allStored = true;
+
+		for (Map.Entry<EntityID, List<EntityCarrier>> group : groupById(batch).entrySet()) {
+			final List<String> jsons = new ArrayList<String>(group.getValue().size());
+			for (EntityCarrier carrier : group.getValue()) {
+				jsons.add(carrier.getEntityJSON());
+			}
+			try {
+				storage.storeAll(group.getKey(), jsons);
+				failRateMonitor.success();
+			} catch (Exception e) {
+				log.error("Bulk write of {} entities to {} failed, requeueing them.", jsons.size(), group.getKey(), e);
+				for (EntityCarrier carrier : group.getValue()) {
+					failAction.perform(carrier);
+				}
+				failRateMonitor.fail();
+				allStored = false;
+			}
+		}
+
+		statistics.batchProcessed(batch.size(), System.nanoTime() - start);
+		return allStored;
+	}
+
+	private static Map<EntityID, List<EntityCarrier>> groupById(List<EntityCarrier> batch) {
+		final Map<EntityID, List<EntityCarrier>> groups = new LinkedHashMap<EntityID, List<EntityCarrier>>();
+		for (EntityCarrier carrier : batch) {
+			List<EntityCarrier> group = groups.get(carrier.getEntityId());
+			if (group == null) {
+				group = new ArrayList<EntityCarrier>();
+				groups.put(carrier.getEntityId(), group);
+			}
+			group.add(carrier);
+		}
+		return groups;
+	}
+}
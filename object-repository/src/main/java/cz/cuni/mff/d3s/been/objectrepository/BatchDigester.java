@@ -0,0 +1,43 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.storage.Storage;
+
+/**
+ * A digester of persistence queue items that writes drained entities to the {@link Storage} in bulk.
+ */
+class BatchDigester extends Digester<EntityCarrier> {
+
+	private final BatchTake<EntityCarrier> batchTake;
+	private final BatchPoll<EntityCarrier> batchPoll;
+	private final Storage storage;
+	private final int batchSize;
+	private final long batchTimeout;
+	private final BatchStatistics batchStatistics;
+
+	BatchDigester(Take<EntityCarrier> take, Poll<EntityCarrier> poll, BatchTake<EntityCarrier> batchTake, BatchPoll<EntityCarrier> batchPoll, Storage storage, FailAction<EntityCarrier> failAction, Float failRateThreshold, Long suspendTimeOnHighFailRate, int batchSize, long batchTimeout, BatchStatistics batchStatistics, int maxWorkers, long targetDrainTime) {
+		super(take, poll, storage.createPersistAction(), failAction, failRateThreshold, suspendTimeOnHighFailRate, maxWorkers, targetDrainTime);
+		this.batchTake = batchTake;
+		this.batchPoll = batchPoll;
+		this.storage = storage;
+		this.batchSize = batchSize;
+		this.batchTimeout = batchTimeout;
+		this.batchStatistics = batchStatistics;
+	}
+
+	@Override
+	protected double estimateItemLatencyMillis() {
+		final int lastBatchSize = batchStatistics.getLastBatchSize();
+		return (lastBatchSize == 0) ? 0 : batchStatistics.getLastLatencyMillis() / lastBatchSize;
+	}
+
+	@Override
+	protected Runnable createLingeringConsumer() {
+		return new LingeringBatchConsumer(batchTake, storage, failAction, failRateMonitor, batchStatistics, batchSize, batchTimeout, failRateThreshold, suspendTimeOnHighFailRate);
+	}
+
+	@Override
+	protected Runnable createEphemerousConsumer() {
+		return new EphemerousBatchConsumer(batchPoll, storage, failAction, failRateMonitor, batchStatistics, batchSize);
+	}
+}
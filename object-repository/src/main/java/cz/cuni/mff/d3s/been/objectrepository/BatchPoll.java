@@ -0,0 +1,20 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.List;
+
+/**
+ * A generic poll action that retrieves items in batches.
+ *
+ * @param <T> Type of the items polled
+ */
+public interface BatchPoll<T> {
+
+	/**
+	 * Perform the batch poll action
+	 *
+	 * @param maxItems Maximum number of items in the batch
+	 *
+	 * @return The polled items (empty if there were none)
+	 */
+	List<T> perform(int maxItems);
+}
@@ -0,0 +1,93 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency counters of batched persistence writes.
+ */
+class BatchStatistics {
+
+	private long batchCount = 0;
+	private long itemCount = 0;
+	private long totalNanos = 0;
+	private int lastBatchSize = 0;
+	private long lastBatchNanos = 0;
+	private long maxBatchNanos = 0;
+
+	/**
+	 * Record a processed batch
+	 *
+	 * @param size Number of items in the batch
+	 * @param nanos Time (in nanoseconds) it took to write the batch
+	 */
+	synchronized void batchProcessed(int size, long nanos) {
+		++batchCount;
+		itemCount += size;
+		totalNanos += nanos;
+		lastBatchSize = size;
+		lastBatchNanos = nanos;
+		if (nanos > maxBatchNanos) {
+			maxBatchNanos = nanos;
+		}
+	}
+
+	/**
+	 * @return Number of batches processed so far
+	 */
+	synchronized long getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * @return Number of items processed so far
+	 */
+	synchronized long getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * @return Average number of items per batch
+	 */
+	synchronized double getAverageBatchSize() {
+		return batchCount == 0 ? 0 : ((double) itemCount) / batchCount;
+	}
+
+	/**
+	 * @return Average time (in milliseconds) it took to write a batch
+	 */
+	synchronized double getAverageLatencyMillis() {
+		return batchCount == 0 ? 0 : toMillis(totalNanos) / batchCount;
+	}
+
+	/**
+	 * @return Longest time (in milliseconds) it took to write a batch
+	 */
+	synchronized double getMaxLatencyMillis() {
+		return toMillis(maxBatchNanos);
+	}
+
+	/**
+	 * @return Number of items in the last batch
+	 */
+	synchronized int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	/**
+	 * @return Time (in milliseconds) it took to write the last batch
+	 */
+	synchronized double getLastLatencyMillis() {
+		return toMillis(lastBatchNanos);
+	}
+
+	/**
+	 * @return Number of items written per second of write time
+	 */
+	synchronized double getThroughput() {
+		return totalNanos == 0 ? 0 : itemCount * ((double) TimeUnit.SECONDS.toNanos(1)) / totalNanos;
+	}
+
+	private static double toMillis(long nanos) {
+		return ((double) nanos) / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
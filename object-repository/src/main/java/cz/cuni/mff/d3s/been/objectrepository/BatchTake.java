@@ -0,0 +1,23 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.List;
+
+/**
+ * A generic take action that retrieves items in batches.
+ *
+ * @param <T> Type of the items taken
+ */
+public interface BatchTake<T> {
+
+	/**
+	 * Perform the batch take action. Blocks until at least one item is available, then keeps collecting items until either <code>maxItems</code> items are collected or <code>timeoutMillis</code> milliseconds pass.
+	 *
+	 * @param maxItems Maximum number of items in the batch
+	 * @param timeoutMillis Maximum time (in milliseconds) to wait for the batch to fill up once the first item is taken
+	 *
+	 * @return The items taken (never empty)
+	 *
+	 * @throws InterruptedException When interrupted while waiting for the first item
+	 */
+	List<T> perform(int maxItems, long timeoutMillis) throws InterruptedException;
+}
@@ -1,8 +1,10 @@
 package cz.cuni.mff.d3s.been.objectrepository;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import cz.cuni.mff.d3s.been.persistence.SuccessAction;
 import org.slf4j.Logger;
@@ -15,31 +17,45 @@ import cz.cuni.mff.d3s.been.cluster.Service;
 /**
  * A general shared structure digestion service
  *
+ * Besides a lingering consumer, the digester runs a bounded number of ephemerous reinforcement consumers. Their count is
+ * periodically {@link #balance(int) balanced} against the depth of the digested structure and the observed per-item
+ * processing latency, aiming to drain the current backlog within a target time.
+ *
  * @param <T> Type of digested items
  */
 public class Digester<T> implements Service, Reapable {
 
 	private static final long POOL_SHUTDOWN_TIMEOUT_MILLIS = 3000;
+	private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
 	private static final Logger log = LoggerFactory.getLogger(Digester.class);
 
-	private final Float failRateThreshold;
-	private final Long suspendTimeOnHighFailRate;
-	private final ExecutorService pool;
+	protected final Float failRateThreshold;
+	protected final Long suspendTimeOnHighFailRate;
+	private final ThreadPoolExecutor pool;
 	private final SuccessAction<T> successAction;
-	private final FailAction<T> failAction;
+	protected final FailAction<T> failAction;
 	private final Take<T> take;
 	private final Poll<T> poll;
-	private final FailRate failRateMonitor;
+	protected final FailRate failRateMonitor;
+	private final int maxWorkers;
+	private final long targetDrainTime;
+	private final AtomicInteger workers;
+	protected final DigesterStatistics statistics;
 
-	Digester(Take<T> take, Poll<T> poll, SuccessAction<T> successAction, FailAction<T> failAction, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
+	Digester(Take<T> take, Poll<T> poll, SuccessAction<T> successAction, FailAction<T> failAction, Float failRateThreshold, Long suspendTimeOnHighFailRate, int maxWorkers, long targetDrainTime) {
 		this.failRateThreshold = failRateThreshold;
 		this.suspendTimeOnHighFailRate = suspendTimeOnHighFailRate;
 		this.take = take;
 		this.poll = poll;
-		this.successAction = successAction;
 		this.failAction = failAction;
-		this.pool = Executors.newCachedThreadPool();
+		this.maxWorkers = Math.max(0, maxWorkers);
+		this.targetDrainTime = Math.max(1, targetDrainTime);
+		// one thread for the lingering consumer, the rest for reinforcements
+		this.pool = new ThreadPoolExecutor(1, this.maxWorkers + 1, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
 		this.failRateMonitor = new FailRate();
+		this.workers = new AtomicInteger();
+		this.statistics = new DigesterStatistics(this.maxWorkers);
+		this.successAction = timed(successAction, statistics);
 	}
 
 	/**
@@ -51,27 +67,106 @@ public class Digester<T> implements Service, Reapable {
 	 * @param failAction Action to perform on digested actions if success action fails
 	 * @param failRateThreshold Rate of failure at which this digester suspends its digestion attempts temporarily
 	 * @param suspendTimeOnHighFailRate Time (in milliseconds) this digester should suspend for if the fail rate surpasses fail rate threshold
+	 * @param maxWorkers Maximum number of ephemerous consumers running at once
+	 * @param targetDrainTime Time (in milliseconds) in which the digester aims to drain the current backlog
 	 * @param <T> Type of digested items
 	 *
 	 * @return A new digester instance
 	 */
 	public static <T> Digester<T> create(Take<T> take, Poll<T> poll, SuccessAction<T> successAction,
-			FailAction<T> failAction, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
-		return new Digester<T>(take, poll, successAction, failAction, failRateThreshold, suspendTimeOnHighFailRate);
+			FailAction<T> failAction, Float failRateThreshold, Long suspendTimeOnHighFailRate, int maxWorkers, long targetDrainTime) {
+		return new Digester<T>(take, poll, successAction, failAction, failRateThreshold, suspendTimeOnHighFailRate, maxWorkers, targetDrainTime);
 	}
 
 	/**
-	 * Suggest adding a new ephemerous consumer to this digester's internal thread pool. This doesn't necessarily result in a new thread, because the digester may deem itself unreliable and refuse thread creation.
+	 * Adjust the number of ephemerous consumers to the current backlog. New consumers are added if the backlog cannot be
+	 * drained within the target drain time, up to the maximum worker count. No consumers are added while the digester
+	 * deems itself unreliable (fail rate over threshold). Superfluous consumers are not killed, they terminate on their own
+	 * once the structure runs dry.
+	 *
+	 * @param queueDepth Number of items waiting in the digested structure
+	 */
+	public void balance(int queueDepth) {
+		final double itemLatency = estimateItemLatencyMillis();
+		final int wanted = (failRateMonitor.getFailRate() < failRateThreshold) ? wantedWorkers(queueDepth, itemLatency, targetDrainTime, maxWorkers) : 0;
+
+		int running;
+		while ((running = workers.get()) < wanted) {
+			if (!workers.compareAndSet(running, running + 1)) {
+				continue;
+			}
+			try {
+				pool.execute(tracked(createEphemerousConsumer()));
+			} catch (RejectedExecutionException e) {
+				workers.decrementAndGet();
+				log.debug("Reinforcement consumer rejected by the worker pool.");
+				break;
+			}
+		}
+		statistics.balanced(queueDepth, workers.get(), itemLatency);
+	}
+
+	/**
+	 * Compute the number of ephemerous consumers needed to drain a backlog in time
+	 *
+	 * @param queueDepth Number of waiting items
+	 * @param itemLatencyMillis Time (in milliseconds) it takes one consumer to process one item; <code>0</code> if unknown
+	 * @param targetDrainTime Time (in milliseconds) the backlog should be drained in
+	 * @param maxWorkers Upper bound on the result
+	 *
+	 * @return Wanted number of ephemerous consumers (the lingering consumer not included)
 	 */
-	public void addNewWorkingThread() {
-		if(failRateMonitor.getFailRate() < failRateThreshold) {
-			pool.execute(new EphemerousConsumer<T>(poll, successAction, failAction, failRateMonitor));
+	static int wantedWorkers(int queueDepth, double itemLatencyMillis, long targetDrainTime, int maxWorkers) {
+		if (queueDepth <= 0) {
+			return 0;
+		}
+		if (itemLatencyMillis <= 0) {
+			// no latency samples yet, reinforce carefully
+			return Math.min(1, maxWorkers);
 		}
+		final double consumers = Math.ceil(queueDepth * itemLatencyMillis / targetDrainTime);
+		return (int) Math.max(0, Math.min(maxWorkers, consumers - 1));
+	}
+
+	/**
+	 * Estimate the time it takes one consumer to process one item
+	 *
+	 * @return Per-item latency (in milliseconds); <code>0</code> if unknown
+	 */
+	protected double estimateItemLatencyMillis() {
+		return statistics.getMeasuredItemLatencyMillis();
+	}
+
+	/**
+	 * Get worker pool statistics of this digester
+	 *
+	 * @return Digester statistics
+	 */
+	DigesterStatistics getStatistics() {
+		return statistics;
 	}
 
 	@Override
 	public void start() {
-		pool.execute(new LingeringConsumer<T>(take, successAction, failAction, failRateMonitor, failRateThreshold, suspendTimeOnHighFailRate));
+		pool.execute(createLingeringConsumer());
+	}
+
+	/**
+	 * Create the consumer that keeps draining the structure for the whole lifetime of this digester
+	 *
+	 * @return The lingering consumer
+	 */
+	protected Runnable createLingeringConsumer() {
+		return new LingeringConsumer<T>(take, successAction, failAction, failRateMonitor, failRateThreshold, suspendTimeOnHighFailRate);
+	}
+
+	/**
+	 * Create a reinforcement consumer that terminates once the structure is drained
+	 *
+	 * @return The ephemerous consumer
+	 */
+	protected Runnable createEphemerousConsumer() {
+		return new EphemerousConsumer<T>(poll, successAction, failAction, failRateMonitor);
 	}
 
 	@Override
@@ -84,6 +179,30 @@ public class Digester<T> implements Service, Reapable {
 		}
 	}
 
+	private Runnable tracked(final Runnable consumer) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				try {
+					consumer.run();
+				} finally {
+					workers.decrementAndGet();
+				}
+			}
+		};
+	}
+
+	private static <T> SuccessAction<T> timed(final SuccessAction<T> action, final DigesterStatistics statistics) {
+		return new SuccessAction<T>() {
+			@Override
+			public void perform(T what) throws Exception {
+				final long start = System.nanoTime();
+				action.perform(what);
+				statistics.itemsProcessed(1, System.nanoTime() - start);
+			}
+		};
+	}
+
 	@Override
 	public Reaper createReaper() {
 		return new Reaper() {
@@ -0,0 +1,97 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker pool and queue depth gauges of a {@link Digester}.
+ */
+class DigesterStatistics {
+
+	/** Weight of the newest sample in the item latency moving average */
+	private static final double LATENCY_SMOOTHING = 0.2;
+
+	private final int maxWorkers;
+	private int queueDepth = 0;
+	private int workers = 0;
+	private int peakWorkers = 0;
+	private double itemLatencyMillis = 0;
+	private double measuredItemLatencyMillis = 0;
+	private boolean latencySampled = false;
+
+	DigesterStatistics(int maxWorkers) {
+		this.maxWorkers = maxWorkers;
+	}
+
+	/**
+	 * Record the processing of digested items
+	 *
+	 * @param count Number of items processed
+	 * @param nanos Time (in nanoseconds) it took to process them
+	 */
+	synchronized void itemsProcessed(int count, long nanos) {
+		if (count <= 0) {
+			return;
+		}
+		final double sample = ((double) nanos) / TimeUnit.MILLISECONDS.toNanos(1) / count;
+		measuredItemLatencyMillis = latencySampled ? (LATENCY_SMOOTHING * sample + (1 - LATENCY_SMOOTHING) * measuredItemLatencyMillis) : sample;
+		latencySampled = true;
+	}
+
+	/**
+	 * Record the state observed by a load balance
+	 *
+	 * @param queueDepth Number of items waiting in the queue
+	 * @param workers Number of reinforcement threads running after the balance
+	 * @param itemLatencyMillis Per-item latency estimate the balance was based on
+	 */
+	synchronized void balanced(int queueDepth, int workers, double itemLatencyMillis) {
+		this.queueDepth = queueDepth;
+		this.workers = workers;
+		this.itemLatencyMillis = itemLatencyMillis;
+		if (workers > peakWorkers) {
+			peakWorkers = workers;
+		}
+	}
+
+	/**
+	 * @return Number of items waiting in the queue at the last balance
+	 */
+	synchronized int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * @return Number of reinforcement threads running at the last balance
+	 */
+	synchronized int getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * @return Highest number of reinforcement threads that ran at once
+	 */
+	synchronized int getPeakWorkers() {
+		return peakWorkers;
+	}
+
+	/**
+	 * @return Maximum number of reinforcement threads allowed
+	 */
+	int getMaxWorkers() {
+		return maxWorkers;
+	}
+
+	/**
+	 * @return Per-item latency estimate (in milliseconds) used by the last balance
+	 */
+	synchronized double getItemLatencyMillis() {
+		return itemLatencyMillis;
+	}
+
+	/**
+	 * @return Moving average of the time (in milliseconds) it takes to process one item, as recorded by {@link #itemsProcessed(int, long)}; <code>0</code> before any item is processed
+	 */
+	synchronized double getMeasuredItemLatencyMillis() {
+		return measuredItemLatencyMillis;
+	}
+}
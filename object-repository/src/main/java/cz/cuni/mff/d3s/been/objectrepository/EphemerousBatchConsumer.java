@@ -0,0 +1,45 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.storage.Storage;
+
+/**
+ * An ephemerous batch consumer thread (it dies once consumable objects run out)
+ */
+class EphemerousBatchConsumer extends BatchConsumer {
+
+	private static final Logger log = LoggerFactory.getLogger(EphemerousBatchConsumer.class);
+
+	private final BatchPoll<EntityCarrier> poll;
+
+	EphemerousBatchConsumer(BatchPoll<EntityCarrier> poll, Storage storage, FailAction<EntityCarrier> failAction, FailRate failRateMonitor, BatchStatistics statistics, int batchSize) {
+		super(storage, failAction, failRateMonitor, statistics, batchSize);
+		this.poll = poll;
+	}
+
+	@Override
+	public void run() {
+		try {
+			doRun();
+		} catch (Throwable t) {
+			log.error("Ephemerous batch consumer thread died.", t);
+		}
+	}
+
+	private void doRun() {
+		log.debug("Thread starting.");
+		while (!Thread.currentThread().isInterrupted()) {
+			final List<EntityCarrier> batch = poll.perform(batchSize);
+			if (batch.isEmpty() || !act(batch)) {
+				// there is nothing to do (or the storage is failing), end execution (this thread is ephemerous)
+				break;
+			}
+		}
+		log.debug("Thread terminating.");
+	}
+}
@@ -0,0 +1,52 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.storage.Storage;
+
+/**
+ * A lingering batch consumer thread (doesn't die once drainable objects run out)
+ */
+class LingeringBatchConsumer extends BatchConsumer {
+
+	private static final Logger log = LoggerFactory.getLogger(LingeringBatchConsumer.class);
+
+	private final BatchTake<EntityCarrier> take;
+	private final long batchTimeout;
+	private final Float failRateThreshold;
+	private final Long suspendTimeOnHighFailRate;
+
+	LingeringBatchConsumer(BatchTake<EntityCarrier> take, Storage storage, FailAction<EntityCarrier> failAction, FailRate failRateMonitor, BatchStatistics statistics, int batchSize, long batchTimeout, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
+		super(storage, failAction, failRateMonitor, statistics, batchSize);
+		this.take = take;
+		this.batchTimeout = batchTimeout;
+		this.failRateThreshold = failRateThreshold;
+		this.suspendTimeOnHighFailRate = suspendTimeOnHighFailRate;
+	}
+
+	@Override
+	public void run() {
+		try {
+			innerRun();
+		} catch (Throwable e) {
+			log.error(e.getMessage(), e);
+		}
+	}
+
+	private void innerRun() {
+		log.debug("Thread starting.");
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				if (!act(take.perform(batchSize, batchTimeout)) && (failRateMonitor.getFailRate() >= failRateThreshold)) {
+					Thread.sleep(suspendTimeOnHighFailRate);
+				}
+			} catch (InterruptedException e) {
+				log.warn("Lingering batch consumer interrupted.");
+				Thread.currentThread().interrupt();
+			}
+		}
+		log.debug("Thread terminating.");
+	}
+}
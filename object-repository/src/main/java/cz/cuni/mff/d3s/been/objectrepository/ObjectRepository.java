@@ -1,7 +1,8 @@
 package cz.cuni.mff.d3s.been.objectrepository;
 
-import static cz.cuni.mff.d3s.been.objectrepository.ObjectRepositoryServiceInfoConstants.SERVICE_NAME;
+import static cz.cuni.mff.d3s.been.objectrepository.ObjectRepositoryServiceInfoConstants.*;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -93,6 +94,9 @@ public final class ObjectRepository implements IClusterService {
 					info.setServiceInfo("Storage is disconnected");
 					info.setServiceState(ServiceState.WARN);
 				}
+				publishBatchStatistics();
+				publishDigesterStatistics();
+				publishStorageStatistics();
 				super.run();
 			}
 		};
@@ -102,6 +106,35 @@ public final class ObjectRepository implements IClusterService {
 		log.info("ObjectRepository started.");
 	}
 
+	private void publishBatchStatistics() {
+		final BatchStatistics stats = entityDrain.getBatchStatistics();
+		info.setParam(PARAM_BATCH_COUNT, stats.getBatchCount());
+		info.setParam(PARAM_BATCH_ITEMS, stats.getItemCount());
+		info.setParam(PARAM_BATCH_AVG_SIZE, stats.getAverageBatchSize());
+		info.setParam(PARAM_BATCH_AVG_LATENCY, stats.getAverageLatencyMillis());
+		info.setParam(PARAM_BATCH_MAX_LATENCY, stats.getMaxLatencyMillis());
+		info.setParam(PARAM_BATCH_LAST_SIZE, stats.getLastBatchSize());
+		info.setParam(PARAM_BATCH_LAST_LATENCY, stats.getLastLatencyMillis());
+		info.setParam(PARAM_BATCH_THROUGHPUT, stats.getThroughput());
+	}
+
+	private void publishDigesterStatistics() {
+		final DigesterStatistics digesterStats = entityDrain.getDigesterStatistics();
+		info.setParam(PARAM_QUEUE_DEPTH, digesterStats.getQueueDepth());
+		info.setParam(PARAM_DIGESTER_WORKERS, digesterStats.getWorkers());
+		info.setParam(PARAM_DIGESTER_PEAK_WORKERS, digesterStats.getPeakWorkers());
+		info.setParam(PARAM_DIGESTER_MAX_WORKERS, digesterStats.getMaxWorkers());
+		info.setParam(PARAM_DIGESTER_ITEM_LATENCY, digesterStats.getItemLatencyMillis());
+		info.setParam(PARAM_BACKPRESSURE_ENGAGED, entityDrain.getBackpressure().isEngaged());
+		info.setParam(PARAM_BACKPRESSURE_COUNT, entityDrain.getBackpressure().getEngagedCount());
+	}
+
+	private void publishStorageStatistics() {
+		for (Map.Entry<String, Object> statistic : storage.getStatistics().entrySet()) {
+			info.setParam(statistic.getKey(), statistic.getValue());
+		}
+	}
+
 	@Override
 	public void stop() {
 		log.info("Stopping ObjectRepository...");
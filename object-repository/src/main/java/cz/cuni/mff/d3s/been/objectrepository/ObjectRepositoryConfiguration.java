@@ -17,4 +17,34 @@ public final class ObjectRepositoryConfiguration {
 	public static final String SUSPENSION_TIME = "been.objectrepository.suspend-time";
 	/** By default, BEEN repository will suspend its activity for {@value} seconds if the persistence layer fail rate is too high. */
 	public static final Long DEFAULT_SUSPENSION_TIME = 60l;
+
+	/** Property that determines the maximum number of persistence queue items drained into one bulk write. */
+	public static final String BATCH_SIZE = "been.objectrepository.batch-size";
+	/** By default, BEEN repository will write at most {@value} entities in one bulk write. Setting this to 1 disables batching. */
+	public static final Integer DEFAULT_BATCH_SIZE = 256;
+
+	/** Property that determines how long the repository waits for a batch to fill up (in milliseconds). */
+	public static final String BATCH_TIMEOUT = "been.objectrepository.batch-timeout";
+	/** By default, BEEN repository will wait at most {@value} milliseconds for a batch to fill up before writing it. */
+	public static final Long DEFAULT_BATCH_TIMEOUT = 200l;
+
+	/** Property that determines the maximum number of reinforcement threads a queue digester may run next to its lingering consumer. */
+	public static final String MAX_WORKERS = "been.objectrepository.max-workers";
+	/** By default, BEEN repository will run at most {@value} reinforcement threads per drained queue. */
+	public static final Integer DEFAULT_MAX_WORKERS = 8;
+
+	/** Property that determines the time (in milliseconds) in which the digester aims to drain the current queue backlog; the worker count is sized from it. */
+	public static final String TARGET_DRAIN_TIME = "been.objectrepository.target-drain-time";
+	/** By default, BEEN repository sizes its worker pool to drain the queue backlog in {@value} milliseconds. */
+	public static final Long DEFAULT_TARGET_DRAIN_TIME = 1000l;
+
+	/** Property that carries the persistence queue depth at which producers are asked to slow down. */
+	public static final String QUEUE_HIGH_WATER_MARK = "been.objectrepository.queue-high-water-mark";
+	/** By default, producers are throttled once {@value} entities wait in the persistence queue. */
+	public static final Integer DEFAULT_QUEUE_HIGH_WATER_MARK = 10000;
+
+	/** Property that carries the persistence queue depth at which producer throttling is lifted. */
+	public static final String QUEUE_LOW_WATER_MARK = "been.objectrepository.queue-low-water-mark";
+	/** By default, producer throttling is lifted once the persistence queue depth falls to {@value} entities. */
+	public static final Integer DEFAULT_QUEUE_LOW_WATER_MARK = 5000;
 }
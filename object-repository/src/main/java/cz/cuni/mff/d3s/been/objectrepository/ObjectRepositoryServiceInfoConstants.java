@@ -12,4 +12,79 @@ public class ObjectRepositoryServiceInfoConstants {
 	 */
 	public static final String SERVICE_NAME = "OBJECT REPOSITORY";
 
+	/**
+	 * Number of bulk writes performed by the persistence queue drain
+	 */
+	public static final String PARAM_BATCH_COUNT = "objectrepository.batch.count";
+
+	/**
+	 * Number of entities persisted through bulk writes
+	 */
+	public static final String PARAM_BATCH_ITEMS = "objectrepository.batch.items";
+
+	/**
+	 * Average number of entities in one bulk write
+	 */
+	public static final String PARAM_BATCH_AVG_SIZE = "objectrepository.batch.avg-size";
+
+	/**
+	 * Average duration of one bulk write (in milliseconds)
+	 */
+	public static final String PARAM_BATCH_AVG_LATENCY = "objectrepository.batch.avg-latency-ms";
+
+	/**
+	 * Longest duration of one bulk write (in milliseconds)
+	 */
+	public static final String PARAM_BATCH_MAX_LATENCY = "objectrepository.batch.max-latency-ms";
+
+	/**
+	 * Number of entities in the last bulk write
+	 */
+	public static final String PARAM_BATCH_LAST_SIZE = "objectrepository.batch.last-size";
+
+	/**
+	 * Duration of the last bulk write (in milliseconds)
+	 */
+	public static final String PARAM_BATCH_LAST_LATENCY = "objectrepository.batch.last-latency-ms";
+
+	/**
+	 * Number of entities persisted per second of write time
+	 */
+	public static final String PARAM_BATCH_THROUGHPUT = "objectrepository.batch.throughput";
+
+	/**
+	 * Number of entities waiting in the persistence queue, as last observed
+	 */
+	public static final String PARAM_QUEUE_DEPTH = "objectrepository.queue.depth";
+
+	/**
+	 * Number of reinforcement threads currently draining the persistence queue
+	 */
+	public static final String PARAM_DIGESTER_WORKERS = "objectrepository.digester.workers";
+
+	/**
+	 * Highest number of reinforcement threads that drained the persistence queue at once
+	 */
+	public static final String PARAM_DIGESTER_PEAK_WORKERS = "objectrepository.digester.peak-workers";
+
+	/**
+	 * Maximum number of reinforcement threads allowed to drain the persistence queue
+	 */
+	public static final String PARAM_DIGESTER_MAX_WORKERS = "objectrepository.digester.max-workers";
+
+	/**
+	 * Time (in milliseconds) it takes to persist one entity, as last estimated
+	 */
+	public static final String PARAM_DIGESTER_ITEM_LATENCY = "objectrepository.digester.item-latency-ms";
+
+	/**
+	 * Whether producers are currently asked to slow down
+	 */
+	public static final String PARAM_BACKPRESSURE_ENGAGED = "objectrepository.backpressure.engaged";
+
+	/**
+	 * Number of times producers were asked to slow down
+	 */
+	public static final String PARAM_BACKPRESSURE_COUNT = "objectrepository.backpressure.count";
+
 }
@@ -0,0 +1,85 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.IMap;
+
+/**
+ * Asks persistence producers to slow down while a drained queue is congested.
+ *
+ * The congestion is announced by an entry in a shared map, which producers consult before enqueueing (see
+ * {@link cz.cuni.mff.d3s.been.cluster.context.Persistence#awaitPersistenceCapacity()}). The entry is engaged once the
+ * queue depth reaches the high-water mark and removed once it falls to the low-water mark. While engaged, the entry
+ * is refreshed with every depth check; it expires on its own if the repository stops refreshing it (e.g. when it dies).
+ */
+class PersistenceBackpressure {
+
+	private static final Logger log = LoggerFactory.getLogger(PersistenceBackpressure.class);
+
+	/** Time (in seconds) after which an entry that is not refreshed expires */
+	private static final long ENTRY_TTL_SECONDS = 10;
+
+	private final IMap<String, Integer> backpressureMap;
+	private final String queueName;
+	private final int highWaterMark;
+	private final int lowWaterMark;
+
+	private boolean engaged = false;
+	private long engagedCount = 0;
+
+	PersistenceBackpressure(IMap<String, Integer> backpressureMap, String queueName, int highWaterMark, int lowWaterMark) {
+		this.backpressureMap = backpressureMap;
+		this.queueName = queueName;
+		this.highWaterMark = highWaterMark;
+		this.lowWaterMark = Math.min(lowWaterMark, highWaterMark);
+	}
+
+	/**
+	 * Engage, refresh or lift the backpressure according to the current queue depth
+	 *
+	 * @param depth Number of items in the queue
+	 */
+	synchronized void update(int depth) {
+		if (depth >= highWaterMark) {
+			backpressureMap.put(queueName, depth, ENTRY_TTL_SECONDS, TimeUnit.SECONDS);
+			if (!engaged) {
+				engaged = true;
+				++engagedCount;
+				log.warn("Queue '{}' holds {} items, asking producers to slow down.", queueName, depth);
+			}
+		} else if (engaged && depth > lowWaterMark) {
+			// keep the entry alive until the queue drains to the low-water mark
+			backpressureMap.put(queueName, depth, ENTRY_TTL_SECONDS, TimeUnit.SECONDS);
+		} else if (engaged) {
+			release();
+			log.info("Queue '{}' drained to {} items, producers may proceed at full speed.", queueName, depth);
+		}
+	}
+
+	/**
+	 * Lift the backpressure regardless of the queue depth
+	 */
+	synchronized void release() {
+		if (engaged) {
+			backpressureMap.remove(queueName);
+			engaged = false;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if producers are currently asked to slow down
+	 */
+	synchronized boolean isEngaged() {
+		return engaged;
+	}
+
+	/**
+	 * @return Number of times the backpressure was engaged
+	 */
+	synchronized long getEngagedCount() {
+		return engagedCount;
+	}
+}
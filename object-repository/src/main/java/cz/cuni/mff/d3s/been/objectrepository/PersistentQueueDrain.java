@@ -1,10 +1,13 @@
 package cz.cuni.mff.d3s.been.objectrepository;
 
 import static cz.cuni.mff.d3s.been.objectrepository.ObjectRepositoryConfiguration.*;
+import cz.cuni.mff.d3s.been.cluster.Names;
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
 import cz.cuni.mff.d3s.been.util.PropertyReader;
 import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.persistence.SuccessAction;
 import cz.cuni.mff.d3s.been.storage.Storage;
+import com.hazelcast.core.IQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,10 +20,18 @@ public final class PersistentQueueDrain extends QueueDrain<EntityCarrier> {
 
 	private static final Logger log = LoggerFactory.getLogger(PersistentQueueDrain.class);
 	private final Storage storage;
+	private final int batchSize;
+	private final long batchTimeout;
+	private final BatchStatistics batchStatistics;
+	private final PersistenceBackpressure backpressure;
 
-	private PersistentQueueDrain(ClusterContext ctx, String queueName, Storage storage, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
-		super(ctx, queueName, storage.createPersistAction(), failRateThreshold, suspendTimeOnHighFailRate);
+	private PersistentQueueDrain(ClusterContext ctx, String queueName, Storage storage, Float failRateThreshold, Long suspendTimeOnHighFailRate, int batchSize, long batchTimeout, int maxWorkers, long targetDrainTime, PersistenceBackpressure backpressure) {
+		super(ctx, queueName, storage.createPersistAction(), failRateThreshold, suspendTimeOnHighFailRate, maxWorkers, targetDrainTime);
 		this.storage = storage;
+		this.batchSize = batchSize;
+		this.batchTimeout = batchTimeout;
+		this.batchStatistics = new BatchStatistics();
+		this.backpressure = backpressure;
 	}
 
 	/**
@@ -36,7 +47,66 @@ public final class PersistentQueueDrain extends QueueDrain<EntityCarrier> {
 		final PropertyReader propertyReader = PropertyReader.on(ctx.getProperties());
 		final Float failRateThreshold = propertyReader.getFloat(FAIL_RATE_BEFORE_SUSPEND, DEFAULT_FAIL_RATE_BEFORE_SUSPEND);
 		final Long suspendTimeOnHighFailRate = TimeUnit.SECONDS.toMillis(propertyReader.getLong(SUSPENSION_TIME, DEFAULT_SUSPENSION_TIME));
+		final Integer batchSize = propertyReader.getInteger(BATCH_SIZE, DEFAULT_BATCH_SIZE);
+		final Long batchTimeout = propertyReader.getLong(BATCH_TIMEOUT, DEFAULT_BATCH_TIMEOUT);
+		final Integer maxWorkers = propertyReader.getInteger(MAX_WORKERS, DEFAULT_MAX_WORKERS);
+		final Long targetDrainTime = propertyReader.getLong(TARGET_DRAIN_TIME, DEFAULT_TARGET_DRAIN_TIME);
+		final Integer highWaterMark = propertyReader.getInteger(QUEUE_HIGH_WATER_MARK, DEFAULT_QUEUE_HIGH_WATER_MARK);
+		final Integer lowWaterMark = propertyReader.getInteger(QUEUE_LOW_WATER_MARK, DEFAULT_QUEUE_LOW_WATER_MARK);
 
-		return new PersistentQueueDrain(ctx, queueName, storage, failRateThreshold, suspendTimeOnHighFailRate);
+		final PersistenceBackpressure backpressure = new PersistenceBackpressure(ctx.<String, Integer> getMap(Names.PERSISTENCE_BACKPRESSURE_MAP_NAME), queueName, highWaterMark, lowWaterMark);
+		return new PersistentQueueDrain(ctx, queueName, storage, failRateThreshold, suspendTimeOnHighFailRate, batchSize, batchTimeout, maxWorkers, targetDrainTime, backpressure);
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		backpressure.release();
+	}
+
+	@Override
+	protected void queueDepthChecked(int depth) {
+		backpressure.update(depth);
+	}
+
+	@Override
+	protected Digester<EntityCarrier> createDigester(SuccessAction<EntityCarrier> successAction, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
+		if (batchSize <= 1) {
+			log.info("Persistence queue batching disabled, entities will be stored one by one.");
+			return super.createDigester(successAction, failRateThreshold, suspendTimeOnHighFailRate);
+		}
+		final IQueue<EntityCarrier> queue = getQueue();
+		return new BatchDigester(
+				createTakeAction(),
+				createPollAction(),
+				new QueueBatchTake<EntityCarrier>(queue),
+				new QueueBatchPoll<EntityCarrier>(queue),
+				storage,
+				createFailAction(),
+				failRateThreshold,
+				suspendTimeOnHighFailRate,
+				batchSize,
+				batchTimeout,
+				batchStatistics,
+				maxWorkers,
+				targetDrainTime);
+	}
+
+	/**
+	 * Get throughput and latency statistics of bulk writes performed by this drain
+	 *
+	 * @return Batch statistics
+	 */
+	BatchStatistics getBatchStatistics() {
+		return batchStatistics;
+	}
+
+	/**
+	 * Get the producer throttle of this drain
+	 *
+	 * @return Backpressure of the drained queue
+	 */
+	PersistenceBackpressure getBackpressure() {
+		return backpressure;
 	}
 }
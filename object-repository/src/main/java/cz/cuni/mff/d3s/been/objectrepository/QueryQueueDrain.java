@@ -19,8 +19,8 @@ import static cz.cuni.mff.d3s.been.objectrepository.ObjectRepositoryConfiguratio
 public class QueryQueueDrain extends QueueDrain<Query> {
 
 
-	private QueryQueueDrain(ClusterContext ctx, SuccessAction<Query> successAction, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
-		super(ctx, Names.PERSISTENCE_QUERY_QUEUE_NAME, successAction, failRateThreshold, suspendTimeOnHighFailRate);
+	private QueryQueueDrain(ClusterContext ctx, SuccessAction<Query> successAction, Float failRateThreshold, Long suspendTimeOnHighFailRate, int maxWorkers, long targetDrainTime) {
+		super(ctx, Names.PERSISTENCE_QUERY_QUEUE_NAME, successAction, failRateThreshold, suspendTimeOnHighFailRate, maxWorkers, targetDrainTime);
 	}
 
 	/**
@@ -38,8 +38,10 @@ public class QueryQueueDrain extends QueueDrain<Query> {
 		final Long queryTimeout = TimeUnit.SECONDS.toMillis(propertyReader.getLong(QUERY_TIMEOUT, DEFAULT_QUERY_TIMEOUT));
 		final Long queryProcTimeout = TimeUnit.SECONDS.toMillis(propertyReader.getLong(QUERY_PROCESSING_TIMEOUT, DEFAULT_QUERY_PROCESSING_TIMEOUT));
 		final Long maxTotalQueryTimeout = queryTimeout + queryProcTimeout;
+		final Integer maxWorkers = propertyReader.getInteger(MAX_WORKERS, DEFAULT_MAX_WORKERS);
+		final Long targetDrainTime = propertyReader.getLong(TARGET_DRAIN_TIME, DEFAULT_TARGET_DRAIN_TIME);
 
 		final SuccessAction<Query> action = new AnswerQueryAction(storage, ctx.getMap(Names.PERSISTENCE_QUERY_ANSWERS_MAP_NAME), maxTotalQueryTimeout);
-		return new QueryQueueDrain(ctx, action, failRateThreshold, suspendTimeOnHighFailRate);
+		return new QueryQueueDrain(ctx, action, failRateThreshold, suspendTimeOnHighFailRate, maxWorkers, targetDrainTime);
 	}
 }
@@ -0,0 +1,26 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.hazelcast.core.IQueue;
+
+/**
+ * Batch poll action on an {@link IQueue}
+ *
+ * @param <T> Type of items polled
+ */
+public class QueueBatchPoll<T> implements BatchPoll<T> {
+	private final IQueue<T> queue;
+
+	QueueBatchPoll(IQueue<T> queue) {
+		this.queue = queue;
+	}
+
+	@Override
+	public List<T> perform(int maxItems) {
+		final List<T> batch = new ArrayList<T>();
+		queue.drainTo(batch, maxItems);
+		return batch;
+	}
+}
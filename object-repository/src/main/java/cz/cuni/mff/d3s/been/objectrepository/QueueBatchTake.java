@@ -0,0 +1,46 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hazelcast.core.IQueue;
+
+/**
+ * Batch take action on an {@link IQueue}
+ *
+ * @param <T> Type of items taken
+ */
+public class QueueBatchTake<T> implements BatchTake<T> {
+	private final IQueue<T> queue;
+
+	QueueBatchTake(IQueue<T> queue) {
+		this.queue = queue;
+	}
+
+	@Override
+	public List<T> perform(int maxItems, long timeoutMillis) throws InterruptedException {
+		final List<T> batch = new ArrayList<T>(maxItems);
+		final T first = queue.take();
+		if (first == null) {
+			// Hazelcast queue yields null rather than throwing when interrupted, see LingeringConsumer
+			throw new InterruptedException("Queue take yielded null item.");
+		}
+		batch.add(first);
+
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (batch.size() < maxItems) {
+			queue.drainTo(batch, maxItems - batch.size());
+			final long remaining = deadline - System.currentTimeMillis();
+			if (batch.size() >= maxItems || remaining <= 0) {
+				break;
+			}
+			final T next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+			if (next == null) {
+				break;
+			}
+			batch.add(next);
+		}
+		return batch;
+	}
+}
@@ -1,5 +1,13 @@
 package cz.cuni.mff.d3s.been.objectrepository;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.hazelcast.core.IQueue;
 
 import cz.cuni.mff.d3s.been.cluster.Service;
@@ -10,45 +18,115 @@ import cz.cuni.mff.d3s.been.persistence.SuccessAction;
 /**
  * A generic drain for a generic distributed queue.
  * 
+ * The drain periodically checks the depth of the drained queue and lets its
+ * {@link Digester} balance its worker pool accordingly.
+ * 
  * @author darklight
  *
  * @param <T> Type of items in the drained queue
  */
 abstract class QueueDrain<T> implements Service {
 
+	private static final Logger log = LoggerFactory.getLogger(QueueDrain.class);
+
+	/** Period (in milliseconds) of queue depth checks */
+	private static final long BALANCE_PERIOD_MILLIS = 250;
+
 	private final Float failRateThreshold;
 	private final Long suspendTimeOnHighFailRate;
 	private final String queueName;
 	private final ClusterContext ctx;
 	private final SuccessAction<T> successAction;
+	protected final int maxWorkers;
+	protected final long targetDrainTime;
 	private IQueue<T> queue;
 	private Digester<T> digester;
-	private ItemCounterListener<T> itemListener;
+	private ScheduledExecutorService balancer;
 
-	protected QueueDrain(ClusterContext ctx, String queueName, SuccessAction<T> successAction, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
+	protected QueueDrain(ClusterContext ctx, String queueName, SuccessAction<T> successAction, Float failRateThreshold, Long suspendTimeOnHighFailRate, int maxWorkers, long targetDrainTime) {
 		this.ctx = ctx;
 		this.queueName = queueName;
 		this.successAction = successAction;
 		this.failRateThreshold = failRateThreshold;
 		this.suspendTimeOnHighFailRate = suspendTimeOnHighFailRate;
+		this.maxWorkers = maxWorkers;
+		this.targetDrainTime = targetDrainTime;
 	}
 
 	@Override
 	public void start() throws ServiceException {
 		queue = ctx.getQueue(queueName);
-		digester = Digester.create(createTakeAction(), createPollAction(), successAction, createFailAction(), failRateThreshold, suspendTimeOnHighFailRate);
-		itemListener = ItemCounterListener.create(digester);
+		digester = createDigester(successAction, failRateThreshold, suspendTimeOnHighFailRate);
 
 		digester.start();
-		queue.addItemListener(itemListener, false);
+		balancer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r, queueName + "-balancer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		balancer.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					balance();
+				} catch (Throwable t) {
+					log.warn("Failed to balance drain of queue '{}'", queueName, t);
+				}
+			}
+		}, 0, BALANCE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
 	}
 
 	@Override
 	public void stop() {
-		queue.removeItemListener(itemListener);
+		balancer.shutdownNow();
 		digester.stop();
 	}
 
+	/**
+	 * Check the depth of the drained queue and balance the digester against it
+	 */
+	void balance() {
+		final int depth = queue.size();
+		digester.balance(depth);
+		queueDepthChecked(depth);
+	}
+
+	/**
+	 * Hook called after each check of the drained queue's depth. Does nothing by default.
+	 *
+	 * @param depth Number of items in the drained queue
+	 */
+	protected void queueDepthChecked(int depth) {}
+
+	/**
+	 * Create the digester that consumes items of the drained queue
+	 *
+	 * @param successAction Action to perform on drained items
+	 * @param failRateThreshold Rate of failure at which the digester suspends temporarily
+	 * @param suspendTimeOnHighFailRate Time (in milliseconds) the digester suspends for on high fail rate
+	 *
+	 * @return The digester
+	 */
+	protected Digester<T> createDigester(SuccessAction<T> successAction, Float failRateThreshold, Long suspendTimeOnHighFailRate) {
+		return Digester.create(createTakeAction(), createPollAction(), successAction, createFailAction(), failRateThreshold, suspendTimeOnHighFailRate, maxWorkers, targetDrainTime);
+	}
+
+	/**
+	 * Get worker pool statistics of this drain's digester
+	 *
+	 * @return Digester statistics
+	 */
+	DigesterStatistics getDigesterStatistics() {
+		return digester.getStatistics();
+	}
+
+	protected IQueue<T> getQueue() {
+		return queue;
+	}
+
 	protected Take<T> createTakeAction() {
 		return new QueueTake<T>(queue);
 	}
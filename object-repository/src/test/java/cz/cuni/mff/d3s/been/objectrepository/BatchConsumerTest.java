@@ -0,0 +1,75 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import cz.cuni.mff.d3s.been.persistence.DAOException;
+import cz.cuni.mff.d3s.been.storage.Storage;
+
+/**
+ * Test for {@link BatchConsumer}
+ */
+public class BatchConsumerTest {
+
+	private static final EntityID RESULTS = new EntityID().withKind("result").withGroup("a");
+	private static final EntityID LOGS = new EntityID().withKind("log").withGroup("task");
+
+	private Storage storage;
+	private FailAction<EntityCarrier> failAction;
+	private BatchStatistics statistics;
+	private BatchConsumer consumer;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		storage = mock(Storage.class);
+		failAction = mock(FailAction.class);
+		statistics = new BatchStatistics();
+		consumer = new BatchConsumer(storage, failAction, new FailRate(), statistics, 16) {
+			@Override
+			public void run() {}
+		};
+	}
+
+	@Test
+	public void testGroupsByEntityId() throws DAOException {
+		final List<EntityCarrier> batch = Arrays.asList(carrier(RESULTS, "{r:1}"), carrier(LOGS, "{l:1}"), carrier(RESULTS, "{r:2}"));
+
+		assertTrue(consumer.act(batch));
+
+		verify(storage).storeAll(RESULTS, Arrays.asList("{r:1}", "{r:2}"));
+		verify(storage).storeAll(LOGS, Arrays.asList("{l:1}"));
+		verifyZeroInteractions(failAction);
+		assertEquals(1, statistics.getBatchCount());
+		assertEquals(3, statistics.getItemCount());
+		assertEquals(3, statistics.getLastBatchSize());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRequeuesOnlyFailedGroup() throws DAOException {
+		final EntityCarrier log = carrier(LOGS, "{l:1}");
+		doThrow(new DAOException("down")).when(storage).storeAll(eq(LOGS), any(Collection.class));
+
+		assertFalse(consumer.act(Arrays.asList(carrier(RESULTS, "{r:1}"), log)));
+
+		verify(failAction).perform(log);
+		verifyNoMoreInteractions(failAction);
+		verify(storage).storeAll(RESULTS, Arrays.asList("{r:1}"));
+	}
+
+	private static EntityCarrier carrier(EntityID id, String json) {
+		return new EntityCarrier().withId(id).withData(json);
+	}
+}
@@ -0,0 +1,40 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test for the worker pool sizing of {@link Digester}
+ */
+public class DigesterTest {
+
+	@Test
+	public void testNoWorkersForEmptyQueue() {
+		assertEquals(0, Digester.wantedWorkers(0, 5.0, 1000, 8));
+	}
+
+	@Test
+	public void testSingleWorkerWithoutLatencySamples() {
+		assertEquals(1, Digester.wantedWorkers(5000, 0, 1000, 8));
+		assertEquals(0, Digester.wantedWorkers(5000, 0, 1000, 0));
+	}
+
+	@Test
+	public void testLingeringConsumerSufficesForSmallBacklog() {
+		// 100 items at 5ms each drain in 500ms with the lingering consumer alone
+		assertEquals(0, Digester.wantedWorkers(100, 5.0, 1000, 8));
+	}
+
+	@Test
+	public void testSizesFromLatencyAndDepth() {
+		// 1000 items at 2ms each need 2 consumers to drain in 1s, the lingering one included
+		assertEquals(1, Digester.wantedWorkers(1000, 2.0, 1000, 8));
+		assertEquals(3, Digester.wantedWorkers(2000, 2.0, 1000, 8));
+	}
+
+	@Test
+	public void testBoundedByMaxWorkers() {
+		assertEquals(8, Digester.wantedWorkers(100000, 10.0, 1000, 8));
+	}
+}
@@ -0,0 +1,84 @@
+package cz.cuni.mff.d3s.been.objectrepository;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hazelcast.core.IMap;
+
+/**
+ * Test for {@link PersistenceBackpressure}
+ */
+public class PersistenceBackpressureTest {
+
+	private static final String QUEUE = "queue";
+
+	private IMap<String, Integer> map;
+	private PersistenceBackpressure backpressure;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		map = mock(IMap.class);
+		backpressure = new PersistenceBackpressure(map, QUEUE, 100, 50);
+	}
+
+	@Test
+	public void testEngagesAtHighWaterMark() {
+		backpressure.update(99);
+		assertFalse(backpressure.isEngaged());
+		verifyZeroInteractions(map);
+
+		backpressure.update(100);
+		assertTrue(backpressure.isEngaged());
+		verify(map).put(eq(QUEUE), eq(100), anyLong(), eq(TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testHysteresis() {
+		backpressure.update(150);
+		backpressure.update(75);
+		assertTrue(backpressure.isEngaged());
+		verify(map, never()).remove(QUEUE);
+
+		backpressure.update(50);
+		assertFalse(backpressure.isEngaged());
+		verify(map).remove(QUEUE);
+		assertEquals(1, backpressure.getEngagedCount());
+	}
+
+	@Test
+	public void testRefreshesWhileCongested() {
+		backpressure.update(120);
+		backpressure.update(130);
+		verify(map, times(2)).put(eq(QUEUE), anyInt(), anyLong(), eq(TimeUnit.SECONDS));
+		assertEquals(1, backpressure.getEngagedCount());
+	}
+
+	@Test
+	public void testRefreshesBetweenWaterMarks() {
+		backpressure.update(100);
+		backpressure.update(75);
+		backpressure.update(51);
+		verify(map, times(3)).put(eq(QUEUE), anyInt(), anyLong(), eq(TimeUnit.SECONDS));
+		assertTrue(backpressure.isEngaged());
+
+		backpressure.update(50);
+		verify(map).remove(QUEUE);
+		verifyNoMoreInteractions(map);
+	}
+
+	@Test
+	public void testNoRefreshWhenNotEngaged() {
+		backpressure.update(75);
+		backpressure.update(40);
+		verifyZeroInteractions(map);
+	}
+}
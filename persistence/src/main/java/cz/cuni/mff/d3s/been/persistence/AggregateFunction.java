@@ -0,0 +1,17 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+/**
+ * Functions computed by aggregate queries over each group of matching objects
+ */
+public enum AggregateFunction {
+	/** Number of objects in the group */
+	COUNT,
+	/** Minimum value of an attribute */
+	MIN,
+	/** Maximum value of an attribute */
+	MAX,
+	/** Arithmetic mean of an attribute */
+	MEAN,
+	/** Percentile of an attribute's values (linearly interpolated between closest ranks) */
+	PERCENTILE
+}
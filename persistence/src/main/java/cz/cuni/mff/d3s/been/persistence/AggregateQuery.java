@@ -0,0 +1,46 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.annotate.JsonTypeInfo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A query that groups matching objects by some attributes and answers with one row of aggregated values per group, instead of the objects themselves.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "@class")
+@JsonIgnoreProperties({"type", "selectorNames", "mappings", "ordering", "skip", "limit", "pageSize", "continuation"})
+class AggregateQuery extends SkeletalQuery {
+
+	private List<String> groupBy;
+	private Map<String, Aggregation> aggregations;
+
+	/**
+	 * Don't use this - this is just for Jackson
+	 */
+	private AggregateQuery() {
+	}
+
+	AggregateQuery(EntityID entityID, Map<String, SkeletalAttributeFilter> selectors, List<String> groupBy, Map<String, Aggregation> aggregations) {
+		super(entityID, selectors);
+		this.groupBy = groupBy;
+		this.aggregations = aggregations;
+	}
+
+	@Override
+	public QueryType getType() {
+		return QueryType.AGGREGATE;
+	}
+
+	@Override
+	public List<String> getGroupBy() {
+		return groupBy;
+	}
+
+	@Override
+	public Map<String, Aggregation> getAggregations() {
+		return aggregations;
+	}
+}
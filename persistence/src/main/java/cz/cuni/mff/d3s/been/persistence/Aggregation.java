@@ -0,0 +1,81 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+import java.io.Serializable;
+
+/**
+ * A single aggregate value computed by an aggregate query (e.g. the mean of some attribute)
+ */
+public class Aggregation implements Serializable {
+
+	private AggregateFunction function;
+	private String attribute;
+	private Double percentile;
+
+	/**
+	 * Don't use this - this is just for Jackson
+	 */
+	private Aggregation() {
+	}
+
+	Aggregation(AggregateFunction function, String attribute, Double percentile) {
+		this.function = function;
+		this.attribute = attribute;
+		this.percentile = percentile;
+	}
+
+	/**
+	 * @return The aggregate function to compute
+	 */
+	public AggregateFunction getFunction() {
+		return function;
+	}
+
+	/**
+	 * @return Name of the aggregated attribute, <code>null</code> for {@link AggregateFunction#COUNT}
+	 */
+	public String getAttribute() {
+		return attribute;
+	}
+
+	/**
+	 * @return The computed percentile (between 0 and 100), <code>null</code> unless the function is {@link AggregateFunction#PERCENTILE}
+	 */
+	public Double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * Setter for Jackson mapping
+	 *
+	 * @param function Function to set
+	 */
+	void setFunction(AggregateFunction function) {
+		this.function = function;
+	}
+
+	/**
+	 * Setter for Jackson mapping
+	 *
+	 * @param attribute Attribute to set
+	 */
+	void setAttribute(String attribute) {
+		this.attribute = attribute;
+	}
+
+	/**
+	 * Setter for Jackson mapping
+	 *
+	 * @param percentile Percentile to set
+	 */
+	void setPercentile(Double percentile) {
+		this.percentile = percentile;
+	}
+
+	@Override
+	public String toString() {
+		if (attribute == null) {
+			return function.name();
+		}
+		return (percentile == null) ? String.format("%s(%s)", function, attribute) : String.format("%s(%s, %s)", function, attribute, percentile);
+	}
+}
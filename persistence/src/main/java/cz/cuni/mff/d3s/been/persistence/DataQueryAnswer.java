@@ -13,17 +13,26 @@ import java.util.Collection;
 public class DataQueryAnswer extends SkeletalQueryAnswer {
 
 	private Collection<String> data;
+	private String continuation;
 
 	/**
 	 * Only Jackson should use this constructor
 	 */
 	DataQueryAnswer() {
 		this.data = null;
+		this.continuation = null;
 	}
 
 	DataQueryAnswer(QueryStatus status, Collection<String> data) {
 		super(status);
 		this.data = data;
+		this.continuation = null;
+	}
+
+	DataQueryAnswer(QueryStatus status, Collection<String> data, String continuation) {
+		super(status);
+		this.data = data;
+		this.continuation = continuation;
 	}
 
 	/**
@@ -44,6 +53,24 @@ public class DataQueryAnswer extends SkeletalQueryAnswer {
 		this.data = objects;
 	}
 
+	/**
+	 * Binding for Jackson serialization
+	 *
+	 * @return Continuation token
+	 */
+	public String getContinuationToken() {
+		return continuation;
+	}
+
+	/**
+	 * Private binding for Jackson deserialization
+	 *
+	 * @param continuationToken Continuation token to set
+	 */
+	void setContinuationToken(String continuationToken) {
+		this.continuation = continuationToken;
+	}
+
 	@Override
 	public boolean isCarryingData() {
 		return true;
@@ -54,4 +81,9 @@ public class DataQueryAnswer extends SkeletalQueryAnswer {
 		// public implementation for users
 		return data;
 	}
+
+	@Override
+	public String getContinuation() {
+		return continuation;
+	}
 }
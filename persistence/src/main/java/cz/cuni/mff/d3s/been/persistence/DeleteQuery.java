@@ -2,6 +2,7 @@ package cz.cuni.mff.d3s.been.persistence;
 
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 import org.codehaus.jackson.annotate.JsonTypeInfo;
 
 import java.util.Map;
@@ -12,6 +13,7 @@ import java.util.Map;
  * @author darklight
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "@class")
+@JsonIgnoreProperties({"type", "selectorNames", "mappings", "ordering", "skip", "limit", "pageSize", "continuation", "groupBy", "aggregations"})
 class DeleteQuery extends SkeletalQuery {
 
 	/**
@@ -1,6 +1,7 @@
 package cz.cuni.mff.d3s.been.persistence;
 
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 import org.codehaus.jackson.annotate.JsonTypeInfo;
 
 import java.io.Serializable;
@@ -12,9 +13,15 @@ import java.util.Set;
  * An object representing a fetch (select) query into the persistence layer.
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "@class")
+@JsonIgnoreProperties({"type", "selectorNames", "groupBy", "aggregations"})
 class FetchQuery extends SkeletalQuery implements Serializable {
 
 	private Set<String> mappings;
+	private Map<String, SortOrder> ordering;
+	private Integer skip;
+	private Integer limit;
+	private Integer pageSize;
+	private String continuation;
 
 	private FetchQuery() {
 	}
@@ -29,6 +36,27 @@ class FetchQuery extends SkeletalQuery implements Serializable {
 		this.mappings = mappings;
 	}
 
+	FetchQuery(EntityID entityID, Map<String, SkeletalAttributeFilter> selectors, Set<String> mappings, Map<String, SortOrder> ordering, Integer skip, Integer limit, Integer pageSize, String continuation) {
+		super(entityID, selectors);
+		this.mappings = mappings;
+		this.ordering = ordering;
+		this.skip = skip;
+		this.limit = limit;
+		this.pageSize = pageSize;
+		this.continuation = continuation;
+	}
+
+	/**
+	 * Create a query for the page following the one that ended with given continuation token
+	 *
+	 * @param continuation Continuation token of the previous page's answer
+	 *
+	 * @return A new query (with a new ID) that asks for the next page
+	 */
+	FetchQuery nextPage(String continuation) {
+		return new FetchQuery(getEntityID(), getSelectors(), mappings, ordering, skip, limit, pageSize, continuation);
+	}
+
 	@Override
 	public QueryType getType() {
 		return QueryType.FETCH;
@@ -38,4 +66,29 @@ class FetchQuery extends SkeletalQuery implements Serializable {
 	public Set<String> getMappings() {
 		return mappings;
 	}
+
+	@Override
+	public Map<String, SortOrder> getOrdering() {
+		return ordering;
+	}
+
+	@Override
+	public Integer getSkip() {
+		return skip;
+	}
+
+	@Override
+	public Integer getLimit() {
+		return limit;
+	}
+
+	@Override
+	public Integer getPageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public String getContinuation() {
+		return continuation;
+	}
 }
@@ -0,0 +1,24 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+/**
+ * Unchecked wrapper for a {@link DAOException} that occurs while a {@link PagedQueryIterator} fetches a page, as {@link java.util.Iterator} methods cannot throw checked exceptions.
+ */
+public class PageFetchException extends RuntimeException {
+
+	/** Version ID for serialization purposes */
+	private static final long serialVersionUID = -3326105237045329514L;
+
+	/**
+	 * Create a page fetch exception
+	 *
+	 * @param cause The underlying persistence failure
+	 */
+	public PageFetchException(DAOException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	@Override
+	public synchronized DAOException getCause() {
+		return (DAOException) super.getCause();
+	}
+}
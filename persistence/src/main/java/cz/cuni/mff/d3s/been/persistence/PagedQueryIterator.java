@@ -0,0 +1,91 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import cz.cuni.mff.d3s.been.core.persistence.Entity;
+import cz.cuni.mff.d3s.been.util.JSONUtils;
+import cz.cuni.mff.d3s.been.util.JsonException;
+
+/**
+ * An iterator over the objects matched by a fetch query. Pages are requested lazily from a {@link QueryPageSource}, one at a time, as the previous page gets consumed, so that only one page of the result set is held in memory.
+ *
+ * If the query has no page size set, the whole result set is fetched as one page.
+ *
+ * Failures to fetch or deserialize a page are reported as {@link PageFetchException}.
+ *
+ * @param <T> Type of the iterated entities
+ */
+public final class PagedQueryIterator<T extends Entity> implements Iterator<T> {
+
+	private final QueryPageSource source;
+	private final JSONUtils jsonUtils;
+	private final Class<T> entityClass;
+
+	private FetchQuery nextPage;
+	private Iterator<String> currentPage;
+
+	/**
+	 * Create a paged iterator
+	 *
+	 * @param query Fetch query to iterate over
+	 * @param source Source that executes the individual page queries
+	 * @param jsonUtils JSON utilities used to deserialize the fetched entities
+	 * @param entityClass Class of the fetched entities
+	 *
+	 * @throws DAOException When the query is not a fetch query
+	 */
+	public PagedQueryIterator(Query query, QueryPageSource source, JSONUtils jsonUtils, Class<T> entityClass) throws DAOException {
+		QueryChecks.assertIsFetch(query);
+		this.source = source;
+		this.jsonUtils = jsonUtils;
+		this.entityClass = entityClass;
+		this.nextPage = (FetchQuery) query;
+		this.currentPage = Collections.<String> emptyList().iterator();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!currentPage.hasNext() && nextPage != null) {
+			fetchNextPage();
+		}
+		return currentPage.hasNext();
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("No more entities match the query");
+		}
+		final String json = currentPage.next();
+		try {
+			return jsonUtils.deserialize(json, entityClass);
+		} catch (JsonException e) {
+			throw new PageFetchException(new DAOException(String.format("Failed to unmarshall entity '%s'", json), e));
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Paged query results are read-only");
+	}
+
+	private void fetchNextPage() {
+		final FetchQuery query = nextPage;
+		final QueryAnswer answer;
+		try {
+			answer = source.fetch(query);
+		} catch (DAOException e) {
+			throw new PageFetchException(e);
+		}
+		if (!answer.isCarryingData()) {
+			throw new PageFetchException(new DAOException(String.format(
+					"Answer for query '%s' returned with no data: %s",
+					query.toString(),
+					answer.getStatus().getDescription())));
+		}
+		currentPage = answer.getData().iterator();
+		nextPage = (query.getPageSize() == null || answer.getContinuation() == null) ? null : query.nextPage(answer.getContinuation());
+	}
+}
@@ -6,6 +6,8 @@ import org.codehaus.jackson.annotate.JsonSubTypes;
 import org.codehaus.jackson.annotate.JsonTypeInfo;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -49,6 +51,55 @@ public interface Query extends Serializable {
 	 */
 	Set<String> getMappings();
 
+	/**
+	 * Get the attributes by which matching objects should be ordered, in order of precedence.
+	 *
+	 * @return The ordering, or <code>null</code> if the order of matching objects is unspecified
+	 */
+	Map<String, SortOrder> getOrdering();
+
+	/**
+	 * Get the number of matching objects (in the query's ordering) that should be skipped.
+	 *
+	 * @return The number of skipped objects, or <code>null</code> if none should be skipped
+	 */
+	Integer getSkip();
+
+	/**
+	 * Get the maximum number of matching objects this query should return in total (over all pages, if paged).
+	 *
+	 * @return The limit, or <code>null</code> if all matching objects should be returned
+	 */
+	Integer getLimit();
+
+	/**
+	 * Get the attributes by which an aggregate query groups matching objects.
+	 *
+	 * @return The grouping attributes, or <code>null</code> if this is not an aggregate query (empty if all matching objects form one group)
+	 */
+	List<String> getGroupBy();
+
+	/**
+	 * Get the values an aggregate query computes for each group, keyed by the name under which they are returned.
+	 *
+	 * @return The aggregations, or <code>null</code> if this is not an aggregate query
+	 */
+	Map<String, Aggregation> getAggregations();
+
+	/**
+	 * Get the maximum number of objects returned in one answer to this query. When set, the answer carries a continuation token (see {@link QueryAnswer#getContinuation()}) if there are more matching objects to fetch.
+	 *
+	 * @return The page size, or <code>null</code> if all matching objects should be returned at once
+	 */
+	Integer getPageSize();
+
+	/**
+	 * Get the continuation token of a paged query, which denotes where the previous page ended.
+	 *
+	 * @return The continuation token, or <code>null</code> if this query asks for the first page
+	 */
+	String getContinuation();
+
 	/**
 	 * Get the type of this query
 	 *
@@ -24,6 +24,13 @@ public interface QueryAnswer extends Serializable {
 	 */
 	Collection<String> getData();
 
+	/**
+	 * Get the continuation token of a paged answer. Pass it to the next page query to continue where this answer ended.
+	 *
+	 * @return The continuation token, or <code>null</code> if there is no more data to fetch
+	 */
+	String getContinuation();
+
 	/**
 	 * Get the status of the associated query.
 	 *
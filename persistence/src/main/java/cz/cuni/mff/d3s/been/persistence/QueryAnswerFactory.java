@@ -20,6 +20,18 @@ public final class QueryAnswerFactory {
 		return new DataQueryAnswer(QueryStatus.OK, data);
 	}
 
+	/**
+	 * Create a query answer with one page of resulting data
+	 *
+	 * @param data Data to send back
+	 * @param continuation Token that continues the query after this page, <code>null</code> if this is the last page
+	 *
+	 * @return The answer
+	 */
+	public static final QueryAnswer fetchedPage(Collection<String> data, String continuation) {
+		return new DataQueryAnswer(QueryStatus.OK, data, continuation);
+	}
+
 	/**
 	 * Create an answer saying that items were successfully deleted
 	 *
@@ -2,8 +2,11 @@ package cz.cuni.mff.d3s.been.persistence;
 
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -16,4 +19,60 @@ class QueryBuilderBase {
 	EntityID entityID = new EntityID().withKind("result");
 	Map<String, SkeletalAttributeFilter> selectors = new HashMap<String, SkeletalAttributeFilter>();
 	Set<String> mappings = new HashSet<String>();
+	Map<String, SortOrder> ordering = new LinkedHashMap<String, SortOrder>();
+	Integer skip = null;
+	Integer limit = null;
+	Integer pageSize = null;
+	List<String> groupBy = new ArrayList<String>();
+	Map<String, Aggregation> aggregations = new LinkedHashMap<String, Aggregation>();
+
+	/**
+	 * Add an aggregate value to compute
+	 *
+	 * @param name Name under which the value is returned
+	 * @param aggregation The aggregation
+	 *
+	 * @throws NullPointerException When the name or the aggregated attribute are null
+	 * @throws IllegalArgumentException When an aggregation of the same name was already added
+	 */
+	void addAggregation(String name, Aggregation aggregation) {
+		if (name == null || (aggregation.getAttribute() == null && aggregation.getFunction() != AggregateFunction.COUNT)) {
+			throw new NullPointerException(String.format("Invalid aggregation specification '(name, aggregation) == (%s, %s)': both name and aggregated attribute must be non-null", name, aggregation));
+		}
+		if (aggregations.containsKey(name)) {
+			throw new IllegalArgumentException(String.format("Duplicate aggregation name '%s'", name));
+		}
+		aggregations.put(name, aggregation);
+	}
+
+	/**
+	 * Build an aggregate query from this builder's current setup
+	 *
+	 * @return The aggregate query
+	 *
+	 * @throws IllegalStateException When some mandatory parameters are missing (full entity ID and at least one aggregation are required), or when an aggregation is named after a grouping attribute
+	 */
+	Query buildAggregate() throws IllegalStateException {
+		if (entityID == null || entityID.getGroup() == null || entityID.getKind() == null) {
+			throw new IllegalStateException("Entity ID or some of its fields are null.");
+		}
+		if (aggregations.isEmpty()) {
+			throw new IllegalStateException("No aggregations specified.");
+		}
+		for (String attribute: groupBy) {
+			if (aggregations.containsKey(attribute)) {
+				throw new IllegalStateException(String.format("Aggregation '%s' clashes with a grouping attribute of the same name", attribute));
+			}
+		}
+		return new AggregateQuery(entityID, selectors, new ArrayList<String>(groupBy), new LinkedHashMap<String, Aggregation>(aggregations));
+	}
+
+	/**
+	 * Get a snapshot of the ordering for a built query
+	 *
+	 * @return The ordering, <code>null</code> if no ordering was specified
+	 */
+	Map<String, SortOrder> getOrdering() {
+		return ordering.isEmpty() ? null : new LinkedHashMap<String, SortOrder>(ordering);
+	}
 }
@@ -29,6 +29,17 @@ public final class QueryChecks {
 		return query instanceof DeleteQuery;
 	}
 
+	/**
+	 * See whether a query is an aggregate query
+	 *
+	 * @param query Query to analyze
+	 *
+	 * @return <code>true</code> if the query is an aggregate query, <code>false</code> otherwise
+	 */
+	public static boolean isAggregate(Query query) {
+		return query instanceof AggregateQuery;
+	}
+
 	/**
 	 * Check whether the query targets results
 	 *
@@ -62,6 +73,17 @@ public final class QueryChecks {
 		if (!isDelete(query)) throw new DAOException(String.format("Query %s is not a delete query", query.toString()));
 	}
 
+	/**
+	 * Assert that a query is an aggregate query
+	 *
+	 * @param query Query to analyze
+	 *
+	 * @throws DAOException If the query is not an aggregate query
+	 */
+	public static void assertIsAggregate(Query query) throws DAOException {
+		if (!isAggregate(query)) throw new DAOException(String.format("Query %s is not an aggregate query", query.toString()));
+	}
+
 	/**
 	 * Assert that a query targets results
 	 *
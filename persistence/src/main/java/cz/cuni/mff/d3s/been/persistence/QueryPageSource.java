@@ -0,0 +1,18 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+/**
+ * A source of query answers used by {@link PagedQueryIterator} to fetch individual pages of a paged query.
+ */
+public interface QueryPageSource {
+
+	/**
+	 * Execute a query and wait for its answer
+	 *
+	 * @param query Query to execute (a single page of a paged query)
+	 *
+	 * @return The answer
+	 *
+	 * @throws DAOException When the query cannot be executed
+	 */
+	QueryAnswer fetch(Query query) throws DAOException;
+}
@@ -9,5 +9,7 @@ public enum QueryType {
 	/** Query for entity retrieval */
 	FETCH,
 	/** Query for entity deletion */
-	DELETE
+	DELETE,
+	/** Query for aggregate values over groups of entities */
+	AGGREGATE
 }
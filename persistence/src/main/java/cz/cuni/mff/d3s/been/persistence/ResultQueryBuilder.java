@@ -79,6 +79,173 @@ public class ResultQueryBuilder extends QueryBuilderBase {
 		return this;
 	}
 
+	/**
+	 * Order matching objects by an attribute, ascending. Calling this repeatedly orders by multiple attributes, in order of calls.
+	 *
+	 * @param attribute Attribute to order by
+	 *
+	 * @return The same query, with ordering specified
+	 */
+	public ResultQueryBuilder orderBy(String attribute) {
+		return orderBy(attribute, SortOrder.ASCENDING);
+	}
+
+	/**
+	 * Order matching objects by an attribute. Calling this repeatedly orders by multiple attributes, in order of calls.
+	 *
+	 * @param attribute Attribute to order by
+	 * @param order Direction of the ordering
+	 *
+	 * @return The same query, with ordering specified
+	 *
+	 * @throws NullPointerException When any of the two parameters are null
+	 */
+	public ResultQueryBuilder orderBy(String attribute, SortOrder order) {
+		if (attribute == null || order == null) {
+			throw new NullPointerException(String.format("Invalid ordering specification '(attribute, order) == (%s, %s)': both attribute and order must be non-null", attribute, order));
+		}
+		ordering.put(attribute, order);
+		return this;
+	}
+
+	/**
+	 * Skip a number of matching objects (in query ordering, see {@link #orderBy(String, SortOrder)}).
+	 *
+	 * @param skip Number of objects to skip
+	 *
+	 * @return The same query, with skip specified
+	 *
+	 * @throws IllegalArgumentException When the number of skipped objects is negative
+	 */
+	public ResultQueryBuilder skip(int skip) {
+		if (skip < 0) {
+			throw new IllegalArgumentException(String.format("Invalid skip %d: skip must not be negative", skip));
+		}
+		this.skip = skip;
+		return this;
+	}
+
+	/**
+	 * Return at most a given number of matching objects. For paged queries, the limit applies to all pages together.
+	 *
+	 * @param limit Maximum number of objects to return
+	 *
+	 * @return The same query, with limit specified
+	 *
+	 * @throws IllegalArgumentException When the limit is not positive
+	 */
+	public ResultQueryBuilder limit(int limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException(String.format("Invalid limit %d: limit must be positive", limit));
+		}
+		this.limit = limit;
+		return this;
+	}
+
+	/**
+	 * Group matching objects by some attributes when building an aggregate query (see {@link #aggregate()}). Calling this repeatedly adds more grouping attributes.
+	 *
+	 * @param attributes Attributes to group by
+	 *
+	 * @return The same query, with grouping specified
+	 */
+	public ResultQueryBuilder groupBy(String... attributes) {
+		for (String attribute: attributes) {
+			if (attribute == null) {
+				throw new NullPointerException("Attribute name was null, but only non-null values are accepted");
+			}
+			groupBy.add(attribute);
+		}
+		return this;
+	}
+
+	/**
+	 * Count objects in each group of an aggregate query
+	 *
+	 * @param name Name under which the count is returned
+	 *
+	 * @return The same query, with the aggregation added
+	 */
+	public ResultQueryBuilder count(String name) {
+		addAggregation(name, new Aggregation(AggregateFunction.COUNT, null, null));
+		return this;
+	}
+
+	/**
+	 * Compute the minimum of an attribute in each group of an aggregate query
+	 *
+	 * @param attribute Attribute to aggregate
+	 * @param name Name under which the minimum is returned
+	 *
+	 * @return The same query, with the aggregation added
+	 */
+	public ResultQueryBuilder min(String attribute, String name) {
+		addAggregation(name, new Aggregation(AggregateFunction.MIN, attribute, null));
+		return this;
+	}
+
+	/**
+	 * Compute the maximum of an attribute in each group of an aggregate query
+	 *
+	 * @param attribute Attribute to aggregate
+	 * @param name Name under which the maximum is returned
+	 *
+	 * @return The same query, with the aggregation added
+	 */
+	public ResultQueryBuilder max(String attribute, String name) {
+		addAggregation(name, new Aggregation(AggregateFunction.MAX, attribute, null));
+		return this;
+	}
+
+	/**
+	 * Compute the arithmetic mean of an attribute in each group of an aggregate query
+	 *
+	 * @param attribute Attribute to aggregate
+	 * @param name Name under which the mean is returned
+	 *
+	 * @return The same query, with the aggregation added
+	 */
+	public ResultQueryBuilder mean(String attribute, String name) {
+		addAggregation(name, new Aggregation(AggregateFunction.MEAN, attribute, null));
+		return this;
+	}
+
+	/**
+	 * Compute a percentile of an attribute in each group of an aggregate query
+	 *
+	 * @param attribute Attribute to aggregate
+	 * @param percentile The percentile to compute (between 0 and 100, e.g. 50 for the median)
+	 * @param name Name under which the percentile is returned
+	 *
+	 * @return The same query, with the aggregation added
+	 *
+	 * @throws IllegalArgumentException When the percentile is out of range
+	 */
+	public ResultQueryBuilder percentile(String attribute, double percentile, String name) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException(String.format("Invalid percentile %s: percentile must be between 0 and 100", percentile));
+		}
+		addAggregation(name, new Aggregation(AggregateFunction.PERCENTILE, attribute, percentile));
+		return this;
+	}
+
+	/**
+	 * Fetch matching objects in pages of given size rather than all at once. Paged queries are answered with a continuation token that can be used to fetch the next page (see {@link PagedQueryIterator}).
+	 *
+	 * @param pageSize Maximum number of objects in one answer
+	 *
+	 * @return The same query, with paging specified
+	 *
+	 * @throws IllegalArgumentException When the page size is not positive
+	 */
+	public ResultQueryBuilder pageSize(int pageSize) {
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException(String.format("Invalid page size %d: page size must be positive", pageSize));
+		}
+		this.pageSize = pageSize;
+		return this;
+	}
+
 	/**
 	 * Build a fetch query intended for data retrieval
 	 *
@@ -91,10 +258,21 @@ public class ResultQueryBuilder extends QueryBuilderBase {
 			throw new IllegalStateException("Entity ID or some of its fields are null.");
 		}
 		if (mappings.isEmpty()) {
-			return new FetchQuery(entityID, selectors);
+			return new FetchQuery(entityID, selectors, null, getOrdering(), skip, limit, pageSize, null);
 		} else {
-			return new FetchQuery(entityID, selectors, mappings);
+			return new FetchQuery(entityID, selectors, mappings, getOrdering(), skip, limit, pageSize, null);
 		}
 	}
 
+	/**
+	 * Build an aggregate query, which answers with one row per group of matching results (see {@link #groupBy(String...)}). Each row is a JSON object holding the values of the grouping attributes and the computed aggregations.
+	 *
+	 * @return An aggregate query with this builder's current setup
+	 *
+	 * @throws IllegalStateException When some mandatory parameters are missing (Full entity ID and at least one aggregation are required)
+	 */
+	public Query aggregate() throws IllegalStateException {
+		return buildAggregate();
+	}
+
 }
@@ -17,6 +17,7 @@ import java.util.*;
 @JsonSubTypes({
 		@JsonSubTypes.Type(value = FetchQuery.class),
 		@JsonSubTypes.Type(value = DeleteQuery.class),
+		@JsonSubTypes.Type(value = AggregateQuery.class),
 })
 @JsonIgnoreProperties({"type", "selectorNames"})
 abstract class SkeletalQuery implements Query {
@@ -92,4 +93,39 @@ abstract class SkeletalQuery implements Query {
 	public Set<String> getMappings() {
 		return null;
 	}
+
+	@Override
+	public Map<String, SortOrder> getOrdering() {
+		return null;
+	}
+
+	@Override
+	public Integer getSkip() {
+		return null;
+	}
+
+	@Override
+	public Integer getLimit() {
+		return null;
+	}
+
+	@Override
+	public List<String> getGroupBy() {
+		return null;
+	}
+
+	@Override
+	public Map<String, Aggregation> getAggregations() {
+		return null;
+	}
+
+	@Override
+	public Integer getPageSize() {
+		return null;
+	}
+
+	@Override
+	public String getContinuation() {
+		return null;
+	}
 }
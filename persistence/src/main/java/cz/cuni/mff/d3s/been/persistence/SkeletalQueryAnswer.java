@@ -16,7 +16,7 @@ import java.util.Collection;
 		@JsonSubTypes.Type(value = DataQueryAnswer.class),
 		@JsonSubTypes.Type(value = SimpleQueryAnswer.class)
 })
-@JsonIgnoreProperties({"data", "carryingData"})
+@JsonIgnoreProperties({"data", "carryingData", "continuation"})
 abstract class SkeletalQueryAnswer implements QueryAnswer {
 	private QueryStatus status;
 
@@ -49,4 +49,9 @@ abstract class SkeletalQueryAnswer implements QueryAnswer {
 	public Collection<String> getData() {
 		throw new UnsupportedOperationException(String.format("%s does not carry any data.", getClass().getSimpleName()));
 	}
+
+	@Override
+	public String getContinuation() {
+		return null;
+	}
 }
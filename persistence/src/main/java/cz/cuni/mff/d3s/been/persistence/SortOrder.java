@@ -0,0 +1,11 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+/**
+ * Direction in which a fetch query orders matching objects by an attribute
+ */
+public enum SortOrder {
+	/** Smallest values first */
+	ASCENDING,
+	/** Largest values first */
+	DESCENDING
+}
@@ -1,5 +1,7 @@
 package cz.cuni.mff.d3s.been.persistence.task;
 
+import java.util.Map;
+
 import cz.cuni.mff.d3s.been.core.persistence.TaskEntity;
 import cz.cuni.mff.d3s.been.core.task.TaskState;
 
@@ -14,6 +16,12 @@ public class PersistentTaskState extends TaskEntity {
 	private long timeFinished;
 	private String runtimeId;
 	private TaskState taskState;
+	private String bpk;
+	private Map<String, Long> startupTimes;
+	private Long peakRss;
+	private Long cpuTime;
+	private Long readBytes;
+	private Long writeBytes;
 
 	/**
 	 * Create a persistent variant of the task state
@@ -107,4 +115,125 @@ public class PersistentTaskState extends TaskEntity {
 	public void setRuntimeId(String runtimeId) {
 		this.runtimeId = runtimeId;
 	}
+
+	/**
+	 * Create the BPK identifier stored in {@link #getBpk()}
+	 *
+	 * @param groupId Group ID of the BPK
+	 * @param bpkId ID of the BPK
+	 * @param version Version of the BPK
+	 *
+	 * @return The BPK identifier
+	 */
+	public static String createBpkKey(String groupId, String bpkId, String version) {
+		return groupId + ":" + bpkId + ":" + version;
+	}
+
+	/**
+	 * Get the identifier of the BPK the task was run from
+	 *
+	 * @return The BPK identifier, in the <code>groupId:bpkId:version</code> form
+	 */
+	public String getBpk() {
+		return bpk;
+	}
+
+	/**
+	 * Set the identifier of the BPK the task was run from
+	 *
+	 * @param bpk BPK identifier to set, in the <code>groupId:bpkId:version</code> form
+	 */
+	public void setBpk(String bpk) {
+		this.bpk = bpk;
+	}
+
+	/**
+	 * Get timestamps of the phases of the task's start
+	 *
+	 * @return Startup timestamps, keyed by the <code>STARTUP_*</code> constants of {@link cz.cuni.mff.d3s.been.core.task.TaskEntries}
+	 */
+	public Map<String, Long> getStartupTimes() {
+		return startupTimes;
+	}
+
+	/**
+	 * Set timestamps of the phases of the task's start
+	 *
+	 * @param startupTimes Startup timestamps to set
+	 */
+	public void setStartupTimes(Map<String, Long> startupTimes) {
+		this.startupTimes = startupTimes;
+	}
+
+	/**
+	 * Get the peak resident set size of the task's processes
+	 *
+	 * @return Peak RSS in bytes, <code>null</code> if not sampled
+	 */
+	public Long getPeakRss() {
+		return peakRss;
+	}
+
+	/**
+	 * Set the peak resident set size of the task's processes
+	 *
+	 * @param peakRss Peak RSS in bytes to set
+	 */
+	public void setPeakRss(Long peakRss) {
+		this.peakRss = peakRss;
+	}
+
+	/**
+	 * Get the CPU time consumed by the task's processes
+	 *
+	 * @return CPU time in milliseconds, <code>null</code> if not sampled
+	 */
+	public Long getCpuTime() {
+		return cpuTime;
+	}
+
+	/**
+	 * Set the CPU time consumed by the task's processes
+	 *
+	 * @param cpuTime CPU time in milliseconds to set
+	 */
+	public void setCpuTime(Long cpuTime) {
+		this.cpuTime = cpuTime;
+	}
+
+	/**
+	 * Get the number of bytes the task's processes read from storage
+	 *
+	 * @return Bytes read, <code>null</code> if not sampled
+	 */
+	public Long getReadBytes() {
+		return readBytes;
+	}
+
+	/**
+	 * Set the number of bytes the task's processes read from storage
+	 *
+	 * @param readBytes Bytes read to set
+	 */
+	public void setReadBytes(Long readBytes) {
+		this.readBytes = readBytes;
+	}
+
+	/**
+	 * Get the number of bytes the task's processes wrote to storage
+	 *
+	 * @return Bytes written, <code>null</code> if not sampled
+	 */
+	public Long getWriteBytes() {
+		return writeBytes;
+	}
+
+	/**
+	 * Set the number of bytes the task's processes wrote to storage
+	 *
+	 * @param writeBytes Bytes written to set
+	 */
+	public void setWriteBytes(Long writeBytes) {
+		this.writeBytes = writeBytes;
+	}
 }
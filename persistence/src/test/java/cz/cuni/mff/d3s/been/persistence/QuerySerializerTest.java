@@ -0,0 +1,67 @@
+package cz.cuni.mff.d3s.been.persistence;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityID;
+import cz.cuni.mff.d3s.been.util.JsonException;
+
+/**
+ * Test for query and answer (de)serialization in {@link QuerySerializer}
+ */
+public final class QuerySerializerTest extends Assert {
+
+	private static final EntityID LOGS = new EntityID().withKind("log").withGroup("task");
+
+	private final QuerySerializer serializer = new QuerySerializer();
+
+	@Test
+	public void testFetchQueryRoundTrip() throws JsonException {
+		final Query query = new QueryBuilder().on(LOGS).with("taskId", "t").orderBy("created", SortOrder.DESCENDING).skip(
+				10).limit(20).pageSize(5).retrieving("message").fetch();
+		final Query copy = roundTrip(query);
+
+		assertEquals(QueryType.FETCH, copy.getType());
+		assertEquals(query.getId(), copy.getId());
+		assertEquals(query.getOrdering(), copy.getOrdering());
+		assertEquals(Integer.valueOf(10), copy.getSkip());
+		assertEquals(Integer.valueOf(20), copy.getLimit());
+		assertEquals(Integer.valueOf(5), copy.getPageSize());
+		assertEquals(query.getMappings(), copy.getMappings());
+	}
+
+	@Test
+	public void testDeleteQueryRoundTrip() throws JsonException {
+		final Query copy = roundTrip(new QueryBuilder().on(LOGS).with("taskId", "t").delete());
+
+		assertEquals(QueryType.DELETE, copy.getType());
+		assertEquals(Arrays.asList("taskId"), Arrays.asList(copy.getSelectorNames().toArray()));
+	}
+
+	@Test
+	public void testAggregateQueryRoundTrip() throws JsonException {
+		final Query query = new ResultQueryBuilder().on("timings").groupBy("size").count("n").percentile("time", 99, "p99").aggregate();
+		final Query copy = roundTrip(query);
+
+		assertEquals(QueryType.AGGREGATE, copy.getType());
+		assertEquals(Arrays.asList("size"), copy.getGroupBy());
+		assertEquals(Arrays.asList("n", "p99"), Arrays.asList(copy.getAggregations().keySet().toArray()));
+		assertEquals(AggregateFunction.PERCENTILE, copy.getAggregations().get("p99").getFunction());
+		assertEquals(Double.valueOf(99), copy.getAggregations().get("p99").getPercentile());
+	}
+
+	@Test
+	public void testPageAnswerRoundTrip() throws JsonException {
+		final QueryAnswer answer = QueryAnswerFactory.fetchedPage(Arrays.asList("{}"), "next");
+		final QueryAnswer copy = serializer.deserializeAnswer(serializer.serializeAnswer(answer));
+
+		assertTrue(copy.isCarryingData());
+		assertEquals("next", copy.getContinuation());
+	}
+
+	private Query roundTrip(Query query) throws JsonException {
+		return serializer.deserializeQuery(serializer.serializeQuery(query));
+	}
+}
@@ -1,5 +1,7 @@
 package cz.cuni.mff.d3s.been.socketworks;
 
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
+
 /**
  * Naming conventions for the sockets between <em>task</em> and <em>Host Runtime</em> processes
  */
@@ -23,7 +25,7 @@ public enum NamedSockets {
 	 * @return The connection string to this named socket
 	 */
 	public String getConnection() {
-		return System.getenv(envVarName);
+		return TaskEnvironment.get(envVarName);
 	}
 
 	/**
@@ -1,5 +1,6 @@
 package cz.cuni.mff.d3s.been.swrepoclient;
 
+import cz.cuni.mff.d3s.been.datastore.SoftwareCache;
 import cz.cuni.mff.d3s.been.datastore.SoftwareStore;
 
 /**
@@ -29,4 +30,13 @@ public class SwRepoClientFactory {
 	public SwRepoClient getClient(String hostname, int port) {
 		return new HttpSwRepoClient(hostname, port, softwareCache);
 	}
+
+	/**
+	 * Get the software cache used by the clients, if it keeps statistics
+	 *
+	 * @return The {@link SoftwareCache}, <code>null</code> when the clients use a plain {@link SoftwareStore}
+	 */
+	public SoftwareCache getSoftwareCache() {
+		return (softwareCache instanceof SoftwareCache) ? (SoftwareCache) softwareCache : null;
+	}
 }
@@ -0,0 +1,13 @@
+package cz.cuni.mff.d3s.been.swrepository;
+
+/**
+ * Selects the software cache entries evicted when the cache grows over its
+ * size limit.
+ */
+enum CacheEvictionPolicy {
+	/** Evict the least recently used entries first */
+	LRU,
+
+	/** Evict the least frequently used entries first */
+	LFU
+}
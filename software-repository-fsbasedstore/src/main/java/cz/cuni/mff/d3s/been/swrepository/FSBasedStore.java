@@ -21,25 +21,35 @@ import org.slf4j.LoggerFactory;
 import cz.cuni.mff.d3s.been.bpk.ArtifactIdentifier;
 import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
 import cz.cuni.mff.d3s.been.bpk.BpkNames;
-import cz.cuni.mff.d3s.been.datastore.SoftwareStore;
+import cz.cuni.mff.d3s.been.core.ri.SoftwareCacheStatistics;
+import cz.cuni.mff.d3s.been.datastore.SoftwareCache;
 import cz.cuni.mff.d3s.been.datastore.StorePersister;
 import cz.cuni.mff.d3s.been.datastore.StoreReader;
 import cz.cuni.mff.d3s.been.util.PropertyReader;
 
 /**
+ * A software store keeping BPKs and artifacts in a directory tree.
+ * 
+ * In cache mode, the store keeps an {@link FSCacheIndex}, which bounds the size
+ * of the tree and verifies cached files.
+ * 
  * @author darklight
  */
-final class FSBasedStore implements SoftwareStore {
+final class FSBasedStore implements SoftwareCache {
 
 	private static final Logger log = LoggerFactory.getLogger(FSBasedStore.class);
 
 	private static final String ARTIFACTS_ROOT_NAME = "artifacts";
 	private static final String BPKS_ROOT_NAME = "bpks";
+	private static final String CACHE_INDEX_NAME = "cache.index";
 
 	private final File fsRoot;
 	private final File artifactFSRoot;
 	private final File bpkFSRoot;
 
+	/** Index of cached files, <code>null</code> in server mode */
+	private final FSCacheIndex cacheIndex;
+
 	/**
 	 * Create the data store.
 	 */
@@ -47,16 +57,35 @@ final class FSBasedStore implements SoftwareStore {
 		fsRoot = new File(fsRootName);
 		artifactFSRoot = new File(fsRoot, ARTIFACTS_ROOT_NAME);
 		bpkFSRoot = new File(fsRoot, BPKS_ROOT_NAME);
+		cacheIndex = null;
+	}
+
+	/**
+	 * Create the data store in cache mode.
+	 */
+	private FSBasedStore(String fsRootName, long maxSize, CacheEvictionPolicy evictionPolicy) {
+		fsRoot = new File(fsRootName);
+		artifactFSRoot = new File(fsRoot, ARTIFACTS_ROOT_NAME);
+		bpkFSRoot = new File(fsRoot, BPKS_ROOT_NAME);
+		cacheIndex = new FSCacheIndex(fsRoot, new File(fsRoot, CACHE_INDEX_NAME), maxSize, evictionPolicy);
 	}
 
 	static FSBasedStore createCache(Properties properties) {
 		final PropertyReader propReader = PropertyReader.on(properties);
 
 		final String rootDir = propReader.getString(CACHE_FS_ROOT, DEFAULT_CACHE_FS_ROOT);
-		// final Long cacheSizeString = propReader.getLong(SWCACHE_MAX_SIZE, DEFAULT_SWCACHE_MAX_SIZE);
+		final long maxSize = propReader.getLong(SWCACHE_MAX_SIZE, DEFAULT_SWCACHE_MAX_SIZE) * 1024 * 1024;
+		final String policyName = propReader.getString(SWCACHE_EVICTION_POLICY, DEFAULT_SWCACHE_EVICTION_POLICY);
+
+		CacheEvictionPolicy evictionPolicy;
+		try {
+			evictionPolicy = CacheEvictionPolicy.valueOf(policyName.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			log.warn("Unknown software cache eviction policy '{}', using {}", policyName, DEFAULT_SWCACHE_EVICTION_POLICY);
+			evictionPolicy = CacheEvictionPolicy.valueOf(DEFAULT_SWCACHE_EVICTION_POLICY);
+		}
 
-		// TODO infer a cache size control mechanism
-		return new FSBasedStore(rootDir);
+		return new FSBasedStore(rootDir, maxSize, evictionPolicy);
 	}
 
 	static FSBasedStore createServer(Properties properties) {
@@ -79,12 +108,20 @@ final class FSBasedStore implements SoftwareStore {
 		if (!bpkFSRoot.exists()) {
 			bpkFSRoot.mkdir();
 		}
+		if (cacheIndex != null) {
+			cacheIndex.load();
+		}
+	}
+
+	@Override
+	public SoftwareCacheStatistics getStatistics() {
+		return (cacheIndex == null) ? null : cacheIndex.getStatistics();
 	}
 
 	@Override
 	public StoreReader getArtifactReader(ArtifactIdentifier artifactIdentifier) {
 		File item = getArtifactItem(artifactIdentifier);
-		if (item == null || !item.exists()) {
+		if (item == null || !isUsable(item)) {
 			return null;
 		} else {
 			return new FSBasedStoreReader(item);
@@ -100,7 +137,7 @@ final class FSBasedStore implements SoftwareStore {
 	@Override
 	public StoreReader getBpkReader(BpkIdentifier bpkIdentifier) {
 		File item = getBpkItem(bpkIdentifier);
-		if (item == null || !item.exists()) {
+		if (item == null || !isUsable(item)) {
 			return null;
 		}
 		return new FSBasedStoreReader(item);
@@ -112,7 +149,7 @@ final class FSBasedStore implements SoftwareStore {
 		if (item == null) {
 			return null;
 		}
-		return new FSBasedStorePersister(artifactIdentifier.toString(), item);
+		return new FSBasedStorePersister(artifactIdentifier.toString(), item, cacheIndex);
 	}
 
 	@Override
@@ -121,7 +158,20 @@ final class FSBasedStore implements SoftwareStore {
 		if (item == null) {
 			return null;
 		}
-		return new FSBasedStorePersister(bpkIdentifier.toString(), item);
+		return new FSBasedStorePersister(bpkIdentifier.toString(), item, cacheIndex);
+	}
+
+	/**
+	 * Check whether a stored file can be read, recording the use (a cache hit or
+	 * miss) in cache mode
+	 * 
+	 * @param item
+	 *          A stored file
+	 * @return <code>false</code> if the file doesn't exist or is not a valid
+	 *         cache entry
+	 */
+	private boolean isUsable(File item) {
+		return (cacheIndex == null) ? item.exists() : cacheIndex.use(item);
 	}
 
 	/**
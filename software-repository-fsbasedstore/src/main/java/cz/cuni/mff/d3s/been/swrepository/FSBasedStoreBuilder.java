@@ -1,5 +1,6 @@
 package cz.cuni.mff.d3s.been.swrepository;
 
+import cz.cuni.mff.d3s.been.datastore.SoftwareCache;
 import cz.cuni.mff.d3s.been.datastore.SoftwareStore;
 import cz.cuni.mff.d3s.been.datastore.SoftwareStoreBuilder;
 import org.slf4j.Logger;
@@ -27,7 +28,7 @@ public class FSBasedStoreBuilder implements SoftwareStoreBuilder {
     }
 
     @Override
-    public SoftwareStore buildCache() {
+    public SoftwareCache buildCache() {
         return FSBasedStore.createCache(properties);
     }
 
@@ -19,6 +19,11 @@ public class FSBasedStoreConfiguration implements BeenServiceConfiguration {
 	/** Default software cache size (host-runtime) in MBytes */
 	public static final Long DEFAULT_SWCACHE_MAX_SIZE = 1024l;
 
+	/** Property name for the eviction policy of the software cache (host-runtime), either <code>LRU</code> or <code>LFU</code> */
+	public static final String SWCACHE_EVICTION_POLICY = "hostruntime.swcache.evictionPolicy";
+	/** Default eviction policy of the software cache (host-runtime) */
+	public static final String DEFAULT_SWCACHE_EVICTION_POLICY = "LRU";
+
 	/** Property name for storage directory for Software Repository server */
 	public static final String SERVER_FS_ROOT = "swrepository.persistence.folder";
 	/** Default storage directory for Software Repository server */
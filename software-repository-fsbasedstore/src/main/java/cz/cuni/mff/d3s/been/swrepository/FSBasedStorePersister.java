@@ -1,7 +1,13 @@
 package cz.cuni.mff.d3s.been.swrepository;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +18,10 @@ import cz.cuni.mff.d3s.been.datastore.StorePersister;
  * 
  * A {@link FSBasedStore}-related implementation of {@link StorePersister}.
  * 
+ * The content is written to a temporary file next to the stored file, which is
+ * then renamed to the stored file, so that readers never see a partially
+ * written file.
+ * 
  * @author darklight
  * 
  */
@@ -20,48 +30,69 @@ public class FSBasedStorePersister implements StorePersister {
 	/** Class log */
 	private static final Logger log = LoggerFactory.getLogger(FSBasedStorePersister.class);
 
+	/** Infix of names of temporary files */
+	private static final String TEMPORARY_INFIX = ".tmp-";
+
 	private final File storedFile;
 	private final String entityId;
+	private final FSCacheIndex cacheIndex;
 
 	FSBasedStorePersister(String entityId, File storedFile) {
+		this(entityId, storedFile, null);
+	}
+
+	FSBasedStorePersister(String entityId, File storedFile, FSCacheIndex cacheIndex) {
 		this.entityId = entityId;
 		this.storedFile = storedFile;
+		this.cacheIndex = cacheIndex;
 	}
 
 	@Override
 	public boolean dump(InputStream content) {
-		if (!storedFile.exists()) {
-			final File parent = storedFile.getParentFile();
-			if (parent == null) {
-				log.error(
-						"Failed to store BPK because expected storage file \"{}\" doesn't have a parent folder",
-						storedFile.getPath());
-				return false;
-			}
-			parent.mkdirs(); // TODO handle security exception
-			try {
-				storedFile.createNewFile();
-			} catch (IOException e) {
-				log.error("Could not create file to hold entity {}: I/O error {}", entityId, e.getMessage());
-				return false;
-			}
+		final File parent = storedFile.getParentFile();
+		if (parent == null) {
+			log.error(
+					"Failed to store BPK because expected storage file \"{}\" doesn't have a parent folder",
+					storedFile.getPath());
+			return false;
 		}
-		OutputStream os;
-		try {
-			os = new FileOutputStream(storedFile);
+		parent.mkdirs(); // TODO handle security exception
+
+		final File tmpFile = new File(parent, "." + storedFile.getName() + TEMPORARY_INFIX + System.nanoTime());
+		final MessageDigest digest = FSCacheIndex.createDigest();
+		final long size;
+		try (OutputStream os = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)), digest)) {
+			size = IOUtils.copyLarge(content, os);
 		} catch (IOException e) {
 			log.error("Failed to persist entity {}: I/O error {}", entityId, e.getMessage());
+			FileUtils.deleteQuietly(tmpFile);
 			return false;
 		}
 
 		try {
-			IOUtils.copy(content, os);
-			os.close();
+			try {
+				Files.move(tmpFile.toPath(), storedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile.toPath(), storedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
 		} catch (IOException e) {
-			log.error("Cannot copy stream.", e);
+			log.error("Could not move entity {} to its place: I/O error {}", entityId, e.getMessage());
+			FileUtils.deleteQuietly(tmpFile);
 			return false;
 		}
 
+		if (cacheIndex != null) {
+			cacheIndex.added(storedFile, size, FSCacheIndex.toHex(digest));
+		}
+
 		return true;
 	}
+
+	/**
+	 * @return Whether the file is a temporary file left behind by an interrupted
+	 *         {@link #dump(InputStream)}
+	 */
+	static boolean isTemporary(File file) {
+		return file.getName().startsWith(".") && file.getName().contains(TEMPORARY_INFIX);
+	}
 }
@@ -0,0 +1,419 @@
+package cz.cuni.mff.d3s.been.swrepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.cuni.mff.d3s.been.core.ri.SoftwareCacheStatistics;
+
+/**
+ * Index of files kept by a {@link FSBasedStore} working as a software cache.
+ * 
+ * The index records the size and SHA-256 checksum of every cached file, along
+ * with its use, and evicts files by the configured
+ * {@link CacheEvictionPolicy} when the cache grows over its size limit. A file
+ * is verified against its checksum the first time it is read after the index
+ * is loaded; a file failing the verification is deleted, so that it's
+ * downloaded again. Files found in the tree but missing in the index are
+ * indexed on their first use.
+ * 
+ * The index is kept in a file in the cache root, rewritten (atomically) when
+ * files are added or evicted, so that the cache tree doesn't need to be scanned
+ * on startup. Without the index file (e.g. for a cache created by an older
+ * version), the tree is scanned once.
+ */
+final class FSCacheIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(FSCacheIndex.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String FIELD_SEPARATOR = "\t";
+
+	private final File root;
+	private final File indexFile;
+	private final long maxSize;
+	private final CacheEvictionPolicy policy;
+
+	/** Entries by path relative to the root, in access order; guarded by <code>this</code> */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+	private long size = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * Create an index
+	 * 
+	 * @param root
+	 *          Root of the cache tree
+	 * @param indexFile
+	 *          File holding the index
+	 * @param maxSize
+	 *          Size limit of the cache, in bytes
+	 * @param policy
+	 *          Eviction policy
+	 */
+	FSCacheIndex(File root, File indexFile, long maxSize, CacheEvictionPolicy policy) {
+		this.root = root;
+		this.indexFile = indexFile;
+		this.maxSize = maxSize;
+		this.policy = policy;
+	}
+
+	/**
+	 * Load the index from its file, or build it by scanning the cache tree if
+	 * there is no index file
+	 */
+	synchronized void load() {
+		entries.clear();
+		size = 0;
+		if (indexFile.exists()) {
+			try {
+				read();
+				log.debug("Software cache index holds {} files ({} bytes)", entries.size(), size);
+				return;
+			} catch (IOException | RuntimeException e) {
+				log.warn("Cannot read software cache index '{}', rebuilding it", indexFile, e);
+				entries.clear();
+				size = 0;
+			}
+		}
+		scan(root);
+		sortByLastUse();
+		evict(null);
+		save();
+		log.info("Indexed {} files ({} bytes) in software cache '{}'", entries.size(), size, root);
+	}
+
+	/**
+	 * Check that a cached file is usable and record its use. A file not in the
+	 * index or failing verification is deleted.
+	 * 
+	 * @param file
+	 *          The cached file
+	 * 
+	 * @return <code>true</code> on a cache hit, <code>false</code> on a miss
+	 */
+	boolean use(File file) {
+		final String key = keyOf(file);
+		final Entry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry == null) {
+				if (!file.isFile()) {
+					++misses;
+					return false;
+				}
+			} else if (!file.isFile() || file.length() != entry.size) {
+				log.warn("Cached file '{}' is missing or was modified, dropping it", file);
+				remove(key, entry);
+				save();
+				++misses;
+				return false;
+			} else if (entry.verified) {
+				entry.touch();
+				++hits;
+				return true;
+			}
+		}
+
+		if (entry == null) {
+			return adopt(key, file);
+		}
+
+		// verify outside of the lock, hashing may take a while
+		final String checksum = checksumOf(file);
+		synchronized (this) {
+			if (entries.get(key) != entry) {
+				// replaced or evicted meanwhile
+				++misses;
+				return false;
+			}
+			if (!entry.checksum.equals(checksum)) {
+				log.warn("Cached file '{}' is corrupt (checksum mismatch), dropping it", file);
+				remove(key, entry);
+				FileUtils.deleteQuietly(file);
+				save();
+				++misses;
+				return false;
+			}
+			entry.verified = true;
+			entry.touch();
+			++hits;
+			return true;
+		}
+	}
+
+	/**
+	 * Index a file placed into the cache tree by other means than a persister
+	 * (e.g. when pre-seeding the cache by hand)
+	 */
+	private boolean adopt(String key, File file) {
+		final long fileSize = file.length();
+		final String checksum = checksumOf(file);
+		if (checksum == null) {
+			synchronized (this) {
+				++misses;
+			}
+			return false;
+		}
+		log.debug("Adopting '{}' into the software cache index", file);
+		synchronized (this) {
+			if (!entries.containsKey(key)) {
+				insert(key, fileSize, checksum);
+			}
+			entries.get(key).touch();
+			++hits;
+			return true;
+		}
+	}
+
+	/**
+	 * Record a file added to the cache (replacing a previous version, if any)
+	 * and evict other files if the cache is over its size limit
+	 * 
+	 * @param file
+	 *          The added file
+	 * @param fileSize
+	 *          Its size
+	 * @param checksum
+	 *          Its SHA-256 checksum
+	 */
+	synchronized void added(File file, long fileSize, String checksum) {
+		insert(keyOf(file), fileSize, checksum);
+	}
+
+	private void insert(String key, long fileSize, String checksum) {
+		final Entry previous = entries.remove(key);
+		if (previous != null) {
+			size -= previous.size;
+		}
+		final Entry entry = new Entry(fileSize, checksum, 0, System.currentTimeMillis());
+		// the checksum was computed from the current content
+		entry.verified = true;
+		entries.put(key, entry);
+		size += fileSize;
+		evict(key);
+		save();
+	}
+
+	/**
+	 * @return Current cache statistics
+	 */
+	synchronized SoftwareCacheStatistics getStatistics() {
+		return new SoftwareCacheStatistics().withHits(hits).withMisses(misses).withEvictions(evictions).withSize(size).withMaxSize(
+				maxSize).withEntries(entries.size());
+	}
+
+	/**
+	 * Evict files until the cache fits its size limit
+	 * 
+	 * @param keep
+	 *          Key of a file that must not be evicted (the one just added), may
+	 *          be <code>null</code>
+	 */
+	private void evict(String keep) {
+		while (size > maxSize) {
+			final String victim = selectVictim(keep);
+			if (victim == null) {
+				return;
+			}
+			final Entry entry = entries.get(victim);
+			remove(victim, entry);
+			FileUtils.deleteQuietly(new File(root, victim));
+			++evictions;
+			log.debug("Evicted '{}' ({} bytes) from the software cache", victim, entry.size);
+		}
+	}
+
+	private String selectVictim(String keep) {
+		String victim = null;
+		long victimUses = Long.MAX_VALUE;
+		// iteration doesn't change the access order
+		for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+			if (candidate.getKey().equals(keep)) {
+				continue;
+			}
+			if (policy == CacheEvictionPolicy.LRU) {
+				return candidate.getKey();
+			}
+			if (candidate.getValue().uses < victimUses) {
+				victim = candidate.getKey();
+				victimUses = candidate.getValue().uses;
+			}
+		}
+		return victim;
+	}
+
+	private void remove(String key, Entry entry) {
+		entries.remove(key);
+		size -= entry.size;
+	}
+
+	private String keyOf(File file) {
+		return root.toPath().toAbsolutePath().relativize(file.toPath().toAbsolutePath()).toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Index all files in a directory tree, deleting temporary files
+	 */
+	private void scan(File dir) {
+		final File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				scan(file);
+			} else if (FSBasedStorePersister.isTemporary(file)) {
+				FileUtils.deleteQuietly(file);
+			} else if (!dir.equals(root)) {
+				// files directly in the root are the index and its temporary files
+				final String checksum = checksumOf(file);
+				if (checksum != null) {
+					final Entry entry = new Entry(file.length(), checksum, 0, file.lastModified());
+					entry.verified = true;
+					entries.put(keyOf(file), entry);
+					size += entry.size;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Order entries by their last use, least recently used first
+	 */
+	private void sortByLastUse() {
+		final List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+		Collections.sort(sorted, new Comparator<Map.Entry<String, Entry>>() {
+			@Override
+			public int compare(Map.Entry<String, Entry> o1, Map.Entry<String, Entry> o2) {
+				return Long.compare(o1.getValue().lastUse, o2.getValue().lastUse);
+			}
+		});
+		entries.clear();
+		for (Map.Entry<String, Entry> entry : sorted) {
+			entries.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Read the index file. Entries are kept in access order, least recently used
+	 * first.
+	 */
+	private void read() throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), UTF8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				final String[] fields = line.split(FIELD_SEPARATOR, 5);
+				if (fields.length != 5) {
+					throw new IOException(String.format("Malformed index line '%s'", line));
+				}
+				final Entry entry = new Entry(Long.parseLong(fields[0]), fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+				entries.put(fields[4], entry);
+				size += entry.size;
+			}
+		}
+	}
+
+	/**
+	 * Write the index file, replacing the previous one atomically
+	 */
+	private void save() {
+		final File tmp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), UTF8)) {
+				for (Map.Entry<String, Entry> item : entries.entrySet()) {
+					final Entry entry = item.getValue();
+					writer.write(String.format("%d\t%s\t%d\t%d\t%s", entry.size, entry.checksum, entry.uses, entry.lastUse, item.getKey()));
+					writer.newLine();
+				}
+			}
+			try {
+				Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			log.error("Cannot write software cache index '{}'", indexFile, e);
+		}
+	}
+
+	/**
+	 * @return The SHA-256 checksum of a file, <code>null</code> if the file cannot
+	 *         be read
+	 */
+	static String checksumOf(File file) {
+		final MessageDigest digest = createDigest();
+		try (InputStream is = new DigestInputStream(new FileInputStream(file), digest)) {
+			final byte[] buffer = new byte[64 * 1024];
+			while (is.read(buffer) >= 0) {}
+		} catch (IOException e) {
+			log.warn("Cannot checksum '{}'", file, e);
+			return null;
+		}
+		return toHex(digest);
+	}
+
+	static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform implements SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static String toHex(MessageDigest digest) {
+		return DatatypeConverter.printHexBinary(digest.digest()).toLowerCase();
+	}
+
+	/**
+	 * A cached file
+	 */
+	private static final class Entry {
+		final long size;
+		final String checksum;
+		long uses;
+		long lastUse;
+		/** Whether the file was checked against its checksum since the index was loaded */
+		boolean verified = false;
+
+		Entry(long size, String checksum, long uses, long lastUse) {
+			this.size = size;
+			this.checksum = checksum;
+			this.uses = uses;
+			this.lastUse = lastUse;
+		}
+
+		void touch() {
+			++uses;
+			lastUse = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package cz.cuni.mff.d3s.been.swrepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
+import cz.cuni.mff.d3s.been.core.ri.SoftwareCacheStatistics;
+
+/**
+ * Test for {@link FSBasedStore} in cache mode
+ */
+public class FSBasedStoreCacheTest extends Assert {
+
+	private static final int MB = 1024 * 1024;
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		final FSBasedStore cache = createCache("LRU");
+		store(cache, "a", MB / 2);
+		store(cache, "b", MB / 2);
+		assertNotNull(cache.getBpkReader(bpk("a")));
+
+		store(cache, "c", MB / 2);
+
+		assertNotNull(cache.getBpkReader(bpk("a")));
+		assertNull(cache.getBpkReader(bpk("b")));
+		assertNotNull(cache.getBpkReader(bpk("c")));
+		assertFalse(cache.getBpkItem(bpk("b")).exists());
+
+		final SoftwareCacheStatistics statistics = cache.getStatistics();
+		assertEquals(3, statistics.getHits());
+		assertEquals(1, statistics.getMisses());
+		assertEquals(1, statistics.getEvictions());
+		assertEquals(2, statistics.getEntries());
+		assertEquals(MB, statistics.getSize());
+	}
+
+	@Test
+	public void testEvictsLeastFrequentlyUsed() throws Exception {
+		final FSBasedStore cache = createCache("LFU");
+		store(cache, "a", MB / 2);
+		store(cache, "b", MB / 2);
+		cache.getBpkReader(bpk("a"));
+		cache.getBpkReader(bpk("b"));
+		cache.getBpkReader(bpk("a"));
+
+		store(cache, "c", MB / 2);
+
+		assertNotNull(cache.getBpkReader(bpk("a")));
+		assertNull(cache.getBpkReader(bpk("b")));
+	}
+
+	@Test
+	public void testIndexSurvivesRestart() throws Exception {
+		FSBasedStore cache = createCache("LRU");
+		store(cache, "a", 10);
+		store(cache, "b", 20);
+
+		cache = createCache("LRU");
+
+		final SoftwareCacheStatistics statistics = cache.getStatistics();
+		assertEquals(2, statistics.getEntries());
+		assertEquals(30, statistics.getSize());
+		assertEquals(20, cache.getBpkReader(bpk("b")).getContentLength());
+	}
+
+	@Test
+	public void testIndexIsRebuiltFromTree() throws Exception {
+		FSBasedStore cache = createCache("LRU");
+		store(cache, "a", 10);
+		assertTrue(new File(tmp.getRoot(), "cache.index").delete());
+
+		cache = createCache("LRU");
+
+		assertEquals(1, cache.getStatistics().getEntries());
+		assertNotNull(cache.getBpkReader(bpk("a")));
+	}
+
+	@Test
+	public void testCorruptEntryIsDropped() throws Exception {
+		FSBasedStore cache = createCache("LRU");
+		store(cache, "a", 10);
+		final File item = cache.getBpkItem(bpk("a"));
+		Files.write(item.toPath(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+
+		// entries are verified on the first use after restart
+		cache = createCache("LRU");
+
+		assertNull(cache.getBpkReader(bpk("a")));
+		assertFalse(item.exists());
+		assertEquals(0, cache.getStatistics().getEntries());
+	}
+
+	private FSBasedStore createCache(String evictionPolicy) {
+		final Properties properties = new Properties();
+		properties.setProperty(FSBasedStoreConfiguration.CACHE_FS_ROOT, tmp.getRoot().getPath());
+		properties.setProperty(FSBasedStoreConfiguration.SWCACHE_MAX_SIZE, "1");
+		properties.setProperty(FSBasedStoreConfiguration.SWCACHE_EVICTION_POLICY, evictionPolicy);
+		final FSBasedStore cache = FSBasedStore.createCache(properties);
+		cache.init();
+		return cache;
+	}
+
+	private static void store(FSBasedStore cache, String name, int size) {
+		assertTrue(cache.getBpkPersister(bpk(name)).dump(new ByteArrayInputStream(new byte[size])));
+	}
+
+	private static BpkIdentifier bpk(String name) {
+		return new BpkIdentifier().withGroupId("cz.cuni.test").withBpkId(name).withVersion("1.0");
+	}
+}
@@ -0,0 +1,18 @@
+package cz.cuni.mff.d3s.been.datastore;
+
+import cz.cuni.mff.d3s.been.core.ri.SoftwareCacheStatistics;
+
+/**
+ * A {@link SoftwareStore} caching software downloaded from the Software
+ * Repository.
+ */
+public interface SoftwareCache extends SoftwareStore {
+
+	/**
+	 * Get usage statistics of the cache
+	 * 
+	 * @return Current cache statistics
+	 */
+	SoftwareCacheStatistics getStatistics();
+
+}
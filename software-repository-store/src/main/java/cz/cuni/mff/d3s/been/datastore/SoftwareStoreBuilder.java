@@ -27,7 +27,7 @@ public interface SoftwareStoreBuilder {
 	/**
 	 * Create a new cache-mode {@link SoftwareStore}
 	 * 
-	 * @return A {@link SoftwareStore} in cache mode
+	 * @return A {@link SoftwareCache}
 	 */
-	SoftwareStore buildCache();
+	SoftwareCache buildCache();
 }
@@ -66,4 +66,49 @@ public interface QueryRedactor {
 	 * @param attributes Attributes this query maps (others will be omitted)
 	 */
 	void map(Set<String> attributes);
+
+	/**
+	 * This query wants its results ordered by an attribute. Called once per attribute, in order of precedence.
+	 *
+	 * @param attributeName Name of the attribute to order by
+	 * @param order Direction of the ordering
+	 */
+	void orderBy(String attributeName, SortOrder order);
+
+	/**
+	 * This query wants to skip some of the matching objects
+	 *
+	 * @param skip Number of matching objects to skip
+	 */
+	void skip(int skip);
+
+	/**
+	 * This query wants at most a given number of matching objects
+	 *
+	 * @param limit Maximum number of objects to return
+	 */
+	void limit(int limit);
+
+	/**
+	 * This query groups matching objects by an attribute. Called once per attribute, in order of precedence.
+	 *
+	 * @param attributeName Name of the attribute to group by
+	 */
+	void groupBy(String attributeName);
+
+	/**
+	 * This query wants an aggregate value computed for each group of matching objects
+	 *
+	 * @param name Name under which the value should be returned
+	 * @param aggregation The aggregation to compute
+	 */
+	void aggregate(String name, Aggregation aggregation);
+
+	/**
+	 * This query wants its results in pages
+	 *
+	 * @param pageSize Maximum number of objects in one answer
+	 * @param continuation Continuation token returned with the previous page, <code>null</code> for the first page
+	 */
+	void page(int pageSize, String continuation);
 }
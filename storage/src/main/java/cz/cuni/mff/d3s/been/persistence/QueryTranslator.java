@@ -2,6 +2,8 @@ package cz.cuni.mff.d3s.been.persistence;
 
 import static cz.cuni.mff.d3s.been.persistence.FilterValues.*;
 
+import java.util.Map;
+
 /**
  * A translation factory that serves the purpose of translating {@link cz.cuni.mff.d3s.been.persistence.Query} objects into database-specific queries.
  *
@@ -66,5 +68,35 @@ public final class QueryTranslator {
 		if (query.getMappings() != null) {
 			interpreter.map(query.getMappings());
 		}
+
+		if (query.getOrdering() != null) {
+			for (Map.Entry<String, SortOrder> order: query.getOrdering().entrySet()) {
+				interpreter.orderBy(order.getKey(), order.getValue());
+			}
+		}
+
+		if (query.getSkip() != null) {
+			interpreter.skip(query.getSkip());
+		}
+
+		if (query.getLimit() != null) {
+			interpreter.limit(query.getLimit());
+		}
+
+		if (query.getGroupBy() != null) {
+			for (String attribute: query.getGroupBy()) {
+				interpreter.groupBy(attribute);
+			}
+		}
+
+		if (query.getAggregations() != null) {
+			for (Map.Entry<String, Aggregation> aggregation: query.getAggregations().entrySet()) {
+				interpreter.aggregate(aggregation.getKey(), aggregation.getValue());
+			}
+		}
+
+		if (query.getPageSize() != null) {
+			interpreter.page(query.getPageSize(), query.getContinuation());
+		}
 	}
 }
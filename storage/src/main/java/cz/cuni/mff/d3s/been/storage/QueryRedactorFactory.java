@@ -27,4 +27,13 @@ public interface QueryRedactorFactory {
 	 * @return The redactor
 	 */
 	QueryRedactor delete(EntityID entityID);
+
+	/**
+	 * Create a new aggregate query redactor
+	 *
+	 * @param entityID ID of the entity to be aggregated
+	 *
+	 * @return The redactor
+	 */
+	QueryRedactor aggregate(EntityID entityID);
 }
@@ -1,5 +1,8 @@
 package cz.cuni.mff.d3s.been.storage;
 
+import java.util.Collection;
+import java.util.Map;
+
 import cz.cuni.mff.d3s.been.cluster.Service;
 import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
@@ -42,6 +45,24 @@ public interface Storage extends Service {
 	 */
 	void store(EntityID entityId, String JSON) throws DAOException;
 
+	/**
+	 * Store a batch of serialized {@link Entity} objects that all belong to the
+	 * same container. Implementations should write the whole batch in a single
+	 * round-trip to the underlying persistence layer, if it supports that.
+	 *
+	 * @param entityId
+	 *          {@link EntityID} that denotes the container which should hold all
+	 *          the provided entities
+	 * @param JSONs
+	 *          The provided entities, serialized into JSON
+	 *
+	 * @throws DAOException
+	 *           If anything goes wrong with the persisting action. In that case,
+	 *           no assumptions can be made about which entities of the batch got
+	 *           stored.
+	 */
+	void storeAll(EntityID entityId, Collection<String> JSONs) throws DAOException;
+
 	/**
 	 * Query the persistence, returning an answer describing the query outcome.
 	 *
@@ -64,4 +85,13 @@ public interface Storage extends Service {
 	 * @return <code>true</code> if the storage is idle; <code>false</code> if it's busy
 	 */
 	boolean isIdle();
+
+	/**
+	 * Get implementation-specific statistics about the storage (index usage,
+	 * slow queries and the like), to be published in the service info of the
+	 * component that owns the storage.
+	 *
+	 * @return Statistics by name; an empty map if the storage keeps none
+	 */
+	Map<String, Object> getStatistics();
 }
@@ -0,0 +1,309 @@
+package cz.cuni.mff.d3s.been.taskapi;
+
+import static cz.cuni.mff.d3s.been.core.TaskMessageType.LOG_MESSAGE;
+import static cz.cuni.mff.d3s.been.core.TaskPropertyNames.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import cz.cuni.mff.d3s.been.logging.LogLevel;
+import cz.cuni.mff.d3s.been.logging.LogMessage;
+import cz.cuni.mff.d3s.been.logging.TaskLogMessage;
+import cz.cuni.mff.d3s.been.mq.IMessageSender;
+import cz.cuni.mff.d3s.been.mq.MessagingException;
+import cz.cuni.mff.d3s.been.util.JSONUtils;
+import cz.cuni.mff.d3s.been.util.JsonException;
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
+
+/**
+ * Asynchronous sending of task log messages.
+ * 
+ * Logging threads put their messages into their own {@link LogRingBuffer}
+ * without locking or allocating. A background thread encodes buffered messages
+ * to JSON and sends them to the Host Runtime, several messages at a time
+ * (separated by {@link #BATCH_SEPARATOR}), through a sender of its own.
+ * 
+ * Enabled by setting the task property
+ * {@link cz.cuni.mff.d3s.been.core.TaskPropertyNames#TASK_LOG_MODE} to
+ * {@value #MODE_ASYNC}.
+ */
+final class AsyncTaskLogWriter {
+
+	/** Value of the log mode property enabling asynchronous logging */
+	static final String MODE_ASYNC = "async";
+
+	/** Default capacity of per-thread log buffers, {@value} */
+	static final int DEFAULT_BUFFER_SIZE = 1024;
+	/** Default behavior on buffer overflow */
+	static final LogOverflowPolicy DEFAULT_OVERFLOW_POLICY = LogOverflowPolicy.DROP_AND_REPORT;
+
+	/** Separator of log messages sent together */
+	static final char BATCH_SEPARATOR = '\n';
+
+	/** Maximum number of log messages sent together */
+	private static final int MAX_BATCH = 128;
+	/** How long the writer sleeps when there is nothing to send */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+	/** How long a blocked logging thread waits before retrying */
+	private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	/** How long shutdown waits for buffered messages to be sent */
+	private static final long SHUTDOWN_TIMEOUT = 5000;
+
+	private static final String NAME = AsyncTaskLogWriter.class.getName();
+
+	private static final boolean enabled = MODE_ASYNC.equalsIgnoreCase(TaskEnvironment.get(TASK_LOG_MODE));
+	private static volatile AsyncTaskLogWriter instance = null;
+	private static volatile boolean shutDown = false;
+
+	private final String taskId;
+	private final String contextId;
+	private final String benchmarkId;
+	private final int bufferSize;
+	private final LogOverflowPolicy overflowPolicy;
+
+	private final List<LogRingBuffer> buffers = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<LogRingBuffer> threadBuffer = new ThreadLocal<LogRingBuffer>() {
+		@Override
+		protected LogRingBuffer initialValue() {
+			final LogRingBuffer buffer = new LogRingBuffer(bufferSize, Thread.currentThread());
+			buffers.add(buffer);
+			return buffer;
+		}
+	};
+
+	private final AtomicLong dropped = new AtomicLong();
+	private long reportedDropped = 0;
+
+	private final Thread writerThread;
+	private volatile boolean running = true;
+
+	private AsyncTaskLogWriter(String taskId, String contextId, String benchmarkId, int bufferSize, LogOverflowPolicy overflowPolicy) {
+		this.taskId = taskId;
+		this.contextId = contextId;
+		this.benchmarkId = benchmarkId;
+		this.bufferSize = bufferSize;
+		this.overflowPolicy = overflowPolicy;
+		this.writerThread = new Thread(new Writer(), "task-log-writer");
+		this.writerThread.setDaemon(true);
+	}
+
+	/**
+	 * Get the asynchronous writer, if asynchronous logging is enabled
+	 * 
+	 * @return The writer, or <code>null</code> if log messages should be sent
+	 *         synchronously
+	 */
+	static AsyncTaskLogWriter getInstance() {
+		final AsyncTaskLogWriter writer = instance;
+		if (writer != null || !enabled || shutDown) {
+			return writer;
+		}
+		synchronized (AsyncTaskLogWriter.class) {
+			if (instance == null && !shutDown) {
+				final AsyncTaskLogWriter newWriter = new AsyncTaskLogWriter(
+						TaskEnvironment.get(TASK_ID),
+						TaskEnvironment.get(CONTEXT_ID),
+						TaskEnvironment.get(BENCHMARK_ID),
+						readBufferSize(),
+						readOverflowPolicy());
+				newWriter.writerThread.start();
+				instance = newWriter;
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * Send all buffered messages and stop the writer. Logging after shutdown
+	 * falls back to synchronous sending.
+	 */
+	static void shutdown() {
+		final AsyncTaskLogWriter writer;
+		synchronized (AsyncTaskLogWriter.class) {
+			writer = instance;
+			instance = null;
+			shutDown = true;
+		}
+		if (writer != null) {
+			writer.stop();
+		}
+	}
+
+	/**
+	 * Buffer a log message. Called from logging threads.
+	 * 
+	 * @param loggerName
+	 *          Name of the logger
+	 * @param level
+	 *          Log level
+	 * @param message
+	 *          Log message
+	 * @param t
+	 *          Logged throwable, may be <code>null</code>
+	 * 
+	 * @return <code>false</code> if the writer has stopped and the message
+	 *         should be sent synchronously, <code>true</code> otherwise (even if
+	 *         the message was dropped)
+	 */
+	boolean log(String loggerName, int level, String message, Throwable t) {
+		if (!running) {
+			return false;
+		}
+		final LogRingBuffer buffer = threadBuffer.get();
+		final String threadName = Thread.currentThread().getName();
+		final long time = System.currentTimeMillis();
+		while (!buffer.offer(loggerName, level, message, t, threadName, time)) {
+			if (overflowPolicy != LogOverflowPolicy.BLOCK || !running) {
+				dropped.incrementAndGet();
+				return true;
+			}
+			LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+		}
+		return true;
+	}
+
+	/**
+	 * @return Number of log messages dropped because of full buffers
+	 */
+	long getDroppedCount() {
+		return dropped.get();
+	}
+
+	private void stop() {
+		running = false;
+		LockSupport.unpark(writerThread);
+		try {
+			writerThread.join(SHUTDOWN_TIMEOUT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static int readBufferSize() {
+		try {
+			final String value = TaskEnvironment.get(TASK_LOG_BUFFER_SIZE);
+			return (value == null) ? DEFAULT_BUFFER_SIZE : Math.max(1, Integer.parseInt(value));
+		} catch (NumberFormatException e) {
+			return DEFAULT_BUFFER_SIZE;
+		}
+	}
+
+	private static LogOverflowPolicy readOverflowPolicy() {
+		try {
+			return LogOverflowPolicy.valueOf(TaskEnvironment.get(TASK_LOG_OVERFLOW));
+		} catch (IllegalArgumentException | NullPointerException e) {
+			return DEFAULT_OVERFLOW_POLICY;
+		}
+	}
+
+	/**
+	 * The background thread draining log buffers
+	 */
+	private class Writer implements Runnable, LogRingBuffer.RecordHandler {
+
+		private final JSONUtils jsonUtils = JSONUtils.newInstance();
+		private final String prefix = LOG_MESSAGE.toString() + "#";
+		private final StringBuilder batch = new StringBuilder(16 * 1024);
+		private int batchSize = 0;
+		private IMessageSender<String> sender;
+
+		@Override
+		public void run() {
+			try {
+				sender = Messages.createHRSender();
+			} catch (MessagingException e) {
+				System.err.println("Cannot create log message sender, asynchronous logging disabled");
+				e.printStackTrace();
+				running = false;
+				return;
+			}
+			try {
+				while (running) {
+					if (drainAll() == 0) {
+						LockSupport.parkNanos(IDLE_PARK_NANOS);
+					}
+				}
+				// send what has been logged before the writer stopped
+				while (drainAll() > 0) {}
+			} finally {
+				sender.close();
+			}
+		}
+
+		/**
+		 * Drain all thread buffers once
+		 * 
+		 * @return Number of sent log messages
+		 */
+		private int drainAll() {
+			int drained = 0;
+			for (LogRingBuffer buffer : buffers) {
+				final boolean abandoned = buffer.isAbandoned();
+				int count;
+				while ((count = buffer.drain(this, MAX_BATCH - batchSize)) > 0) {
+					drained += count;
+					if (batchSize >= MAX_BATCH) {
+						send();
+					}
+				}
+				if (abandoned && buffer.isEmpty()) {
+					buffers.remove(buffer);
+				}
+			}
+			reportDropped();
+			send();
+			return drained;
+		}
+
+		@Override
+		public void handle(LogRingBuffer.Record record) {
+			append(record.loggerName, record.level, record.message, record.throwable, record.threadName, record.time);
+		}
+
+		private void append(String loggerName, int level, String message, Throwable t, String threadName, long time) {
+			final LogMessage logMessage = new LogMessage(loggerName, level, message).withThrowable(t);
+			logMessage.setThreadName(threadName);
+			final TaskLogMessage taskLogMessage = new TaskLogMessage().withMessage(logMessage);
+			taskLogMessage.withTaskId(taskId).withContextId(contextId).withBenchmarkId(benchmarkId).withCreated(time);
+			try {
+				final String json = jsonUtils.serialize(taskLogMessage);
+				if (batchSize > 0) {
+					batch.append(BATCH_SEPARATOR);
+				}
+				batch.append(prefix).append(json);
+				++batchSize;
+			} catch (JsonException e) {
+				// The message cannot be created, so just print stack trace
+				// This should not happen
+				e.printStackTrace();
+			}
+		}
+
+		private void reportDropped() {
+			final long droppedNow = dropped.get();
+			if (overflowPolicy == LogOverflowPolicy.DROP_AND_REPORT && droppedNow > reportedDropped) {
+				final String message = String.format("Dropped %d log messages because of full log buffers", droppedNow - reportedDropped);
+				append(NAME, LogLevel.WARN.ordinal(), message, null, Thread.currentThread().getName(), System.currentTimeMillis());
+				reportedDropped = droppedNow;
+			}
+		}
+
+		private void send() {
+			if (batchSize == 0) {
+				return;
+			}
+			try {
+				sender.send(batch.toString());
+			} catch (MessagingException e) {
+				System.err.printf("Cannot send %d log messages%n", batchSize);
+				e.printStackTrace();
+			} finally {
+				batch.setLength(0);
+				batchSize = 0;
+			}
+		}
+	}
+}
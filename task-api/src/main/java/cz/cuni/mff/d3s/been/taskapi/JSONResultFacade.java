@@ -4,13 +4,19 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.TypeReference;
 import org.codehaus.jackson.map.SerializationConfig.Feature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cz.cuni.mff.d3s.been.core.TaskPropertyNames;
 import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrierFrames;
 import cz.cuni.mff.d3s.been.core.persistence.EntityID;
 import cz.cuni.mff.d3s.been.mq.IMessageQueue;
 import cz.cuni.mff.d3s.been.mq.IMessageSender;
@@ -21,26 +27,38 @@ import cz.cuni.mff.d3s.been.socketworks.NamedSockets;
 import cz.cuni.mff.d3s.been.socketworks.twoway.Requestor;
 import cz.cuni.mff.d3s.been.util.JSONUtils;
 import cz.cuni.mff.d3s.been.util.JsonException;
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
 
 final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 
 	private static final Logger log = LoggerFactory.getLogger(JSONResultFacade.class);
 
+	/** Type of aggregated rows */
+	private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<Map<String, Object>>() {};
+
 	private final ObjectMapper om;
 	private final QuerySerializer querySerializer;
 	private final JSONUtils jsonUtils;
+	/** Untyped JSON utilities for aggregated rows, which carry no type information */
+	private final JSONUtils rowUtils = JSONUtils.newInstance();
 	private final IMessageQueue<String> queue;
 	private final Collection<Persister> allocatedPersisters;
+	/** Whether the Host Runtime offered framed result carriers (see {@link EntityCarrierFrames}) */
+	private final boolean framed;
+	/** Limits on results buffered by persisters */
+	private final ResultBatchPolicy batchPolicy;
 
 	/** Whether this instance has been cleaned-up */
 	private boolean isPurged = false;
 	String taskId, contextId, benchmarkId;
 
-	private JSONResultFacade(IMessageQueue<String> queue) {
+	private JSONResultFacade(IMessageQueue<String> queue, boolean framed, ResultBatchPolicy batchPolicy) {
 		this.queue = queue;
 		this.om = new ObjectMapper();
 		this.querySerializer = new QuerySerializer();
 		this.allocatedPersisters = new HashSet<>();
+		this.framed = framed;
+		this.batchPolicy = batchPolicy;
 
 		om.setSerializationConfig(om.getSerializationConfig().without(Feature.FAIL_ON_EMPTY_BEANS).withVisibilityChecker(
 				new FieldVisibilityChecker()));
@@ -52,7 +70,24 @@ final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 
 	/** Create a new result serialization facade */
 	static JSONResultFacade create(IMessageQueue<String> queue) {
-		return new JSONResultFacade(queue);
+		final boolean framed = EntityCarrierFrames.FORMAT_FRAMED.equals(TaskEnvironment.get(TaskPropertyNames.RESULT_FORMAT));
+		return new JSONResultFacade(queue, framed, ResultBatchPolicy.fromEnvironment());
+	}
+
+	/**
+	 * Create a new result serialization facade with explicit settings
+	 * 
+	 * @param queue
+	 *          Queue to send results to
+	 * @param framed
+	 *          Whether to send results as frames (see {@link EntityCarrierFrames})
+	 * @param batchPolicy
+	 *          Limits on results buffered by persisters
+	 * 
+	 * @return The facade
+	 */
+	static JSONResultFacade create(IMessageQueue<String> queue, boolean framed, ResultBatchPolicy batchPolicy) {
+		return new JSONResultFacade(queue, framed, batchPolicy);
 	}
 
 	@Override
@@ -99,13 +134,62 @@ final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 			<T extends Result>
 			Collection<T>
 			query(Query fetchQuery, Class<T> resultClass) throws DAOException {
-		Requestor requestor = null;
-		String queryString = null;
-		String replyString = null;
+		QueryChecks.assertIsFetch(fetchQuery);
+		QueryChecks.assertIsResult(fetchQuery);
 
+		final QueryAnswer answer = requestData(fetchQuery);
+		try {
+			return jsonUtils.deserialize(answer.getData(), resultClass);
+		} catch (JsonException e) {
+			throw new DAOException(String.format("Failed to deserialize results matching query %s", fetchQuery), e);
+		}
+	}
+
+	@Override
+	public <T extends Result> Iterator<T> iterate(Query fetchQuery, Class<T> resultClass) throws DAOException {
 		QueryChecks.assertIsFetch(fetchQuery);
 		QueryChecks.assertIsResult(fetchQuery);
 
+		final QueryPageSource pageSource = new QueryPageSource() {
+			@Override
+			public QueryAnswer fetch(Query query) throws DAOException {
+				return requestData(query);
+			}
+		};
+		return new PagedQueryIterator<T>(fetchQuery, pageSource, jsonUtils, resultClass);
+	}
+
+	@Override
+	public synchronized Collection<Map<String, Object>> aggregate(Query aggregateQuery) throws DAOException {
+		QueryChecks.assertIsAggregate(aggregateQuery);
+		QueryChecks.assertIsResult(aggregateQuery);
+
+		final QueryAnswer answer = requestData(aggregateQuery);
+		final Collection<Map<String, Object>> rows = new ArrayList<>(answer.getData().size());
+		try {
+			for (String row : answer.getData()) {
+				rows.add(rowUtils.deserialize(row, ROW_TYPE));
+			}
+		} catch (JsonException e) {
+			throw new DAOException(String.format("Failed to deserialize rows aggregated by query %s", aggregateQuery), e);
+		}
+		return rows;
+	}
+
+	/**
+	 * Send a data-retrieving query to the Host Runtime and wait for the answer
+	 *
+	 * @param fetchQuery Query to send
+	 *
+	 * @return An answer carrying data
+	 *
+	 * @throws DAOException When the query cannot be sent or the answer carries no data
+	 */
+	private synchronized QueryAnswer requestData(Query fetchQuery) throws DAOException {
+		Requestor requestor = null;
+		String queryString = null;
+		String replyString = null;
+
 		try {
 			queryString = querySerializer.serializeQuery(fetchQuery);
 		} catch (JsonException e) {
@@ -140,9 +224,9 @@ final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 						"Query returned with no data. Answer status is: '%s'",
 						answer.getStatus().getDescription()));
 			}
-			return jsonUtils.deserialize(answer.getData(), resultClass);
+			return answer;
 		} catch (JsonException e) {
-			throw new DAOException(String.format("Failed to deserialize results matching query %s", queryString), e);
+			throw new DAOException(String.format("Failed to deserialize answer to query %s", queryString), e);
 		}
 	}
 
@@ -200,7 +284,9 @@ final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 		}
 
 		try {
-			final JSONPersister persister = new JSONPersister(entityID, queue.createSender(), this);
+			final Persister persister = batchPolicy.isBatching()
+					? new BatchingJSONPersister(entityID, queue.createSender(), this, batchPolicy)
+					: new JSONPersister(entityID, queue.createSender(), this);
 			allocatedPersisters.add(persister);
 			return persister;
 		} catch (MessagingException e) {
@@ -230,20 +316,9 @@ final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 
 	private void sendRC(final EntityCarrier rc, final IMessageSender<String> sender) throws DAOException {
 		try {
-			final String serializedRC = om.writeValueAsString(rc);
+			final String serializedRC = (framed && EntityCarrierFrames.canEncode(rc)) ? EntityCarrierFrames.encode(rc) : om.writeValueAsString(rc);
 			log.trace("About to request this serialized result carrier to Host Runtime: >>{}<<", serializedRC);
-			sender.send(serializedRC);
-
-			// TODO: Temporary bug workaround for JeroMQ big message bug
-			// If sending big message and closing the socket immediately after JereMQ will
-			// sometimes corrupt the message. This needs fixing at JeroMQ side ...
-			if (serializedRC.length() > 100_000) {
-				try {
-					Thread.sleep(500);
-				} catch (InterruptedException e) {
-					//quell
-				}
-			}
+			send(serializedRC, sender);
 		} catch (IOException e) {
 			throw new DAOException("Unable to serialize result carrier to JSON", e);
 		} catch (MessagingException e) {
@@ -251,6 +326,45 @@ final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 		}
 	}
 
+	/**
+	 * Send several serialized results with the same entity ID in one message
+	 */
+	private void sendBatch(final EntityID entityId, final List<String> serializedResults, final IMessageSender<String> sender) throws DAOException {
+		try {
+			final String serializedBatch;
+			if (framed && EntityCarrierFrames.canEncode(entityId)) {
+				serializedBatch = EntityCarrierFrames.encodeBatch(entityId, serializedResults);
+			} else {
+				final List<EntityCarrier> rcs = new ArrayList<>(serializedResults.size());
+				for (String serializedResult : serializedResults) {
+					rcs.add(new EntityCarrier().withId(entityId).withData(serializedResult));
+				}
+				serializedBatch = om.writeValueAsString(rcs);
+			}
+			log.trace("About to send a batch of {} serialized results to Host Runtime", serializedResults.size());
+			send(serializedBatch, sender);
+		} catch (IOException e) {
+			throw new DAOException("Unable to serialize result carriers to JSON", e);
+		} catch (MessagingException e) {
+			throw new DAOException("Unable to send serialized result carriers to Host Runtime");
+		}
+	}
+
+	private void send(final String message, final IMessageSender<String> sender) throws MessagingException {
+		sender.send(message);
+
+		// TODO: Temporary bug workaround for JeroMQ big message bug
+		// If sending big message and closing the socket immediately after JereMQ will
+		// sometimes corrupt the message. This needs fixing at JeroMQ side ...
+		if (message.length() > 100_000) {
+			try {
+				Thread.sleep(500);
+			} catch (InterruptedException e) {
+				//quell
+			}
+		}
+	}
+
 	/**
 	 * A persister implementation that serializes the object into JSON.
 	 * 
@@ -299,4 +413,79 @@ final class JSONResultFacade implements ResultFacade, ResultPersisterCatalog {
 			sender.close();
 		}
 	}
+
+	/**
+	 * A persister that buffers serialized results and sends them to the Host
+	 * Runtime in batches, as limited by a {@link ResultBatchPolicy}. Results are
+	 * serialized right away (so the persisted objects may be reused), only the
+	 * sending is deferred. Buffered results are sent on {@link #close()} at the
+	 * latest.
+	 */
+	private class BatchingJSONPersister implements Persister {
+
+		private final EntityID entityId;
+		private final IMessageSender<String> sender;
+		private final ResultPersisterCatalog unhookCatalog;
+		private final ResultBatchPolicy policy;
+		private final List<String> buffer;
+		private long bufferedChars;
+		private long oldestBuffered;
+
+		BatchingJSONPersister(EntityID entityId, IMessageSender<String> sender, ResultPersisterCatalog unhookCatalog, ResultBatchPolicy policy) {
+			this.entityId = entityId;
+			this.sender = sender;
+			this.unhookCatalog = unhookCatalog;
+			this.policy = policy;
+			this.buffer = new ArrayList<>(policy.getInitialCapacity());
+		}
+
+		@Override
+		public synchronized void persist(Result result) throws DAOException {
+			String serializedResult = null;
+			try {
+				serializedResult = om.writeValueAsString(result);
+			} catch (IOException e) {
+				throw new DAOException(String.format("Unable to serialize Result %s to json", result.toString()), e);
+			}
+			log.trace("Persister buffered a result serialized into >>{}<<", serializedResult);
+			final long now = System.currentTimeMillis();
+			if (buffer.isEmpty()) {
+				oldestBuffered = now;
+			}
+			buffer.add(serializedResult);
+			bufferedChars += serializedResult.length();
+			if (policy.shouldFlush(buffer.size(), bufferedChars, oldestBuffered, now)) {
+				flush();
+			}
+		}
+
+		/**
+		 * Send all buffered results
+		 * 
+		 * @throws DAOException
+		 *           When the results cannot be sent
+		 */
+		private void flush() throws DAOException {
+			if (buffer.isEmpty()) {
+				return;
+			}
+			try {
+				sendBatch(entityId, buffer, sender);
+			} finally {
+				buffer.clear();
+				bufferedChars = 0;
+			}
+		}
+
+		@Override
+		public synchronized void close() {
+			try {
+				flush();
+			} catch (DAOException e) {
+				log.error("Failed to send buffered results of persister {}", this, e);
+			}
+			unhookCatalog.unhook(this);
+			sender.close();
+		}
+	}
 }
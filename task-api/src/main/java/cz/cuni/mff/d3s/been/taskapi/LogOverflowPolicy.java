@@ -0,0 +1,16 @@
+package cz.cuni.mff.d3s.been.taskapi;
+
+/**
+ * What asynchronous task logging does with a message when the logging thread's
+ * buffer is full.
+ */
+enum LogOverflowPolicy {
+	/** Wait until the background writer frees space in the buffer */
+	BLOCK,
+
+	/** Discard the message */
+	DROP,
+
+	/** Discard the message, and later log the number of discarded messages */
+	DROP_AND_REPORT
+}
@@ -0,0 +1,138 @@
+package cz.cuni.mff.d3s.been.taskapi;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free ring buffer of preallocated log records with a single
+ * producer (the logging thread) and a single consumer (the background log
+ * writer).
+ * 
+ * The producer fills a free slot and then publishes it by advancing the tail;
+ * the consumer reads published slots and then frees them by advancing the
+ * head. Neither side allocates.
+ */
+final class LogRingBuffer {
+
+	/**
+	 * A mutable log record living in a buffer slot
+	 */
+	static final class Record {
+		String loggerName;
+		int level;
+		String message;
+		Throwable throwable;
+		String threadName;
+		long time;
+
+		private void clear() {
+			loggerName = null;
+			message = null;
+			throwable = null;
+			threadName = null;
+		}
+	}
+
+	/**
+	 * Consumer of drained records. Records must not be retained, their slots
+	 * are reused.
+	 */
+	interface RecordHandler {
+		void handle(Record record);
+	}
+
+	private final Record[] records;
+	private final int mask;
+	private final Thread owner;
+
+	/** Position of the next record to consume */
+	private final AtomicLong head = new AtomicLong();
+	/** Position of the next slot to fill */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Create a ring buffer
+	 * 
+	 * @param capacity
+	 *          Minimal number of slots (rounded up to a power of two)
+	 * @param owner
+	 *          Thread producing the records
+	 */
+	LogRingBuffer(int capacity, Thread owner) {
+		int size = 1;
+		while (size < capacity && size < (1 << 30)) {
+			size <<= 1;
+		}
+		this.records = new Record[size];
+		for (int i = 0; i < size; ++i) {
+			records[i] = new Record();
+		}
+		this.mask = size - 1;
+		this.owner = owner;
+	}
+
+	/**
+	 * Add a record. May only be called by the owner thread.
+	 * 
+	 * @return <code>true</code> if the record was added, <code>false</code> if
+	 *         the buffer is full
+	 */
+	boolean offer(String loggerName, int level, String message, Throwable throwable, String threadName, long time) {
+		final long position = tail.get();
+		if (position - head.get() >= records.length) {
+			return false;
+		}
+		final Record record = records[(int) position & mask];
+		record.loggerName = loggerName;
+		record.level = level;
+		record.message = message;
+		record.throwable = throwable;
+		record.threadName = threadName;
+		record.time = time;
+		tail.lazySet(position + 1);
+		return true;
+	}
+
+	/**
+	 * Hand published records to a handler, oldest first. May only be called by
+	 * the consumer thread.
+	 * 
+	 * @param handler
+	 *          Record handler
+	 * @param max
+	 *          Maximum number of records to drain
+	 * 
+	 * @return Number of drained records
+	 */
+	int drain(RecordHandler handler, int max) {
+		final long position = head.get();
+		final long available = Math.min(tail.get() - position, max);
+		for (long i = 0; i < available; ++i) {
+			final Record record = records[(int) (position + i) & mask];
+			handler.handle(record);
+			record.clear();
+		}
+		head.lazySet(position + available);
+		return (int) available;
+	}
+
+	/**
+	 * @return Whether there are no published records
+	 */
+	boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * @return Number of slots
+	 */
+	int capacity() {
+		return records.length;
+	}
+
+	/**
+	 * @return Whether the producing thread has terminated
+	 */
+	boolean isAbandoned() {
+		return !owner.isAlive();
+	}
+}
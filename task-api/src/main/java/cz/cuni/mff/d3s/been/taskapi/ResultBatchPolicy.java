@@ -0,0 +1,106 @@
+package cz.cuni.mff.d3s.been.taskapi;
+
+import static cz.cuni.mff.d3s.been.core.TaskPropertyNames.*;
+
+import java.util.Properties;
+
+import cz.cuni.mff.d3s.been.util.PropertyReader;
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
+
+/**
+ * Limits on results buffered by a result {@link Persister} before they are sent
+ * to the Host Runtime. Set by the task properties
+ * {@link cz.cuni.mff.d3s.been.core.TaskPropertyNames#RESULT_BATCH_SIZE},
+ * {@link cz.cuni.mff.d3s.been.core.TaskPropertyNames#RESULT_BATCH_CHARS} and
+ * {@link cz.cuni.mff.d3s.been.core.TaskPropertyNames#RESULT_BATCH_DELAY}.
+ * 
+ * A measurement loop that wants no result I/O in its timed region sets the size
+ * and byte limits high and the delay to zero, so results are sent when the
+ * persister is closed.
+ * 
+ * Batching is off unless the task sets the size limit. The delay is only
+ * checked when another result is persisted, so a batching task which stops
+ * persisting keeps its last results buffered until it closes the persister.
+ */
+final class ResultBatchPolicy {
+
+	/** Default maximum number of buffered results, {@value} (no batching) */
+	static final int DEFAULT_BATCH_SIZE = 1;
+	/** Default maximum size of buffered results, in characters, {@value} */
+	static final int DEFAULT_BATCH_CHARS = 64 * 1024;
+	/** Default maximum time a result stays buffered, in milliseconds, {@value} */
+	static final long DEFAULT_BATCH_DELAY = 1000;
+
+	/** Largest number of buffer slots allocated up front, {@value} */
+	private static final int MAX_PREALLOCATED = 4096;
+
+	/** A policy sending each result right away */
+	static final ResultBatchPolicy NONE = new ResultBatchPolicy(1, 0, 0);
+
+	private final int maxCount;
+	private final int maxChars;
+	private final long maxDelay;
+
+	ResultBatchPolicy(int maxCount, int maxChars, long maxDelay) {
+		this.maxCount = maxCount;
+		this.maxChars = maxChars;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * Read the policy from the task's environment properties
+	 * 
+	 * @return The policy
+	 */
+	static ResultBatchPolicy fromEnvironment() {
+		final Properties properties = new Properties();
+		properties.putAll(TaskEnvironment.getAll());
+		final PropertyReader reader = PropertyReader.on(properties);
+		return new ResultBatchPolicy(
+				reader.getInteger(RESULT_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+				reader.getInteger(RESULT_BATCH_CHARS, DEFAULT_BATCH_CHARS),
+				reader.getLong(RESULT_BATCH_DELAY, DEFAULT_BATCH_DELAY));
+	}
+
+	/**
+	 * @return Whether results should be buffered at all
+	 */
+	boolean isBatching() {
+		return maxCount > 1;
+	}
+
+	/**
+	 * @return Number of buffer slots to allocate up front, so that buffering
+	 *         doesn't allocate in the common case
+	 */
+	int getInitialCapacity() {
+		return Math.max(1, Math.min(maxCount, MAX_PREALLOCATED));
+	}
+
+	/**
+	 * Decide whether buffered results should be sent
+	 * 
+	 * @param count
+	 *          Number of buffered results
+	 * @param chars
+	 *          Size of buffered results, in characters
+	 * @param oldestMillis
+	 *          Time the oldest buffered result was persisted
+	 * @param nowMillis
+	 *          Current time
+	 * 
+	 * @return <code>true</code> if the buffer should be flushed
+	 */
+	boolean shouldFlush(int count, long chars, long oldestMillis, long nowMillis) {
+		if (count == 0) {
+			return false;
+		}
+		return count >= maxCount || (maxChars > 0 && chars >= maxChars)
+				|| (maxDelay > 0 && nowMillis - oldestMillis >= maxDelay);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ResultBatchPolicy[count=%d, chars=%d, delay=%dms]", maxCount, maxChars, maxDelay);
+	}
+}
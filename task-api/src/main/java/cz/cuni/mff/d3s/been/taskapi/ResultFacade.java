@@ -1,6 +1,8 @@
 package cz.cuni.mff.d3s.been.taskapi;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 
 import cz.cuni.mff.d3s.been.persistence.DAOException;
 import cz.cuni.mff.d3s.been.persistence.Query;
@@ -70,6 +72,42 @@ public interface ResultFacade {
 	 */
 	<T extends Result> Collection<T> query(Query fetchQuery, Class<T> resultClass) throws DAOException;
 
+	/**
+	 * Iterate over results matching a query. If the query has a page size set
+	 * (see {@link cz.cuni.mff.d3s.been.persistence.ResultQueryBuilder#pageSize(int)}),
+	 * results are fetched lazily, one page at a time, so that huge result sets
+	 * can be processed without holding them in memory as a whole.
+	 *
+	 * Failures to fetch a page during the iteration are reported as
+	 * {@link cz.cuni.mff.d3s.been.persistence.PageFetchException}.
+	 *
+	 * @param fetchQuery
+	 *          Provided selection criteria
+	 * @param resultClass
+	 *          Class of the unmarshalled results
+	 * @param <T>
+	 *          Type of the result
+	 *
+	 * @return An iterator over matching results
+	 *
+	 * @throws DAOException When the query is not a result fetch query
+	 */
+	<T extends Result> Iterator<T> iterate(Query fetchQuery, Class<T> resultClass) throws DAOException;
+
+	/**
+	 * Compute aggregate values over groups of results, without transferring the
+	 * results themselves. Build the query with
+	 * {@link cz.cuni.mff.d3s.been.persistence.ResultQueryBuilder#aggregate()}.
+	 *
+	 * @param aggregateQuery
+	 *          Grouping attributes, aggregations and selection criteria
+	 *
+	 * @return One row per group, mapping the names of grouping attributes and aggregations to their values
+	 *
+	 * @throws DAOException When the query fails
+	 */
+	Collection<Map<String, Object>> aggregate(Query aggregateQuery) throws DAOException;
+
 	/**
 	 * Delete some results. Actually, don't do this, it won't save you from the
 	 * raptors.
@@ -12,6 +12,7 @@ import cz.cuni.mff.d3s.been.mq.MessagingException;
 import cz.cuni.mff.d3s.been.persistence.DAOException;
 import cz.cuni.mff.d3s.been.results.Result;
 import cz.cuni.mff.d3s.been.util.PropertyReader;
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
 
 /**
  * @author Kuba Brecka
@@ -60,7 +61,7 @@ public abstract class Task {
 	 * @return value associated with the name
 	 */
 	public String getTaskProperty(String propertyName) {
-		return System.getenv(propertyName);
+		return TaskEnvironment.get(propertyName);
 	}
 
 	/**
@@ -74,7 +75,7 @@ public abstract class Task {
 	 *         property is not set
 	 */
 	public String getTaskProperty(String propertyName, String defaultValue) {
-		String propertyValue = System.getenv(propertyName);
+		String propertyValue = TaskEnvironment.get(propertyName);
 		if (propertyValue == null) {
 			return defaultValue;
 		} else {
@@ -91,7 +92,7 @@ public abstract class Task {
 	 */
 	public PropertyReader createPropertyReader() {
 		Properties properties = new Properties();
-		properties.putAll(System.getenv());
+		properties.putAll(TaskEnvironment.getAll());
 
 		return PropertyReader.on(properties);
 
@@ -161,9 +162,9 @@ public abstract class Task {
 	}
 
 	private void initialize() {
-		this.id = System.getenv(TaskPropertyNames.TASK_ID);
-		this.contextId = System.getenv(TaskPropertyNames.CONTEXT_ID);
-		this.benchmarkId = System.getenv(TaskPropertyNames.BENCHMARK_ID);
+		this.id = TaskEnvironment.get(TaskPropertyNames.TASK_ID);
+		this.contextId = TaskEnvironment.get(TaskPropertyNames.CONTEXT_ID);
+		this.benchmarkId = TaskEnvironment.get(TaskPropertyNames.BENCHMARK_ID);
 		ResultFacadeFactory.setTaskId(id);
 		ResultFacadeFactory.setContextId(contextId);
 		ResultFacadeFactory.setBenchmarkId(benchmarkId);
@@ -183,6 +184,8 @@ public abstract class Task {
 			log.error("Failed to release results facade.");
 		}
 
+		AsyncTaskLogWriter.shutdown();
+
 		try {
 			Messages.terminate();
 		} catch (MessagingException e) {
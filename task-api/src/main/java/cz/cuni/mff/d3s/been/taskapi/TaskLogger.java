@@ -8,11 +8,14 @@ import cz.cuni.mff.d3s.been.logging.LogMessage;
 import cz.cuni.mff.d3s.been.logging.TaskLogMessage;
 import cz.cuni.mff.d3s.been.util.JSONUtils;
 import cz.cuni.mff.d3s.been.util.JsonException;
+import cz.cuni.mff.d3s.been.util.TaskEnvironment;
 
 /**
  * Logger implementation for a BEEN Task.
  * 
- * Logs are redirected to Host Runtime for processing/storage.
+ * Logs are redirected to Host Runtime for processing/storage, either directly
+ * from the logging thread, or through the {@link AsyncTaskLogWriter} if
+ * asynchronous logging is enabled.
  * 
  * @author Kuba Brecka
  * @author Martin Sixta
@@ -30,11 +33,11 @@ final class TaskLogger extends TaskLoggerBase {
 	private final JSONUtils jsonUtils = JSONUtils.newInstance();
 
 	static {
-		taskId = System.getenv(TASK_ID);
-		contextId = System.getenv(CONTEXT_ID);
-		benchmarkId = System.getenv(BENCHMARK_ID);
+		taskId = TaskEnvironment.get(TASK_ID);
+		contextId = TaskEnvironment.get(CONTEXT_ID);
+		benchmarkId = TaskEnvironment.get(BENCHMARK_ID);
 
-		String logLevelString = System.getenv(TASK_LOG_LEVEL);
+		String logLevelString = TaskEnvironment.get(TASK_LOG_LEVEL);
 
 		LogLevel tmpLogLevel;
 		try {
@@ -67,6 +70,11 @@ final class TaskLogger extends TaskLoggerBase {
 	 */
 	@Override
 	void log(int level, String message, Throwable t) {
+		final AsyncTaskLogWriter asyncWriter = AsyncTaskLogWriter.getInstance();
+		if (asyncWriter != null && asyncWriter.log(name, level, message, t)) {
+			return;
+		}
+
 		String serializedMsg;
 		try {
 			serializedMsg = createJsonLogMessage(level, message, t);
@@ -48,6 +48,9 @@ public final class TaskRunner {
 	 * Returns the Class object associated with the class or interface with the
 	 * given string name.
 	 * 
+	 * The class is looked up by the context class loader, which differs from
+	 * the loader of this class when the runner is shared by a launcher JVM.
+	 * 
 	 * @param className
 	 *          the fully qualified name of the desired class
 	 * @return the Class object for the class with the specified name.
@@ -55,7 +58,7 @@ public final class TaskRunner {
 	private static Class<?> getClass(String className) {
 		Class<?> clazz = null;
 		try {
-			return Class.forName(className);
+			return Class.forName(className, true, Thread.currentThread().getContextClassLoader());
 		} catch (ClassNotFoundException e) {
 			System.err.printf("Class '%s' cannot be found.\n", className);
 			System.exit(EX_USAGE.getCode());
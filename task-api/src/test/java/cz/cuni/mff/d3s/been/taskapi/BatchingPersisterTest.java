@@ -0,0 +1,87 @@
+package cz.cuni.mff.d3s.been.taskapi;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrier;
+import cz.cuni.mff.d3s.been.core.persistence.EntityCarrierFrames;
+import cz.cuni.mff.d3s.been.mq.IMessageQueue;
+import cz.cuni.mff.d3s.been.mq.IMessageSender;
+import cz.cuni.mff.d3s.been.results.Result;
+
+/**
+ * Test for result batching in persisters created by {@link JSONResultFacade}
+ */
+public class BatchingPersisterTest {
+
+	private IMessageQueue<String> queue;
+	private IMessageSender<String> sender;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		queue = mock(IMessageQueue.class);
+		sender = mock(IMessageSender.class);
+		when(queue.createSender()).thenReturn(sender);
+	}
+
+	@Test
+	public void testFlushesByCount() throws Exception {
+		final Persister persister = facade(new ResultBatchPolicy(3, 0, 0)).createResultPersister("group");
+
+		persister.persist(new Result());
+		persister.persist(new Result());
+		verify(sender, never()).send(anyString());
+
+		persister.persist(new Result());
+		assertEquals(3, sentCarriers().size());
+	}
+
+	@Test
+	public void testDefersUntilClose() throws Exception {
+		final Persister persister = facade(new ResultBatchPolicy(Integer.MAX_VALUE, 0, 0)).createResultPersister("group");
+
+		for (int i = 0; i < 100; ++i) {
+			persister.persist(new Result());
+		}
+		verify(sender, never()).send(anyString());
+
+		persister.close();
+		final List<EntityCarrier> carriers = sentCarriers();
+		assertEquals(100, carriers.size());
+		assertEquals("group", carriers.get(0).getEntityId().getGroup());
+		verify(sender).close();
+	}
+
+	@Test
+	public void testNoBatchingSendsEachResult() throws Exception {
+		final Persister persister = facade(ResultBatchPolicy.NONE).createResultPersister("group");
+
+		persister.persist(new Result());
+		persister.persist(new Result());
+
+		verify(sender, times(2)).send(anyString());
+	}
+
+	@Test
+	public void testNoBatchingByDefault() {
+		assertFalse(ResultBatchPolicy.fromEnvironment().isBatching());
+	}
+
+	private JSONResultFacade facade(ResultBatchPolicy policy) {
+		return JSONResultFacade.create(queue, true, policy);
+	}
+
+	private List<EntityCarrier> sentCarriers() throws Exception {
+		final ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+		verify(sender).send(message.capture());
+		return EntityCarrierFrames.decodeAll(message.getValue());
+	}
+}
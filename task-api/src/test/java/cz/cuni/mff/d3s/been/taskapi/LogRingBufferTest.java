@@ -0,0 +1,85 @@
+package cz.cuni.mff.d3s.been.taskapi;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link LogRingBuffer}
+ */
+public class LogRingBufferTest {
+
+	/** Collects drained messages */
+	private static class Collector implements LogRingBuffer.RecordHandler {
+		final List<String> messages = new ArrayList<>();
+
+		@Override
+		public void handle(LogRingBuffer.Record record) {
+			messages.add(record.message);
+		}
+	}
+
+	/** Buffer shared with the producer thread */
+	private volatile LogRingBuffer buffer;
+
+	@Test
+	public void testRoundsCapacityToPowerOfTwo() {
+		assertEquals(8, new LogRingBuffer(5, Thread.currentThread()).capacity());
+		assertEquals(1, new LogRingBuffer(1, Thread.currentThread()).capacity());
+	}
+
+	@Test
+	public void testRejectsWhenFull() {
+		final LogRingBuffer buffer = new LogRingBuffer(2, Thread.currentThread());
+
+		assertTrue(offer(buffer, "a"));
+		assertTrue(offer(buffer, "b"));
+		assertFalse(offer(buffer, "c"));
+
+		final Collector collector = new Collector();
+		assertEquals(1, buffer.drain(collector, 1));
+		assertTrue(offer(buffer, "d"));
+		assertEquals(2, buffer.drain(collector, 10));
+		assertTrue(buffer.isEmpty());
+
+		assertEquals(Arrays.asList("a", "b", "d"), collector.messages);
+	}
+
+	@Test
+	public void testDeliversInOrderAcrossThreads() throws InterruptedException {
+		final int count = 100_000;
+		final Thread producer = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < count; ++i) {
+					while (!offer(buffer, Integer.toString(i))) {
+						Thread.yield();
+					}
+				}
+			}
+		};
+		buffer = new LogRingBuffer(64, producer);
+		producer.start();
+
+		final Collector collector = new Collector();
+		while (collector.messages.size() < count) {
+			if (buffer.drain(collector, 16) == 0) {
+				Thread.yield();
+			}
+		}
+		producer.join();
+
+		for (int i = 0; i < count; ++i) {
+			assertEquals(Integer.toString(i), collector.messages.get(i));
+		}
+		assertTrue(buffer.isAbandoned());
+	}
+
+	private static boolean offer(LogRingBuffer buffer, String message) {
+		return buffer.offer("logger", 0, message, null, "thread", 0);
+	}
+}
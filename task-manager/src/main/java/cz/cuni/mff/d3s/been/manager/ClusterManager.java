@@ -1,5 +1,9 @@
 package cz.cuni.mff.d3s.been.manager;
 
+import static cz.cuni.mff.d3s.been.manager.TaskManagerConfiguration.*;
+
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,6 +13,7 @@ import cz.cuni.mff.d3s.been.cluster.ServiceException;
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
 import cz.cuni.mff.d3s.been.mq.MessageQueues;
 import cz.cuni.mff.d3s.been.mq.MessagingException;
+import cz.cuni.mff.d3s.been.util.PropertyReader;
 
 /**
  * Manages local cluster resources.
@@ -24,7 +29,8 @@ final class ClusterManager implements IClusterService {
 	private final MembershipListener membershipListener;
 	private final ClientListener clientListener;
 	private final ClusterContext clusterCtx;
-	private LocalKeyScanner keyScanner;
+	private final LocalTaskIndex taskIndex;
+	private final LocalKeyScanner keyScanner;
 
 	private final MessageQueues messageQueues = MessageQueues.getInstance();
 
@@ -38,9 +44,11 @@ final class ClusterManager implements IClusterService {
 		this.clusterCtx = clusterCtx;
 
 		localRuntimeListener = new LocalRuntimeListener(clusterCtx);
-		localTaskListener = new LocalTaskListener(clusterCtx);
+		taskIndex = new LocalTaskIndex();
+		localTaskListener = new LocalTaskListener(clusterCtx, taskIndex);
 		localContextListener = new LocalContextListener(clusterCtx);
-		membershipListener = new MembershipListener(clusterCtx);
+		keyScanner = new LocalKeyScanner(clusterCtx, taskIndex);
+		membershipListener = new MembershipListener(clusterCtx, keyScanner);
 		clientListener = new ClientListener(clusterCtx);
 
 	}
@@ -56,9 +64,12 @@ final class ClusterManager implements IClusterService {
 			throw new ServiceException("Cannot start clustered Task Manager", e);
 		}
 
-		taskMessageProcessor = new TaskMessageProcessor(clusterCtx);
-		keyScanner = new LocalKeyScanner(clusterCtx);
+		final PropertyReader propertyReader = PropertyReader.on(clusterCtx.getProperties());
+		taskMessageProcessor = new TaskMessageProcessor(
+				clusterCtx,
+				propertyReader.getInteger(PROCESSOR_LANES, DEFAULT_PROCESSOR_LANES));
 
+		clusterCtx.getRuntimes().startIndex();
 		taskMessageProcessor.start();
 		localRuntimeListener.start();
 		localTaskListener.start();
@@ -67,6 +78,16 @@ final class ClusterManager implements IClusterService {
 		clientListener.start();
 		keyScanner.start();
 
+		int statisticsPeriod = propertyReader.getInteger(PROCESSOR_STATISTICS_PERIOD, DEFAULT_PROCESSOR_STATISTICS_PERIOD);
+		if (statisticsPeriod > 0) {
+			clusterCtx.schedule(new Runnable() {
+				@Override
+				public void run() {
+					taskMessageProcessor.logStatistics();
+				}
+			}, statisticsPeriod, statisticsPeriod, TimeUnit.SECONDS);
+		}
+
 		log.info("Task Manager started.");
 	}
 
@@ -81,6 +102,7 @@ final class ClusterManager implements IClusterService {
 		localTaskListener.stop();
 		membershipListener.stop();
 		taskMessageProcessor.poison();
+		clusterCtx.getRuntimes().stopIndex();
 
 		log.info("Task Manager stopped.");
 
@@ -3,23 +3,31 @@ package cz.cuni.mff.d3s.been.manager;
 import static cz.cuni.mff.d3s.been.core.task.TaskState.*;
 import static cz.cuni.mff.d3s.been.manager.TaskManagerConfiguration.*;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryListener;
 import com.hazelcast.core.IMap;
 
 import cz.cuni.mff.d3s.been.cluster.ServiceException;
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.cluster.context.TaskContexts;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+import cz.cuni.mff.d3s.been.core.task.TaskContextEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskContextState;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
 import cz.cuni.mff.d3s.been.core.task.TaskState;
 import cz.cuni.mff.d3s.been.manager.msg.Messages;
 import cz.cuni.mff.d3s.been.manager.msg.TaskMessage;
 import cz.cuni.mff.d3s.been.mq.IMessageSender;
+import cz.cuni.mff.d3s.been.mq.MessagingException;
 import cz.cuni.mff.d3s.been.util.PropertyReader;
 
 /**
@@ -31,6 +39,18 @@ import cz.cuni.mff.d3s.been.util.PropertyReader;
  * if a key needs our attention. This covers leaving (or crashing) as well as
  * joining of data nodes.
  * 
+ * Since visiting every local key is expensive with large task histories, the
+ * full scan runs with a long period and also reconciles the
+ * {@link LocalTaskIndex}. The frequent scans only visit the waiting tasks and
+ * the tasks of offline Host Runtimes found in the index, and tasks of a Host
+ * Runtime which leaves the cluster are checked as soon as it is removed from
+ * the runtime map. The {@link MembershipListener} requests a full scan when a
+ * data node joins or leaves the cluster, as keys migrate then.
+ * 
+ * The full scan also requests a recount of the done tasks of local running
+ * contexts whose done task counters did not change since the previous full
+ * scan, so a lost increment does not leave a context running forever.
+ * 
  * @author Martin Sixta
  */
 final class LocalKeyScanner extends TaskManagerService {
@@ -43,8 +63,14 @@ final class LocalKeyScanner extends TaskManagerService {
 	/** Task Action Queue */
 	private IMessageSender<TaskMessage> sender;
 
-	/** The scanner runnable */
-	private final LocalKeyScannerRunnable runnable;
+	/** Index of local tasks */
+	private final LocalTaskIndex index;
+
+	/** Listener of departing Host Runtimes */
+	private final RuntimeDepartureListener runtimeListener;
+
+	/** Done task counts of local running contexts seen by the last full scan */
+	private Map<String, Long> contextDoneCounts = new HashMap<>();
 
 	/** This node's ID */
 	private final String nodeId;
@@ -56,22 +82,36 @@ final class LocalKeyScanner extends TaskManagerService {
 	 * 
 	 * @param clusterCtx
 	 *          connection to the cluster
+	 * @param index
+	 *          index of local tasks
 	 */
-	public LocalKeyScanner(ClusterContext clusterCtx) {
+	public LocalKeyScanner(ClusterContext clusterCtx, LocalTaskIndex index) {
 		this.clusterCtx = clusterCtx;
+		this.index = index;
 		this.nodeId = clusterCtx.getCluster().getLocalMember().getUuid();
-		this.runnable = new LocalKeyScannerRunnable();
+		this.runtimeListener = new RuntimeDepartureListener();
 		this.propertyReader = PropertyReader.on(clusterCtx.getProperties());
 	}
 
 	/** Runnable to schedule with the executor */
 	private class LocalKeyScannerRunnable implements Runnable {
 
+		/** whether to scan all local keys */
+		private final boolean full;
+
+		LocalKeyScannerRunnable(boolean full) {
+			this.full = full;
+		}
+
 		@Override
 		public void run() {
 			// pokemon block, aka. catch-them-all (Executors tend to silently ignore Exceptions)
 			try {
-				doRun();
+				if (full) {
+					doRun();
+				} else {
+					scanIndex();
+				}
 			} catch (Exception e) {
 				log.error("Unknown error in TaskManager (LocalKeyScanner)", e);
 			}
@@ -80,26 +120,61 @@ final class LocalKeyScanner extends TaskManagerService {
 	}
 
 	/**
-	 * The actual "run()" method
+	 * Listens for Host Runtimes leaving the cluster (in any data node).
+	 */
+	private class RuntimeDepartureListener implements EntryListener<String, RuntimeInfo> {
+
+		@Override
+		public void entryAdded(EntryEvent<String, RuntimeInfo> event) {
+			// nothing to do
+		}
+
+		@Override
+		public void entryRemoved(EntryEvent<String, RuntimeInfo> event) {
+			runtimeLeft(event.getKey());
+		}
+
+		@Override
+		public void entryUpdated(EntryEvent<String, RuntimeInfo> event) {
+			// nothing to do
+		}
+
+		@Override
+		public void entryEvicted(EntryEvent<String, RuntimeInfo> event) {
+			runtimeLeft(event.getKey());
+		}
+	}
+
+	/**
+	 * Schedules a full scan of the local keys, to be run once the keys migrated
+	 * after a data node joined or left the cluster.
+	 */
+	void scheduleFullScan() {
+		int delay = propertyReader.getInteger(SCANNER_MEMBERSHIP_DELAY, DEFAULT_SCANNER_MEMBERSHIP_DELAY);
+		clusterCtx.schedule(new LocalKeyScannerRunnable(true), delay, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * The actual "run()" method, scans all local keys
 	 * 
 	 * @throws Exception
 	 *           when it rains
 	 */
-	private void doRun() throws Exception {
+	private synchronized void doRun() throws Exception {
 		IMap<String, TaskEntry> map = clusterCtx.getTasks().getTasksMap();
 
-		Set<String> runtimeIds = new HashSet<>();
-		for (RuntimeInfo info : clusterCtx.getRuntimes().getRuntimes()) {
-			runtimeIds.add(info.getId());
-		}
+		Set<String> runtimeIds = getRuntimeIds();
 
-		for (String taskId : map.localKeySet()) {
+		Set<String> localKeys = map.localKeySet();
+		for (String taskId : localKeys) {
 			TaskEntry entry = map.get(taskId);
 
 			if (entry == null) {
 				continue;
 			}
 
+			index.update(entry);
+
 			try {
 				checkEntry(runtimeIds, entry);
 			} catch (Exception e) {
@@ -107,6 +182,113 @@ final class LocalKeyScanner extends TaskManagerService {
 			}
 
 		}
+
+		index.retainAll(localKeys);
+
+		checkContexts();
+	}
+
+	/**
+	 * Requests a recount of the done tasks of local running contexts whose done
+	 * task counters stalled since the previous full scan.
+	 * 
+	 * @throws MessagingException
+	 *           when a recount cannot be requested
+	 */
+	private void checkContexts() throws MessagingException {
+		TaskContexts contexts = clusterCtx.getTaskContexts();
+		Map<String, Long> doneCounts = new HashMap<>();
+
+		for (String contextId : contexts.getTaskContextsMap().localKeySet()) {
+			TaskContextEntry context = contexts.getTaskContext(contextId);
+
+			if (context == null || context.isLingering() || context.getContextState() != TaskContextState.RUNNING) {
+				continue;
+			}
+
+			long done = contexts.getFinishedTaskCount(contextId) + contexts.getAbortedTaskCount(contextId);
+			doneCounts.put(contextId, done);
+
+			Long previousDone = contextDoneCounts.get(contextId);
+			if (previousDone != null && previousDone == done) {
+				log.debug("Done tasks of context {} did not change since the last scan, will recount them", contextId);
+				sender.send(Messages.createRecountContextMessage(contextId));
+			}
+		}
+
+		contextDoneCounts = doneCounts;
+	}
+
+	/**
+	 * Checks the waiting tasks and the tasks of offline Host Runtimes found in
+	 * the index.
+	 * 
+	 * @throws Exception
+	 *           when it rains
+	 */
+	private synchronized void scanIndex() throws Exception {
+		Set<String> runtimeIds = getRuntimeIds();
+
+		Set<String> taskIds = index.getTasks(WAITING);
+		for (String runtimeId : index.getRuntimeIds()) {
+			if (!runtimeIds.contains(runtimeId)) {
+				taskIds.addAll(index.getTasksOnRuntime(runtimeId));
+			}
+		}
+
+		checkEntries(runtimeIds, taskIds);
+	}
+
+	/**
+	 * Checks the local tasks of a Host Runtime which left the cluster.
+	 * 
+	 * @param runtimeId
+	 *          ID of the Host Runtime
+	 */
+	private synchronized void runtimeLeft(String runtimeId) {
+		Set<String> taskIds = index.getTasksOnRuntime(runtimeId);
+		if (taskIds.isEmpty()) {
+			return;
+		}
+
+		log.debug("Host Runtime {} left, checking {} of its tasks", runtimeId, taskIds.size());
+
+		try {
+			Set<String> runtimeIds = getRuntimeIds();
+			runtimeIds.remove(runtimeId);
+			checkEntries(runtimeIds, taskIds);
+		} catch (Exception e) {
+			log.error("Cannot check tasks of Host Runtime " + runtimeId, e);
+		}
+	}
+
+	/**
+	 * Checks the given local tasks.
+	 */
+	private void checkEntries(Set<String> runtimeIds, Set<String> taskIds) {
+		IMap<String, TaskEntry> map = clusterCtx.getTasks().getTasksMap();
+
+		for (String taskId : taskIds) {
+			TaskEntry entry = map.get(taskId);
+
+			if (entry == null) {
+				index.remove(taskId);
+				continue;
+			}
+
+			try {
+				checkEntry(runtimeIds, entry);
+			} catch (Exception e) {
+				log.error("Error when checking TaskEntry " + taskId, e);
+			}
+		}
+	}
+
+	/**
+	 * Returns IDs of Host Runtimes currently in the cluster.
+	 */
+	private Set<String> getRuntimeIds() {
+		return new HashSet<>(clusterCtx.getRuntimes().getRuntimeMap().keySet());
 	}
 
 	/**
@@ -172,11 +354,16 @@ final class LocalKeyScanner extends TaskManagerService {
 		sender = createSender();
 		int delay = propertyReader.getInteger(SCANNER_INITIAL_DELAY, DEFAULT_SCANNER_INITIAL_DELAY);
 		int period = propertyReader.getInteger(SCANNER_PERIOD, DEFAULT_SCANNER_PERIOD);
-		clusterCtx.schedule(runnable, delay, period, TimeUnit.SECONDS);
+		int fullPeriod = propertyReader.getInteger(SCANNER_FULL_PERIOD, DEFAULT_SCANNER_FULL_PERIOD);
+
+		clusterCtx.getRuntimes().getRuntimeMap().addEntryListener(runtimeListener, false);
+		clusterCtx.schedule(new LocalKeyScannerRunnable(true), delay, fullPeriod, TimeUnit.SECONDS);
+		clusterCtx.schedule(new LocalKeyScannerRunnable(false), delay + period, period, TimeUnit.SECONDS);
 	}
 
 	@Override
 	public void stop() {
+		clusterCtx.getRuntimes().getRuntimeMap().removeEntryListener(runtimeListener);
 		sender.close();
 	}
 
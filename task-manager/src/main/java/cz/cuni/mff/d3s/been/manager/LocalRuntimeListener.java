@@ -16,7 +16,6 @@ import cz.cuni.mff.d3s.been.cluster.ServiceException;
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
-import cz.cuni.mff.d3s.been.core.task.TaskState;
 import cz.cuni.mff.d3s.been.manager.msg.Messages;
 import cz.cuni.mff.d3s.been.manager.msg.TaskMessage;
 import cz.cuni.mff.d3s.been.mq.IMessageSender;
@@ -94,23 +93,7 @@ final class LocalRuntimeListener extends TaskManagerService implements EntryList
 	@Override
 	public synchronized void entryEvicted(EntryEvent<String, RuntimeInfo> event) {
 		log.warn("Host Runtime evicted: {}", event.getKey());
-		Collection<TaskEntry> tasks = getTasksOnRuntime(event.getValue().getId());
-
-		for (TaskEntry entry : tasks) {
-			try {
-				TaskState state = entry.getState();
-
-				if (state == TaskState.RUNNING) {
-					sender.send(Messages.createAbortTaskMessage(entry, "Host Runtime Failed"));
-				} else if (state == TaskState.SCHEDULED) {
-					sender.send(Messages.createScheduleTaskMessage(entry));
-				}
-			} catch (MessagingException e) {
-				String msg = String.format("Cannot send message to '%s'", sender.getConnection());
-				log.error(msg, e);
-			}
-
-		}
+		// its tasks are checked by the LocalKeyScanner of the data nodes owning them
 	}
 
 	@Override
@@ -169,23 +152,4 @@ final class LocalRuntimeListener extends TaskManagerService implements EntryList
 		return Collections.emptyList();
 
 	}
-
-	private static final String TASKS_ON_RUNTIME_FMT = "runtimeId = '%s'";
-
-	/**
-	 * Returns all waiting tasks
-	 * 
-	 * @return all waiting tasks
-	 */
-	private Collection<TaskEntry> getTasksOnRuntime(String runtimeId) {
-		try {
-			String query = String.format(TASKS_ON_RUNTIME_FMT, runtimeId);
-			return tasksMap.values(new SqlPredicate(query));
-		} catch (Exception e) {
-			log.error("Error while looking tasks on a runtime", e);
-		}
-
-		return Collections.emptyList();
-
-	}
 }
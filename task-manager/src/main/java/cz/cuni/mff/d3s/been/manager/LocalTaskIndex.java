@@ -0,0 +1,189 @@
+package cz.cuni.mff.d3s.been.manager;
+
+import static cz.cuni.mff.d3s.been.core.task.TaskState.ABORTED;
+import static cz.cuni.mff.d3s.been.core.task.TaskState.FINISHED;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
+
+/**
+ * Index of the tasks owned by this data node, by their state and by the Host
+ * Runtime they are assigned to.
+ *
+ * The index is updated by the {@link LocalTaskListener}. Hazelcast (as of
+ * version 2.5) does not report migrations of keys, so the
+ * {@link LocalKeyScanner} reconciles the index with the local keys
+ * periodically.
+ *
+ * Only tasks which are not done are indexed by their Host Runtime.
+ */
+final class LocalTaskIndex {
+
+	/** state and Host Runtime of indexed tasks, by task ID */
+	private final Map<String, Indexed> tasks = new HashMap<>();
+
+	/** IDs of tasks by their state */
+	private final Map<TaskState, Set<String>> byState = new EnumMap<>(TaskState.class);
+
+	/** IDs of tasks which are not done by the ID of their Host Runtime (may be null) */
+	private final Map<String, Set<String>> byRuntime = new HashMap<>();
+
+	/**
+	 * Indexes a task, or updates its index entries.
+	 *
+	 * @param entry
+	 *          the task
+	 */
+	synchronized void update(TaskEntry entry) {
+		final Indexed indexed = new Indexed(entry.getState(), entry.getRuntimeId());
+		final Indexed previous = tasks.put(entry.getId(), indexed);
+
+		if (previous != null) {
+			if (previous.equals(indexed)) {
+				return;
+			}
+			unindex(entry.getId(), previous);
+		}
+		index(entry.getId(), indexed);
+	}
+
+	/**
+	 * Removes a task from the index.
+	 *
+	 * @param taskId
+	 *          ID of the task
+	 */
+	synchronized void remove(String taskId) {
+		final Indexed previous = tasks.remove(taskId);
+		if (previous != null) {
+			unindex(taskId, previous);
+		}
+	}
+
+	/**
+	 * Removes all tasks but the given ones.
+	 *
+	 * @param taskIds
+	 *          IDs of the tasks to keep
+	 */
+	synchronized void retainAll(Collection<String> taskIds) {
+		for (Iterator<Map.Entry<String, Indexed>> it = tasks.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<String, Indexed> task = it.next();
+			if (!taskIds.contains(task.getKey())) {
+				it.remove();
+				unindex(task.getKey(), task.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns IDs of the tasks in a state.
+	 *
+	 * @param state
+	 *          the state
+	 * @return copy of the task IDs
+	 */
+	synchronized Set<String> getTasks(TaskState state) {
+		final Set<String> ids = byState.get(state);
+		return ids == null ? new HashSet<String>() : new HashSet<>(ids);
+	}
+
+	/**
+	 * Returns IDs of the tasks assigned to a Host Runtime, which are not done.
+	 *
+	 * @param runtimeId
+	 *          ID of the Host Runtime, null for tasks not assigned to any
+	 * @return copy of the task IDs
+	 */
+	synchronized Set<String> getTasksOnRuntime(String runtimeId) {
+		final Set<String> ids = byRuntime.get(runtimeId);
+		return ids == null ? new HashSet<String>() : new HashSet<>(ids);
+	}
+
+	/**
+	 * Returns IDs of the Host Runtimes with tasks which are not done.
+	 *
+	 * @return copy of the Host Runtime IDs, may contain null
+	 */
+	synchronized Set<String> getRuntimeIds() {
+		return new HashSet<>(byRuntime.keySet());
+	}
+
+	/**
+	 * Returns the number of indexed tasks.
+	 *
+	 * @return number of indexed tasks
+	 */
+	synchronized int size() {
+		return tasks.size();
+	}
+
+	private void index(String taskId, Indexed indexed) {
+		add(byState, indexed.state, taskId);
+		if (!indexed.isDone()) {
+			add(byRuntime, indexed.runtimeId, taskId);
+		}
+	}
+
+	private void unindex(String taskId, Indexed indexed) {
+		remove(byState, indexed.state, taskId);
+		if (!indexed.isDone()) {
+			remove(byRuntime, indexed.runtimeId, taskId);
+		}
+	}
+
+	private static <K> void add(Map<K, Set<String>> index, K key, String taskId) {
+		Set<String> ids = index.get(key);
+		if (ids == null) {
+			ids = new HashSet<>();
+			index.put(key, ids);
+		}
+		ids.add(taskId);
+	}
+
+	private static <K> void remove(Map<K, Set<String>> index, K key, String taskId) {
+		final Set<String> ids = index.get(key);
+		if (ids != null && ids.remove(taskId) && ids.isEmpty()) {
+			index.remove(key);
+		}
+	}
+
+	/**
+	 * Indexed attributes of a task.
+	 */
+	private static final class Indexed {
+		final TaskState state;
+		final String runtimeId;
+
+		Indexed(TaskState state, String runtimeId) {
+			this.state = state;
+			this.runtimeId = runtimeId;
+		}
+
+		boolean isDone() {
+			return state == ABORTED || state == FINISHED;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Indexed)) {
+				return false;
+			}
+			final Indexed other = (Indexed) o;
+			return state == other.state && (runtimeId == null ? other.runtimeId == null : runtimeId.equals(other.runtimeId));
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (state == null ? 0 : state.hashCode()) + (runtimeId == null ? 0 : runtimeId.hashCode());
+		}
+	}
+}
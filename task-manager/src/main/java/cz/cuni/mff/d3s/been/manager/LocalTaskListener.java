@@ -46,14 +46,20 @@ final class LocalTaskListener extends TaskManagerService implements EntryListene
 	/** sender of "in-task manager" messages */
 	private IMessageSender<TaskMessage> sender;
 
+	/** index of local tasks */
+	private final LocalTaskIndex index;
+
 	/**
 	 * Creates LocalTaskListener
 	 * 
 	 * @param clusterCtx
 	 *          connection to the cluster.
+	 * @param index
+	 *          index of local tasks to keep up to date
 	 */
-	public LocalTaskListener(ClusterContext clusterCtx) {
+	public LocalTaskListener(ClusterContext clusterCtx, LocalTaskIndex index) {
 		this.clusterCtx = clusterCtx;
+		this.index = index;
 		taskMap = clusterCtx.getTasks().getTasksMap();
 		MapConfig cfg = clusterCtx.getTasks().getTasksMapConfig();
 
@@ -84,6 +90,7 @@ final class LocalTaskListener extends TaskManagerService implements EntryListene
 		log.debug("TaskEntry {} added", event.getKey());
 
 		TaskEntry entry = event.getValue();
+		index.update(entry);
 
 		if (entry.isSetTaskDependency()) {
 			String dep = entry.getTaskDependency();
@@ -104,6 +111,7 @@ final class LocalTaskListener extends TaskManagerService implements EntryListene
 	@Override
 	public synchronized void entryRemoved(EntryEvent<String, TaskEntry> event) {
 		log.debug("TaskEntry {} removed ", event.getKey());
+		index.remove(event.getKey());
 	}
 
 	@Override
@@ -112,6 +120,7 @@ final class LocalTaskListener extends TaskManagerService implements EntryListene
 
 		TaskEntry entry = event.getValue();
 		TaskState state = entry.getState();
+		index.update(entry);
 
 		// skip waiting tasks
 		if (state == TaskState.WAITING) {
@@ -134,7 +143,9 @@ final class LocalTaskListener extends TaskManagerService implements EntryListene
 		}
 
 		try {
-			TaskMessage msg = Messages.createTaskChangedMessage(entry);
+			TaskEntry oldEntry = event.getOldValue();
+			TaskState previousState = (oldEntry == null) ? null : oldEntry.getState();
+			TaskMessage msg = Messages.createTaskChangedMessage(entry, previousState);
 			sender.send(msg);
 		} catch (MessagingException e) {
 			String msg = String.format("Cannot send message to '%s'", sender.getConnection());
@@ -145,6 +156,7 @@ final class LocalTaskListener extends TaskManagerService implements EntryListene
 	@Override
 	public synchronized void entryEvicted(EntryEvent<String, TaskEntry> event) {
 		log.debug("TaskEntry {} evicted", event.getKey());
+		index.remove(event.getKey());
 	}
 
 	/**
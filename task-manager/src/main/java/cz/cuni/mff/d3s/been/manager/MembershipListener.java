@@ -18,15 +18,19 @@ final class MembershipListener extends TaskManagerService implements com.hazelca
 
 	private ClusterContext clusterCtx;
 	private IMessageSender sender;
+	private final LocalKeyScanner keyScanner;
 
 	/**
 	 * Creates MembershipListener.
 	 * 
 	 * @param clusterCtx
 	 *          connection to the cluster
+	 * @param keyScanner
+	 *          scanner of the local keys, which migrate on membership changes
 	 */
-	public MembershipListener(ClusterContext clusterCtx) {
+	public MembershipListener(ClusterContext clusterCtx, LocalKeyScanner keyScanner) {
 		this.clusterCtx = clusterCtx;
+		this.keyScanner = keyScanner;
 	}
 
 	private static final Logger log = LoggerFactory.getLogger(LocalTaskListener.class);
@@ -46,11 +50,13 @@ final class MembershipListener extends TaskManagerService implements com.hazelca
 	@Override
 	public void memberAdded(MembershipEvent membershipEvent) {
 		log.info("Member added: {}", membershipEvent.getMember());
+		keyScanner.scheduleFullScan();
 	}
 
 	@Override
 	public void memberRemoved(MembershipEvent membershipEvent) {
 		log.info("Member removed: {}", membershipEvent.getMember());
+		keyScanner.scheduleFullScan();
 	}
 
 }
@@ -34,6 +34,35 @@ public final class TaskManagerConfiguration implements BeenServiceConfiguration
 	 */
 	public static int DEFAULT_SCANNER_INITIAL_DELAY = DEFAULT_SCANNER_PERIOD / 2;
 
+	/**
+	 * The period in seconds with which the {@link LocalKeyScanner} scans all
+	 * local keys of the task map.
+	 *
+	 * The scans of the {@link TaskManagerConfiguration#SCANNER_PERIOD} only visit
+	 * tasks found in the local task index, the full scan picks up keys migrated
+	 * to this node.
+	 */
+	public static String SCANNER_FULL_PERIOD = "been.tm.scanner.full.period";
+
+	/**
+	 * The default value for the
+	 * {@link TaskManagerConfiguration#SCANNER_FULL_PERIOD} in seconds.
+	 */
+	public static int DEFAULT_SCANNER_FULL_PERIOD = 300;
+
+	/**
+	 * The delay in seconds after a data node joins or leaves the cluster, before
+	 * the {@link LocalKeyScanner} scans all local keys to pick up the migrated
+	 * ones.
+	 */
+	public static String SCANNER_MEMBERSHIP_DELAY = "been.tm.scanner.membership.delay";
+
+	/**
+	 * The default value for the
+	 * {@link TaskManagerConfiguration#SCANNER_MEMBERSHIP_DELAY} in seconds.
+	 */
+	public static int DEFAULT_SCANNER_MEMBERSHIP_DELAY = 10;
+
 	/**
 	 * The maximum number of benchmark generator resubmits before aborting the
 	 * whole benchmark.
@@ -45,4 +74,28 @@ public final class TaskManagerConfiguration implements BeenServiceConfiguration
 	 */
 	public static final Integer DEFAULT_MAXIMUM_ALLOWED_RESUBMITS = 10;
 
+	/**
+	 * The number of lanes in which the {@link TaskMessageProcessor} executes
+	 * actions in parallel. Messages about the same task (or context) always go
+	 * to the same lane.
+	 */
+	public static final String PROCESSOR_LANES = "been.tm.processor.lanes";
+
+	/**
+	 * The default value for the {@link TaskManagerConfiguration#PROCESSOR_LANES}
+	 */
+	public static final Integer DEFAULT_PROCESSOR_LANES = 4;
+
+	/**
+	 * The period in seconds with which the depth and action latency of the
+	 * {@link TaskMessageProcessor} lanes is logged, 0 disables the logging.
+	 */
+	public static final String PROCESSOR_STATISTICS_PERIOD = "been.tm.processor.statistics.period";
+
+	/**
+	 * The default value for the
+	 * {@link TaskManagerConfiguration#PROCESSOR_STATISTICS_PERIOD} in seconds
+	 */
+	public static final Integer DEFAULT_PROCESSOR_STATISTICS_PERIOD = 60;
+
 }
@@ -1,5 +1,9 @@
 package cz.cuni.mff.d3s.been.manager;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +17,13 @@ import cz.cuni.mff.d3s.been.mq.MessageQueues;
 import cz.cuni.mff.d3s.been.mq.MessagingException;
 
 /**
+ * Receives task messages and executes their actions.
+ *
+ * Messages are distributed by their key (task or context ID) among several
+ * lanes, each executing actions in its own thread. Messages about the same
+ * entity are thus processed in order, while a slow action blocks only the
+ * entities sharing its lane.
+ *
  * @author Martin Sixta
  */
 final class TaskMessageProcessor extends Thread {
@@ -23,14 +34,24 @@ final class TaskMessageProcessor extends Thread {
 
 	private final MessageQueues messageQueues = MessageQueues.getInstance();
 
+	/** lanes executing the actions */
+	private final Lane[] lanes;
+
 	/**
 	 * Creates TaskMessageProcessor.
-	 * 
+	 *
 	 * @param clusterCtx
 	 *          connection to the cluster
+	 * @param laneCount
+	 *          number of lanes processing messages in parallel
 	 */
-	public TaskMessageProcessor(ClusterContext clusterCtx) {
+	public TaskMessageProcessor(ClusterContext clusterCtx, int laneCount) {
+		super(TaskMessageProcessor.class.getSimpleName());
 		this.clusterCtx = clusterCtx;
+		this.lanes = new Lane[Math.max(1, laneCount)];
+		for (int i = 0; i < lanes.length; ++i) {
+			lanes[i] = new Lane(i);
+		}
 	}
 
 	@Override
@@ -44,6 +65,10 @@ final class TaskMessageProcessor extends Thread {
 			return;
 		}
 
+		for (Lane lane : lanes) {
+			lane.start();
+		}
+
 		while (!Thread.interrupted()) {
 			try {
 				TaskMessage message = receiver.receive();
@@ -55,21 +80,27 @@ final class TaskMessageProcessor extends Thread {
 
 				log.debug("Task message of type '{}' received", message.getClass());
 
-				TaskAction action = message.createAction(clusterCtx);
-
-				if (action != null) {
-					action.execute();
-				}
+				laneOf(message).add(message);
 
 			} catch (MessagingException e) {
 				log.error("Cannot receive a message", e);
-			} catch (TaskActionException e) {
-				log.error("Cannot execute action for received message", e);
 			} catch (Exception e) {
 				log.error("Unknown error", e);
 			}
 		}
 
+		for (Lane lane : lanes) {
+			lane.add(new PoisonMessage());
+		}
+		for (Lane lane : lanes) {
+			try {
+				lane.join();
+			} catch (InterruptedException e) {
+				log.warn("Interrupted while waiting for lanes of {} to finish", TaskMessageProcessor.class.getSimpleName());
+				break;
+			}
+		}
+
 		log.info("Exiting thread of {}", TaskMessageProcessor.class.getSimpleName());
 	}
 
@@ -94,6 +125,101 @@ final class TaskMessageProcessor extends Thread {
 		}
 	}
 
+	/**
+	 * Logs the depth and action latency of each lane.
+	 */
+	void logStatistics() {
+		for (Lane lane : lanes) {
+			log.info(lane.getStatistics());
+		}
+	}
+
+	private Lane laneOf(TaskMessage message) {
+		final String key = message.getKey();
+		if (key == null) {
+			return lanes[0];
+		}
+		return lanes[(key.hashCode() & Integer.MAX_VALUE) % lanes.length];
+	}
+
+	/**
+	 * A thread executing actions of the messages assigned to it, one by one.
+	 */
+	private final class Lane extends Thread {
+
+		private final int index;
+
+		private final BlockingQueue<TaskMessage> queue = new LinkedBlockingQueue<>();
+
+		/** number of processed messages */
+		private long processed;
+
+		/** total and maximum time spent processing messages, in nanoseconds */
+		private long totalNanos;
+		private long maxNanos;
+
+		Lane(int index) {
+			super(String.format("%s-lane-%d", TaskMessageProcessor.class.getSimpleName(), index));
+			this.index = index;
+		}
+
+		void add(TaskMessage message) {
+			queue.add(message);
+		}
+
+		int getDepth() {
+			return queue.size();
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				final TaskMessage message;
+				try {
+					message = queue.take();
+				} catch (InterruptedException e) {
+					break;
+				}
+
+				if (message instanceof PoisonMessage) {
+					break;
+				}
+
+				final long start = System.nanoTime();
+				try {
+					TaskAction action = message.createAction(clusterCtx);
+
+					if (action != null) {
+						action.execute();
+					}
+				} catch (TaskActionException e) {
+					log.error("Cannot execute action for received message", e);
+				} catch (Exception e) {
+					log.error("Unknown error", e);
+				} finally {
+					processed(System.nanoTime() - start);
+				}
+			}
+		}
+
+		private synchronized void processed(long nanos) {
+			++processed;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+
+		synchronized String getStatistics() {
+			final long avgNanos = processed == 0 ? 0 : totalNanos / processed;
+			return String.format(
+					"Task message lane %d: %d waiting, %d processed, action latency avg %d ms, max %d ms",
+					index,
+					getDepth(),
+					processed,
+					TimeUnit.NANOSECONDS.toMillis(avgNanos),
+					TimeUnit.NANOSECONDS.toMillis(maxNanos));
+		}
+	}
+
 	/**
 	 * Message used to terminate task message processing.
 	 */
@@ -102,6 +228,11 @@ final class TaskMessageProcessor extends Thread {
 		public TaskAction createAction(ClusterContext ctx) {
 			throw new UnsupportedOperationException("Poison message does not execute actions!");
 		}
+
+		@Override
+		public String getKey() {
+			return null;
+		}
 	}
 
 }
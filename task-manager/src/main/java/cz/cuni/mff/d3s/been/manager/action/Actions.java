@@ -2,6 +2,7 @@ package cz.cuni.mff.d3s.been.manager.action;
 
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
 
 /**
  * 
@@ -55,10 +56,27 @@ public class Actions {
 	 *          connection to the cluster
 	 * @param entry
 	 *          {@link TaskEntry} of a task to check context for
+	 * @param previousState
+	 *          state of the task before it has finished, null if not known
 	 * @return action which will check context of the task
 	 */
-	public static TaskAction createTaskContextCheckerAction(final ClusterContext ctx, final TaskEntry entry) {
-		return new TaskContextCheckerAction(ctx, entry);
+	public static TaskAction createTaskContextCheckerAction(final ClusterContext ctx, final TaskEntry entry,
+			final TaskState previousState) {
+		return new TaskContextCheckerAction(ctx, entry.getTaskContextId(), entry.getState(), previousState);
+	}
+
+	/**
+	 * Creates actions which recounts the done tasks of a context and checks
+	 * whether the context is done.
+	 * 
+	 * @param ctx
+	 *          connection to the cluster
+	 * @param contextId
+	 *          ID of the context to check
+	 * @return action which will recount and check the context
+	 */
+	public static TaskAction createContextRecountAction(final ClusterContext ctx, final String contextId) {
+		return new TaskContextCheckerAction(ctx, contextId, null, null);
 	}
 
 	/**
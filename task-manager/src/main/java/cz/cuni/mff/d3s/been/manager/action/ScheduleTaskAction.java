@@ -98,7 +98,7 @@ final class ScheduleTaskAction implements TaskAction {
 			map.unlock(id);
 
 			// 5) Send a message to the runtime
-			ctx.getTopics().publishInGlobalTopic(newRunTaskMessage());
+			ctx.getTopics().publishToRuntime(receiverId, newRunTaskMessage());
 
 			log.debug("Task {} scheduled on {}", id, receiverId);
 
@@ -16,6 +16,14 @@ import cz.cuni.mff.d3s.been.core.task.TaskEntry;
 import cz.cuni.mff.d3s.been.core.task.TaskState;
 
 /**
+ * Checks whether the context of a finished or aborted task is done.
+ * 
+ * Done tasks are counted by per-context atomic counters, so the check does not
+ * query the task map. The tasks of the context are recounted only when the
+ * previous state of the task is not known or the counters are inconsistent.
+ * Counts that are too low are recovered by recounts requested by the
+ * <code>LocalKeyScanner</code> for contexts whose counters stall.
+ * 
  * @author Kuba Brecka
  */
 final class TaskContextCheckerAction implements TaskAction {
@@ -25,10 +33,16 @@ final class TaskContextCheckerAction implements TaskAction {
 	/** connection to the cluster */
 	private final ClusterContext ctx;
 
-	/** task entry used for the context check */
-	private final TaskEntry entry;
+	/** ID of the checked context */
+	private final String taskContextId;
 
-	/** format of sql query predicate for finding all unfinished tasks */
+	/** final state of the task which triggered the check, null for a recount */
+	private final TaskState state;
+
+	/** state of the task before it has finished, null if not known */
+	private final TaskState previousState;
+
+	/** format of sql query predicate for finding all finished tasks */
 	private static final String QUERY_FORMAT = "taskContextId = '%s' AND ((state == %s) OR (state == %s))";
 
 	/**
@@ -36,12 +50,20 @@ final class TaskContextCheckerAction implements TaskAction {
 	 * 
 	 * @param ctx
 	 *          connection to the cluster
-	 * @param entry
-	 *          targeted task entry
+	 * @param taskContextId
+	 *          ID of the checked context
+	 * @param state
+	 *          final state of the task which triggered the check, null for a
+	 *          recount
+	 * @param previousState
+	 *          state of the task before it has finished, null if not known (the
+	 *          done tasks are recounted then)
 	 */
-	public TaskContextCheckerAction(ClusterContext ctx, TaskEntry entry) {
+	public TaskContextCheckerAction(ClusterContext ctx, String taskContextId, TaskState state, TaskState previousState) {
 		this.ctx = ctx;
-		this.entry = entry;
+		this.taskContextId = taskContextId;
+		this.state = state;
+		this.previousState = previousState;
 	}
 
 	/**
@@ -55,17 +77,15 @@ final class TaskContextCheckerAction implements TaskAction {
 	 */
 	@Override
 	public void execute() throws TaskActionException {
-		final String taskContextId = entry.getTaskContextId();
 		final TaskContexts contexts = ctx.getTaskContexts();
 
 		IMap<String, TaskContextEntry> contextsMap = ctx.getTaskContexts().getTaskContextsMap();
-		IMap<String, TaskEntry> tasksMap = ctx.getTasks().getTasksMap();
 
 		// fetch the entry
 		TaskContextEntry contextEntry = contexts.getTaskContext(taskContextId);
 
 		// optimization: fist check, and if needed then lock and check again
-		if (isContextDone(contextEntry)) {
+		if (contextEntry == null || isContextDone(contextEntry)) {
 			return;
 		}
 
@@ -74,24 +94,39 @@ final class TaskContextCheckerAction implements TaskAction {
 			return;
 		}
 
+		boolean recount = (previousState == null);
+
+		if (!recount && !isDone(previousState)) {
+			contexts.countDoneTask(taskContextId, state);
+		}
+
+		// optimization: without recount, the counters tell whether the context may be done
+		if (!recount && countDoneTasks(contexts, taskContextId) < contextEntry.getContainedTask().size()) {
+			return;
+		}
+
 		try {
 			contextsMap.lock(taskContextId); // LOCK BEGIN
 
 			// must fetch again
 			contextEntry = contexts.getTaskContext(taskContextId);
 
-			if (isContextDone(contextEntry)) {
+			if (contextEntry == null || isContextDone(contextEntry)) {
 				return;
 			}
 
-			Collection<TaskEntry> values = tasksMap.values(getPredicate(taskContextId));
+			final int taskCount = contextEntry.getContainedTask().size();
+
+			if (recount || countDoneTasks(contexts, taskContextId) > taskCount) {
+				recountDoneTasks(taskContextId);
+			}
 
-			boolean isFinished = (values.size() == contextEntry.getContainedTask().size());
+			boolean isFinished = (countDoneTasks(contexts, taskContextId) == taskCount);
 
 			if (isFinished) {
 				TaskContextState finalState = TaskContextState.FINISHED;
 
-				if (isFailed(values)) {
+				if (contexts.getAbortedTaskCount(taskContextId) > 0) {
 					finalState = TaskContextState.FAILED;
 				}
 				contextEntry.setContextState(finalState);
@@ -109,12 +144,35 @@ final class TaskContextCheckerAction implements TaskAction {
 	}
 
 	/**
-	 * Creates SqlPredicate for finding all unfinished tasks.
+	 * Recounts finished and aborted tasks of the context by querying the task
+	 * map, and resets the counters of the context.
+	 * 
+	 * @param contextId
+	 *          ID of the context
+	 */
+	private void recountDoneTasks(String contextId) {
+		IMap<String, TaskEntry> tasksMap = ctx.getTasks().getTasksMap();
+		Collection<TaskEntry> values = tasksMap.values(getPredicate(contextId));
+
+		long aborted = 0;
+		for (TaskEntry taskEntry : values) {
+			if (taskEntry.getState() == TaskState.ABORTED) {
+				++aborted;
+			}
+		}
+
+		log.debug("Recounted done tasks of context {}: {} finished, {} aborted", contextId, values.size() - aborted, aborted);
+
+		ctx.getTaskContexts().setDoneTaskCounts(contextId, values.size() - aborted, aborted);
+	}
+
+	/**
+	 * Creates SqlPredicate for finding all finished tasks.
 	 * 
 	 * @param contextId
 	 *          ID of the contexts tasks belong to
 	 * 
-	 * @return SqlPredicate for finding all unfinished tasks from the specified
+	 * @return SqlPredicate for finding all finished tasks from the specified
 	 *         context
 	 */
 	private SqlPredicate getPredicate(String contextId) {
@@ -123,14 +181,12 @@ final class TaskContextCheckerAction implements TaskAction {
 		return new SqlPredicate(sql);
 	}
 
-	private boolean isFailed(Collection<TaskEntry> tasks) {
-		for (TaskEntry taskEntry : tasks) {
-			if (taskEntry.getState() == TaskState.ABORTED) {
-				return true;
-			}
-		}
+	private long countDoneTasks(TaskContexts contexts, String contextId) {
+		return contexts.getFinishedTaskCount(contextId) + contexts.getAbortedTaskCount(contextId);
+	}
 
-		return false;
+	private boolean isDone(TaskState state) {
+		return state == TaskState.FINISHED || state == TaskState.ABORTED;
 	}
 
 	private boolean isContextDone(TaskContextEntry entry) {
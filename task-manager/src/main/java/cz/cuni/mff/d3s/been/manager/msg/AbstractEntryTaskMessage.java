@@ -29,4 +29,9 @@ abstract class AbstractEntryTaskMessage implements TaskMessage {
 	public TaskEntry getEntry() {
 		return entry;
 	}
+
+	@Override
+	public String getKey() {
+		return entry.getId();
+	}
 }
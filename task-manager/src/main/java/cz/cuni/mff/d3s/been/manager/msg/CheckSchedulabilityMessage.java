@@ -48,6 +48,11 @@ public class CheckSchedulabilityMessage implements TaskMessage {
 		return Actions.createNullAction();
 	}
 
+	@Override
+	public String getKey() {
+		return entry.getId();
+	}
+
 	/**
 	 * Checks whether the task is waiting on another task.
 	 * 
@@ -1,6 +1,7 @@
 package cz.cuni.mff.d3s.been.manager.msg;
 
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
 
 /**
  * Factory for {@link TaskMessage}s.
@@ -20,6 +21,17 @@ public class Messages {
 		return new RunContextMessage(contextId);
 	}
 
+	/**
+	 * Creates RecountContextMessage implementation
+	 * 
+	 * @param contextId
+	 *          targeted context id
+	 * @return RecountContextMessage implementation
+	 */
+	public static TaskMessage createRecountContextMessage(String contextId) {
+		return new RecountContextMessage(contextId);
+	}
+
 	/**
 	 * Creates TaskChangedMessage implementation
 	 * 
@@ -28,7 +40,20 @@ public class Messages {
 	 * @return TaskChangedMessage implementation
 	 */
 	public static TaskMessage createTaskChangedMessage(TaskEntry entry) {
-		return new TaskChangedMessage(entry);
+		return new TaskChangedMessage(entry, null);
+	}
+
+	/**
+	 * Creates TaskChangedMessage implementation
+	 * 
+	 * @param entry
+	 *          targeted task entry
+	 * @param previousState
+	 *          state of the task before the change, null if not known
+	 * @return TaskChangedMessage implementation
+	 */
+	public static TaskMessage createTaskChangedMessage(TaskEntry entry, TaskState previousState) {
+		return new TaskChangedMessage(entry, previousState);
 	}
 
 	/**
@@ -0,0 +1,33 @@
+package cz.cuni.mff.d3s.been.manager.msg;
+
+import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.manager.action.Actions;
+import cz.cuni.mff.d3s.been.manager.action.TaskAction;
+
+/**
+ * Message which recounts the done tasks of a context whose counters may have
+ * missed a task, and finishes the context if all its tasks are done.
+ */
+final class RecountContextMessage implements TaskMessage {
+	private final String contextId;
+
+	/**
+	 * Creates RecountContextMessage.
+	 * 
+	 * @param contextId
+	 *          targeted context ID
+	 */
+	public RecountContextMessage(String contextId) {
+		this.contextId = contextId;
+	}
+
+	@Override
+	public TaskAction createAction(ClusterContext ctx) {
+		return Actions.createContextRecountAction(ctx, contextId);
+	}
+
+	@Override
+	public String getKey() {
+		return contextId;
+	}
+}
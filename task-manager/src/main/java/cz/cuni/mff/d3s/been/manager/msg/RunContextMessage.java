@@ -28,4 +28,9 @@ final class RunContextMessage implements TaskMessage {
 	public TaskAction createAction(ClusterContext ctx) {
 		return Actions.createRunContextAction(ctx, contextId);
 	}
+
+	@Override
+	public String getKey() {
+		return contextId;
+	}
 }
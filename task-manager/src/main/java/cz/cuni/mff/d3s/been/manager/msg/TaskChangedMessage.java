@@ -19,14 +19,20 @@ final class TaskChangedMessage extends AbstractEntryTaskMessage {
 
 	private static final Logger log = LoggerFactory.getLogger(TaskChangedMessage.class);
 
+	/** state of the task before the change, null if not known */
+	private final TaskState previousState;
+
 	/**
 	 * Creates TaskChangedMessage
 	 * 
 	 * @param entry
 	 *          targeted task entry
+	 * @param previousState
+	 *          state of the task before the change, null if not known
 	 */
-	public TaskChangedMessage(TaskEntry entry) {
+	public TaskChangedMessage(TaskEntry entry, TaskState previousState) {
 		super(entry);
+		this.previousState = previousState;
 	}
 
 	@Override
@@ -36,18 +42,34 @@ final class TaskChangedMessage extends AbstractEntryTaskMessage {
 		if (state == TaskState.SUBMITTED || state == TaskState.WAITING)
 			return Actions.createScheduleTaskAction(ctx, getEntry());
 
-		if (this.getEntry().getTaskDescriptor().getType() == TaskType.BENCHMARK) {
-			if (state == TaskState.ABORTED) {
-				// a benchmark generator task has failed
-				log.info("BENCHMARK GENERATOR TASK ID {} FAILED", this.getEntry().getId());
-				return Actions.createResubmitBenchmarkAction(ctx, getEntry());
-			}
+		if (isFailedBenchmark()) {
+			// a benchmark generator task has failed
+			log.info("BENCHMARK GENERATOR TASK ID {} FAILED", this.getEntry().getId());
+			return Actions.createResubmitBenchmarkAction(ctx, getEntry());
 		}
 
-		if (state == TaskState.FINISHED || state == TaskState.ABORTED) {
-			return Actions.createTaskContextCheckerAction(ctx, getEntry());
+		if (isContextCheck()) {
+			return Actions.createTaskContextCheckerAction(ctx, getEntry(), previousState);
 		}
 
 		return null;
 	}
+
+	/**
+	 * Context checks are keyed by the context, so that the checks triggered by
+	 * the tasks of a context are processed in order.
+	 */
+	@Override
+	public String getKey() {
+		return isContextCheck() ? getEntry().getTaskContextId() : super.getKey();
+	}
+
+	private boolean isFailedBenchmark() {
+		return getEntry().getTaskDescriptor().getType() == TaskType.BENCHMARK && getEntry().getState() == TaskState.ABORTED;
+	}
+
+	private boolean isContextCheck() {
+		final TaskState state = getEntry().getState();
+		return (state == TaskState.FINISHED || state == TaskState.ABORTED) && !isFailedBenchmark();
+	}
 }
@@ -20,4 +20,12 @@ public interface TaskMessage extends Serializable {
 	 * @return action to take, or null (nothing will happen)
 	 */
 	public TaskAction createAction(ClusterContext ctx);
+
+	/**
+	 * Returns the ID of the entity (task or context) the message is about.
+	 * Messages with the same key are processed in the order they were sent.
+	 * 
+	 * @return ID of the targeted entity, or null if the message has none
+	 */
+	public String getKey();
 }
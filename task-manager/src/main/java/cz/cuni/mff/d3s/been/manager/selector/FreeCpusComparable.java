@@ -0,0 +1,27 @@
+package cz.cuni.mff.d3s.been.manager.selector;
+
+import java.util.Comparator;
+
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfos;
+
+/**
+ * Compares Runtimes according to scheduling needs of tasks requesting
+ * dedicated CPUs.
+ * 
+ * Runtimes with more free CPUs come first, then those running fewer tasks.
+ */
+final class FreeCpusComparable implements Comparator<RuntimeInfo> {
+
+	private final RuntimesComparable byTaskCount = new RuntimesComparable();
+
+	@Override
+	public int compare(RuntimeInfo o1, RuntimeInfo o2) {
+		int free1 = RuntimeInfos.getFreeCpuCount(o1);
+		int free2 = RuntimeInfos.getFreeCpuCount(o2);
+		if (free1 != free2) {
+			return (free1 > free2 ? -1 : 1);
+		}
+		return byTaskCount.compare(o1, o2);
+	}
+}
@@ -4,13 +4,15 @@ import static cz.cuni.mff.d3s.been.core.task.TaskExclusivity.EXCLUSIVE;
 import static cz.cuni.mff.d3s.been.core.task.TaskExclusivity.NON_EXCLUSIVE;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Collection;
 
 import com.hazelcast.core.MapEntry;
 import com.hazelcast.query.Predicate;
 
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.cluster.query.RuntimeIndex;
+import cz.cuni.mff.d3s.been.cluster.query.XPathPredicate;
+import cz.cuni.mff.d3s.been.cluster.query.XPathSelector;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfos;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
@@ -47,17 +49,22 @@ final class RandomRuntimeSelection implements IRuntimeSelection {
 		TaskExclusivity exclusivity = entry.getTaskDescriptor().getExclusive();
 		String contextId = entry.getTaskContextId();
 
-		Predicate<?, ?> predicate = new ExclusivityPredicate(exclusivity, contextId);
+		Collection<RuntimeInfo> runtimes;
 
-		List<RuntimeInfo> runtimes = new ArrayList<>(clusterCtx.getRuntimes().getRuntimeMap().values(predicate));
-
-		if (runtimes.size() == 0) {
-			throw new NoRuntimeFoundException("Cannot find suitable Host Runtime");
+		RuntimeIndex index = clusterCtx.getRuntimes().getIndex();
+		if (index != null) {
+			runtimes = new ArrayList<>();
+			for (RuntimeInfo info : index.find(XPathSelector.compile("/"))) {
+				if (XPathPredicate.isAvailable(info, contextId, exclusivity, 0)) {
+					runtimes.add(info);
+				}
+			}
+		} else {
+			Predicate<?, ?> predicate = new ExclusivityPredicate(exclusivity, contextId);
+			runtimes = clusterCtx.getRuntimes().getRuntimeMap().values(predicate);
 		}
 
-		Collections.shuffle(runtimes);
-		Collections.sort(runtimes, new RuntimesComparable());
-		return (runtimes.get(0).getId());
+		return RuntimeSelectors.selectBest(runtimes, new RuntimesComparable());
 
 	}
 
@@ -1,6 +1,10 @@
 package cz.cuni.mff.d3s.been.manager.selector;
 
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
 import cz.cuni.mff.d3s.been.core.task.TaskDescriptor;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
 
@@ -24,12 +28,45 @@ public final class RuntimeSelectors {
 		final TaskDescriptor td = entry.getTaskDescriptor();
 
 		boolean useXPath = td.isSetHostRuntimes() && td.getHostRuntimes().isSetXpath();
+		boolean needsCpus = td.isSetDedicatedCpus() && td.getDedicatedCpus() > 0;
 
-		if (useXPath) {
+		if (useXPath || needsCpus) {
 			return new XPathRuntimeSelection(ctx, entry);
 		} else {
 			return new RandomRuntimeSelection(ctx, entry);
 		}
 	}
 
+	/**
+	 * Picks the best of the candidate Host Runtimes in a single pass, choosing
+	 * randomly among equally good ones.
+	 * 
+	 * @param runtimes
+	 *          the candidates
+	 * @param comparator
+	 *          orders the candidates, the least one is the best
+	 * @return ID of the best Host Runtime
+	 * @throws NoRuntimeFoundException
+	 *           if there are no candidates
+	 */
+	static String selectBest(Iterable<RuntimeInfo> runtimes, Comparator<RuntimeInfo> comparator) throws NoRuntimeFoundException {
+		RuntimeInfo best = null;
+		int ties = 0;
+
+		for (RuntimeInfo info : runtimes) {
+			final int cmp = (best == null) ? -1 : comparator.compare(info, best);
+			if (cmp < 0) {
+				best = info;
+				ties = 1;
+			} else if (cmp == 0 && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+				best = info;
+			}
+		}
+
+		if (best == null) {
+			throw new NoRuntimeFoundException("Cannot find suitable Host Runtime");
+		}
+		return best.getId();
+	}
+
 }
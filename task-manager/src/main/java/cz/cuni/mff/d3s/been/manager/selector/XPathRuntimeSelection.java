@@ -1,20 +1,25 @@
 package cz.cuni.mff.d3s.been.manager.selector;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Collection;
 
 import com.hazelcast.query.Predicate;
 
 import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.cluster.query.RuntimeIndex;
 import cz.cuni.mff.d3s.been.cluster.query.XPathPredicate;
+import cz.cuni.mff.d3s.been.cluster.query.XPathSelector;
 import cz.cuni.mff.d3s.been.core.ri.RuntimeInfo;
 import cz.cuni.mff.d3s.been.core.task.TaskDescriptor;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
 import cz.cuni.mff.d3s.been.core.task.TaskExclusivity;
 
 /**
- * Finds a free Host Runtime for a task based on an xpath selector
+ * Finds a free Host Runtime for a task based on an xpath selector and the
+ * number of CPUs the task needs for itself
+ * 
+ * The local {@link RuntimeIndex} is used when maintained, the cluster is
+ * queried otherwise.
  * 
  * @author Martin Sixta
  */
@@ -48,17 +53,24 @@ final class XPathRuntimeSelection implements IRuntimeSelection {
 
 		TaskExclusivity exclusivity = td.getExclusive();
 		String contextId = entry.getTaskContextId();
-		Predicate<?, ?> predicate = new XPathPredicate(contextId, xpath, exclusivity);
+		int dedicatedCpus = td.isSetDedicatedCpus() ? td.getDedicatedCpus() : 0;
 
-		List<RuntimeInfo> runtimes = new ArrayList<>(clusterCtx.getRuntimes().getRuntimeMap().values(predicate));
+		Collection<RuntimeInfo> runtimes;
 
-		if (runtimes.size() == 0) {
-			throw new NoRuntimeFoundException("Cannot find suitable Host Runtime");
+		RuntimeIndex index = clusterCtx.getRuntimes().getIndex();
+		if (index != null) {
+			runtimes = new ArrayList<>();
+			for (RuntimeInfo info : index.find(XPathSelector.compile(xpath))) {
+				if (XPathPredicate.isAvailable(info, contextId, exclusivity, dedicatedCpus)) {
+					runtimes.add(info);
+				}
+			}
+		} else {
+			Predicate<?, ?> predicate = new XPathPredicate(contextId, xpath, exclusivity, dedicatedCpus);
+			runtimes = clusterCtx.getRuntimes().getRuntimeMap().values(predicate);
 		}
 
-		Collections.shuffle(runtimes);
-		Collections.sort(runtimes, new RuntimesComparable());
-		return (runtimes.get(0).getId());
+		return RuntimeSelectors.selectBest(runtimes, (dedicatedCpus > 0) ? new FreeCpusComparable() : new RuntimesComparable());
 
 	}
 }
@@ -0,0 +1,114 @@
+package cz.cuni.mff.d3s.been.manager;
+
+import static cz.cuni.mff.d3s.been.core.task.TaskState.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
+
+/**
+ * Test for {@link LocalTaskIndex}
+ */
+public class LocalTaskIndexTest extends Assert {
+
+	private LocalTaskIndex index;
+
+	@Before
+	public void setUp() {
+		index = new LocalTaskIndex();
+	}
+
+	@Test
+	public void testUpdateMovesTaskBetweenStatesAndRuntimes() {
+		index.update(entry("t1", WAITING, null));
+		assertEquals(set("t1"), index.getTasks(WAITING));
+		assertEquals(set("t1"), index.getTasksOnRuntime(null));
+
+		index.update(entry("t1", RUNNING, "hr1"));
+		assertEquals(set(), index.getTasks(WAITING));
+		assertEquals(set("t1"), index.getTasks(RUNNING));
+		assertEquals(set(), index.getTasksOnRuntime(null));
+		assertEquals(set("t1"), index.getTasksOnRuntime("hr1"));
+		assertEquals(set("hr1"), index.getRuntimeIds());
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void testDoneTasksAreNotIndexedByRuntime() {
+		index.update(entry("t1", RUNNING, "hr1"));
+		index.update(entry("t1", FINISHED, "hr1"));
+		index.update(entry("t2", ABORTED, "hr1"));
+
+		assertEquals(set("t1"), index.getTasks(FINISHED));
+		assertEquals(set("t2"), index.getTasks(ABORTED));
+		assertEquals(set(), index.getTasksOnRuntime("hr1"));
+		assertEquals(set(), index.getRuntimeIds());
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testRemove() {
+		index.update(entry("t1", RUNNING, "hr1"));
+		index.update(entry("t2", RUNNING, "hr1"));
+
+		index.remove("t1");
+		assertEquals(set("t2"), index.getTasks(RUNNING));
+		assertEquals(set("t2"), index.getTasksOnRuntime("hr1"));
+
+		index.remove("t2");
+		assertEquals(set(), index.getTasks(RUNNING));
+		assertEquals(set(), index.getRuntimeIds());
+		assertEquals(0, index.size());
+
+		// unknown tasks are ignored
+		index.remove("t3");
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void testRetainAll() {
+		index.update(entry("t1", WAITING, null));
+		index.update(entry("t2", RUNNING, "hr1"));
+		index.update(entry("t3", RUNNING, "hr2"));
+
+		index.retainAll(Arrays.asList("t1", "t3", "t4"));
+		assertEquals(set("t1"), index.getTasks(WAITING));
+		assertEquals(set("t3"), index.getTasks(RUNNING));
+		assertEquals(set(null, "hr2"), index.getRuntimeIds());
+		assertEquals(2, index.size());
+
+		index.retainAll(Collections.<String> emptySet());
+		assertEquals(set(), index.getTasks(WAITING));
+		assertEquals(set(), index.getRuntimeIds());
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void testReturnedSetsAreCopies() {
+		index.update(entry("t1", WAITING, null));
+		index.getTasks(WAITING).clear();
+		index.getTasksOnRuntime(null).clear();
+
+		assertEquals(set("t1"), index.getTasks(WAITING));
+		assertEquals(set("t1"), index.getTasksOnRuntime(null));
+	}
+
+	private static TaskEntry entry(String id, TaskState state, String runtimeId) {
+		final TaskEntry entry = new TaskEntry();
+		entry.setId(id);
+		entry.setState(state);
+		entry.setRuntimeId(runtimeId);
+		return entry;
+	}
+
+	private static HashSet<String> set(String... ids) {
+		return new HashSet<>(Arrays.asList(ids));
+	}
+}
@@ -0,0 +1,110 @@
+package cz.cuni.mff.d3s.been.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.manager.action.TaskAction;
+import cz.cuni.mff.d3s.been.manager.msg.TaskMessage;
+import cz.cuni.mff.d3s.been.mq.IMessageSender;
+import cz.cuni.mff.d3s.been.mq.MessageQueues;
+
+/**
+ * Test for {@link TaskMessageProcessor}
+ */
+public class TaskMessageProcessorTest extends Assert {
+
+	private static final int KEYS = 10;
+	private static final int MESSAGES_PER_KEY = 50;
+
+	/** sequence numbers of executed messages, by key */
+	private static final Map<String, List<Integer>> executed = new ConcurrentHashMap<>();
+
+	@Before
+	public void setUp() throws Exception {
+		executed.clear();
+		MessageQueues.getInstance().createInprocQueue(TaskManagerNames.ACTION_QUEUE_NAME);
+	}
+
+	@Test
+	public void testMessagesWithSameKeyAreProcessedInOrder() throws Exception {
+		final TaskMessageProcessor processor = new TaskMessageProcessor(null, 4);
+		processor.start();
+
+		final IMessageSender<TaskMessage> sender = MessageQueues.getInstance().createSender(
+				TaskManagerNames.ACTION_QUEUE_NAME);
+		for (int i = 0; i < MESSAGES_PER_KEY; ++i) {
+			for (int key = 0; key < KEYS; ++key) {
+				sender.send(new RecordingMessage("key-" + key, i));
+			}
+		}
+		sender.close();
+
+		// the poison is sent through another socket, it could overtake the messages
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (executedCount() < KEYS * MESSAGES_PER_KEY && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		processor.poison();
+
+		assertEquals(KEYS, executed.size());
+		for (Map.Entry<String, List<Integer>> sequence : executed.entrySet()) {
+			final List<Integer> expected = new ArrayList<>();
+			for (int i = 0; i < MESSAGES_PER_KEY; ++i) {
+				expected.add(i);
+			}
+			assertEquals(sequence.getKey(), expected, sequence.getValue());
+		}
+	}
+
+	private static int executedCount() {
+		int count = 0;
+		for (List<Integer> sequences : executed.values()) {
+			count += sequences.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Message recording the order in which its actions are executed.
+	 */
+	private static final class RecordingMessage implements TaskMessage {
+
+		private final String key;
+		private final int sequence;
+
+		RecordingMessage(String key, int sequence) {
+			this.key = key;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public TaskAction createAction(ClusterContext ctx) {
+			return new TaskAction() {
+				@Override
+				public void execute() {
+					List<Integer> sequences = executed.get(key);
+					if (sequences == null) {
+						sequences = new ArrayList<>();
+						executed.put(key, sequences);
+					}
+					// no synchronization, concurrent actions with the same key would be caught
+					final int size = sequences.size();
+					Thread.yield();
+					sequences.add(size, sequence);
+				}
+			};
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package cz.cuni.mff.d3s.been.manager.action;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicate;
+
+import cz.cuni.mff.d3s.been.cluster.context.ClusterContext;
+import cz.cuni.mff.d3s.been.cluster.context.TaskContexts;
+import cz.cuni.mff.d3s.been.cluster.context.Tasks;
+import cz.cuni.mff.d3s.been.core.task.TaskContextEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskContextState;
+import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
+
+/**
+ * Test for {@link TaskContextCheckerAction}
+ */
+public class TaskContextCheckerActionTest extends Assert {
+
+	private static final String CONTEXT_ID = "context";
+
+	private ClusterContext ctx;
+	private TaskContexts contexts;
+	private IMap<String, TaskContextEntry> contextsMap;
+	private IMap<String, TaskEntry> tasksMap;
+
+	private TaskContextEntry context;
+
+	/** done task counters of the context */
+	private final AtomicLong finished = new AtomicLong();
+	private final AtomicLong aborted = new AtomicLong();
+
+	/** done tasks of the context in the task map */
+	private final List<TaskEntry> doneTasks = new ArrayList<>();
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		ctx = mock(ClusterContext.class);
+		contexts = mock(TaskContexts.class);
+		contextsMap = mock(IMap.class);
+		tasksMap = mock(IMap.class);
+		final Tasks tasks = mock(Tasks.class);
+
+		when(ctx.getTaskContexts()).thenReturn(contexts);
+		when(ctx.getTasks()).thenReturn(tasks);
+		when(tasks.getTasksMap()).thenReturn(tasksMap);
+		when(contexts.getTaskContextsMap()).thenReturn(contextsMap);
+
+		context = new TaskContextEntry();
+		context.setId(CONTEXT_ID);
+		context.setContextState(TaskContextState.RUNNING);
+		context.getContainedTask().add("t1");
+		context.getContainedTask().add("t2");
+		when(contexts.getTaskContext(CONTEXT_ID)).thenReturn(context);
+
+		when(contexts.getFinishedTaskCount(CONTEXT_ID)).thenAnswer(counter(finished));
+		when(contexts.getAbortedTaskCount(CONTEXT_ID)).thenAnswer(counter(aborted));
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				(invocation.getArguments()[1] == TaskState.ABORTED ? aborted : finished).incrementAndGet();
+				return null;
+			}
+		}).when(contexts).countDoneTask(anyString(), any(TaskState.class));
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				finished.set((Long) invocation.getArguments()[1]);
+				aborted.set((Long) invocation.getArguments()[2]);
+				return null;
+			}
+		}).when(contexts).setDoneTaskCounts(anyString(), anyLong(), anyLong());
+		when(tasksMap.values(any(Predicate.class))).thenAnswer(new Answer<Collection<TaskEntry>>() {
+			@Override
+			public Collection<TaskEntry> answer(InvocationOnMock invocation) {
+				return new ArrayList<>(doneTasks);
+			}
+		});
+	}
+
+	@Test
+	public void testCountsDoneTasksWithoutQueryingTasks() throws TaskActionException {
+		finish("t1", TaskState.FINISHED, TaskState.RUNNING);
+		assertEquals(1, finished.get());
+		assertEquals(TaskContextState.RUNNING, context.getContextState());
+		verify(contextsMap, never()).lock(anyString());
+
+		finish("t2", TaskState.FINISHED, TaskState.RUNNING);
+		assertEquals(2, finished.get());
+		assertEquals(TaskContextState.FINISHED, context.getContextState());
+		verify(contexts).cleanupTaskContext(context);
+
+		verify(tasksMap, never()).values(any(Predicate.class));
+	}
+
+	@Test
+	public void testAbortedTaskFailsContext() throws TaskActionException {
+		finish("t1", TaskState.FINISHED, TaskState.RUNNING);
+		finish("t2", TaskState.ABORTED, TaskState.RUNNING);
+
+		assertEquals(TaskContextState.FAILED, context.getContextState());
+		verify(contexts).putContextEntry(context);
+		verify(contexts, never()).cleanupTaskContext(any(TaskContextEntry.class));
+	}
+
+	@Test
+	public void testRepeatedChangeIsNotCounted() throws TaskActionException {
+		finish("t1", TaskState.FINISHED, TaskState.RUNNING);
+		// the same task reported again, e.g. after a migration
+		finish("t1", TaskState.FINISHED, TaskState.FINISHED);
+
+		assertEquals(1, finished.get());
+		assertEquals(TaskContextState.RUNNING, context.getContextState());
+	}
+
+	@Test
+	public void testOvershootIsRecounted() throws TaskActionException {
+		// counted twice (e.g. the change was redelivered without its previous state)
+		finished.set(2);
+		doneTasks.add(task("t1", TaskState.FINISHED));
+
+		finish("t2", TaskState.FINISHED, TaskState.RUNNING);
+
+		verify(tasksMap).values(any(Predicate.class));
+		assertEquals(2, finished.get());
+		assertEquals(TaskContextState.FINISHED, context.getContextState());
+	}
+
+	@Test
+	public void testOvershootOfRunningContextIsRecounted() throws TaskActionException {
+		finished.set(2);
+
+		finish("t1", TaskState.FINISHED, TaskState.RUNNING);
+
+		assertEquals(1, finished.get());
+		assertEquals(TaskContextState.RUNNING, context.getContextState());
+	}
+
+	@Test
+	public void testRecountRecoversLostIncrement() throws TaskActionException {
+		// the increment of t1 was lost
+		finish("t2", TaskState.FINISHED, TaskState.RUNNING);
+		doneTasks.add(task("t1", TaskState.FINISHED));
+		assertEquals(TaskContextState.RUNNING, context.getContextState());
+
+		Actions.createContextRecountAction(ctx, CONTEXT_ID).execute();
+
+		assertEquals(2, finished.get());
+		assertEquals(TaskContextState.FINISHED, context.getContextState());
+		verify(contexts).cleanupTaskContext(context);
+	}
+
+	@Test
+	public void testRecountOfRunningContext() throws TaskActionException {
+		doneTasks.add(task("t1", TaskState.ABORTED));
+
+		Actions.createContextRecountAction(ctx, CONTEXT_ID).execute();
+
+		assertEquals(0, finished.get());
+		assertEquals(1, aborted.get());
+		assertEquals(TaskContextState.RUNNING, context.getContextState());
+	}
+
+	@Test
+	public void testRecountOfRemovedContext() throws TaskActionException {
+		when(contexts.getTaskContext(CONTEXT_ID)).thenReturn(null);
+
+		Actions.createContextRecountAction(ctx, CONTEXT_ID).execute();
+
+		verify(tasksMap, never()).values(any(Predicate.class));
+	}
+
+	@Test
+	public void testLingeringContextIsNotChecked() throws TaskActionException {
+		context.setLingering(true);
+
+		finish("t1", TaskState.FINISHED, TaskState.RUNNING);
+		finish("t2", TaskState.FINISHED, TaskState.RUNNING);
+
+		assertEquals(TaskContextState.RUNNING, context.getContextState());
+		verify(contexts, never()).countDoneTask(anyString(), any(TaskState.class));
+	}
+
+	private void finish(String taskId, TaskState state, TaskState previousState) throws TaskActionException {
+		final TaskEntry entry = task(taskId, state);
+		if (!doneTasks.contains(entry)) {
+			doneTasks.add(entry);
+		}
+		Actions.createTaskContextCheckerAction(ctx, entry, previousState).execute();
+	}
+
+	private static TaskEntry task(String taskId, TaskState state) {
+		final TaskEntry entry = new TaskEntry();
+		entry.setId(taskId);
+		entry.setTaskContextId(CONTEXT_ID);
+		entry.setState(state);
+		return entry;
+	}
+
+	private static Answer<Long> counter(final AtomicLong counter) {
+		return new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) {
+				return counter.get();
+			}
+		};
+	}
+}
@@ -0,0 +1,41 @@
+package cz.cuni.mff.d3s.been.manager.msg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import cz.cuni.mff.d3s.been.core.task.TaskDescriptor;
+import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskState;
+import cz.cuni.mff.d3s.been.core.task.TaskType;
+
+/**
+ * Test for keys of {@link TaskChangedMessage}
+ */
+public class TaskChangedMessageTest extends Assert {
+
+	@Test
+	public void testContextChecksAreKeyedByContext() {
+		assertEquals("context", new TaskChangedMessage(entry(TaskState.FINISHED, TaskType.TASK), null).getKey());
+		assertEquals("context", new TaskChangedMessage(entry(TaskState.ABORTED, TaskType.TASK), null).getKey());
+		assertEquals("context", new TaskChangedMessage(entry(TaskState.FINISHED, TaskType.BENCHMARK), null).getKey());
+	}
+
+	@Test
+	public void testOtherChangesAreKeyedByTask() {
+		assertEquals("task", new TaskChangedMessage(entry(TaskState.RUNNING, TaskType.TASK), null).getKey());
+		assertEquals("task", new TaskChangedMessage(entry(TaskState.WAITING, TaskType.TASK), null).getKey());
+		assertEquals("task", new TaskChangedMessage(entry(TaskState.ABORTED, TaskType.BENCHMARK), null).getKey());
+	}
+
+	private static TaskEntry entry(TaskState state, TaskType type) {
+		final TaskDescriptor descriptor = new TaskDescriptor();
+		descriptor.setType(type);
+
+		final TaskEntry entry = new TaskEntry();
+		entry.setId("task");
+		entry.setTaskContextId("context");
+		entry.setState(state);
+		entry.setTaskDescriptor(descriptor);
+		return entry;
+	}
+}
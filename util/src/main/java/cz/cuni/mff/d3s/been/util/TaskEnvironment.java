@@ -0,0 +1,58 @@
+package cz.cuni.mff.d3s.been.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Environment properties of a task process.
+ * <p/>
+ * A task normally receives its properties as environment variables of its
+ * process. When the task is run by a launcher JVM which had been started before
+ * the task was known, the launcher cannot change its process environment and
+ * sets the task's properties through {@link #set(Map)} instead. Code running on
+ * the task's side should therefore read its properties from this class rather
+ * than from {@link System#getenv()}.
+ */
+public final class TaskEnvironment {
+
+	/** Properties set by a launcher, <code>null</code> to use the process environment */
+	private static volatile Map<String, String> environment;
+
+	private TaskEnvironment() {
+		// prevents instantiation
+	}
+
+	/**
+	 * Returns the value of a task property.
+	 *
+	 * @param name
+	 *          name of the property
+	 * @return value of the property, <code>null</code> if not set
+	 */
+	public static String get(String name) {
+		final Map<String, String> env = environment;
+		return (env == null) ? System.getenv(name) : env.get(name);
+	}
+
+	/**
+	 * Returns all task properties.
+	 *
+	 * @return unmodifiable map of the properties
+	 */
+	public static Map<String, String> getAll() {
+		final Map<String, String> env = environment;
+		return (env == null) ? System.getenv() : env;
+	}
+
+	/**
+	 * Replaces the task properties with the given ones. Called by launchers
+	 * before they run the task.
+	 *
+	 * @param properties
+	 *          properties of the task
+	 */
+	public static void set(Map<String, String> properties) {
+		environment = Collections.unmodifiableMap(new HashMap<>(properties));
+	}
+}
@@ -5,10 +5,14 @@ import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.services.PageRenderLinkSource;
 
 import cz.cuni.mff.d3s.been.api.BeenApiException;
+import cz.cuni.mff.d3s.been.bpk.BpkIdentifier;
 import cz.cuni.mff.d3s.been.core.task.Debug;
 import cz.cuni.mff.d3s.been.core.task.ModeEnum;
 import cz.cuni.mff.d3s.been.core.task.TaskEntry;
+import cz.cuni.mff.d3s.been.core.task.TaskDescriptor;
 import cz.cuni.mff.d3s.been.core.task.TaskProperty;
+import cz.cuni.mff.d3s.been.core.task.TaskStartupPhase;
+import cz.cuni.mff.d3s.been.core.task.TaskStartupStatistics;
 import cz.cuni.mff.d3s.been.web.components.Layout;
 import cz.cuni.mff.d3s.been.web.model.TaskSupport;
 import cz.cuni.mff.d3s.been.web.pages.DetailPage;
@@ -29,8 +33,15 @@ public class Detail extends DetailPage {
 	@Property
 	private TaskProperty property;
 
+	@Property
+	private TaskStartupPhase startupPhase;
+
 	private TaskEntry task;
 
+	private TaskStartupStatistics runtimeStartupStatistics;
+
+	private TaskStartupStatistics bpkStartupStatistics;
+
 	public TaskEntry getTask() throws BeenApiException {
 		if (this.task == null) {
 			this.task = getApi().getTask(itemId);
@@ -55,6 +66,45 @@ public class Detail extends DetailPage {
 		throw new IllegalStateException("Invalid enum value.");
 	}
 
+	public TaskStartupPhase[] getStartupPhases() {
+		return TaskStartupPhase.values();
+	}
+
+	public String taskStartupDuration(TaskStartupPhase phase) throws BeenApiException {
+		Long duration = phase.getDuration(getTask().getStartupTimes());
+		return (duration == null) ? "-" : duration + " ms";
+	}
+
+	public String runtimeStartupPercentiles(TaskStartupPhase phase) throws BeenApiException {
+		if (runtimeStartupStatistics == null && getTask().getRuntimeId() != null) {
+			runtimeStartupStatistics = getApi().getTaskStartupStatisticsForRuntime(getTask().getRuntimeId());
+		}
+		return startupPercentilesToString(runtimeStartupStatistics, phase);
+	}
+
+	public String bpkStartupPercentiles(TaskStartupPhase phase) throws BeenApiException {
+		if (bpkStartupStatistics == null) {
+			TaskDescriptor td = getTask().getTaskDescriptor();
+			BpkIdentifier bpkIdentifier = new BpkIdentifier().withGroupId(td.getGroupId()).withBpkId(td.getBpkId()).withVersion(
+					td.getVersion());
+			bpkStartupStatistics = getApi().getTaskStartupStatisticsForBpk(bpkIdentifier);
+		}
+		return startupPercentilesToString(bpkStartupStatistics, phase);
+	}
+
+	private String startupPercentilesToString(TaskStartupStatistics statistics, TaskStartupPhase phase) {
+		if (statistics == null || statistics.getPhase(phase).getCount() == 0) {
+			return "-";
+		}
+		TaskStartupStatistics.Phase phaseStatistics = statistics.getPhase(phase);
+		return String.format(
+				"%d / %d / %d ms (%d tasks)",
+				phaseStatistics.getP50(),
+				phaseStatistics.getP90(),
+				phaseStatistics.getP99(),
+				phaseStatistics.getCount());
+	}
+
 	public boolean isTaskInFinalState(String taskId) throws BeenApiException {
 		return new TaskSupport(getApi()).isTaskInFinalState(taskId);
 	}
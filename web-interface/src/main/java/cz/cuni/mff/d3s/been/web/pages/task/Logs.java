@@ -24,6 +24,9 @@ import java.util.Collection;
 @Import(library = { "context:js/logs.js" })
 public class Logs extends Page {
 
+	/** Number of log messages shown on one page */
+	public static final int LOGS_PER_PAGE = 500;
+
 	@Property
 	private TaskEntry task;
 
@@ -33,11 +36,45 @@ public class Logs extends Page {
 	@Property
 	private TaskLogMessage log;
 
+	/** Index of the displayed page of log messages (0-based) */
+	@Property
+	private int page;
+
 	private JSONUtils jsonUtils = JSONUtils.newInstance();
 
+	boolean onActivate(String taskId, int page) throws DAOException, BeenApiException {
+		this.task = api.getApi().getTask(taskId);
+		this.page = (page < 0) ? 0 : page;
+		this.logs = api.getApi().getLogsForTask(taskId, this.page * LOGS_PER_PAGE, LOGS_PER_PAGE);
+		return true;
+	}
+
 	void onActivate(String taskId) throws DAOException, BeenApiException {
-		task = api.getApi().getTask(taskId);
-		logs = api.getApi().getLogsForTask(taskId);
+		onActivate(taskId, 0);
+	}
+
+	Object[] onPassivate() {
+		return new Object[] { task.getId(), page };
+	}
+
+	public boolean isHasPreviousPage() {
+		return page > 0;
+	}
+
+	public boolean isHasNextPage() {
+		return logs.size() == LOGS_PER_PAGE;
+	}
+
+	public int getPageNumber() {
+		return page + 1;
+	}
+
+	public int getPreviousPage() {
+		return page - 1;
+	}
+
+	public int getNextPage() {
+		return page + 1;
 	}
 
 	public String shortLogMessage(LogMessage log) {